@@ -19,7 +19,6 @@ package org.jclouds.atmos.blobstore;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.atmos.options.PutOptions.Builder.publicRead;
 
-import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 
@@ -351,9 +350,12 @@ public class AtmosBlobStore extends BaseBlobStore {
       throw new UnsupportedOperationException("Atmos does not support multipart uploads");
    }
 
+   /**
+    * Atmos does not support multipart uploads, so every copy is streamed through a single put.
+    */
    @Override
-   public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException("Atmos does not support multipart uploads");
+   protected long getMultipartCopyThreshold() {
+      return Long.MAX_VALUE;
    }
 
    @Override
@@ -27,6 +27,12 @@ public final class FilesystemConstants {
     /** Specify if the Content-Type of a file should be autodetected if it is not set */
     public static final String PROPERTY_AUTO_DETECT_CONTENT_TYPE = "jclouds.filesystem.auto-detect-content-type";
 
+    /**
+     * Specify if blob metadata should be kept in a per-container index next to the container directories, so that
+     * HEAD, LIST and count do not touch blob files.  The index only sees changes made through jclouds.
+     */
+    public static final String PROPERTY_METADATA_INDEX = "jclouds.filesystem.metadata-index";
+
     private FilesystemConstants() {
         throw new AssertionError("intentionally unimplemented");
     }
@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.io.Closeables;
+
+/**
+ * Sorted index of the blob metadata in one container, so that HEAD, LIST and
+ * count do not have to walk directories or read extended attributes.  The
+ * index is held in memory and persisted as an append-only log of put and
+ * remove records.  The log is rewritten from memory once it holds more dead
+ * records than live entries.  A log truncated by a crash is read up to the
+ * last complete record.
+ */
+final class ContainerMetadataIndex implements Closeable {
+
+   private static final byte PUT = 1;
+   private static final byte REMOVE = 2;
+   /** Do not bother compacting small logs. */
+   private static final int MIN_COMPACTION_RECORDS = 1024;
+
+   /** Metadata of a single blob, mirroring the extended attributes of the blob file. */
+   static final class Entry {
+      final long size;
+      final long lastModified;
+      /** MD5 of a regular blob or the ASCII ETag of a multipart blob, as stored in user.content-md5 */
+      @Nullable final byte[] eTag;
+      @Nullable final String cacheControl;
+      @Nullable final String contentDisposition;
+      @Nullable final String contentEncoding;
+      @Nullable final String contentLanguage;
+      @Nullable final String contentType;
+      @Nullable final Long expires;
+      @Nullable final String tier;
+      final Map<String, String> userMetadata;
+
+      Entry(long size, long lastModified, @Nullable byte[] eTag, @Nullable String cacheControl,
+            @Nullable String contentDisposition, @Nullable String contentEncoding, @Nullable String contentLanguage,
+            @Nullable String contentType, @Nullable Long expires, @Nullable String tier,
+            Map<String, String> userMetadata) {
+         this.size = size;
+         this.lastModified = lastModified;
+         this.eTag = eTag;
+         this.cacheControl = cacheControl;
+         this.contentDisposition = contentDisposition;
+         this.contentEncoding = contentEncoding;
+         this.contentLanguage = contentLanguage;
+         this.contentType = contentType;
+         this.expires = expires;
+         this.tier = tier;
+         this.userMetadata = ImmutableMap.copyOf(checkNotNull(userMetadata, "userMetadata"));
+      }
+   }
+
+   private final File logFile;
+   private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<String, Entry>();
+   private DataOutputStream log;
+   private int records;
+
+   private ContainerMetadataIndex(File logFile) {
+      this.logFile = checkNotNull(logFile, "logFile");
+   }
+
+   /**
+    * Loads the index persisted in logFile.
+    *
+    * @return the index, or null if logFile does not exist
+    */
+   @Nullable
+   static ContainerMetadataIndex load(File logFile) throws IOException {
+      ContainerMetadataIndex index = new ContainerMetadataIndex(logFile);
+      DataInputStream in;
+      try {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+      } catch (FileNotFoundException fnfe) {
+         return null;
+      }
+      boolean truncated = false;
+      try {
+         while (true) {
+            byte op;
+            try {
+               op = in.readByte();
+            } catch (EOFException eof) {
+               break;
+            }
+            try {
+               String key = in.readUTF();
+               if (op == PUT) {
+                  index.entries.put(key, readEntry(in));
+               } else if (op == REMOVE) {
+                  index.entries.remove(key);
+               } else {
+                  throw new IOException("Unknown record type " + op + " in " + logFile);
+               }
+            } catch (EOFException eof) {
+               truncated = true;
+               break;
+            }
+            index.records++;
+         }
+      } finally {
+         Closeables.close(in, true);
+      }
+      if (truncated) {
+         index.compact();
+      }
+      return index;
+   }
+
+   /** Creates a new index holding entries, replacing logFile if it exists. */
+   static ContainerMetadataIndex create(File logFile, Map<String, Entry> entries) throws IOException {
+      ContainerMetadataIndex index = new ContainerMetadataIndex(logFile);
+      index.entries.putAll(entries);
+      index.compact();
+      return index;
+   }
+
+   @Nullable
+   Entry get(String key) {
+      return entries.get(key);
+   }
+
+   boolean contains(String key) {
+      return entries.containsKey(key);
+   }
+
+   int size() {
+      return entries.size();
+   }
+
+   /**
+    * @return live view of the keys which start with prefix and sort strictly
+    *         after marker, in key order
+    */
+   NavigableSet<String> keys(@Nullable String prefix, @Nullable String marker) {
+      NavigableMap<String, Entry> view = entries;
+      String lastPrefix = prefix == null ? null : prefix + (char) 65535;
+      if (marker != null && lastPrefix != null && marker.compareTo(lastPrefix) >= 0) {
+         return ImmutableSortedSet.of();
+      }
+      if (marker != null && (prefix == null || marker.compareTo(prefix) >= 0)) {
+         view = view.tailMap(marker, /*inclusive=*/ false);
+      } else if (prefix != null) {
+         view = view.tailMap(prefix, /*inclusive=*/ true);
+      }
+      if (lastPrefix != null) {
+         view = view.headMap(lastPrefix, /*inclusive=*/ false);
+      }
+      return view.navigableKeySet();
+   }
+
+   synchronized void put(String key, Entry entry) throws IOException {
+      DataOutputStream out = log();
+      out.writeByte(PUT);
+      out.writeUTF(key);
+      writeEntry(out, entry);
+      out.flush();
+      entries.put(key, entry);
+      records++;
+      compactIfNeeded();
+   }
+
+   synchronized void remove(String key) throws IOException {
+      if (!entries.containsKey(key)) {
+         return;
+      }
+      DataOutputStream out = log();
+      out.writeByte(REMOVE);
+      out.writeUTF(key);
+      out.flush();
+      entries.remove(key);
+      records++;
+      compactIfNeeded();
+   }
+
+   /** Closes the log and deletes it. */
+   synchronized void delete() throws IOException {
+      close();
+      entries.clear();
+      Files.deleteIfExists(logFile.toPath());
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      if (log != null) {
+         try {
+            log.close();
+         } finally {
+            log = null;
+         }
+      }
+   }
+
+   private DataOutputStream log() throws IOException {
+      if (log == null) {
+         log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+      }
+      return log;
+   }
+
+   private void compactIfNeeded() throws IOException {
+      if (records > MIN_COMPACTION_RECORDS && records > 2 * entries.size()) {
+         compact();
+      }
+   }
+
+   /** Rewrites the log with one record per live entry. */
+   private synchronized void compact() throws IOException {
+      close();
+      File tmpFile = new File(logFile.getPath() + ".tmp");
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      boolean threw = true;
+      try {
+         for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            out.writeByte(PUT);
+            out.writeUTF(entry.getKey());
+            writeEntry(out, entry.getValue());
+         }
+         threw = false;
+      } finally {
+         Closeables.close(out, threw);
+      }
+      Files.move(tmpFile.toPath(), logFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+      records = entries.size();
+   }
+
+   private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+      out.writeLong(entry.size);
+      out.writeLong(entry.lastModified);
+      if (entry.eTag == null) {
+         out.writeInt(-1);
+      } else {
+         out.writeInt(entry.eTag.length);
+         out.write(entry.eTag);
+      }
+      writeNullableString(out, entry.cacheControl);
+      writeNullableString(out, entry.contentDisposition);
+      writeNullableString(out, entry.contentEncoding);
+      writeNullableString(out, entry.contentLanguage);
+      writeNullableString(out, entry.contentType);
+      out.writeBoolean(entry.expires != null);
+      if (entry.expires != null) {
+         out.writeLong(entry.expires);
+      }
+      writeNullableString(out, entry.tier);
+      out.writeInt(entry.userMetadata.size());
+      for (Map.Entry<String, String> metadata : entry.userMetadata.entrySet()) {
+         out.writeUTF(metadata.getKey());
+         out.writeUTF(metadata.getValue());
+      }
+   }
+
+   private static Entry readEntry(DataInputStream in) throws IOException {
+      long size = in.readLong();
+      long lastModified = in.readLong();
+      byte[] eTag = null;
+      int eTagLength = in.readInt();
+      if (eTagLength >= 0) {
+         eTag = new byte[eTagLength];
+         in.readFully(eTag);
+      }
+      String cacheControl = readNullableString(in);
+      String contentDisposition = readNullableString(in);
+      String contentEncoding = readNullableString(in);
+      String contentLanguage = readNullableString(in);
+      String contentType = readNullableString(in);
+      Long expires = in.readBoolean() ? in.readLong() : null;
+      String tier = readNullableString(in);
+      int userMetadataSize = in.readInt();
+      ImmutableMap.Builder<String, String> userMetadata = ImmutableMap.builder();
+      for (int i = 0; i < userMetadataSize; i++) {
+         userMetadata.put(in.readUTF(), in.readUTF());
+      }
+      return new Entry(size, lastModified, eTag, cacheControl, contentDisposition, contentEncoding,
+            contentLanguage, contentType, expires, tier, userMetadata.build());
+   }
+
+   private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+         out.writeUTF(value);
+      }
+   }
+
+   @Nullable
+   private static String readNullableString(DataInputStream in) throws IOException {
+      return in.readBoolean() ? in.readUTF() : null;
+   }
+}
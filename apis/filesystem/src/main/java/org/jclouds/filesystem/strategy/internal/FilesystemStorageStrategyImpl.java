@@ -36,10 +36,13 @@ import static org.jclouds.filesystem.util.Utils.setPublic;
 import static org.jclouds.util.Closeables2.closeQuietly;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.DirectoryStream;
@@ -48,11 +51,19 @@ import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import javax.annotation.Resource;
@@ -90,10 +101,12 @@ import org.jclouds.rest.annotations.ParamValidators;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
@@ -133,6 +146,12 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    protected final FilesystemContainerNameValidator filesystemContainerNameValidator;
    protected final FilesystemBlobKeyValidator filesystemBlobKeyValidator;
    private final Supplier<Location> defaultLocation;
+   private final ConcurrentMap<String, ContainerMetadataIndex> metadataIndexes =
+         new ConcurrentHashMap<String, ContainerMetadataIndex>();
+
+   @com.google.inject.Inject(optional = true)
+   @Named(FilesystemConstants.PROPERTY_METADATA_INDEX)
+   protected boolean useMetadataIndex = false;
 
    @Inject
    protected FilesystemStorageStrategyImpl(Provider<BlobBuilder> blobBuilders,
@@ -246,6 +265,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          return;
       }
       deleteDirectory(container, null);
+      invalidateMetadataIndex(container);
    }
 
    @Override
@@ -268,7 +288,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             // should also get deleted
             delete(object);
          }
-         else if (object.isDirectory() && (optsPrefix.endsWith(File.separator) || isNullOrEmpty(optsPrefix))) {
+         else if (object.isDirectory() && (denormalize(optsPrefix).endsWith("/") || isNullOrEmpty(optsPrefix))) {
             // S3 blobstores will only match prefixes that end with a trailing slash/file separator
             // For instance, if we have a blob at /path/1/2/a, a prefix of /path/1/2 will not list /path/1/2/a
             // but a prefix of /path/1/2/ will
@@ -299,6 +319,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       } catch (IOException e) {
          logger.error(e, "An error occurred while clearing container %s", container);
          Throwables.propagate(e);
+      } finally {
+         // rebuilt from the remaining files on next use
+         invalidateMetadataIndex(container);
       }
    }
 
@@ -325,6 +348,10 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    public boolean blobExists(String container, String key) {
       filesystemContainerNameValidator.validate(container);
       filesystemBlobKeyValidator.validate(key);
+      ContainerMetadataIndex index = getMetadataIndex(container);
+      if (index != null) {
+         return index.contains(key);
+      }
       try {
          return buildPathAndChecksIfBlobExists(container, key);
       } catch (IOException e) {
@@ -344,6 +371,10 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    @Override
    public Iterable<String> getBlobKeysInsideContainer(String container, String prefix) throws IOException {
       filesystemContainerNameValidator.validate(container);
+      ContainerMetadataIndex index = getMetadataIndex(container);
+      if (index != null) {
+         return index.keys(prefix, null);
+      }
       // check if container exists
       // TODO maybe an error is more appropriate
       Set<String> blobNames = Sets.newHashSet();
@@ -362,8 +393,74 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       return blobNames;
    }
 
+   @Override
+   public Iterable<String> getBlobKeysInsideContainer(String container, final String prefix, final String marker)
+         throws IOException {
+      filesystemContainerNameValidator.validate(container);
+      ContainerMetadataIndex index = getMetadataIndex(container);
+      if (index != null) {
+         return index.keys(prefix, marker);
+      }
+      if (!containerExists(container)) {
+         return ImmutableList.of();
+      }
+      final File containerFile = openFolder(container);
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return new SortedBlobKeyIterator(containerFile, prefix, marker);
+         }
+      };
+   }
+
    @Override
    public Blob getBlob(final String container, final String key) {
+      ContainerMetadataIndex index = getMetadataIndex(container);
+      if (index == null) {
+         return readBlob(container, key);
+      }
+      File file = getFileForBlobKey(container, key);
+      ContainerMetadataIndex.Entry entry = index.get(key);
+      if (entry == null) {
+         return null;
+      }
+      HashCode hashCode = null;
+      String eTag = null;
+      if (entry.eTag != null) {
+         if (entry.eTag.length == 16) {
+            // regular object
+            hashCode = HashCode.fromBytes(entry.eTag);
+            eTag = "\"" + hashCode + "\"";
+         } else {
+            // multi-part object
+            eTag = new String(entry.eTag, US_ASCII);
+         }
+      }
+      Blob blob = blobBuilders.get()
+         .name(key)
+         .payload(getDirectoryBlobSuffix(key) != null ? ByteSource.empty() : Files.asByteSource(file))
+         .cacheControl(entry.cacheControl)
+         .contentDisposition(entry.contentDisposition)
+         .contentEncoding(entry.contentEncoding)
+         .contentLanguage(entry.contentLanguage)
+         .contentLength(entry.size)
+         .contentMD5(hashCode)
+         .eTag(eTag)
+         .contentType(entry.contentType)
+         .expires(entry.expires == null ? null : new Date(entry.expires))
+         .tier(entry.tier == null ? Tier.STANDARD : Tier.valueOf(entry.tier))
+         .userMetadata(entry.userMetadata)
+         .build();
+      blob.getMetadata().setContainer(container);
+      blob.getMetadata().setLastModified(new Date(entry.lastModified));
+      blob.getMetadata().setSize(entry.size);
+      if (hashCode != null)
+         blob.getMetadata().setETag(base16().lowerCase().encode(hashCode.asBytes()));
+      return blob;
+   }
+
+   /** Loads a blob from its file and extended attributes, bypassing the metadata index. */
+   private Blob readBlob(final String container, final String key) {
       BlobBuilder builder = blobBuilders.get();
       builder.name(key);
       File file = getFileForBlobKey(container, key);
@@ -516,6 +613,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       } else {
          logger.warn("xattr not supported on %s", blobKey);
       }
+      updateMetadataIndex(containerName, blobKey, blob, outputFile, DIRECTORY_MD5);
 
       return base16().lowerCase().encode(DIRECTORY_MD5);
    }
@@ -529,11 +627,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       if (getDirectoryBlobSuffix(blobKey) != null) {
          return putDirectoryBlob(containerName, blob);
       }
-      File outputFile = getFileForBlobKey(containerName, blobKey);
       // TODO: should we use a known suffix to filter these out during list?
       String tmpBlobName = blobKey + "-" + UUID.randomUUID();
       File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
-      Path tmpPath = tmpFile.toPath();
       boolean isMpu = false;
       if (blob.getMetadata() != null && blob.getMetadata().getETag() != null)
          isMpu = MPU_ETAG_FORMAT.matcher(blob.getMetadata().getETag()).matches();
@@ -565,28 +661,76 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             eTag = actualHashCode.asBytes();
          }
 
-         if (outputFile.exists()) {
-            delete(outputFile);
-         }
+         commitBlob(containerName, blob, tmpBlobName, eTag);
+         tmpFile = null;
 
-         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tmpPath);
-         if (view != null) {
+         return base16().lowerCase().encode(eTag);
+      } finally {
+         if (tmpFile != null) {
             try {
-               view.write(XATTR_CONTENT_MD5, ByteBuffer.wrap(eTag));
-               writeCommonMetadataAttr(view, blob);
+               delete(tmpFile);
             } catch (IOException e) {
-               logger.debug("xattrs not supported on %s", tmpPath);
+               logger.debug("Could not delete %s: %s", tmpFile, e);
             }
          }
+         closeQuietly(inputStream);
+         if (payload != null) {
+            payload.release();
+         }
+      }
+   }
 
-         setBlobAccess(containerName, tmpBlobName, BlobAccess.PRIVATE);
-
-         if (!tmpFile.renameTo(outputFile)) {
-            throw new IOException("Could not rename file " + tmpFile + " to " + outputFile);
+   /**
+    * Assembles the blob from the part files with {@link FileChannel#transferTo},
+    * which lets the kernel copy the data without passing it through the JVM,
+    * and publishes it with a single rename.  The content is not re-hashed; the
+    * multipart ETag in the blob metadata is stored as is.
+    */
+   @Override
+   public String putMultipartBlob(final String containerName, final Blob blob, List<String> partNames)
+         throws IOException {
+      String blobKey = blob.getMetadata().getName();
+      filesystemContainerNameValidator.validate(containerName);
+      filesystemBlobKeyValidator.validate(blobKey);
+      String tmpBlobName = blobKey + "-" + UUID.randomUUID();
+      File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
+      try {
+         Files.createParentDirs(tmpFile);
+         long actualSize = 0;
+         FileChannel output = new FileOutputStream(tmpFile).getChannel();
+         try {
+            for (String partName : partNames) {
+               FileChannel input = new FileInputStream(getFileForBlobKey(containerName, partName)).getChannel();
+               try {
+                  long size = input.size();
+                  for (long position = 0; position < size; ) {
+                     long transferred = input.transferTo(position, size - position, output);
+                     if (transferred <= 0) {
+                        // the part shrank after its size was read, and would never be copied to the end
+                        throw new IOException("Part " + partName + " ended at " + position + " of " + size +
+                              " bytes");
+                     }
+                     position += transferred;
+                  }
+                  actualSize += size;
+               } finally {
+                  closeQuietly(input);
+               }
+            }
+         } finally {
+            output.close();
          }
+         Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
+         if (expectedSize != null && actualSize != expectedSize) {
+            throw new IOException("Content-Length mismatch, actual: " + actualSize +
+                  " expected: " + expectedSize);
+         }
+
+         byte[] eTag = blob.getMetadata().getETag().getBytes(US_ASCII);
+         commitBlob(containerName, blob, tmpBlobName, eTag);
          tmpFile = null;
 
-         return base16().lowerCase().encode(eTag);
+         return blob.getMetadata().getETag();
       } finally {
          if (tmpFile != null) {
             try {
@@ -595,13 +739,46 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
                logger.debug("Could not delete %s: %s", tmpFile, e);
             }
          }
-         closeQuietly(inputStream);
+         Payload payload = blob.getPayload();
          if (payload != null) {
             payload.release();
          }
       }
    }
 
+   /**
+    * Writes the metadata of a fully written temporary blob file and renames it
+    * over the blob, so that readers see either the old or the new blob.
+    */
+   private void commitBlob(String containerName, Blob blob, String tmpBlobName, byte[] eTag) throws IOException {
+      String blobKey = blob.getMetadata().getName();
+      File outputFile = getFileForBlobKey(containerName, blobKey);
+      File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
+      Path tmpPath = tmpFile.toPath();
+
+      // rename replaces an existing file atomically except on Windows
+      if (outputFile.exists() && (isWindows() || outputFile.isDirectory())) {
+         delete(outputFile);
+      }
+
+      UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tmpPath);
+      if (view != null) {
+         try {
+            view.write(XATTR_CONTENT_MD5, ByteBuffer.wrap(eTag));
+            writeCommonMetadataAttr(view, blob);
+         } catch (IOException e) {
+            logger.debug("xattrs not supported on %s", tmpPath);
+         }
+      }
+
+      setBlobAccess(containerName, tmpBlobName, BlobAccess.PRIVATE);
+
+      if (!tmpFile.renameTo(outputFile)) {
+         throw new IOException("Could not rename file " + tmpFile + " to " + outputFile);
+      }
+      updateMetadataIndex(containerName, blobKey, blob, outputFile, eTag);
+   }
+
    @Override
    public void removeBlob(final String container, final String blobKey) {
       filesystemContainerNameValidator.validate(container);
@@ -632,6 +809,15 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       // now examine if the key of the blob is a complex key (with a directory structure)
       // and eventually remove empty directory
       removeDirectoriesTreeOfBlobKey(container, blobKey);
+
+      ContainerMetadataIndex index = getMetadataIndex(container);
+      if (index != null) {
+         try {
+            index.remove(blobKey);
+         } catch (IOException e) {
+            throw Throwables.propagate(e);
+         }
+      }
    }
 
    @Override
@@ -761,6 +947,111 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
    // ---------------------------------------------------------- Private methods
 
+   /**
+    * Returns the metadata index of a container, loading it or building it from
+    * the blob files on first use.
+    *
+    * @return the index, or null if the index is disabled or the container does not exist
+    */
+   private ContainerMetadataIndex getMetadataIndex(String container) {
+      if (!useMetadataIndex) {
+         return null;
+      }
+      ContainerMetadataIndex index = metadataIndexes.get(container);
+      if (index != null) {
+         return index;
+      }
+      synchronized (metadataIndexes) {
+         index = metadataIndexes.get(container);
+         if (index != null) {
+            return index;
+         }
+         if (!containerExists(container)) {
+            return null;
+         }
+         File logFile = getMetadataIndexFile(container);
+         try {
+            index = ContainerMetadataIndex.load(logFile);
+            if (index == null) {
+               logger.debug("Building metadata index for container %s", container);
+               index = ContainerMetadataIndex.create(logFile, readMetadataFromFiles(container));
+            }
+         } catch (IOException e) {
+            logger.error(e, "An error occurred loading the metadata index of container %s", container);
+            throw Throwables.propagate(e);
+         }
+         metadataIndexes.put(container, index);
+         return index;
+      }
+   }
+
+   /** Drops the metadata index of a container so that the next use rebuilds it from the blob files. */
+   private void invalidateMetadataIndex(String container) {
+      if (!useMetadataIndex) {
+         return;
+      }
+      synchronized (metadataIndexes) {
+         ContainerMetadataIndex index = metadataIndexes.remove(container);
+         try {
+            if (index != null) {
+               index.delete();
+            } else {
+               java.nio.file.Files.deleteIfExists(getMetadataIndexFile(container).toPath());
+            }
+         } catch (IOException e) {
+            logger.error(e, "An error occurred deleting the metadata index of container %s", container);
+            throw Throwables.propagate(e);
+         }
+      }
+   }
+
+   /** The index lives beside, not inside, the container so that it never appears as a blob. */
+   private File getMetadataIndexFile(String container) {
+      return new File(buildPathStartingFromBaseDir(), "." + container + ".index");
+   }
+
+   private void updateMetadataIndex(String container, String key, Blob blob, File file, byte[] eTag)
+         throws IOException {
+      ContainerMetadataIndex index = getMetadataIndex(container);
+      if (index != null) {
+         index.put(key, newMetadataIndexEntry(blob, file, eTag));
+      }
+   }
+
+   private Map<String, ContainerMetadataIndex.Entry> readMetadataFromFiles(String container) throws IOException {
+      Map<String, ContainerMetadataIndex.Entry> entries = Maps.newHashMap();
+      Iterator<String> keys = new SortedBlobKeyIterator(openFolder(container), null, null);
+      while (keys.hasNext()) {
+         String key = keys.next();
+         if (!buildPathAndChecksIfBlobExists(container, key)) {
+            continue;
+         }
+         Blob blob = readBlob(container, key);
+         if (blob == null) {
+            continue;
+         }
+         byte[] md5 = blob.getPayload().getContentMetadata().getContentMD5();
+         String eTag = blob.getMetadata().getETag();
+         entries.put(key, newMetadataIndexEntry(blob, getFileForBlobKey(container, key),
+               md5 != null ? md5 : eTag != null ? eTag.getBytes(US_ASCII) : null));
+      }
+      return entries;
+   }
+
+   private ContainerMetadataIndex.Entry newMetadataIndexEntry(Blob blob, File file, byte[] eTag) throws IOException {
+      ContentMetadata metadata = blob.getMetadata().getContentMetadata();
+      String contentType = metadata.getContentType();
+      if (contentType == null && autoDetectContentType && file.isFile()) {
+         contentType = probeContentType(file.toPath());
+      }
+      Date expires = metadata.getExpires();
+      Tier tier = blob.getMetadata().getTier();
+      return new ContainerMetadataIndex.Entry(file.isFile() ? file.length() : 0, file.lastModified(), eTag,
+            metadata.getCacheControl(), metadata.getContentDisposition(), metadata.getContentEncoding(),
+            metadata.getContentLanguage(), contentType, expires == null ? null : expires.getTime(),
+            tier == null ? null : tier.toString(), blob.getMetadata().getUserMetadata());
+   }
+
    private boolean buildPathAndChecksIfBlobExists(String... tokens) throws IOException {
       String path = buildPathStartingFromBaseDir(tokens);
       File file = new File(path);
@@ -983,12 +1274,105 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             if (prefix != null && !fullPath.startsWith(prefix) && !prefix.startsWith(fullPath + "/")) {
                continue;
             }
-            blobNames.add(fullPath + File.separator); // TODO: undo if failures
+            blobNames.add(fullPath + "/");
             populateBlobKeysInContainer(child, blobNames, prefix, function);
          }
       }
    }
 
+   /**
+    * Walks a container depth first, visiting the entries of each directory in
+    * key order, which yields keys in lexicographic order without listing the
+    * whole tree up front.  Directories are keyed with a trailing / whatever the
+    * platform separator, so that e.g. a-b sorts before the contents of a/ and
+    * keys compare consistently with the prefixes and markers of LocalBlobStore.
+    * Subtrees which sort entirely before the marker, which cannot contain
+    * the prefix, or which were skipped are never opened.
+    */
+   private static final class SortedBlobKeyIterator extends AbstractIterator<String>
+         implements LocalStorageStrategy.PrefixSkippingIterator {
+      private final String prefix;
+      private final String marker;
+      private final Deque<Directory> stack = new ArrayDeque<Directory>();
+      private String skipped;
+
+      SortedBlobKeyIterator(File containerFile, String prefix, String marker) {
+         this.prefix = prefix;
+         this.marker = marker;
+         push(containerFile, "");
+      }
+
+      private static final class Directory {
+         private final String keyPrefix;
+         private final Iterator<Map.Entry<String, File>> entries;
+
+         Directory(String keyPrefix, Iterator<Map.Entry<String, File>> entries) {
+            this.keyPrefix = keyPrefix;
+            this.entries = entries;
+         }
+      }
+
+      private void push(File directory, String keyPrefix) {
+         File[] children = directory.listFiles();
+         if (children == null) {
+            return;
+         }
+         SortedMap<String, File> entries = new TreeMap<String, File>();
+         for (File child : children) {
+            if (child.isDirectory()) {
+               entries.put(keyPrefix + child.getName() + "/", child);
+            } else if (child.isFile()) {
+               entries.put(keyPrefix + child.getName(), child);
+            }
+         }
+         stack.push(new Directory(keyPrefix, entries.entrySet().iterator()));
+      }
+
+      @Override
+      public void skipPrefix(String prefix) {
+         skipped = prefix;
+         // leave the directories being walked inside the prefix without reading the rest of their entries
+         while (!stack.isEmpty() && stack.peek().keyPrefix.startsWith(prefix)) {
+            stack.pop();
+         }
+      }
+
+      @Override
+      protected String computeNext() {
+         while (!stack.isEmpty()) {
+            Iterator<Map.Entry<String, File>> entries = stack.peek().entries;
+            if (!entries.hasNext()) {
+               stack.pop();
+               continue;
+            }
+            Map.Entry<String, File> entry = entries.next();
+            String key = entry.getKey();
+            File file = entry.getValue();
+            if (skipped != null && key.startsWith(skipped)) {
+               continue;
+            }
+            if (file.isDirectory()) {
+               if (prefix != null && !key.startsWith(prefix) && !prefix.startsWith(key)) {
+                  continue;
+               }
+               if (marker != null && key.compareTo(marker) <= 0 && !marker.startsWith(key)) {
+                  // every key below this directory sorts before the marker
+                  continue;
+               }
+               push(file, key);
+            }
+            if (prefix != null && !key.startsWith(prefix)) {
+               continue;
+            }
+            if (marker != null && key.compareTo(marker) <= 0) {
+               continue;
+            }
+            return key;
+         }
+         return endOfData();
+      }
+   }
+
    /**
     * Creates a directory and returns the result
     *
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "ContainerMetadataIndexTest")
+public class ContainerMetadataIndexTest {
+   private File directory;
+   private File logFile;
+
+   @BeforeMethod
+   public void setUp() {
+      directory = Files.createTempDir();
+      logFile = new File(directory, ".container.index");
+   }
+
+   @AfterMethod
+   public void tearDown() throws IOException {
+      for (File file : directory.listFiles()) {
+         file.delete();
+      }
+      directory.delete();
+   }
+
+   public void testLoadMissingLog() throws IOException {
+      assertNull(ContainerMetadataIndex.load(logFile));
+   }
+
+   public void testReplayLog() throws IOException {
+      ContainerMetadataIndex index = ContainerMetadataIndex.create(logFile,
+            ImmutableMap.<String, ContainerMetadataIndex.Entry>of());
+      index.put("b", entry(2));
+      index.put("a", entry(1));
+      index.put("c", entry(3));
+      index.remove("b");
+      index.put("a", entry(4));
+      index.close();
+
+      index = ContainerMetadataIndex.load(logFile);
+      assertEquals(ImmutableList.copyOf(index.keys(null, null)), ImmutableList.of("a", "c"));
+      assertEquals(index.get("a").size, 4);
+      assertEquals(index.get("a").userMetadata, ImmutableMap.of("key", "value"));
+      assertEquals(index.get("a").contentType, "text/plain");
+      assertNull(index.get("a").contentEncoding);
+      index.close();
+   }
+
+   public void testKeysAfterMarker() throws IOException {
+      ContainerMetadataIndex index = ContainerMetadataIndex.create(logFile,
+            ImmutableMap.of("a", entry(1), "a/b", entry(1), "a/c", entry(1), "b", entry(1)));
+      assertEquals(ImmutableList.copyOf(index.keys(null, "a/b")), ImmutableList.of("a/c", "b"));
+      assertEquals(ImmutableList.copyOf(index.keys("a/", null)), ImmutableList.of("a/b", "a/c"));
+      assertEquals(ImmutableList.copyOf(index.keys("a/", "a/b")), ImmutableList.of("a/c"));
+      assertEquals(ImmutableList.copyOf(index.keys("a/", "b")), ImmutableList.of());
+      index.close();
+   }
+
+   public void testTruncatedLog() throws IOException {
+      ContainerMetadataIndex index = ContainerMetadataIndex.create(logFile,
+            ImmutableMap.<String, ContainerMetadataIndex.Entry>of());
+      index.put("a", entry(1));
+      long length = logFile.length();
+      index.put("b", entry(2));
+      index.close();
+
+      RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+      try {
+         file.setLength(length + 5);
+      } finally {
+         file.close();
+      }
+
+      index = ContainerMetadataIndex.load(logFile);
+      assertTrue(index.contains("a"));
+      assertFalse(index.contains("b"));
+      assertEquals(logFile.length(), length);
+      index.close();
+   }
+
+   public void testCompaction() throws IOException {
+      ContainerMetadataIndex index = ContainerMetadataIndex.create(logFile,
+            ImmutableMap.<String, ContainerMetadataIndex.Entry>of());
+      index.put("a", entry(1));
+      long length = logFile.length();
+      for (int i = 0; i < 4096; i++) {
+         index.put("a", entry(1));
+      }
+      assertTrue(logFile.length() < 4096 * length);
+      index.close();
+      assertEquals(ContainerMetadataIndex.load(logFile).size(), 1);
+   }
+
+   private static ContainerMetadataIndex.Entry entry(long size) {
+      return new ContainerMetadataIndex.Entry(size, 0L, new byte[16], null, null, null, null, "text/plain", null,
+            "STANDARD", ImmutableMap.of("key", "value"));
+   }
+}
@@ -39,6 +39,7 @@ import java.util.concurrent.TimeUnit;
 import javax.inject.Provider;
 
 import org.assertj.core.api.Fail;
+import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.ContainerAccess;
@@ -48,6 +49,7 @@ import org.jclouds.domain.Location;
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemBlobKeyValidatorImpl;
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemContainerNameValidatorImpl;
 import org.jclouds.filesystem.utils.TestUtils;
+import org.jclouds.io.ByteStreams2;
 import org.jclouds.io.payloads.FilePayload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.util.Throwables2;
@@ -56,10 +58,13 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -423,7 +428,7 @@ public class FilesystemStorageStrategyImplTest {
    }
 
    public void testListDirectoryBlob() throws IOException {
-      String blobKey = TestUtils.createRandomBlobKey("directory-", File.separator);
+      String blobKey = TestUtils.createRandomBlobKey("directory-", "/");
       Blob blob = storageStrategy.newBlob(blobKey);
       storageStrategy.putBlob(CONTAINER_NAME, blob);
 
@@ -624,6 +629,39 @@ public class FilesystemStorageStrategyImplTest {
       }
    }
 
+   public void testGetBlobKeysInsideContainerSortedAfterMarker() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a-b", "a/b", "a/c/d", "b", "c/d");
+
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, null)),
+            ImmutableList.of("a-b", "a/", "a/b", "a/c/", "a/c/d", "b", "c/", "c/d"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, "a/b")),
+            ImmutableList.of("a/c/", "a/c/d", "b", "c/", "c/d"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a/", null)),
+            ImmutableList.of("a/", "a/b", "a/c/", "a/c/d"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a/", "a/b")),
+            ImmutableList.of("a/c/", "a/c/d"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a", "a/" + (char) 65535)),
+            ImmutableList.of());
+   }
+
+   public void testGetBlobKeysInsideContainerSkipsPrefix() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a-b", "a/b", "a/c/d", "a/e", "b", "c/d");
+
+      Iterator<String> keys = storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, null).iterator();
+      assertEquals(keys.next(), "a-b");
+      assertEquals(keys.next(), "a/");
+      assertEquals(keys.next(), "a/b");
+      ((LocalStorageStrategy.PrefixSkippingIterator) keys).skipPrefix("a/");
+      assertEquals(ImmutableList.copyOf(keys), ImmutableList.of("b", "c/", "c/d"));
+
+      keys = storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, null).iterator();
+      assertEquals(keys.next(), "a-b");
+      ((LocalStorageStrategy.PrefixSkippingIterator) keys).skipPrefix("a");
+      assertEquals(ImmutableList.copyOf(keys), ImmutableList.of("b", "c/", "c/d"));
+   }
+
    public void testCountsBlob() {
       storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE);
    }
@@ -733,8 +771,115 @@ public class FilesystemStorageStrategyImplTest {
       assertThat(blob).isNotNull();
    }
 
+   public void testPutMultipartBlob() throws Exception {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      ByteSource part1 = randomByteSource().slice(0, 1024);
+      ByteSource part2 = randomByteSource().slice(0, 512);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("part-1").payload(part1).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("part-2").payload(part2).build());
+
+      String eTag = "\"" + Hashing.md5().hashString("parts", Charsets.UTF_8) + "-2\"";
+      Blob blob = new BlobBuilderImpl()
+            .name("a/mpu")
+            .payload(ByteSource.empty())
+            .contentLength(part1.size() + part2.size())
+            .contentType("text/plain")
+            .eTag(eTag)
+            .build();
+      assertEquals(storageStrategy.putMultipartBlob(CONTAINER_NAME, blob, ImmutableList.of("part-1", "part-2")),
+            eTag);
+
+      blob = storageStrategy.getBlob(CONTAINER_NAME, "a/mpu");
+      assertEquals(blob.getMetadata().getETag(), eTag);
+      assertEquals(blob.getMetadata().getContentMetadata().getContentType(), "text/plain");
+      assertTrue(ByteSource.concat(part1, part2).contentEquals(
+            ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))));
+      assertTrue(storageStrategy.blobExists(CONTAINER_NAME, "part-1"));
+      assertTrue(storageStrategy.blobExists(CONTAINER_NAME, "part-2"));
+   }
+
+   public void testPutMultipartBlobContentLengthMismatch() throws Exception {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("part-1")
+            .payload(randomByteSource().slice(0, 1024)).build());
+      Blob blob = new BlobBuilderImpl()
+            .name("mpu")
+            .payload(ByteSource.empty())
+            .contentLength(1025L)
+            .eTag("\"" + Hashing.md5().hashString("parts", Charsets.UTF_8) + "-1\"")
+            .build();
+      try {
+         storageStrategy.putMultipartBlob(CONTAINER_NAME, blob, ImmutableList.of("part-1"));
+         Fail.failBecauseExceptionWasNotThrown(IOException.class);
+      } catch (IOException ioe) {
+         // expected
+      }
+      assertFalse(storageStrategy.blobExists(CONTAINER_NAME, "mpu"));
+      assertEquals(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE), 1);
+   }
+
+   public void testMetadataIndex() throws Exception {
+      FilesystemStorageStrategyImpl indexed = newIndexedStorageStrategy();
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "existing");
+      Blob existing = storageStrategy.getBlob(CONTAINER_NAME, "existing");
+
+      // index is built from the blob files on first use
+      Blob blob = indexed.getBlob(CONTAINER_NAME, "existing");
+      assertEquals(blob.getMetadata().getETag(), existing.getMetadata().getETag());
+      assertEquals(blob.getMetadata().getSize(), existing.getMetadata().getSize());
+
+      ByteSource byteSource = randomByteSource().slice(0, 1024);
+      indexed.putBlob(CONTAINER_NAME, new BlobBuilderImpl()
+            .name("a/b")
+            .payload(byteSource)
+            .contentType("text/plain")
+            .userMetadata(ImmutableMap.of("key1", "value1"))
+            .build());
+      indexed.putBlob(CONTAINER_NAME, indexed.newBlob("a/c/"));
+      indexed.removeBlob(CONTAINER_NAME, "existing");
+
+      // changes made behind the index are not visible
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "unindexed");
+      assertFalse(indexed.blobExists(CONTAINER_NAME, "unindexed"));
+
+      // reload the index from its log
+      indexed = newIndexedStorageStrategy();
+      assertEquals(ImmutableList.copyOf(indexed.getBlobKeysInsideContainer(CONTAINER_NAME, null)),
+            ImmutableList.of("a/b", "a/c/"));
+      assertEquals(ImmutableList.copyOf(indexed.getBlobKeysInsideContainer(CONTAINER_NAME, null, "a/b")),
+            ImmutableList.of("a/c/"));
+      assertEquals(indexed.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE), 2);
+      blob = indexed.getBlob(CONTAINER_NAME, "a/b");
+      Blob unindexed = storageStrategy.getBlob(CONTAINER_NAME, "a/b");
+      assertEquals(blob.getMetadata().getETag(), byteSource.hash(Hashing.md5()).toString());
+      assertEquals(blob.getMetadata().getETag(), unindexed.getMetadata().getETag());
+      assertEquals(blob.getMetadata().getSize(), Long.valueOf(1024));
+      assertEquals(blob.getMetadata().getContentMetadata().getContentType(), "text/plain");
+      assertEquals(blob.getMetadata().getUserMetadata(), ImmutableMap.of("key1", "value1"));
+      assertTrue(byteSource.contentEquals(
+            ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))));
+      assertTrue(indexed.blobExists(CONTAINER_NAME, "a/c/"));
+      assertThat(indexed.getBlob(CONTAINER_NAME, "existing")).isNull();
+
+      // clearing rebuilds the index from what is left on disk
+      indexed.clearContainer(CONTAINER_NAME);
+      assertEquals(indexed.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE), 0);
+   }
+
    // ---------------------------------------------------------- Private methods
 
+   private static FilesystemStorageStrategyImpl newIndexedStorageStrategy() {
+      FilesystemStorageStrategyImpl strategy = new FilesystemStorageStrategyImpl(new Provider<BlobBuilder>() {
+         @Override
+         public BlobBuilder get() {
+            return new BlobBuilderImpl();
+         }
+      }, TestUtils.TARGET_BASE_DIR, false, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+      strategy.useMetadataIndex = true;
+      return strategy;
+   }
+
    /**
     * Calculates an absolute directory path that depends on operative system
     *
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.keystone.auth.config;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.config.KeystoneProperties;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.MapMaker;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Supplies the {@link AuthInfo} of the current credentials from the cache, renewing it in the background shortly
+ * before the token expires. Requests keep using the current token while the new one is fetched, instead of all
+ * blocking on re-authentication when the token lapses.
+ * <p>
+ * Tokens that do not report when they expire are renewed 11 hours after they were obtained.
+ */
+@Singleton
+public class RefreshAheadAuthInfoSupplier implements Supplier<AuthInfo> {
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @VisibleForTesting
+   static final long MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(11);
+
+   // how long to wait before trying again when renewing in the background failed
+   @VisibleForTesting
+   static final long RETRY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+   @Inject(optional = true)
+   @Named(KeystoneProperties.TOKEN_REFRESH_AHEAD)
+   private long refreshAheadSeconds = 300;
+
+   private final LoadingCache<Credentials, AuthInfo> cache;
+   private final Supplier<Credentials> creds;
+   private final Map<AuthInfo, Long> firstSeen = new MapMaker().weakKeys().makeMap();
+   // keyed like the cache, so that renewing one credential does not hold back the others
+   private final ConcurrentMap<Credentials, Long> nextRenewals = new ConcurrentHashMap<Credentials, Long>();
+
+   @Inject
+   RefreshAheadAuthInfoSupplier(LoadingCache<Credentials, AuthInfo> cache, @Provider Supplier<Credentials> creds) {
+      this.cache = cache;
+      this.creds = creds;
+   }
+
+   @Override
+   public AuthInfo get() {
+      Credentials credentials = creds.get();
+      AuthInfo authInfo = cache.getUnchecked(credentials);
+      long now = System.currentTimeMillis();
+      long expires = expires(authInfo, now);
+      if (now >= expires) {
+         // only the first caller to notice evicts the token, the others wait on the same load
+         logger.debug("auth token for %s expired, renewing", credentials.identity);
+         cache.asMap().remove(credentials, authInfo);
+         return cache.getUnchecked(credentials);
+      }
+      if (now >= expires - TimeUnit.SECONDS.toMillis(refreshAheadSeconds) && claimRenewal(credentials, now)) {
+         logger.debug("auth token for %s expires at %s, renewing in the background", credentials.identity,
+               new Date(expires));
+         cache.refresh(credentials);
+      }
+      return authInfo;
+   }
+
+   private long expires(AuthInfo authInfo, long now) {
+      Date expires = authInfo.getAuthTokenExpires();
+      if (expires != null)
+         return expires.getTime();
+      Long seen = firstSeen.get(authInfo);
+      if (seen == null) {
+         seen = firstSeen.putIfAbsent(authInfo, now);
+         if (seen == null)
+            seen = now;
+      }
+      return seen + MAX_AGE_MILLIS;
+   }
+
+   /**
+    * Lets a single caller start a background renewal of {@code credentials}, and the next one only after
+    * {@link #RETRY_MILLIS} in case it fails. The cache keeps serving the current token while the renewal is in flight
+    * or when it failed.
+    */
+   private boolean claimRenewal(Credentials credentials, long now) {
+      Long next = nextRenewals.get(credentials);
+      if (next == null) {
+         return nextRenewals.putIfAbsent(credentials, now + RETRY_MILLIS) == null;
+      }
+      return now >= next && nextRenewals.replace(credentials, next, now + RETRY_MILLIS);
+   }
+}
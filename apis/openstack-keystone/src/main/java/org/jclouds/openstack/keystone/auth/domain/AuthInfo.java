@@ -16,10 +16,20 @@
  */
 package org.jclouds.openstack.keystone.auth.domain;
 
+import java.util.Date;
+
+import org.jclouds.javax.annotation.Nullable;
+
 /**
  * Common interface for authentication objects.
  */
 public interface AuthInfo {
 
    String getAuthToken();
+
+   /**
+    * @return when the auth token expires, or null if the identity service did not say
+    */
+   @Nullable
+   Date getAuthTokenExpires();
 }
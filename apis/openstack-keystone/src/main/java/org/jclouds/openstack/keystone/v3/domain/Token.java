@@ -42,6 +42,11 @@ public abstract class Token implements AuthInfo {
    public String getAuthToken() {
       return id();
    }
+
+   @Override
+   public Date getAuthTokenExpires() {
+      return expiresAt();
+   }
    
    @SerializedNames({ "id", "methods", "expires_at", "extras", "catalog", "audit_ids", "user", "issued_at" })
    private static Token create(String id, List<String> methods, Date expiresAt, Object extras, List<Catalog> catalog,
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.keystone.auth.config;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.v2_0.domain.Access;
+import org.jclouds.openstack.keystone.v2_0.domain.Token;
+import org.jclouds.openstack.keystone.v2_0.domain.User;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", singleThreaded = true, testName = "RefreshAheadAuthInfoSupplierTest")
+public class RefreshAheadAuthInfoSupplierTest {
+
+   private final AtomicInteger authentications = new AtomicInteger();
+
+   @BeforeMethod
+   public void resetAuthentications() {
+      authentications.set(0);
+   }
+
+   public void testValidTokenIsNotRenewed() {
+      AuthInfo token = access("a", TimeUnit.HOURS.toMillis(1));
+      RefreshAheadAuthInfoSupplier supplier = supplier(token, access("b", TimeUnit.HOURS.toMillis(1)));
+
+      assertEquals(supplier.get(), token);
+      assertEquals(supplier.get(), token);
+      assertEquals(authentications.get(), 1);
+   }
+
+   public void testExpiringTokenIsServedWhileRenewing() {
+      AuthInfo expiring = access("a", TimeUnit.SECONDS.toMillis(60));
+      AuthInfo renewed = access("b", TimeUnit.HOURS.toMillis(1));
+      RefreshAheadAuthInfoSupplier supplier = supplier(expiring, renewed);
+
+      assertEquals(supplier.get(), expiring);
+      assertEquals(supplier.get(), renewed);
+      assertEquals(supplier.get(), renewed);
+      assertEquals(authentications.get(), 2);
+   }
+
+   public void testExpiredTokenIsRenewedBeforeReturning() {
+      AuthInfo expired = access("a", -1);
+      AuthInfo renewed = access("b", TimeUnit.HOURS.toMillis(1));
+      RefreshAheadAuthInfoSupplier supplier = supplier(expired, renewed);
+
+      assertEquals(supplier.get(), renewed);
+      assertEquals(authentications.get(), 2);
+   }
+
+   public void testFailedRenewalKeepsCurrentTokenAndBacksOff() {
+      AuthInfo expiring = access("a", TimeUnit.SECONDS.toMillis(60));
+      RefreshAheadAuthInfoSupplier supplier = supplier(expiring);
+
+      assertEquals(supplier.get(), expiring);
+      assertEquals(supplier.get(), expiring);
+      assertEquals(authentications.get(), 2);
+   }
+
+   public void testRenewalOfOneCredentialDoesNotHoldBackAnother() {
+      AuthInfo expiringA = access("a", TimeUnit.SECONDS.toMillis(60));
+      AuthInfo renewedA = access("b", TimeUnit.HOURS.toMillis(1));
+      AuthInfo expiringB = access("c", TimeUnit.SECONDS.toMillis(60));
+      AuthInfo renewedB = access("d", TimeUnit.HOURS.toMillis(1));
+      final AtomicReference<Credentials> credentials = new AtomicReference<Credentials>(
+            new Credentials("a", "credential"));
+      RefreshAheadAuthInfoSupplier supplier = supplier(new Supplier<Credentials>() {
+         @Override
+         public Credentials get() {
+            return credentials.get();
+         }
+      }, expiringA, renewedA, expiringB, renewedB);
+
+      assertEquals(supplier.get(), expiringA);
+      assertEquals(supplier.get(), renewedA);
+
+      credentials.set(new Credentials("b", "credential"));
+      assertEquals(supplier.get(), expiringB);
+      assertEquals(supplier.get(), renewedB);
+      assertEquals(authentications.get(), 4);
+   }
+
+   private RefreshAheadAuthInfoSupplier supplier(AuthInfo... tokens) {
+      return supplier(Suppliers.ofInstance(new Credentials("identity", "credential")), tokens);
+   }
+
+   private RefreshAheadAuthInfoSupplier supplier(Supplier<Credentials> credentials, AuthInfo... tokens) {
+      final Iterator<AuthInfo> responses = ImmutableList.copyOf(tokens).iterator();
+      Function<Credentials, AuthInfo> authenticate = new Function<Credentials, AuthInfo>() {
+         @Override
+         public AuthInfo apply(Credentials input) {
+            authentications.incrementAndGet();
+            if (!responses.hasNext())
+               throw new IllegalStateException("identity service unavailable");
+            return responses.next();
+         }
+      };
+      LoadingCache<Credentials, AuthInfo> cache = CacheBuilder.newBuilder().build(
+            CacheLoader.asyncReloading(CacheLoader.from(authenticate), MoreExecutors.newDirectExecutorService()));
+      return new RefreshAheadAuthInfoSupplier(cache, credentials);
+   }
+
+   private static Access access(String id, long expiresIn) {
+      return Access.builder()
+            .token(Token.builder().id(id).expires(new Date(System.currentTimeMillis() + expiresIn)).build())
+            .user(User.builder().id("identity").name("identity").build()).build();
+   }
+}
@@ -25,15 +25,18 @@ import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursi
 import static org.jclouds.location.predicates.LocationPredicates.idEquals;
 import static org.jclouds.openstack.swift.v1.options.PutOptions.Builder.metadata;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.RandomAccessFile;
-import java.lang.reflect.Method;
-import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -42,6 +45,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -74,9 +78,13 @@ import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.blobstore.strategy.ClearListStrategy;
+import org.jclouds.blobstore.strategy.MultipartUploadSlicingStrategy;
+import org.jclouds.blobstore.strategy.internal.BufferedMultipartUploader;
+import org.jclouds.blobstore.strategy.internal.FixedMultipartUploadSlicingStrategy;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
@@ -114,7 +122,6 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
-import com.google.common.io.Closeables;
 import com.google.common.net.HttpHeaders;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -618,6 +625,22 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
    @Named(Constants.PROPERTY_MAX_RETRIES)
    protected int retryCountLimit = 5;
 
+   private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+   /** one direct buffer per worker thread, reused by every part that thread downloads */
+   private static final ThreadLocal<ByteBuffer> DOWNLOAD_BUFFERS = new ThreadLocal<ByteBuffer>() {
+      @Override
+      protected ByteBuffer initialValue() {
+         return ByteBuffer.allocateDirect(DOWNLOAD_BUFFER_SIZE);
+      }
+   };
+
+   @com.google.inject.Inject(optional = true)
+   protected BackoffLimitedRetryHandler retryHandler = BackoffLimitedRetryHandler.INSTANCE;
+
+   @com.google.inject.Inject(optional = true)
+   protected MultipartUploadSlicingStrategy slicingStrategy = new FixedMultipartUploadSlicingStrategy();
+
    /**
     * Upload using a user-provided executor, or the jclouds userExecutor
     *
@@ -641,10 +664,26 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
       long contentLength = checkNotNull(blob.getMetadata().getContentMetadata().getContentLength(),
             "must provide content-length to use multi-part upload");
-      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
+      MultipartUploadSlicingAlgorithm algorithm = slicingStrategy.newAlgorithm(container,
             getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
       long partSize = algorithm.calculateChunkSize(contentLength);
       MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), partSize, overrides);
+      int bufferedParts = overrides.getMultipartBuffers() > 0 ? overrides.getMultipartBuffers()
+            : algorithm.getBufferedParts();
+      if (!blob.getPayload().isRepeatable() && bufferedParts > 0 && partSize <= Integer.MAX_VALUE
+            && algorithm.getRemaining() <= Integer.MAX_VALUE) {
+         BufferedMultipartUploader uploader = new BufferedMultipartUploader(this, slicingStrategy, executor,
+               bufferedParts, (int) partSize, overrides.getDirectMultipartBuffers());
+         try {
+            return completeMultipartUpload(mpu, uploader.upload(mpu, blob.getPayload().openStream(), algorithm, 0));
+         } catch (IOException ioe) {
+            abortMultipartUpload(mpu);
+            throw new RuntimeException(ioe);
+         } catch (RuntimeException re) {
+            abortMultipartUpload(mpu);
+            throw re;
+         }
+      }
       int partNumber = 0;
 
       for (Payload payload : slicer.slice(blob.getPayload(), partSize)) {
@@ -669,7 +708,13 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
       @Override
       public MultipartPart call() {
-         return uploadMultipartPart(mpu, partNumber, payload);
+         long start = System.nanoTime();
+         MultipartPart part = uploadMultipartPart(mpu, partNumber, payload);
+         Long partSize = payload.getContentMetadata().getContentLength();
+         if (partSize != null) {
+            slicingStrategy.partUploaded(mpu.containerName(), partSize, System.nanoTime() - start);
+         }
+         return part;
       }
    }
 
@@ -696,8 +741,8 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
          // Reserve space for performance reasons
          raf = new RandomAccessFile(tempFile, "rw");
-         raf.seek(contentLength - 1);
-         raf.write(0);
+         raf.setLength(contentLength);
+         FileChannel channel = raf.getChannel();
 
          // Determine download buffer size, smaller means less memory usage; larger is faster as long as threads are saturated
          long partSize = getMinimumMultipartPartSize();
@@ -709,14 +754,15 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
          for (from = 0; from < contentLength; from = from + partSize) {
             to = (from + partSize >= contentLength) ? contentLength - 1 : from + partSize - 1;
-            BlobDownloader b = new BlobDownloader(regionId, container, name, raf, from, to);
+            BlobDownloader b = new BlobDownloader(regionId, container, name, channel, from, to);
             results.add(listeningExecutor.submit(b));
          }
 
          Futures.getUnchecked(Futures.allAsList(results));
 
-         raf.getChannel().force(true);
-         raf.getChannel().close();
+         // Flush once for the whole file rather than per part
+         channel.force(true);
+         channel.close();
          raf.close();
 
          if (destination.exists()) {
@@ -736,71 +782,66 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
       }
    }
 
+   /**
+    * Copies the range {@code [begin, end]} straight from the response body into its region of the destination file.
+    * A failed attempt backs off and resumes from the last byte written rather than from the start of the range.
+    */
    private final class BlobDownloader implements Callable<Void> {
       String regionId;
       String containerName;
       String objectName;
-      private final RandomAccessFile raf;
+      private final FileChannel channel;
       private final long begin;
       private final long end;
 
-      BlobDownloader(String regionId, String containerName, String objectName, RandomAccessFile raf, long begin, long end) {
+      BlobDownloader(String regionId, String containerName, String objectName, FileChannel channel, long begin, long end) {
          this.regionId = regionId;
          this.containerName = containerName;
          this.objectName = objectName;
-         this.raf = raf;
+         this.channel = channel;
          this.begin = begin;
          this.end = end;
       }
 
       @Override
       public Void call() {
+         ByteBuffer buffer = DOWNLOAD_BUFFERS.get();
+         long position = begin;
          IOException lastException = null;
          for (int retry = 0; retry < retryCountLimit; retry++) {
+            if (retry > 0) {
+               backOff(retry, containerName, objectName, position, end);
+            }
+            InputStream is = null;
             try {
                SwiftObject object = api.getObjectApi(regionId, containerName)
-                     .get(objectName, org.jclouds.http.options.GetOptions.Builder.range(begin, end));
-               // Download first, this is the part that usually fails
-               byte[] targetArray;
-               InputStream is = object.getPayload().openStream();
-               try {
-                  targetArray = ByteStreams.toByteArray(is);
-               } finally {
-                  Closeables.closeQuietly(is);
+                     .get(objectName, org.jclouds.http.options.GetOptions.Builder.range(position, end));
+               is = object.getPayload().openStream();
+               // advance position write by write, so that a failed read keeps the bytes already written
+               ReadableByteChannel in = Channels.newChannel(ByteStreams.limit(is, end - position + 1));
+               buffer.clear();
+               while (in.read(buffer) != -1) {
+                  buffer.flip();
+                  while (buffer.hasRemaining()) {
+                     position += channel.write(buffer, position);
+                  }
+                  buffer.clear();
                }
-               // Map file region
-               MappedByteBuffer out = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, begin, end - begin + 1);
-               out.put(targetArray);
-               out.force();
-
-               // JDK-4715154 ; TODO: Java 8 FileChannels
-               if (System.getProperty("os.name").toLowerCase().contains("windows")) {
-                  closeDirectBuffer(out);
+               if (position > end) {
+                  // Success!
+                  return null;
                }
+               lastException = new EOFException("Premature end of range " + begin + "-" + end + " at " + position);
+            } catch (ClosedByInterruptException e) {
+               // the download was cancelled and the shared channel is gone
+               throw new RuntimeException(e);
             } catch (IOException e) {
                lastException = e;
-               continue;
-            }
-               // Success!
-               return null;
+            } finally {
+               Closeables2.closeQuietly(is);
             }
-         throw new RuntimeException("After " + retryCountLimit + " retries: " + lastException);
-      }
-
-      // JDK-4715154
-      private void closeDirectBuffer(MappedByteBuffer mbb) {
-         if ( mbb == null || !mbb.isDirect() )
-            return;
-
-         try {
-            Method cleaner = mbb.getClass().getMethod("cleaner");
-            cleaner.setAccessible(true);
-            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
-            clean.setAccessible(true);
-            clean.invoke(cleaner.invoke(mbb));
-         } catch (Exception e) {
-            logger.warn(e.toString());
          }
+         throw new RuntimeException("After " + retryCountLimit + " retries: " + lastException, lastException);
       }
    }
 
@@ -901,27 +942,47 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
       @Override
       public byte[] call() {
+         byte[] part = new byte[(int) (end - begin + 1)];
+         int offset = 0;
          IOException lastException = null;
          for (int retry = 0; retry < retryCountLimit; retry++) {
+            if (retry > 0) {
+               backOff(retry, containerName, objectName, begin + offset, end);
+            }
+            InputStream is = null;
             try {
-               long time = System.nanoTime();
                SwiftObject object = api.getObjectApi(regionId, containerName)
-                     .get(objectName, org.jclouds.http.options.GetOptions.Builder.range(begin, end));
-               byte[] downloadedBlock;
-               InputStream is = object.getPayload().openStream();
-               try {
-                  downloadedBlock = ByteStreams.toByteArray(is);
-               } finally {
-                  Closeables.closeQuietly(is);
+                     .get(objectName, org.jclouds.http.options.GetOptions.Builder.range(begin + offset, end));
+               is = object.getPayload().openStream();
+               // keep the bytes already read, so that a retry only fetches the rest of the part
+               int read;
+               while (offset < part.length && (read = is.read(part, offset, part.length - offset)) != -1) {
+                  offset += read;
+               }
+               if (offset == part.length) {
+                  return part;
                }
-               return downloadedBlock;
+               lastException = new EOFException("Premature end of range " + begin + "-" + end + " at "
+                     + (begin + offset));
             } catch (IOException e) {
                logger.debug(e.toString());
                lastException = e;
-               continue;
+            } finally {
+               Closeables2.closeQuietly(is);
             }
          }
-         throw new RuntimeException("After " + retryCountLimit + " retries: " + lastException);
+         throw new RuntimeException("After " + retryCountLimit + " retries: " + lastException, lastException);
+      }
+   }
+
+   /**
+    * Waits before retrying a part. Cancelling the download interrupts the wait and ends the retries.
+    */
+   private void backOff(int failureCount, String container, String name, long begin, long end) {
+      if (Thread.currentThread().isInterrupted()) {
+         throw new CancellationException("download of " + container + "/" + name + " cancelled");
       }
+      retryHandler.imposeBackoffExponentialDelay(failureCount, "download of " + container + "/" + name + " bytes "
+            + begin + "-" + end);
    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
+import static org.jclouds.Constants.PROPERTY_SO_TIMEOUT;
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.openstack.swift.v1.SwiftApi;
+import org.jclouds.openstack.v2_0.internal.BaseOpenStackMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.SocketPolicy;
+
+@Test(groups = "unit", testName = "RegionScopedSwiftBlobStoreMockTest")
+public class RegionScopedSwiftBlobStoreMockTest extends BaseOpenStackMockTest<SwiftApi> {
+   private static final String OBJECT_PATH =
+         "/v1/MossoCloudFS_5bcf396e-39dd-45ff-93a1-712b9aba90a9/myContainer/myObject";
+   private static final String CONTENT = Strings.repeat("0123456789", 10);
+   private static final int WRITTEN_BEFORE_FAILURE = 60;
+
+   public void testDownloadResumesFromLastByteWritten() throws Exception {
+      MockWebServer server = mockOpenStackServer();
+      server.enqueue(addCommonHeaders(new MockResponse().setBody(stringFromResource("/access.json"))));
+      // MWS sends a body even for HEAD, so do not reuse the connection
+      server.enqueue(objectResponse(CONTENT).setSocketPolicy(SocketPolicy.DISCONNECT_AT_END));
+      // send part of the range, then stall past the socket timeout
+      server.enqueue(objectResponse(CONTENT).setResponseCode(206)
+            .throttleBody(WRITTEN_BEFORE_FAILURE, 2, TimeUnit.SECONDS)
+            .setSocketPolicy(SocketPolicy.DISCONNECT_AT_END));
+      server.enqueue(objectResponse(CONTENT.substring(WRITTEN_BEFORE_FAILURE)).setResponseCode(206));
+
+      File destination = File.createTempFile("download", ".txt");
+      try {
+         RegionScopedSwiftBlobStore blobStore = blobStore(server.getUrl("/").toString());
+         RecordingRetryHandler retryHandler = new RecordingRetryHandler();
+         blobStore.retryHandler = retryHandler;
+
+         blobStore.downloadBlob("myContainer", "myObject", destination);
+
+         assertEquals(Files.toString(destination, Charsets.US_ASCII), CONTENT);
+         assertEquals(retryHandler.failureCounts, ImmutableList.of(1));
+
+         assertEquals(server.getRequestCount(), 4);
+         assertAuthentication(server);
+         assertEquals(server.takeRequest().getRequestLine(), "HEAD " + OBJECT_PATH + " HTTP/1.1");
+         assertEquals(server.takeRequest().getHeader("Range"), "bytes=0-" + (CONTENT.length() - 1));
+         assertEquals(server.takeRequest().getHeader("Range"),
+               "bytes=" + WRITTEN_BEFORE_FAILURE + "-" + (CONTENT.length() - 1));
+      } finally {
+         destination.delete();
+         try {
+            server.shutdown();
+         } catch (IOException e) {
+            // the stalled response may outlive the executor termination wait of MockWebServer
+         }
+      }
+   }
+
+   private static RegionScopedSwiftBlobStore blobStore(String endpoint) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_RETRIES, "3");
+      overrides.setProperty(PROPERTY_SO_TIMEOUT, "500");
+      return (RegionScopedSwiftBlobStore) ContextBuilder.newBuilder("openstack-swift")
+            .credentials("jclouds:joe", "letmein")
+            .endpoint(endpoint)
+            .overrides(overrides)
+            .modules(ImmutableSet.<Module> of(new ExecutorServiceModule(newDirectExecutorService())))
+            .buildView(RegionScopedBlobStoreContext.class)
+            .getBlobStore("DFW");
+   }
+
+   private static MockResponse objectResponse(String body) {
+      return new MockResponse()
+            .addHeader("Last-Modified", "Fri, 12 Jun 2010 13:40:18 GMT")
+            .addHeader("ETag", "8a964ee2a5e88be344f36c22562a6486")
+            .addHeader("Content-Type", "text/plain")
+            .setBody(body);
+   }
+
+   private static final class RecordingRetryHandler extends BackoffLimitedRetryHandler {
+      final List<Integer> failureCounts = Lists.newCopyOnWriteArrayList();
+
+      @Override
+      public void imposeBackoffExponentialDelay(int failureCount, String commandDescription) {
+         failureCounts.add(failureCount);
+      }
+   }
+}
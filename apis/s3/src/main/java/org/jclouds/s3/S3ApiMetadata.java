@@ -24,7 +24,9 @@ import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_BLOBST
 import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_USER_METADATA_PREFIX;
 import static org.jclouds.reflect.Reflection2.typeToken;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_SIZE;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_SERVICE_PATH;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_UNSIGNED_PAYLOAD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
 import java.net.URI;
@@ -84,6 +86,8 @@ public class S3ApiMetadata extends BaseHttpApiMetadata {
 
       // Chunk size must be at least 8 KB. We recommend a chunk size of a least 64 KB for better performance.
       properties.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_SIZE, String.valueOf(64 * 1024));
+      properties.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD, String.valueOf(Long.MAX_VALUE));
+      properties.setProperty(PROPERTY_S3_UNSIGNED_PAYLOAD, "false");
       return properties;
    }
    
@@ -742,6 +742,23 @@ public interface S3Client extends Closeable {
          @PathParam("sourceBucket") String sourceBucket, @PathParam("sourceObject") String sourceObject,
          @PathParam("startOffset") long startOffset, @PathParam("endOffset") long endOffset);
 
+   /**
+    * As {@link #uploadPartCopy(String, String, int, String, String, String, long, long)}, with preconditions on the
+    * source such as {@link CopyObjectOptions#ifSourceETagMatches}. Metadata options do not apply to parts.
+    */
+   @Named("UploadPartCopy")
+   @PUT
+   @Path("/{key}")
+   @Headers(keys = {"x-amz-copy-source", "x-amz-copy-source-range"}, values = {"/{sourceBucket}/{sourceObject}", "bytes={startOffset}-{endOffset}"}, urlEncode = {true, false})
+   @ResponseParser(ETagFromHttpResponseViaRegex.class)
+   String uploadPartCopy(@Bucket @EndpointParam(parser = AssignCorrectHostnameForBucket.class) @BinderParam(
+         BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
+         @PathParam("key") String key, @QueryParam("partNumber") int partNumber,
+         @QueryParam("uploadId") String uploadId,
+         @PathParam("sourceBucket") String sourceBucket, @PathParam("sourceObject") String sourceObject,
+         @PathParam("startOffset") long startOffset, @PathParam("endOffset") long endOffset,
+         CopyObjectOptions options);
+
    /**
     *
     This operation completes a multipart upload by assembling previously uploaded parts.
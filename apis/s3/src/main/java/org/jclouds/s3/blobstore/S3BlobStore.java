@@ -29,7 +29,9 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.jclouds.aws.AWSResponseException;
 import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -72,7 +74,9 @@ import org.jclouds.s3.options.ListBucketOptions;
 import org.jclouds.s3.options.PutBucketOptions;
 import org.jclouds.s3.options.PutObjectOptions;
 import org.jclouds.s3.util.S3Utils;
+import org.jclouds.util.Throwables2;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
@@ -93,6 +97,10 @@ public class S3BlobStore extends BaseBlobStore {
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
    private final Provider<FetchBlobMetadata> fetchBlobMetadataProvider;
 
+   /** largest source S3 copies in a single request */
+   @VisibleForTesting
+   long maximumCopySize = 5L * 1024L * 1024L * 1024L;
+
    @Inject
    protected S3BlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, S3Client sync,
@@ -269,6 +277,10 @@ public class S3BlobStore extends BaseBlobStore {
       return sync.putObject(container, blob2Object.apply(blob), options);
    }
 
+   /**
+    * This implementation invokes {@link S3Client#copyObject}. Sources that S3 refuses to copy in one request, those
+    * over 5 GB, are copied with {@link S3Client#uploadPartCopy} in parallel parts pinned to the source ETag.
+    */
    @Override
    public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
          CopyOptions options) {
@@ -319,7 +331,27 @@ public class S3BlobStore extends BaseBlobStore {
          s3Options.overrideMetadataWith(userMetadata);
       }
 
-      return sync.copyObject(fromContainer, fromName, toContainer, toName, s3Options).getETag();
+      BlobMetadata sourceMetadata;
+      try {
+         return sync.copyObject(fromContainer, fromName, toContainer, toName, s3Options).getETag();
+      } catch (RuntimeException e) {
+         AWSResponseException are = Throwables2.getFirstThrowableOfType(e, AWSResponseException.class);
+         if (are == null || are.getError() == null || !"InvalidRequest".equals(are.getError().getCode())) {
+            throw e;
+         }
+         // InvalidRequest covers other mistakes too, so only a source over the limit is copied in parts
+         sourceMetadata = blobMetadata(fromContainer, fromName);
+         if (sourceMetadata == null) {
+            throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+         }
+         Long contentLength = sourceMetadata.getContentMetadata().getContentLength();
+         if (contentLength == null || contentLength <= maximumCopySize) {
+            throw e;
+         }
+      }
+
+      checkCopyPreconditions(sourceMetadata, options);
+      return copyMultipartBlob(fromContainer, fromName, sourceMetadata, toContainer, toName, options);
    }
 
    /**
@@ -393,6 +425,19 @@ public class S3BlobStore extends BaseBlobStore {
       return MultipartPart.create(partNumber, partSize, eTag, lastModified);
    }
 
+   @Override
+   protected MultipartPart copyMultipartPart(MultipartUpload mpu, int partNumber, String fromContainer,
+         String fromName, String sourceETag, long begin, long end) {
+      CopyObjectOptions options = new CopyObjectOptions();
+      if (sourceETag != null) {
+         options.ifSourceETagMatches(sourceETag);
+      }
+      String eTag = sync.uploadPartCopy(mpu.containerName(), mpu.blobName(), partNumber, mpu.id(), fromContainer,
+            fromName, begin, end, options);
+      Date lastModified = null;  // S3 does not return Last-Modified
+      return MultipartPart.create(partNumber, end - begin + 1, eTag, lastModified);
+   }
+
    @Override
    public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
       ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
@@ -41,7 +41,10 @@ import java.util.TimeZone;
 import javax.inject.Inject;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
 import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
@@ -115,6 +118,11 @@ public abstract class Aws4SignerBase {
    protected final Supplier<Credentials> creds;
    protected final Supplier<Date> timestampProvider;
    protected final Crypto crypto;
+   /**
+    * Signing keys only change with the credentials, date, region and service, so they are derived once per scope
+    * rather than with four HMACs per request. The cached arrays must not be modified.
+    */
+   private final Cache<SigningKeyScope, byte[]> signingKeys = CacheBuilder.newBuilder().maximumSize(64).build();
 
 
    protected Aws4SignerBase(SignatureWire signatureWire, String headerTag,
@@ -132,6 +140,38 @@ public abstract class Aws4SignerBase {
       dateFormat.setTimeZone(GMT);
    }
 
+   private static final class SigningKeyScope {
+      private final String secretKey;
+      private final String datestamp;
+      private final String region;
+      private final String service;
+
+      SigningKeyScope(String secretKey, String datestamp, String region, String service) {
+         this.secretKey = secretKey;
+         this.datestamp = datestamp;
+         this.region = region;
+         this.service = service;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj) {
+            return true;
+         }
+         if (!(obj instanceof SigningKeyScope)) {
+            return false;
+         }
+         SigningKeyScope that = (SigningKeyScope) obj;
+         return Objects.equal(secretKey, that.secretKey) && Objects.equal(datestamp, that.datestamp)
+               && Objects.equal(region, that.region) && Objects.equal(service, that.service);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(secretKey, datestamp, region, service);
+      }
+   }
+
    protected static String hostHeaderFor(URI endpoint) {
       String scheme = endpoint.getScheme();
       String host = endpoint.getHost();
@@ -210,6 +250,16 @@ public abstract class Aws4SignerBase {
     * @return SigningKey
     */
    protected byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
+      SigningKeyScope scope = new SigningKeyScope(secretKey, datestamp, region, service);
+      byte[] kSigning = signingKeys.getIfPresent(scope);
+      if (kSigning == null) {
+         kSigning = deriveSignatureKey(secretKey, datestamp, region, service);
+         signingKeys.put(scope, kSigning);
+      }
+      return kSigning;
+   }
+
+   private byte[] deriveSignatureKey(String secretKey, String datestamp, String region, String service) {
       byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
       byte[] kDate = hmacSHA256(datestamp, kSecret);
       byte[] kRegion = hmacSHA256(region, kDate);
@@ -16,6 +16,7 @@
  */
 package org.jclouds.s3.filters;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
@@ -52,12 +53,20 @@ import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_ALGORITHM_HMAC_
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_DATE_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_SECURITY_TOKEN_HEADER;
+import static org.jclouds.s3.filters.AwsSignatureV4Constants.UNSIGNED_PAYLOAD;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_UNSIGNED_PAYLOAD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
 /**
  * AWS4 signer sign requests to Amazon S3 using an 'Authorization' header.
  */
 public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
+   private static final CharMatcher HEX = CharMatcher.anyOf("0123456789abcdef");
+
+   @Inject(optional = true)
+   @Named(PROPERTY_S3_UNSIGNED_PAYLOAD)
+   protected boolean unsignedPayload = false;
+
    @Inject
    public Aws4SignerForAuthorizationHeader(SignatureWire signatureWire,
          @Named(PROPERTY_S3_VIRTUAL_HOST_BUCKETS) boolean isVhostStyle,
@@ -167,11 +176,22 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
       return requestBuilder.replaceHeader(HttpHeaders.AUTHORIZATION, authorization.toString()).build();
    }
 
+   /**
+    * Avoids reading the payload before it is sent when possible: a SHA-256 the caller already set in the
+    * x-amz-content-sha256 header is trusted, and over https the payload can be left unsigned.
+    */
    protected String getPayloadHash(HttpRequest request) {
       Payload payload = request.getPayload();
       if (payload == null || "0".equals(getContentLength(request))) {
          return getEmptyPayloadContentHash();
       }
+      String precomputed = request.getFirstHeaderOrNull(AMZ_CONTENT_SHA256_HEADER);
+      if (precomputed != null && precomputed.length() == 64 && HEX.matchesAllOf(precomputed)) {
+         return precomputed;
+      }
+      if (unsignedPayload && "https".equalsIgnoreCase(request.getEndpoint().getScheme())) {
+         return UNSIGNED_PAYLOAD;
+      }
       return calculatePayloadContentHash(payload);
    }
 
@@ -16,50 +16,53 @@
  */
 package org.jclouds.s3.filters;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteProcessor;
 import com.google.common.io.ByteStreams;
-import org.jclouds.http.HttpException;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.io.payloads.BasePayload;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.Enumeration;
 
+import static com.google.common.base.Charsets.US_ASCII;
 import static com.google.common.base.Charsets.UTF_8;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.s3.filters.Aws4SignerBase.hash;
 import static org.jclouds.s3.filters.Aws4SignerBase.hex;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CHUNK_SIGNATURE_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CHUNK_STRING_TO_SIGN_PREFIX;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CLRF;
-import static org.jclouds.s3.filters.AwsSignatureV4Constants.FINAL_CHUNK;
-import static org.jclouds.util.Strings2.toInputStream;
 
 public class ChunkedUploadPayload extends BasePayload<Payload> {
    private static final byte[] TRAILER = CLRF.getBytes(UTF_8);
+   private static final byte[] NEWLINE = "\n".getBytes(UTF_8);
+   // nonsig-extension; we have none, so its hash is constant
+   private static final String NONSIG_EXTENSION = "";
+   private static final byte[] NONSIG_EXTENSION_HASH = hex(hash(NONSIG_EXTENSION)).getBytes(US_ASCII);
 
    private final Payload payload;
    private final int chunkedBlockSize;
-   private final String timestamp;
-   private final String scope;
    private final ByteProcessor<byte[]> hmacSHA256;
-   private String lastComputedSignature;
+   private final String seedSignature;
+   // CHUNK_STRING_TO_SIGN_PREFIX + \n + timestamp + \n + scope + \n, shared by every chunk's string to sign
+   private final byte[] stringToSignPrefix;
 
    public ChunkedUploadPayload(Payload payload, int blockSize, String timestamp, String scope,
          ByteProcessor<byte[]> hmacSHA256, String seedSignature) {
       super(payload);
       this.payload = payload;
       this.chunkedBlockSize = blockSize;
-      this.timestamp = timestamp;
-      this.scope = scope;
       this.hmacSHA256 = hmacSHA256;
-      this.lastComputedSignature = seedSignature;
+      this.seedSignature = seedSignature;
+      this.stringToSignPrefix = (CHUNK_STRING_TO_SIGN_PREFIX + "\n" + timestamp + "\n" + scope + "\n").getBytes(UTF_8);
 
       // init content metadata
       MutableContentMetadata contentMetadata = BaseMutableContentMetadata.fromContentMetadata(
@@ -71,91 +74,6 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       this.setContentMetadata(contentMetadata);
    }
 
-   /**
-    * Returns a chunk for upload consisting of the signed 'header' or chunk
-    * prefix plus the user data. The signature of the chunk incorporates the
-    * signature of the previous chunk (or, if the first chunk, the signature of
-    * the headers portion of the request).
-    *
-    * @param userDataLen The length of the user data contained in userData
-    * @param userData   Contains the user data to be sent in the upload chunk
-    * @return A new buffer of data for upload containing the chunk header plus
-    * user data
-    */
-   protected byte[] constructSignedChunk(int userDataLen, byte[] userData) {
-      // to keep our computation routine signatures simple, if the userData
-      // buffer contains less data than it could, shrink it. Note the special case
-      // to handle the requirement that we send an empty chunk to complete
-      // our chunked upload.
-      byte[] dataToChunk;
-      if (userDataLen == 0) {
-         dataToChunk = FINAL_CHUNK;
-      } else {
-         if (userDataLen < userData.length) {
-            // shrink the chunkdata to fit
-            dataToChunk = new byte[userDataLen];
-            System.arraycopy(userData, 0, dataToChunk, 0, userDataLen);
-         } else {
-            dataToChunk = userData;
-         }
-      }
-
-      // string(IntHexBase(chunk-size)) + ";chunk-signature=" + signature + \r\n + chunk-data + \r\n
-      StringBuilder chunkHeader = new StringBuilder();
-
-      // start with size of user data
-      // IntHexBase(chunk-size)
-      chunkHeader.append(Integer.toHexString(dataToChunk.length));
-
-      // chunk-signature
-
-      // nonsig-extension; we have none in these samples
-      String nonsigExtension = "";
-
-      // if this is the first chunk, we package it with the signing result
-      // of the request headers, otherwise we use the cached signature
-      // of the previous chunk
-
-      // sig-extension
-      StringBuilder buffer = new StringBuilder();
-      buffer.append(CHUNK_STRING_TO_SIGN_PREFIX);
-      buffer.append("\n");
-      buffer.append(timestamp).append("\n");
-      buffer.append(scope).append("\n");
-      buffer.append(lastComputedSignature).append("\n");
-      buffer.append(hex(hash(nonsigExtension))).append("\n");
-      buffer.append(hex(hash(dataToChunk)));
-
-      String chunkStringToSign = buffer.toString();
-
-      // compute the V4 signature for the chunk
-      String chunkSignature;
-      try {
-         chunkSignature = hex(readBytes(toInputStream(chunkStringToSign), hmacSHA256));
-      } catch (IOException e) {
-         throw new HttpException("hmac sha256 chunked signature error");
-      }
-
-      // cache the signature to include with the next chunk's signature computation
-      lastComputedSignature = chunkSignature;
-
-      // construct the actual chunk, comprised of the non-signed extensions, the
-      // 'headers' we just signed and their signature, plus a newline then copy
-      // that plus the user's data to a payload to be written to the request stream
-      chunkHeader.append(nonsigExtension + CHUNK_SIGNATURE_HEADER + chunkSignature);
-      chunkHeader.append(CLRF);
-
-      byte[] header = chunkHeader.toString().getBytes(UTF_8);
-      byte[] signedChunk = new byte[header.length + dataToChunk.length + TRAILER.length];
-      System.arraycopy(header, 0, signedChunk, 0, header.length);
-      // chunk-data
-      System.arraycopy(dataToChunk, 0, signedChunk, header.length, dataToChunk.length);
-      System.arraycopy(TRAILER, 0, signedChunk, header.length + dataToChunk.length, TRAILER.length);
-
-      // this is the total data for the chunk that will be sent to the request stream
-      return signedChunk;
-   }
-
    @Override
    public void release() {
       this.payload.release();
@@ -171,14 +89,29 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       return new SequenceInputStream(new ChunkedInputStreamEnumeration(this.payload.openStream(), chunkedBlockSize));
    }
 
+   /**
+    * Signs and frames one block of user data at a time. The data buffer, the
+    * digest and the string to sign are reused across chunks: the stream for a
+    * chunk is only requested once the previous one has been read to its end.
+    * Each stream starts again from the seed signature, so that a repeatable
+    * payload can be sent more than once.
+    */
    private class ChunkedInputStreamEnumeration implements Enumeration<InputStream> {
       private final InputStream inputStream;
+      private final byte[] buffer;
+      private final MessageDigest sha256;
       private boolean lastChunked;
-      private byte[] buffer;
+      private byte[] lastComputedSignature;
 
       ChunkedInputStreamEnumeration(InputStream inputStream, int chunkedBlockSize) {
-         this.inputStream = new BufferedInputStream(inputStream, chunkedBlockSize);
+         this.inputStream = inputStream;
          buffer = new byte[chunkedBlockSize];
+         try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+         } catch (NoSuchAlgorithmException e) {
+            throw new ChunkedUploadException("sha256 unavailable", e);
+         }
+         lastComputedSignature = seedSignature.getBytes(US_ASCII);
          lastChunked = false;
       }
 
@@ -197,20 +130,44 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
             throw new ChunkedUploadException("read from input stream error", e);
          }
 
-         // buffer
-         byte[] chunk;
-
-         // ByteStreams.read(InputStream, byte[], int, int) returns the number of bytes read
-         // InputStream.read(byte[], int, int) returns -1 if the end of the stream has been reached.
-         if (bytesRead > 0) {
-            // process into a chunk
-            chunk = constructSignedChunk(bytesRead, buffer);
-         } else {
-            // construct last chunked block
-            chunk = constructSignedChunk(0, buffer);
+         // ByteStreams.read(InputStream, byte[], int, int) returns the number of bytes read, and an empty chunk
+         // completes the upload
+         if (bytesRead <= 0) {
+            bytesRead = 0;
             lastChunked = true;
          }
-         return new ByteArrayInputStream(chunk);
+
+         // string(IntHexBase(chunk-size)) + ";chunk-signature=" + signature + \r\n + chunk-data + \r\n
+         byte[] chunkSignature;
+         try {
+            chunkSignature = sign(bytesRead);
+         } catch (IOException e) {
+            throw new ChunkedUploadException("hmac sha256 chunked signature error", e);
+         }
+         lastComputedSignature = chunkSignature;
+         byte[] header = (Integer.toHexString(bytesRead) + NONSIG_EXTENSION + CHUNK_SIGNATURE_HEADER +
+               new String(chunkSignature, US_ASCII) + CLRF).getBytes(UTF_8);
+         return new SequenceInputStream(Collections.enumeration(ImmutableList.<InputStream>of(
+               new ByteArrayInputStream(header),
+               new ByteArrayInputStream(buffer, 0, bytesRead),
+               new ByteArrayInputStream(TRAILER))));
+      }
+
+      /**
+       * Computes the V4 signature of a chunk, chained to the signature of the
+       * previous chunk (or, for the first chunk, the seed signature of the
+       * request headers), as hex.
+       */
+      private byte[] sign(int length) throws IOException {
+         sha256.update(buffer, 0, length);
+         byte[] dataHash = hex(sha256.digest()).getBytes(US_ASCII);
+         hmacSHA256.processBytes(stringToSignPrefix, 0, stringToSignPrefix.length);
+         hmacSHA256.processBytes(lastComputedSignature, 0, lastComputedSignature.length);
+         hmacSHA256.processBytes(NEWLINE, 0, NEWLINE.length);
+         hmacSHA256.processBytes(NONSIG_EXTENSION_HASH, 0, NONSIG_EXTENSION_HASH.length);
+         hmacSHA256.processBytes(NEWLINE, 0, NEWLINE.length);
+         hmacSHA256.processBytes(dataHash, 0, dataHash.length);
+         return hex(hmacSHA256.getResult()).getBytes(US_ASCII);
       }
    }
 
@@ -32,6 +32,15 @@ public final class S3Constants {
    public static final String PROPERTY_S3_SERVICE_PATH = "jclouds.s3.service-path";
    public static final String PROPERTY_S3_VIRTUAL_HOST_BUCKETS = "jclouds.s3.virtual-host-buckets";
    public static final String PROPERTY_JCLOUDS_S3_CHUNKED_SIZE = "jclouds.s3.chunked.size";
+   /**
+    * Repeatable payloads of at least this many bytes are signed chunk by chunk while they are sent, instead of being
+    * read once up front to hash them.
+    */
+   public static final String PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD = "jclouds.s3.chunked.upload.threshold";
+   /**
+    * Whether requests over https send UNSIGNED-PAYLOAD instead of hashing the payload, relying on TLS for integrity.
+    */
+   public static final String PROPERTY_S3_UNSIGNED_PAYLOAD = "jclouds.s3.unsigned-payload";
 
    public static final String TEMPORARY_SIGNATURE_PARAM = "Signature";
 
@@ -21,10 +21,14 @@ import static com.google.common.net.HttpHeaders.ETAG;
 import static com.google.common.net.HttpHeaders.EXPECT;
 import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.Constants.PROPERTY_GENERATED_APIS;
 import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.lang.reflect.Proxy;
 import java.net.URL;
 import java.util.Properties;
 import java.util.Set;
@@ -32,6 +36,8 @@ import java.util.Set;
 import org.jclouds.ContextBuilder;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
 import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
+import org.jclouds.reflect.GeneratedApi;
+import org.jclouds.reflect.GeneratedApis;
 import org.jclouds.s3.domain.S3Object;
 import org.jclouds.s3.options.CopyObjectOptions;
 import org.testng.annotations.Test;
@@ -50,7 +56,10 @@ public class S3ClientMockTest {
          new ExecutorServiceModule(newDirectExecutorService()));
 
    static S3Client getS3Client(URL server) {
-      Properties overrides = new Properties();
+      return getS3Client(server, new Properties());
+   }
+
+   static S3Client getS3Client(URL server, Properties overrides) {
       overrides.setProperty(PROPERTY_MAX_RETRIES, "1");
       return ContextBuilder.newBuilder("s3")
                            .credentials("accessKey", "secretKey")
@@ -98,6 +107,35 @@ public class S3ClientMockTest {
       server.shutdown();
    }
 
+   public void testGeneratedImplementationIsBound() throws IOException, InterruptedException {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().addHeader(ETAG, "ABCDEF"));
+      server.play();
+
+      S3Client client = getS3Client(server.getUrl("/"));
+      assertFalse(Proxy.isProxyClass(client.getClass()));
+      assertTrue(client instanceof GeneratedApi);
+      assertEquals(client.getClass().getName(), GeneratedApis.generatedClassName(S3Client.class));
+
+      S3Object object = client.newS3Object();
+      object.getMetadata().setKey("object");
+      object.setPayload(new byte[] { 1, 2, 3, 4 });
+      assertEquals(client.putObject("bucket", object), "ABCDEF");
+      assertEquals(server.takeRequest().getRequestLine(), "PUT /bucket/object HTTP/1.1");
+      server.shutdown();
+   }
+
+   public void testProxyIsBoundWhenGeneratedApisAreDisabled() throws IOException {
+      MockWebServer server = new MockWebServer();
+      server.play();
+
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_GENERATED_APIS, "false");
+      S3Client client = getS3Client(server.getUrl("/"), overrides);
+      assertTrue(Proxy.isProxyClass(client.getClass()));
+      server.shutdown();
+   }
+
    public void testSourceEncodedOnCopy() throws IOException, InterruptedException {
       MockWebServer server = new MockWebServer();
       server.enqueue(new MockResponse().setBody("<CopyObjectResult>\n" +
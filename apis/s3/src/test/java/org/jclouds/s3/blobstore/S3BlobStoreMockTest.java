@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.blobstore;
+
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.Set;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.aws.AWSResponseException;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
+import org.jclouds.util.Throwables2;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(singleThreaded = true, testName = "S3BlobStoreMockTest")
+public class S3BlobStoreMockTest {
+
+   private static final Set<Module> modules = ImmutableSet.<Module> of(new OkHttpCommandExecutorServiceModule(),
+         new ExecutorServiceModule(newDirectExecutorService()));
+
+   // two default 32 MB parts and a one byte remainder
+   private static final long LARGE_SOURCE = 2 * 32 * 1024 * 1024 + 1;
+
+   private static final String SOURCE_TOO_LARGE = "<Error><Code>InvalidRequest</Code><Message>The specified copy "
+         + "source is larger than the maximum allowable size for a copy source: 5368709120</Message></Error>";
+
+   private MockWebServer server;
+
+   @BeforeMethod
+   public void start() throws IOException {
+      server = new MockWebServer();
+      server.play();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void stop() throws IOException {
+      server.shutdown();
+   }
+
+   private BlobStore blobStore(URL url) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_RETRIES, "1");
+      S3BlobStore blobStore = (S3BlobStore) ContextBuilder.newBuilder("s3")
+                           .credentials("accessKey", "secretKey")
+                           .endpoint(url.toString())
+                           .modules(modules)
+                           .overrides(overrides)
+                           .buildView(BlobStoreContext.class).getBlobStore();
+      // stands in for the 5 GB limit of S3
+      blobStore.maximumCopySize = LARGE_SOURCE - 1;
+      return blobStore;
+   }
+
+   public void testSmallCopyIsOneRequest() throws Exception {
+      server.enqueue(new MockResponse().setBody("<CopyObjectResult>"
+            + "<LastModified>2009-10-28T22:32:00</LastModified>"
+            + "<ETag>\"9b2cf535f27731c974343645a3985328\"</ETag>"
+            + "</CopyObjectResult>"));
+
+      blobStore(server.getUrl("/")).copyBlob("sourceBucket", "source", "destinationBucket", "destination",
+            CopyOptions.NONE);
+
+      assertEquals(server.getRequestCount(), 1);
+      RecordedRequest copy = server.takeRequest();
+      assertEquals(copy.getRequestLine(), "PUT /destinationBucket/destination HTTP/1.1");
+      assertEquals(copy.getHeaders("x-amz-copy-source"), ImmutableList.of("/sourceBucket/source"));
+   }
+
+   public void testLargeCopyUsesPartCopiesPinnedToSourceETag() throws Exception {
+      enqueueLargeCopyPreamble();
+      for (int part = 1; part <= 3; part++) {
+         server.enqueue(new MockResponse().setBody("<CopyPartResult><ETag>\"part" + part + "\"</ETag></CopyPartResult>"));
+      }
+      server.enqueue(new MockResponse().setBody(
+            "<CompleteMultipartUploadResult><ETag>\"final\"</ETag></CompleteMultipartUploadResult>"));
+
+      String eTag = blobStore(server.getUrl("/")).copyBlob("sourceBucket", "source", "destinationBucket",
+            "destination", CopyOptions.NONE);
+      assertEquals(eTag, "\"final\"");
+
+      assertLargeCopyPreambleSent();
+      assertPartCopy(1, "bytes=0-33554431");
+      assertPartCopy(2, "bytes=33554432-67108863");
+      assertPartCopy(3, "bytes=67108864-67108864");
+      assertEquals(server.takeRequest().getRequestLine(),
+            "POST /destinationBucket/destination?uploadId=upload HTTP/1.1");
+   }
+
+   public void testLargeCopyIsAbortedWhenSourceChanges() throws Exception {
+      enqueueLargeCopyPreamble();
+      server.enqueue(new MockResponse().setResponseCode(412).addHeader("Content-Type", "application/xml")
+            .setBody("<Error><Code>PreconditionFailed</Code><Message>At least one of the pre-conditions you "
+                  + "specified did not hold</Message></Error>"));
+      server.enqueue(new MockResponse().setBody("<CopyPartResult><ETag>\"part2\"</ETag></CopyPartResult>"));
+      server.enqueue(new MockResponse().setBody("<CopyPartResult><ETag>\"part3\"</ETag></CopyPartResult>"));
+      server.enqueue(new MockResponse().setResponseCode(204));
+
+      try {
+         blobStore(server.getUrl("/")).copyBlob("sourceBucket", "source", "destinationBucket", "destination",
+               CopyOptions.NONE);
+         fail("copy of a changed source should fail");
+      } catch (RuntimeException expected) {
+      }
+
+      assertLargeCopyPreambleSent();
+      assertPartCopy(1, "bytes=0-33554431");
+      assertPartCopy(2, "bytes=33554432-67108863");
+      assertPartCopy(3, "bytes=67108864-67108864");
+      assertEquals(server.takeRequest().getRequestLine(),
+            "DELETE /destinationBucket/destination?uploadId=upload HTTP/1.1");
+   }
+
+   public void testInvalidCopyOfSmallSourceIsNotCopiedInParts() throws Exception {
+      server.enqueue(new MockResponse().setResponseCode(400).addHeader("Content-Type", "application/xml")
+            .setBody("<Error><Code>InvalidRequest</Code><Message>This copy request is illegal because it is trying "
+                  + "to copy an object to itself without changing the object's metadata</Message></Error>"));
+      server.enqueue(new MockResponse()
+            .setHeader(CONTENT_LENGTH, LARGE_SOURCE - 1)
+            .addHeader(ETAG, "\"source\"")
+            .addHeader(LAST_MODIFIED, "Wed, 28 Oct 2009 22:32:00 GMT"));
+
+      try {
+         blobStore(server.getUrl("/")).copyBlob("bucket", "source", "bucket", "source", CopyOptions.NONE);
+         fail("an invalid copy within the size limit should fail");
+      } catch (RuntimeException expected) {
+         assertEquals(Throwables2.getFirstThrowableOfType(expected, AWSResponseException.class).getError().getCode(),
+               "InvalidRequest");
+      }
+
+      assertEquals(server.getRequestCount(), 2);
+      assertEquals(server.takeRequest().getRequestLine(), "PUT /bucket/source HTTP/1.1");
+      assertEquals(server.takeRequest().getRequestLine(), "HEAD /bucket/source HTTP/1.1");
+   }
+
+   private void enqueueLargeCopyPreamble() {
+      server.enqueue(new MockResponse().setResponseCode(400).addHeader("Content-Type", "application/xml")
+            .setBody(SOURCE_TOO_LARGE));
+      server.enqueue(new MockResponse()
+            .setHeader(CONTENT_LENGTH, LARGE_SOURCE)
+            .addHeader(ETAG, "\"source\"")
+            .addHeader(LAST_MODIFIED, "Wed, 28 Oct 2009 22:32:00 GMT"));
+      server.enqueue(new MockResponse().setBody("<InitiateMultipartUploadResult><Bucket>destinationBucket</Bucket>"
+            + "<Key>destination</Key><UploadId>upload</UploadId></InitiateMultipartUploadResult>"));
+   }
+
+   private void assertLargeCopyPreambleSent() throws InterruptedException {
+      assertEquals(server.takeRequest().getRequestLine(), "PUT /destinationBucket/destination HTTP/1.1");
+      assertEquals(server.takeRequest().getRequestLine(), "HEAD /sourceBucket/source HTTP/1.1");
+      assertEquals(server.takeRequest().getRequestLine(), "POST /destinationBucket/destination?uploads HTTP/1.1");
+   }
+
+   private void assertPartCopy(int partNumber, String range) throws InterruptedException {
+      RecordedRequest request = server.takeRequest();
+      assertEquals(request.getRequestLine(), "PUT /destinationBucket/destination?partNumber=" + partNumber
+            + "&uploadId=upload HTTP/1.1");
+      assertEquals(request.getHeaders("x-amz-copy-source"), ImmutableList.of("/sourceBucket/source"));
+      assertEquals(request.getHeaders("x-amz-copy-source-range"), ImmutableList.of(range));
+      assertEquals(request.getHeaders("x-amz-copy-source-if-match"), ImmutableList.of("\"source\""));
+   }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.filters;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.jclouds.crypto.Macs;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+@Test(groups = "unit", testName = "ChunkedUploadPayloadTest")
+public class ChunkedUploadPayloadTest {
+   private static final String TIMESTAMP = "20130524T000000Z";
+   private static final String SCOPE = "20130524/us-east-1/s3/aws4_request";
+   private static final String SEED_SIGNATURE = "4f232c4386841ef735655705268965c44a0e4690baa4adea153f7db9fa80a0a9";
+
+   /**
+    * The streaming upload example of the AWS Signature Version 4 documentation: 66560 bytes of 'a' sent in 64 KB
+    * chunks, signed with the example secret key.
+    */
+   public void testChunksMatchAwsExample() throws Exception {
+      byte[] data = new byte[66560];
+      Arrays.fill(data, (byte) 'a');
+      Payload payload = Payloads.newByteArrayPayload(data);
+      payload.getContentMetadata().setContentLength((long) data.length);
+      byte[] signingKey = hmacSHA256(("AWS4" + "wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY").getBytes(UTF_8), "20130524");
+      for (String part : new String[] { "us-east-1", "s3", "aws4_request" }) {
+         signingKey = hmacSHA256(signingKey, part);
+      }
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(signingKey, "HmacSHA256"));
+      ChunkedUploadPayload chunked = new ChunkedUploadPayload(payload, 65536, TIMESTAMP, SCOPE,
+            Macs.asByteProcessor(mac), SEED_SIGNATURE);
+
+      String framed = new String(ByteStreams.toByteArray(chunked.openStream()), US_ASCII);
+
+      assertEquals(chunked.getContentMetadata().getContentLength().longValue(), 66824);
+      assertEquals(framed, "10000;chunk-signature=ad80c730a21e5b8d04586a2213dd63b9a0e99e0e2307b0ade35a65485a288648\r\n"
+            + Strings.repeat("a", 65536) + "\r\n"
+            + "400;chunk-signature=0055627c9e194cb4542bae2aa5492e3c1575bbb81b612b7d234b86a503ef5497\r\n"
+            + Strings.repeat("a", 1024) + "\r\n"
+            + "0;chunk-signature=b6c6ea8a5354eaf15b3cb7646744f4275b71ea724fed81ceb9323e279d449df9\r\n\r\n");
+   }
+
+   public void testChunksFramedAndSignedRepeatably() throws Exception {
+      byte[] data = new byte[66560];
+      Arrays.fill(data, (byte) 'a');
+      Payload payload = Payloads.newByteArrayPayload(data);
+      payload.getContentMetadata().setContentLength((long) data.length);
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(new byte[] { 1, 2, 3 }, "HmacSHA256"));
+      ChunkedUploadPayload chunked = new ChunkedUploadPayload(payload, 65536, TIMESTAMP, SCOPE,
+            Macs.asByteProcessor(mac), SEED_SIGNATURE);
+
+      byte[] first = ByteStreams.toByteArray(chunked.openStream());
+      byte[] second = ByteStreams.toByteArray(chunked.openStream());
+
+      assertEquals(first.length, chunked.getContentMetadata().getContentLength().longValue());
+      // a second stream starts again from the seed signature
+      assertEquals(second, first);
+      String framed = new String(first, "US-ASCII");
+      assertEquals(framed.substring(0, framed.indexOf(';')), "10000");
+      assertTrue(framed.matches("(?s).*\\r\\n0;chunk-signature=[0-9a-f]{64}\\r\\n\\r\\n"));
+   }
+
+   private static byte[] hmacSHA256(byte[] key, String data) throws Exception {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(key, "HmacSHA256"));
+      return mac.doFinal(data.getBytes(UTF_8));
+   }
+}
@@ -18,8 +18,12 @@ package org.jclouds.s3.filters;
 
 import static org.jclouds.reflect.Reflection2.method;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
+import java.util.Properties;
 
 import javax.inject.Named;
 
@@ -32,6 +36,8 @@ import org.jclouds.http.HttpRequest;
 import org.jclouds.http.options.GetOptions;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
+import org.jclouds.io.payloads.BasePayload;
 import org.jclouds.logging.config.NullLoggingModule;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.ConfiguresHttpApi;
@@ -43,6 +49,7 @@ import org.jclouds.s3.config.S3HttpApiModule;
 import org.jclouds.s3.domain.S3Object;
 import org.jclouds.s3.options.ListBucketOptions;
 import org.jclouds.s3.options.PutObjectOptions;
+import org.jclouds.s3.reference.S3Constants;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
@@ -109,8 +116,13 @@ public class RequestAuthorizeSignatureV4Test {
    }
 
    public static Injector injector(Credentials creds) {
+      return injector(creds, new Properties());
+   }
+
+   public static Injector injector(Credentials creds, Properties overrides) {
       return ContextBuilder.newBuilder(new S3ApiMetadata())
             .credentialsSupplier(Suppliers.<Credentials>ofInstance(creds))
+            .overrides(overrides)
             .modules(ImmutableList.<Module>of(new BaseRestApiTest.MockModule(), new NullLoggingModule(),
                   new TestS3HttpApiModule()))
             .buildInjector();
@@ -197,6 +209,70 @@ public class RequestAuthorizeSignatureV4Test {
 
    }
 
+   @Test
+   void testPutObjectUnsignedPayload() {
+      Properties overrides = new Properties();
+      overrides.setProperty(S3Constants.PROPERTY_S3_UNSIGNED_PAYLOAD, "true");
+      HttpRequest filtered = injector(temporaryCredentials, overrides).getInstance(RequestAuthorizeSignatureV4.class)
+            .filter(putObjectRequest(new UnreadablePayload()));
+      assertEquals(filtered.getFirstHeaderOrNull(AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER),
+            AwsSignatureV4Constants.UNSIGNED_PAYLOAD);
+   }
+
+   @Test
+   void testPutObjectPrecomputedPayloadHash() {
+      String sha256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+      HttpRequest putObject = putObjectRequest(new UnreadablePayload()).toBuilder()
+            .addHeader(AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER, sha256)
+            .build();
+      HttpRequest filtered = filter(temporaryCredentials).filter(putObject);
+      assertEquals(filtered.getFirstHeaderOrNull(AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER), sha256);
+   }
+
+   @Test
+   void testPutObjectChunkedAboveThreshold() {
+      Properties overrides = new Properties();
+      overrides.setProperty(S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD, "4");
+      Payload payload = Payloads.newStringPayload(PUT_OBJECT_CONTENT);
+      payload.getContentMetadata().setContentType("text/plain");
+      HttpRequest filtered = injector(temporaryCredentials, overrides).getInstance(RequestAuthorizeSignatureV4.class)
+            .filter(putObjectRequest(payload));
+      assertEquals(filtered.getFirstHeaderOrNull(AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER),
+            AwsSignatureV4Constants.STREAMING_BODY_SHA256);
+      assertTrue(filtered.getPayload() instanceof ChunkedUploadPayload);
+   }
+
+   private static HttpRequest putObjectRequest(Payload payload) {
+      Invocation invocation = Invocation.create(method(S3Client.class, "putObject", String.class, S3Object.class,
+                  PutObjectOptions[].class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+      return GeneratedHttpRequest.builder().method("PUT")
+            .invocation(invocation)
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME)
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .payload(payload)
+            .build();
+   }
+
+   /** A repeatable payload that fails the test if the signer reads it. */
+   private static final class UnreadablePayload extends BasePayload<String> {
+      UnreadablePayload() {
+         super(PUT_OBJECT_CONTENT, new BaseMutableContentMetadata());
+         getContentMetadata().setContentLength((long) PUT_OBJECT_CONTENT.length());
+         getContentMetadata().setContentType("text/plain");
+      }
+
+      @Override
+      public InputStream openStream() throws IOException {
+         throw new AssertionError("payload should not be read while signing");
+      }
+
+      @Override
+      public boolean isRepeatable() {
+         return true;
+      }
+   }
+
    // JCLOUDS-1401
    @Test
    void testListBucketFunnyCharactersSignature() {
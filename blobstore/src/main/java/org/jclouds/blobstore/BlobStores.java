@@ -51,11 +51,24 @@ public class BlobStores {
     * immediately and cached. Repeatedly iterating will not re-fetch (and thus
     * will not refresh) the first page.
     *  
+    * If listAllOptions.isPrefetch, or the listing is sharded by folder or by
+    * markers, pages are fetched on the context's user executor, ahead of the
+    * caller and across shards in parallel, and the results are returned in
+    * name order. In that case isEager only checks up front that the container
+    * can be listed.
+    * 
     * @throws ContainerNotFoundException If listAllOptions.isEager and container cannot be found
     */
    @Beta
    public static Iterable<StorageMetadata> listAll(final BlobStore blobStore, final String container,
             final ListContainerOptions containerOptions, final ListAllOptions listAllOptions) {
+      if (listAllOptions.isPrefetch() || listAllOptions.isShardByFolder()
+            || !listAllOptions.getShardMarkers().isEmpty()) {
+         if (listAllOptions.isEager()) {
+            blobStore.list(container, containerOptions.clone().maxResults(1));
+         }
+         return new ParallelListing(blobStore, container, containerOptions, listAllOptions);
+      }
       final boolean eager = listAllOptions.isEager();
       final PageSet<? extends StorageMetadata> firstList;
       final String firstMarker;
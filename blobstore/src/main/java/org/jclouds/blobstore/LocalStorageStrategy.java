@@ -18,6 +18,8 @@ package org.jclouds.blobstore;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -27,6 +29,8 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.domain.Location;
 
+import com.google.common.annotations.Beta;
+
 /**
  * Strategy for local operations related to container and blob
  */
@@ -100,6 +104,25 @@ public interface LocalStorageStrategy {
      */
     Iterable<String> getBlobKeysInsideContainer(String container, String prefix) throws IOException;
 
+    /**
+     * Returns the keys inside a container which start with prefix and sort
+     * strictly after marker, in lexicographic order.  Implementations should
+     * seek directly to the first matching key and produce the remaining keys
+     * lazily, so that reading a single page does not walk the whole container.
+     * Keys may include folders; callers filter them with
+     * {@link #blobExists(String, String)}.  Returning a
+     * {@link java.util.NavigableSet} view or iterators implementing
+     * {@link PrefixSkippingIterator} lets callers skip the keys folded into a
+     * common prefix without reading them.
+     *
+     * @param container
+     * @param prefix only return keys starting with this, or null for all keys
+     * @param marker only return keys after this, or null to start at the first key
+     * @return
+     * @throws IOException
+     */
+    Iterable<String> getBlobKeysInsideContainer(String container, String prefix, String marker) throws IOException;
+
     /**
      * Load the blob with the given key belonging to the container with the given
      * name. There must exist a resource on the file system whose complete name
@@ -123,6 +146,20 @@ public interface LocalStorageStrategy {
      */
     String putBlob(String containerName, Blob blob) throws IOException;
 
+    /**
+     * Write a {@link Blob} whose content is the concatenation of existing blobs,
+     * e.g. the parts of a multipart upload.  The payload of blob streams the
+     * parts in order; implementations may instead assemble the content directly
+     * from their stored copies of the parts.  The parts are left in place.
+     *
+     * @param containerName
+     * @param blob metadata of the new blob, including its multipart ETag
+     * @param partNames names of the blobs to concatenate, in order
+     * @return etag of blob
+     * @throws IOException
+     */
+    String putMultipartBlob(String containerName, Blob blob, List<String> partNames) throws IOException;
+
     /**
      * Remove blob named by the given key
      * @param container
@@ -142,4 +179,17 @@ public interface LocalStorageStrategy {
 
     /** @return path separator, either / or \ */
     String getSeparator();
+
+    /**
+     * Iterator over sorted keys which can skip all keys sharing a prefix
+     * without visiting them, e.g. by leaving a directory unopened.
+     */
+    @Beta
+    interface PrefixSkippingIterator extends Iterator<String> {
+        /**
+         * Skips the remaining keys starting with prefix.  A key already read
+         * ahead by {@link #hasNext()} may still be returned.
+         */
+        void skipPrefix(String prefix);
+    }
 }
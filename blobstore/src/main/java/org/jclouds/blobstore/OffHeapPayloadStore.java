@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.jclouds.io.ByteSources;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.InsufficientResourcesException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+
+/**
+ * Holds transient blob payloads in direct buffers outside the Java heap, so
+ * that large test data sets do not lengthen garbage collection pauses.  Once
+ * the byte budget is used up, the least recently read payloads are spilled to
+ * memory-mapped temporary files, or new payloads are rejected.  Readers get
+ * views of the stored buffers: neither whole nor ranged reads copy a payload.
+ * <p/>
+ * Buffers are never reused.  A reader still holding a view of a removed or
+ * spilled payload keeps reading the old buffer, and its memory is returned
+ * when the view is garbage collected.
+ */
+final class OffHeapPayloadStore {
+   private static final int MIN_CHUNK_SIZE = 64 * 1024;
+   private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+   private static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
+
+   private final long budget;
+   private final boolean spill;
+   @Nullable private final File spillDirectory;
+   /** payloads held in direct buffers, least recently read first */
+   private final LinkedHashMap<StoredPayload, Boolean> offHeap =
+         new LinkedHashMap<StoredPayload, Boolean>(16, 0.75f, /*accessOrder=*/ true);
+   private long offHeapBytes;
+
+   /**
+    * @param budget bytes of direct memory payloads may use, or 0 for no limit
+    * @param spill whether to spill payloads to disk past the budget instead of rejecting new ones
+    * @param spillDirectory directory for spilled payloads, or null for the default temporary directory
+    */
+   OffHeapPayloadStore(long budget, boolean spill, @Nullable File spillDirectory) {
+      checkArgument(budget >= 0, "budget must be non-negative");
+      this.budget = budget;
+      this.spill = spill;
+      this.spillDirectory = spillDirectory;
+   }
+
+   /**
+    * Copies the remaining content of input off-heap.
+    *
+    * @param contentLength the expected length, used to size the buffers, or null if unknown
+    * @return a view of the stored content, to be passed to {@link #release} once it is no longer stored
+    * @throws InsufficientResourcesException if the budget is exhausted and spilling is disabled
+    */
+   ByteSource store(InputStream input, @Nullable Long contentLength) throws IOException {
+      if (contentLength != null) {
+         reserve(contentLength);
+      }
+      StoredPayload payload = new StoredPayload(read(input, contentLength));
+      List<StoredPayload> victims;
+      synchronized (this) {
+         if (budget > 0 && payload.size > budget) {
+            if (!spill) {
+               throw exhausted(payload.size);
+            }
+            victims = ImmutableList.of(payload);
+         } else {
+            victims = evict(payload.size);
+            offHeap.put(payload, Boolean.TRUE);
+            offHeapBytes += payload.size;
+         }
+      }
+      try {
+         for (StoredPayload victim : victims) {
+            spill(victim);
+         }
+      } catch (IOException ioe) {
+         release(payload);
+         throw ioe;
+      }
+      return payload;
+   }
+
+   /** Returns the budget used by a payload created by {@link #store}. */
+   synchronized void release(ByteSource content) {
+      if (content instanceof StoredPayload && offHeap.remove(content) != null) {
+         offHeapBytes -= ((StoredPayload) content).size;
+      }
+   }
+
+   @VisibleForTesting
+   synchronized long offHeapBytes() {
+      return offHeapBytes;
+   }
+
+   @VisibleForTesting
+   static boolean isSpilled(ByteSource content) {
+      return ((StoredPayload) content).spilled;
+   }
+
+   private synchronized void reserve(long size) {
+      if (!spill && budget > 0 && offHeapBytes + size > budget) {
+         throw exhausted(size);
+      }
+   }
+
+   private InsufficientResourcesException exhausted(long size) {
+      return new InsufficientResourcesException("Storing " + size + " bytes would exceed the off-heap budget of " +
+            budget + " bytes, " + offHeapBytes + " are in use");
+   }
+
+   /**
+    * Removes the least recently read payloads from the budget until size more
+    * bytes fit.  The caller spills them outside of the lock.
+    */
+   private List<StoredPayload> evict(long size) {
+      if (budget == 0 || offHeapBytes + size <= budget) {
+         return ImmutableList.of();
+      }
+      if (!spill) {
+         throw exhausted(size);
+      }
+      ImmutableList.Builder<StoredPayload> victims = ImmutableList.builder();
+      for (Iterator<StoredPayload> it = offHeap.keySet().iterator(); it.hasNext() && offHeapBytes + size > budget;) {
+         StoredPayload victim = it.next();
+         it.remove();
+         offHeapBytes -= victim.size;
+         victims.add(victim);
+      }
+      return victims.build();
+   }
+
+   /**
+    * Moves a payload to a memory-mapped temporary file.  The file is deleted
+    * immediately; the mapping keeps its pages alive until it is collected.
+    */
+   private void spill(StoredPayload payload) throws IOException {
+      if (payload.size == 0) {
+         return;
+      }
+      File file = File.createTempFile("jclouds-transient-", ".blob", spillDirectory);
+      try {
+         RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+         try {
+            FileChannel channel = randomAccessFile.getChannel();
+            for (ByteBuffer chunk : payload.chunks) {
+               ByteBuffer buffer = chunk.duplicate();
+               while (buffer.hasRemaining()) {
+                  channel.write(buffer);
+               }
+            }
+            ImmutableList.Builder<ByteBuffer> mappings = ImmutableList.builder();
+            for (long position = 0; position < payload.size; position += MAX_MAPPING_SIZE) {
+               mappings.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                     Math.min(MAX_MAPPING_SIZE, payload.size - position)));
+            }
+            payload.chunks = mappings.build();
+            payload.spilled = true;
+         } finally {
+            randomAccessFile.close();
+         }
+      } finally {
+         if (!file.delete()) {
+            // mapped files cannot be deleted on Windows
+            file.deleteOnExit();
+         }
+      }
+   }
+
+   private static List<ByteBuffer> read(InputStream input, @Nullable Long contentLength) throws IOException {
+      ReadableByteChannel channel = Channels.newChannel(input);
+      List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+      long remaining = contentLength == null ? -1 : contentLength;
+      int chunkSize = MIN_CHUNK_SIZE;
+      while (true) {
+         ByteBuffer chunk;
+         if (remaining > 0) {
+            chunk = ByteBuffer.allocateDirect((int) Math.min(remaining, MAX_CHUNK_SIZE));
+         } else if (remaining == 0) {
+            // avoid allocating a chunk only to find the end of the stream
+            int b = input.read();
+            if (b == -1) {
+               break;
+            }
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+            chunk.put((byte) b);
+            remaining = -1;
+         } else {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+            chunkSize = Math.min(2 * chunkSize, MAX_CHUNK_SIZE);
+         }
+         int count = 0;
+         while (chunk.hasRemaining() && (count = channel.read(chunk)) >= 0) {
+            // keep filling
+         }
+         chunk.flip();
+         if (remaining > 0) {
+            remaining -= chunk.remaining();
+         }
+         if (chunk.remaining() < chunk.capacity() / 2) {
+            // trim a mostly empty tail chunk
+            ByteBuffer trimmed = ByteBuffer.allocateDirect(chunk.remaining());
+            trimmed.put(chunk).flip();
+            chunk = trimmed;
+         }
+         if (chunk.hasRemaining()) {
+            chunks.add(chunk);
+         }
+         if (count < 0) {
+            break;
+         }
+      }
+      if (chunks.isEmpty()) {
+         chunks.add(ByteBuffer.allocateDirect(0));
+      }
+      return chunks;
+   }
+
+   /** Content whose buffers may move from direct memory to a mapped file. */
+   private final class StoredPayload extends ByteSource {
+      private final long size;
+      private volatile List<ByteBuffer> chunks;
+      private volatile boolean spilled;
+
+      StoredPayload(List<ByteBuffer> chunks) {
+         this.chunks = checkNotNull(chunks, "chunks");
+         long size = 0;
+         for (ByteBuffer chunk : chunks) {
+            size += chunk.remaining();
+         }
+         this.size = size;
+      }
+
+      @Override
+      public InputStream openStream() throws IOException {
+         return content().openStream();
+      }
+
+      @Override
+      public ByteSource slice(long offset, long length) {
+         return content().slice(offset, length);
+      }
+
+      @Override
+      public long size() {
+         return size;
+      }
+
+      private ByteSource content() {
+         touch(this);
+         List<ByteBuffer> chunks = this.chunks;
+         if (chunks.size() == 1) {
+            return ByteSources.wrap(chunks.get(0));
+         }
+         ImmutableList.Builder<ByteSource> sources = ImmutableList.builder();
+         for (ByteBuffer chunk : chunks) {
+            sources.add(ByteSources.wrap(chunk));
+         }
+         return ByteSource.concat(sources.build());
+      }
+   }
+
+   private synchronized void touch(StoredPayload payload) {
+      offHeap.get(payload);
+   }
+}
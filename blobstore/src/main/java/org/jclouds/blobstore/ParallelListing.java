@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jclouds.Constants;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.ListAllOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+/**
+ * Lists a container with pages fetched ahead of the caller and, optionally, split into shards that are listed
+ * concurrently and returned in name order. Each shard holds at most the page being consumed and the page being
+ * fetched, and at most {@link #MAX_FOLDER_SHARDS_AHEAD} folder shards are open ahead of the caller, so memory stays
+ * bounded however large the container is.
+ * 
+ * @see BlobStores#listAll(BlobStore, String, ListContainerOptions, ListAllOptions)
+ */
+final class ParallelListing implements Iterable<StorageMetadata> {
+
+   /** Folders whose listing is started before the caller reaches them. */
+   static final int MAX_FOLDER_SHARDS_AHEAD = 16;
+
+   /** Top-level blobs read ahead while looking for the next folders to start. */
+   private static final int MAX_BLOBS_AHEAD = 1000;
+
+   private static final Ordering<StorageMetadata> BY_NAME = Ordering.natural().onResultOf(
+            new Function<StorageMetadata, String>() {
+               public String apply(StorageMetadata input) {
+                  return input.getName();
+               }
+            });
+
+   private final BlobStore blobStore;
+   private final String container;
+   private final ListContainerOptions containerOptions;
+   private final ListAllOptions listAllOptions;
+   private final ListeningExecutorService userExecutor;
+   private final boolean prefetch;
+
+   ParallelListing(BlobStore blobStore, String container, ListContainerOptions containerOptions,
+            ListAllOptions listAllOptions) {
+      this(blobStore, container, containerOptions, listAllOptions, blobStore.getContext().utils().injector()
+               .getInstance(Key.get(ListeningExecutorService.class, Names.named(Constants.PROPERTY_USER_THREADS))));
+   }
+
+   ParallelListing(BlobStore blobStore, String container, ListContainerOptions containerOptions,
+            ListAllOptions listAllOptions, ListeningExecutorService userExecutor) {
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.container = checkNotNull(container, "container");
+      this.containerOptions = checkNotNull(containerOptions, "containerOptions");
+      this.listAllOptions = checkNotNull(listAllOptions, "listAllOptions");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      // shards only run concurrently if their pages after the first are fetched ahead too
+      this.prefetch = listAllOptions.isPrefetch() || listAllOptions.isShardByFolder()
+               || !listAllOptions.getShardMarkers().isEmpty();
+   }
+
+   @Override
+   public Iterator<StorageMetadata> iterator() {
+      if (listAllOptions.isShardByFolder()) {
+         return new FolderShards();
+      }
+      List<Iterator<StorageMetadata>> shards = markerShards();
+      if (shards.size() == 1) {
+         return shards.get(0);
+      }
+      return Iterators.mergeSorted(shards, BY_NAME);
+   }
+
+   /**
+    * One shard per range between consecutive markers; the first starts wherever the caller's options start and the
+    * last runs to the end of the container.
+    */
+   private List<Iterator<StorageMetadata>> markerShards() {
+      List<String> markers = listAllOptions.getShardMarkers();
+      ImmutableList.Builder<Iterator<StorageMetadata>> shards = ImmutableList.builder();
+      for (int i = 0; i <= markers.size(); i++) {
+         ListContainerOptions options = i == 0 ? containerOptions : containerOptions.clone().afterMarker(
+                  markers.get(i - 1));
+         String lastName = i < markers.size() ? markers.get(i) : null;
+         shards.add(new PageStream(options, lastName));
+      }
+      return shards.build();
+   }
+
+   /**
+    * Walks the top level of the listing once, returning its blobs and, in place of each folder, the recursive listing
+    * of that folder. The listings of the next {@link #MAX_FOLDER_SHARDS_AHEAD} folders are started before the caller
+    * reaches them, and further ones as those are consumed. Since every name below a folder sorts between the folder
+    * and the next top-level name, the results are in name order without merging.
+    */
+   private final class FolderShards extends AbstractIterator<StorageMetadata> {
+      private final String delimiter;
+      private final Iterator<StorageMetadata> topLevel;
+      /** Top-level blobs and started folder shards, in name order. */
+      private final Deque<Iterator<? extends StorageMetadata>> ahead = new ArrayDeque<Iterator<? extends StorageMetadata>>();
+      private int foldersAhead;
+      private Iterator<? extends StorageMetadata> current = ImmutableSet.<StorageMetadata> of().iterator();
+
+      FolderShards() {
+         ListContainerOptions options = new ListContainerOptions();
+         if (containerOptions.getPrefix() != null) {
+            options.prefix(containerOptions.getPrefix());
+         }
+         if (containerOptions.getDelimiter() != null) {
+            options.delimiter(containerOptions.getDelimiter());
+         }
+         if (containerOptions.getMaxResults() != null) {
+            options.maxResults(containerOptions.getMaxResults());
+         }
+         this.delimiter = containerOptions.getDelimiter() != null ? containerOptions.getDelimiter() : "/";
+         this.topLevel = new PageStream(options, null);
+      }
+
+      @Override
+      protected StorageMetadata computeNext() {
+         while (true) {
+            if (current.hasNext()) {
+               return current.next();
+            }
+            startAhead();
+            Iterator<? extends StorageMetadata> next = ahead.poll();
+            if (next == null) {
+               return endOfData();
+            }
+            if (next instanceof PageStream) {
+               foldersAhead--;
+            }
+            current = next;
+         }
+      }
+
+      private void startAhead() {
+         int blobsAhead = ahead.size() - foldersAhead;
+         while (foldersAhead < MAX_FOLDER_SHARDS_AHEAD && blobsAhead < MAX_BLOBS_AHEAD && topLevel.hasNext()) {
+            StorageMetadata md = topLevel.next();
+            if (md.getType() == StorageType.BLOB) {
+               ahead.add(Iterators.singletonIterator(md));
+               blobsAhead++;
+            } else if (md.getType() == StorageType.FOLDER || md.getType() == StorageType.RELATIVE_PATH) {
+               String prefix = md.getName().endsWith(delimiter) ? md.getName() : md.getName() + delimiter;
+               ahead.add(new PageStream(containerOptions.clone().prefix(prefix).recursive(), null));
+               foldersAhead++;
+            }
+         }
+      }
+   }
+
+   private Future<PageSet<? extends StorageMetadata>> fetch(final ListContainerOptions options) {
+      return userExecutor.submit(new Callable<PageSet<? extends StorageMetadata>>() {
+         public PageSet<? extends StorageMetadata> call() {
+            return blobStore.list(container, options);
+         }
+      });
+   }
+
+   private static PageSet<? extends StorageMetadata> get(Future<PageSet<? extends StorageMetadata>> page) {
+      try {
+         return page.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   /**
+    * The pages of one listing, the first requested as soon as the stream is created so that shards start together.
+    * With prefetch, which sharded listings always use, the next page is requested as soon as the current one
+    * arrives; otherwise it is fetched on the caller's thread when needed. Names past {@code lastName} end the stream and stop further requests.
+    */
+   private final class PageStream extends AbstractIterator<StorageMetadata> {
+      private final ListContainerOptions options;
+      private final String lastName;
+      private Iterator<? extends StorageMetadata> page = ImmutableSet.<StorageMetadata> of().iterator();
+      private Future<PageSet<? extends StorageMetadata>> pending;
+      private ListContainerOptions nextOptions;
+
+      PageStream(ListContainerOptions options, String lastName) {
+         this.options = options;
+         this.lastName = lastName;
+         this.pending = fetch(options);
+      }
+
+      @Override
+      protected StorageMetadata computeNext() {
+         while (true) {
+            if (page.hasNext()) {
+               StorageMetadata md = page.next();
+               if (isPastLastName(md)) {
+                  if (pending != null) {
+                     pending.cancel(false);
+                  }
+                  return endOfData();
+               }
+               return md;
+            }
+            PageSet<? extends StorageMetadata> current;
+            if (pending != null) {
+               current = get(pending);
+               pending = null;
+            } else if (nextOptions != null) {
+               current = blobStore.list(container, nextOptions);
+               nextOptions = null;
+            } else {
+               return endOfData();
+            }
+            String marker = current.getNextMarker();
+            if (marker != null && (current.isEmpty() || !isPastLastName(Iterables.getLast(current)))) {
+               ListContainerOptions next = options.clone().afterMarker(marker);
+               if (prefetch) {
+                  pending = fetch(next);
+               } else {
+                  nextOptions = next;
+               }
+            }
+            page = current.iterator();
+         }
+      }
+
+      private boolean isPastLastName(StorageMetadata md) {
+         return lastName != null && md.getName().compareTo(lastName) > 0;
+      }
+   }
+}
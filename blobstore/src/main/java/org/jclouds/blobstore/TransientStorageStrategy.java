@@ -16,18 +16,23 @@
  */
 package org.jclouds.blobstore;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base16;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -39,6 +44,7 @@ import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
 import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Location;
@@ -69,6 +75,24 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
    private final Factory blobFactory;
    private final ContentMetadataCodec contentMetadataCodec;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_TRANSIENT_OFF_HEAP)
+   protected boolean offHeap = false;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_TRANSIENT_OFF_HEAP_BUDGET)
+   protected long offHeapBudget = 0;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_TRANSIENT_OFF_HEAP_OVERFLOW)
+   protected String offHeapOverflow = "spill";
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_TRANSIENT_SPILL_DIRECTORY)
+   protected String spillDirectory = null;
+
+   private volatile OffHeapPayloadStore payloadStore;
+
    @Inject
    TransientStorageStrategy(Supplier<Location> defaultLocation, DateService dateService, Factory blobFactory,
          ContentMetadataCodec contentMetadataCodec) {
@@ -122,8 +146,11 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public void deleteContainer(final String containerName) {
-      containerToBlobs.remove(containerName);
+      Map<String, Blob> blobs = containerToBlobs.remove(containerName);
       containerToBlobAccess.remove(containerName);
+      if (blobs != null) {
+         releasePayloads(blobs.values());
+      }
    }
 
    @Override
@@ -134,7 +161,10 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
    @Override
    public void clearContainer(String containerName, ListContainerOptions options) {
       // TODO implement options
-      containerToBlobs.get(containerName).clear();
+      Map<String, Blob> blobs = containerToBlobs.get(containerName);
+      for (String blobName : blobs.keySet()) {
+         releasePayload(blobs.remove(blobName));
+      }
    }
 
    @Override
@@ -158,6 +188,27 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return blobs.subMap(prefix, /*fromInclusive=*/ true, lastPrefix, /*toInclusive=*/ false).keySet();
    }
 
+   @Override
+   public Iterable<String> getBlobKeysInsideContainer(final String containerName, String prefix, String marker) {
+      NavigableMap<String, Blob> blobs = containerToBlobs.get(containerName);
+      if (blobs == null) {
+         return ImmutableList.of();
+      }
+      String lastPrefix = prefix == null ? null : prefix + (char) 65535;
+      if (marker != null && lastPrefix != null && marker.compareTo(lastPrefix) >= 0) {
+         return ImmutableList.of();
+      }
+      if (marker != null && (prefix == null || marker.compareTo(prefix) >= 0)) {
+         blobs = blobs.tailMap(marker, /*inclusive=*/ false);
+      } else if (prefix != null) {
+         blobs = blobs.tailMap(prefix, /*inclusive=*/ true);
+      }
+      if (lastPrefix != null) {
+         blobs = blobs.headMap(lastPrefix, /*inclusive=*/ false);
+      }
+      return blobs.navigableKeySet();
+   }
+
    @Override
    public Blob getBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
@@ -166,22 +217,30 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public String putBlob(final String containerName, final Blob blob) throws IOException {
-      byte[] payload;
+      ByteSource payload;
       HashCode actualHashCode;
+      Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
+      OffHeapPayloadStore store = getPayloadStore();
       HashingInputStream input = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
       try {
-         payload = ByteStreams.toByteArray(input);
-         long actualSize = payload.length;
-         Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
-         if (expectedSize != null && actualSize != expectedSize) {
-            throw new IOException("Content-Length mismatch, actual: " + actualSize +
-                  " expected: " + expectedSize);
-         }
-         actualHashCode = input.hash();
-         HashCode expectedHashCode = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
-         if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
-            throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
-                  " expected: " + expectedHashCode);
+         payload = store == null ? ByteSource.wrap(ByteStreams.toByteArray(input)) : store.store(input, expectedSize);
+         try {
+            long actualSize = payload.size();
+            if (expectedSize != null && actualSize != expectedSize) {
+               throw new IOException("Content-Length mismatch, actual: " + actualSize +
+                     " expected: " + expectedSize);
+            }
+            actualHashCode = input.hash();
+            HashCode expectedHashCode = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
+            if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
+               throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
+                     " expected: " + expectedHashCode);
+            }
+         } catch (IOException ioe) {
+            if (store != null) {
+               store.release(payload);
+            }
+            throw ioe;
          }
       } finally {
          Closeables2.closeQuietly(input);
@@ -190,16 +249,22 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       Blob newBlob = createUpdatedCopyOfBlobInContainer(containerName, blob, payload, actualHashCode);
       Map<String, Blob> map = containerToBlobs.get(containerName);
       String blobName = newBlob.getMetadata().getName();
-      map.put(blobName, newBlob);
+      releasePayload(map.put(blobName, newBlob));
       containerToBlobAccess.get(containerName).put(blobName, BlobAccess.PRIVATE);
       return base16().lowerCase().encode(actualHashCode.asBytes());
    }
 
+   @Override
+   public String putMultipartBlob(final String containerName, final Blob blob, List<String> partNames)
+         throws IOException {
+      return putBlob(containerName, blob);
+   }
+
    @Override
    public void removeBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
       if (map != null)
-         map.remove(blobName);
+         releasePayload(map.remove(blobName));
    }
 
    @Override
@@ -234,21 +299,59 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return "/";
    }
 
-   private Blob createUpdatedCopyOfBlobInContainer(String containerName, Blob in, byte[] input, HashCode contentMd5) {
+   /**
+    * Returns the store holding payloads off-heap, or null if payloads are kept in heap byte arrays.
+    */
+   private OffHeapPayloadStore getPayloadStore() {
+      if (!offHeap) {
+         return null;
+      }
+      OffHeapPayloadStore store = payloadStore;
+      if (store == null) {
+         synchronized (this) {
+            store = payloadStore;
+            if (store == null) {
+               checkArgument("spill".equals(offHeapOverflow) || "reject".equals(offHeapOverflow),
+                     "%s must be spill or reject, was: %s",
+                     BlobStoreConstants.PROPERTY_TRANSIENT_OFF_HEAP_OVERFLOW, offHeapOverflow);
+               store = new OffHeapPayloadStore(offHeapBudget, "spill".equals(offHeapOverflow),
+                     spillDirectory == null ? null : new File(spillDirectory));
+               payloadStore = store;
+            }
+         }
+      }
+      return store;
+   }
+
+   private void releasePayloads(Collection<Blob> blobs) {
+      for (Blob blob : blobs) {
+         releasePayload(blob);
+      }
+   }
+
+   private void releasePayload(Blob blob) {
+      OffHeapPayloadStore store = payloadStore;
+      if (store != null && blob != null && blob.getPayload().getRawContent() instanceof ByteSource) {
+         store.release((ByteSource) blob.getPayload().getRawContent());
+      }
+   }
+
+   private Blob createUpdatedCopyOfBlobInContainer(String containerName, Blob in, ByteSource input,
+         HashCode contentMd5) throws IOException {
       checkNotNull(containerName, "containerName");
       checkNotNull(in, "blob");
       checkNotNull(input, "input");
       checkNotNull(contentMd5, "contentMd5");
-      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(input));
+      Payload payload = Payloads.newByteSourcePayload(input);
       MutableContentMetadata oldMd = in.getPayload().getContentMetadata();
       HttpUtils.copy(oldMd, payload.getContentMetadata());
       payload.getContentMetadata().setContentMD5(contentMd5);
-      payload.getContentMetadata().setContentLength((long) input.length);
+      payload.getContentMetadata().setContentLength(input.size());
       Blob blob = blobFactory.create(BlobStoreUtils.copy(in.getMetadata()));
       blob.setPayload(payload);
       blob.getMetadata().setContainer(containerName);
       blob.getMetadata().setLastModified(new Date());
-      blob.getMetadata().setSize((long) input.length);
+      blob.getMetadata().setSize(input.size());
       String eTag = base16().lowerCase().encode(contentMd5.asBytes());
       blob.getMetadata().setETag(eTag);
       // Set HTTP headers to match metadata
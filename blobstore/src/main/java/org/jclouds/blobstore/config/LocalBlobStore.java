@@ -21,9 +21,6 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.getCausalChain;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.size;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Iterables.tryFind;
-import static com.google.common.collect.Sets.filter;
 import static com.google.common.collect.Sets.newTreeSet;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
@@ -37,6 +34,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.UUID;
@@ -92,8 +90,6 @@ import org.jclouds.logging.Logger;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
@@ -235,147 +231,125 @@ public final class LocalBlobStore implements BlobStore {
       if (!storageStrategy.containerExists(containerName))
          throw cnfe(containerName);
 
-      // Loading blobs from container
-      Iterable<String> blobBelongingToContainer = null;
-      try {
-         blobBelongingToContainer = storageStrategy.getBlobKeysInsideContainer(containerName, options.getPrefix());
-      } catch (IOException e) {
-         logger.error(e, "An error occurred loading blobs contained into container %s", containerName);
-         propagate(e);
+      String prefix = null;
+      boolean isDirectory = false;
+      if (options.getDir() != null && !options.getDir().isEmpty()) {
+         prefix = options.getDir().endsWith("/") ? options.getDir() : options.getDir() + "/";
+         isDirectory = true;
+      } else if (!Strings.isNullOrEmpty(options.getPrefix())) {
+         prefix = options.getPrefix();
       }
-
-      blobBelongingToContainer = Iterables.filter(blobBelongingToContainer,
-            new Predicate<String>() {
-               @Override
-               public boolean apply(String key) {
-                  // ignore folders
-                  return storageStrategy.blobExists(containerName, key);
-               }
-            });
-      SortedSet<StorageMetadata> contents = newTreeSet(FluentIterable.from(blobBelongingToContainer)
-            .transform(new Function<String, StorageMetadata>() {
-               @Override
-               public StorageMetadata apply(String key) {
-                  Blob oldBlob = loadBlob(containerName, key);
-                  if (oldBlob == null) {
-                     return null;
-                  }
-                  checkState(oldBlob.getMetadata() != null, "blob " + containerName + "/" + key + " has no metadata");
-                  MutableBlobMetadata md = BlobStoreUtils.copy(oldBlob.getMetadata());
-                  md.setSize(oldBlob.getMetadata().getSize());
-                  return md;
-               }
-            })
-            .filter(Predicates.<StorageMetadata>notNull()));
-
-      String marker = null;
-      if (options != null) {
-         if (options.getDir() != null && !options.getDir().isEmpty()) {
-            contents = filterDirectory(contents, options);
-         } else if (!Strings.isNullOrEmpty(options.getPrefix())) {
-            contents = filterPrefix(contents, options);
-         } else if (!options.isRecursive() || (options.getDelimiter() != null)) {
-            String delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
-            contents = extractCommonPrefixes(contents, delimiter, null);
+      String delimiter = options.getDelimiter();
+      if (delimiter == null && !options.isRecursive()) {
+         delimiter = storageStrategy.getSeparator();
+      }
+      if (Strings.isNullOrEmpty(delimiter)) {
+         delimiter = null;
+      }
+      String marker = options.getMarker();
+      int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
+
+      // Walk the keys in sorted order starting after the marker, loading
+      // metadata only for the entries returned and seeking past the keys
+      // folded into each common prefix.
+      SortedSet<StorageMetadata> contents = newTreeSet();
+      String nextMarker = null;
+      String lastCommonPrefix = null;
+      Iterable<String> allKeys = maxResults == 0 ? Collections.<String>emptyList() :
+            getBlobKeysInsideContainer(containerName, prefix, marker);
+      Iterator<String> keys = allKeys.iterator();
+      while (keys.hasNext()) {
+         String key = keys.next();
+         if (isDirectory && key.equals(prefix)) {
+            continue;
          }
-
-         if (options.getMarker() != null) {
-            final String finalMarker = options.getMarker();
-            String delimiter = storageStrategy.getSeparator();
-            Optional<StorageMetadata> lastMarkerMetadata = tryFind(contents, new Predicate<StorageMetadata>() {
-               public boolean apply(StorageMetadata metadata) {
-                  return metadata.getName().compareTo(finalMarker) > 0;
-               }
-            });
-            if (lastMarkerMetadata.isPresent()) {
-               contents = contents.tailSet(lastMarkerMetadata.get());
-            } else {
-               // marker is after last key or container is empty
-               contents.clear();
+         String commonPrefix = commonPrefix(key, prefix, delimiter);
+         if (commonPrefix != null) {
+            if (commonPrefix.equals(lastCommonPrefix)) {
+               continue;
             }
-         }
-
-         int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
-         if (!contents.isEmpty()) {
-            StorageMetadata lastElement = contents.last();
-            contents = newTreeSet(Iterables.limit(contents, maxResults));
-            if (maxResults != 0 && !contents.contains(lastElement)) {
-               // Partial listing
-               lastElement = contents.last();
-               marker = lastElement.getName();
+            if (marker != null && commonPrefix.compareTo(marker) <= 0) {
+               // returned by an earlier page
+               lastCommonPrefix = commonPrefix;
+               keys = skipPrefix(allKeys, keys, commonPrefix);
+               continue;
             }
          }
-
+         // ignore folders
+         if (!storageStrategy.blobExists(containerName, key)) {
+            continue;
+         }
+         if (contents.size() == maxResults) {
+            // Partial listing
+            nextMarker = contents.last().getName();
+            break;
+         }
+         if (commonPrefix != null) {
+            MutableStorageMetadata md = new MutableStorageMetadataImpl();
+            md.setType(StorageType.RELATIVE_PATH);
+            md.setName(commonPrefix);
+            contents.add(md);
+            lastCommonPrefix = commonPrefix;
+            keys = skipPrefix(allKeys, keys, commonPrefix);
+            continue;
+         }
+         Blob oldBlob = loadBlob(containerName, key);
+         if (oldBlob == null) {
+            continue;
+         }
+         checkState(oldBlob.getMetadata() != null, "blob " + containerName + "/" + key + " has no metadata");
+         MutableBlobMetadata md = BlobStoreUtils.copy(oldBlob.getMetadata());
+         md.setSize(oldBlob.getMetadata().getSize());
          // trim metadata, if the response isn't supposed to be detailed.
          if (!options.isDetailed()) {
-            for (StorageMetadata md : contents) {
-               md.getUserMetadata().clear();
-            }
+            md.getUserMetadata().clear();
          }
+         contents.add(md);
       }
 
-      return new PageSetImpl<StorageMetadata>(contents, marker);
+      return new PageSetImpl<StorageMetadata>(contents, nextMarker);
    }
 
-   private SortedSet<StorageMetadata> filterDirectory(SortedSet<StorageMetadata> contents, ListContainerOptions
-           options) {
-      String prefix = options.getDir();
-      final String dirPrefix = prefix.endsWith("/") ?
-              prefix :
-              prefix + "/";
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null
-                    && o.getName().replace(File.separatorChar, '/').startsWith(dirPrefix)
-                    && !o.getName().replace(File.separatorChar, '/').equals(dirPrefix);
-         }
-      }));
-
-      if (!options.isRecursive()) {
-         return extractCommonPrefixes(contents, storageStrategy.getSeparator(), dirPrefix);
+   private Iterable<String> getBlobKeysInsideContainer(String containerName, String prefix, String marker) {
+      try {
+         return storageStrategy.getBlobKeysInsideContainer(containerName, prefix, marker);
+      } catch (IOException e) {
+         logger.error(e, "An error occurred loading blobs contained into container %s", containerName);
+         throw propagate(e);
       }
-
-      return contents;
    }
 
-   private SortedSet<StorageMetadata> filterPrefix(SortedSet<StorageMetadata> contents, final ListContainerOptions
-                                                   options) {
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null && o.getName().replace(File.separatorChar, '/').startsWith(options.getPrefix());
+   /**
+    * Moves keys past the keys starting with prefix.  Sorted views seek
+    * directly and skipping iterators leave the subtree unread; other iterators
+    * are returned as is, since the caller ignores repeats of a common prefix.
+    */
+   @SuppressWarnings("unchecked")
+   private static Iterator<String> skipPrefix(Iterable<String> allKeys, Iterator<String> keys, String prefix) {
+      if (keys instanceof LocalStorageStrategy.PrefixSkippingIterator) {
+         ((LocalStorageStrategy.PrefixSkippingIterator) keys).skipPrefix(prefix);
+         return keys;
+      }
+      if (allKeys instanceof NavigableSet) {
+         try {
+            return ((NavigableSet<String>) allKeys).tailSet(prefix + (char) 65535, false).iterator();
+         } catch (IllegalArgumentException outsideOfView) {
+            return keys;
          }
-      }));
-
-      if (options.getDelimiter() != null || !options.isRecursive()) {
-          String delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
-          return extractCommonPrefixes(contents, delimiter, options.getPrefix());
       }
-
-      return contents;
+      return keys;
    }
 
-   private SortedSet<StorageMetadata> extractCommonPrefixes(SortedSet<StorageMetadata> contents, String delimiter,
-                                                            String prefix) {
-      if (Strings.isNullOrEmpty(delimiter)) {
-         return contents;
-      }
-      SortedSet<String> commonPrefixes = newTreeSet(
-              transform(contents, new CommonPrefixes(prefix, delimiter)));
-      commonPrefixes.remove(CommonPrefixes.NO_PREFIX);
-
-      contents = newTreeSet(filter(contents, new DelimiterFilter(prefix, delimiter)));
-
-      for (String o : commonPrefixes) {
-         MutableStorageMetadata md = new MutableStorageMetadataImpl();
-         md.setType(StorageType.RELATIVE_PATH);
-
-         if (prefix != null) {
-            o = prefix + o;
-         }
-         md.setName(o + delimiter);
-         contents.add(md);
+   /**
+    * @return the common prefix of key including the delimiter, or null if key
+    *         has no delimiter after the prefix
+    */
+   private static String commonPrefix(String key, String prefix, String delimiter) {
+      if (delimiter == null) {
+         return null;
       }
-      return contents;
+      int index = key.indexOf(delimiter, prefix == null ? 0 : prefix.length());
+      return index == -1 ? null : key.substring(0, index + delimiter.length());
    }
 
    private ContainerNotFoundException cnfe(final String name) {
@@ -468,60 +442,6 @@ public final class LocalBlobStore implements BlobStore {
       return storageStrategy.getBlob(container, key);
    }
 
-   private static class DelimiterFilter implements Predicate<StorageMetadata> {
-      private final String prefix;
-      private final String delimiter;
-
-      public DelimiterFilter(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public boolean apply(StorageMetadata metadata) {
-         String name = metadata.getName();
-         if (prefix == null || prefix.isEmpty()) {
-            return name.indexOf(delimiter) == -1;
-         }
-         if (name.startsWith(prefix)) {
-            String unprefixedName = name.substring(prefix.length());
-            if (unprefixedName.equals("")) {
-               // a blob that matches the prefix should also be returned
-               return true;
-            }
-            return unprefixedName.indexOf(delimiter) == -1;
-         }
-         return false;
-      }
-   }
-
-   private static class CommonPrefixes implements Function<StorageMetadata, String> {
-      private final String prefix;
-      private final String delimiter;
-      public static final String NO_PREFIX = "NO_PREFIX";
-
-      public CommonPrefixes(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public String apply(StorageMetadata metadata) {
-         String working = metadata.getName();
-         if (prefix != null) {
-            if (working.startsWith(prefix)) {
-               working = working.substring(prefix.length());
-            } else {
-               return NO_PREFIX;
-            }
-         }
-         if (working.indexOf(delimiter) >= 0) {
-            // include the delimiter in the result
-            return working.substring(0, working.indexOf(delimiter));
-         } else {
-            return NO_PREFIX;
-         }
-      }
-   }
-
    private static HttpResponseException returnResponseException(int code) {
       HttpResponse response = HttpResponse.builder().statusCode(code).build();
       return new HttpResponseException(new HttpCommand(HttpRequest.builder().method("GET").endpoint("http://stub")
@@ -674,6 +594,7 @@ public final class LocalBlobStore implements BlobStore {
                      .getMetadata().getLastModified(), unmodifiedSince), null, response);
             }
          }
+         Payload storedPayload = blob.getPayload();
          blob = copyBlob(blob);
 
          if (options.getRanges() != null && !options.getRanges().isEmpty()) {
@@ -682,13 +603,21 @@ public final class LocalBlobStore implements BlobStore {
 
             // Try to convert payload to ByteSource, otherwise wrap it.
             ByteSource byteSource;
-            try {
-               byteSource = (ByteSource) blob.getPayload().getRawContent();
-            } catch (ClassCastException cce) {
+            if (storedPayload.getRawContent() instanceof ByteSource) {
+               // slice the stored content instead of buffering the stream copyBlob opened
+               if (blob.getPayload() != storedPayload) {
+                  blob.getPayload().release();
+               }
+               byteSource = (ByteSource) storedPayload.getRawContent();
+            } else {
                try {
-                  byteSource = ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()));
-               } catch (IOException e) {
-                  throw new RuntimeException(e);
+                  byteSource = (ByteSource) blob.getPayload().getRawContent();
+               } catch (ClassCastException cce) {
+                  try {
+                     byteSource = ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()));
+                  } catch (IOException e) {
+                     throw new RuntimeException(e);
+                  }
                }
             }
 
@@ -833,13 +762,16 @@ public final class LocalBlobStore implements BlobStore {
    @Override
    public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
       ImmutableList.Builder<Blob> blobs = ImmutableList.builder();
+      ImmutableList.Builder<String> partNames = ImmutableList.builder();
       long contentLength = 0;
       Hasher md5Hasher = Hashing.md5().newHasher();
 
       for (MultipartPart part : parts) {
-         Blob blobPart = getBlob(mpu.containerName(), MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-" + part.partNumber());
+         String partName = MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-" + part.partNumber();
+         Blob blobPart = getBlob(mpu.containerName(), partName);
          contentLength += blobPart.getMetadata().getContentMetadata().getContentLength();
          blobs.add(blobPart);
+         partNames.add(partName);
          md5Hasher.putBytes(BaseEncoding.base16().lowerCase().decode(blobPart.getMetadata().getETag()));
       }
       String mpuETag = new StringBuilder("\"")
@@ -883,7 +815,13 @@ public final class LocalBlobStore implements BlobStore {
           blobBuilder.tier(tier);
       }
 
-      putBlob(mpu.containerName(), blobBuilder.build());
+      try {
+         storageStrategy.putMultipartBlob(mpu.containerName(), blobBuilder.build(), partNames.build());
+      } catch (IOException e) {
+         logger.error(e, "An error occurred completing multipart upload of blob [%s] to container [%s].",
+               mpu.blobName(), mpu.containerName());
+         throw propagate(e);
+      }
 
       for (MultipartPart part : parts) {
          removeBlob(mpu.containerName(), MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-" + part.partNumber());
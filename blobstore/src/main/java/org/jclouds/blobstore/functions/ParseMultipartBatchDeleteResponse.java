@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.functions;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.rest.InvocationContext;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.jclouds.util.Strings2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+
+/**
+ * Parses the {@code multipart/mixed} response of a batch delete into the names of the blobs that could not be
+ * deleted, mapped to the HTTP status of their delete, or to -1 when the response has no part for them. Blobs that did
+ * not exist count as deleted.
+ * <p>
+ * The names are the second argument of the invoked method, and each part of the response is matched to its name by
+ * the index in its {@code Content-ID}, after the prefix the provider adds to it.
+ */
+@Beta
+public abstract class ParseMultipartBatchDeleteResponse implements Function<HttpResponse, Map<String, Integer>>,
+      InvocationContext<ParseMultipartBatchDeleteResponse> {
+   private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+   private static final Pattern STATUS_LINE = Pattern.compile("(?m)^HTTP/\\d\\.\\d (\\d{3})");
+
+   private final Pattern contentId;
+   private GeneratedHttpRequest request;
+
+   protected ParseMultipartBatchDeleteResponse(String contentIdPrefix) {
+      this.contentId = Pattern.compile("(?im)^Content-ID:\\s*<?" + Pattern.quote(checkNotNull(contentIdPrefix,
+            "contentIdPrefix")) + "(\\d+)>?\\s*$");
+   }
+
+   @Override
+   public Map<String, Integer> apply(HttpResponse from) {
+      @SuppressWarnings("unchecked")
+      List<String> names = (List<String>) request.getInvocation().getArgs().get(1);
+      String contentType = from.getPayload().getContentMetadata().getContentType();
+      String body;
+      try {
+         InputStream is = from.getPayload().openStream();
+         body = Strings2.toStringAndClose(is);
+      } catch (IOException e) {
+         throw new HttpException("could not read batch response " + from, e);
+      } finally {
+         releasePayload(from);
+      }
+      Matcher boundary = BOUNDARY.matcher(String.valueOf(contentType));
+      if (!boundary.find()) {
+         throw new HttpException("no multipart boundary in batch response " + from);
+      }
+
+      int[] statuses = new int[names.size()];
+      Arrays.fill(statuses, -1);
+      for (String part : body.split(Pattern.quote("--" + boundary.group(1)))) {
+         Matcher index = contentId.matcher(part);
+         Matcher statusLine = STATUS_LINE.matcher(part);
+         if (!index.find() || !statusLine.find()) {
+            continue;
+         }
+         int i = Integer.parseInt(index.group(1));
+         if (i < statuses.length) {
+            statuses[i] = Integer.parseInt(statusLine.group(1));
+         }
+      }
+
+      Map<String, Integer> failures = Maps.newLinkedHashMap();
+      for (int i = 0; i < statuses.length; i++) {
+         if (statuses[i] / 100 != 2 && statuses[i] != 404) {
+            failures.put(names.get(i), statuses[i]);
+         }
+      }
+      return failures;
+   }
+
+   @Override
+   public ParseMultipartBatchDeleteResponse setContext(HttpRequest request) {
+      checkArgument(request instanceof GeneratedHttpRequest, "note this handler requires a GeneratedHttpRequest");
+      this.request = (GeneratedHttpRequest) request;
+      return this;
+   }
+}
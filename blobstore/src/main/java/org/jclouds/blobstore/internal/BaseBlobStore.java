@@ -16,38 +16,62 @@
  */
 package org.jclouds.blobstore.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.google.common.base.Preconditions.checkState;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 import static org.jclouds.util.Predicates2.retry;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
 import javax.inject.Named;
 
+import org.jclouds.Constants;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.MultipartPart;
 import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
 import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.MultipartUploadSlicingStrategy;
+import org.jclouds.blobstore.strategy.internal.BufferedMultipartUploader;
+import org.jclouds.blobstore.strategy.internal.FixedMultipartUploadSlicingStrategy;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
@@ -56,10 +80,12 @@ import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.io.PayloadSlicer;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.annotations.Beta;
@@ -67,9 +93,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 public abstract class BaseBlobStore implements BlobStore {
 
@@ -263,6 +292,27 @@ public abstract class BaseBlobStore implements BlobStore {
     */
    protected abstract boolean deleteAndVerifyContainerGone(String container);
 
+   @VisibleForTesting
+   static final long DEFAULT_MULTIPART_COPY_THRESHOLD = 1024L * 1024 * 1024;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_MULTIPART_COPY_THRESHOLD)
+   @VisibleForTesting
+   long multipartCopyThreshold = DEFAULT_MULTIPART_COPY_THRESHOLD;
+
+   /**
+    * Sources larger than this many bytes are copied in parallel parts by {@link #copyBlob}.
+    */
+   protected long getMultipartCopyThreshold() {
+      return multipartCopyThreshold;
+   }
+
+   /**
+    * This implementation opens the source with a single GET and checks the preconditions against its metadata.
+    * Sources larger than {@link #getMultipartCopyThreshold} are then abandoned and copied in parallel parts with
+    * {@link #copyMultipartPart}, each pinned to the ETag of that GET; smaller ones are streamed into a single
+    * {@link #putBlob}.
+    */
    @Override
    public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
          CopyOptions options) {
@@ -270,26 +320,18 @@ public abstract class BaseBlobStore implements BlobStore {
       if (blob == null) {
          throw new KeyNotFoundException(fromContainer, fromName, "while copying");
       }
-
-      String eTag = blob.getMetadata().getETag();
-      if (eTag != null) {
-         eTag = maybeQuoteETag(eTag);
-         if (options.ifMatch() != null && !maybeQuoteETag(options.ifMatch()).equals(eTag)) {
-            throw returnResponseException(412);
-         }
-         if (options.ifNoneMatch() != null && maybeQuoteETag(options.ifNoneMatch()).equals(eTag)) {
-            throw returnResponseException(412);
-         }
+      BlobMetadata sourceMetadata = blob.getMetadata();
+      try {
+         checkCopyPreconditions(sourceMetadata, options);
+      } catch (RuntimeException re) {
+         blob.getPayload().release();
+         throw re;
       }
 
-      Date lastModified = blob.getMetadata().getLastModified();
-      if (lastModified != null) {
-         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
-            throw returnResponseException(412);
-         }
-         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
-            throw returnResponseException(412);
-         }
+      Long sourceLength = sourceMetadata.getContentMetadata().getContentLength();
+      if (sourceLength != null && sourceLength > getMultipartCopyThreshold()) {
+         blob.getPayload().release();
+         return copyMultipartBlob(fromContainer, fromName, sourceMetadata, toContainer, toName, options);
       }
 
       InputStream is = null;
@@ -328,11 +370,143 @@ public abstract class BaseBlobStore implements BlobStore {
       }
    }
 
+   /**
+    * Evaluates the copy preconditions in {@code options} against the source, for providers that cannot evaluate them
+    * server-side.
+    *
+    * @throws HttpResponseException with status 412 if a precondition fails
+    */
+   protected static void checkCopyPreconditions(BlobMetadata sourceMetadata, CopyOptions options) {
+      String eTag = sourceMetadata.getETag();
+      if (eTag != null) {
+         eTag = maybeQuoteETag(eTag);
+         if (options.ifMatch() != null && !maybeQuoteETag(options.ifMatch()).equals(eTag)) {
+            throw returnResponseException(412);
+         }
+         if (options.ifNoneMatch() != null && maybeQuoteETag(options.ifNoneMatch()).equals(eTag)) {
+            throw returnResponseException(412);
+         }
+      }
+
+      Date lastModified = sourceMetadata.getLastModified();
+      if (lastModified != null) {
+         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
+            throw returnResponseException(412);
+         }
+         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
+            throw returnResponseException(412);
+         }
+      }
+   }
+
+   /**
+    * Copies the source into a new multipart upload, one {@link #copyMultipartPart} per part on the user executor.
+    */
+   @Beta
+   protected String copyMultipartBlob(String fromContainer, String fromName, BlobMetadata sourceMetadata,
+         String toContainer, String toName, CopyOptions options) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName(toName);
+      metadata.setContainer(toContainer);
+      ContentMetadata contentMetadata = options.contentMetadata() != null ? options.contentMetadata()
+            : sourceMetadata.getContentMetadata();
+      metadata.getContentMetadata().setCacheControl(contentMetadata.getCacheControl());
+      metadata.getContentMetadata().setContentDisposition(contentMetadata.getContentDisposition());
+      metadata.getContentMetadata().setContentEncoding(contentMetadata.getContentEncoding());
+      metadata.getContentMetadata().setContentLanguage(contentMetadata.getContentLanguage());
+      metadata.getContentMetadata().setContentType(contentMetadata.getContentType());
+      metadata.setUserMetadata(options.userMetadata() != null ? options.userMetadata()
+            : sourceMetadata.getUserMetadata());
+
+      long contentLength = sourceMetadata.getContentMetadata().getContentLength();
+      String sourceETag = sourceMetadata.getETag();
+      MultipartUpload mpu = initiateMultipartUpload(toContainer, metadata, new PutOptions());
+      List<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      try {
+         MultipartUploadSlicingAlgorithm algorithm = slicingStrategy.newAlgorithm(toContainer,
+               getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
+         long partSize = algorithm.calculateChunkSize(contentLength);
+         int partNumber = 1;
+         long from = 0;
+         while (partNumber <= algorithm.getParts()) {
+            parts.add(userExecutor.submit(new PartCopier(mpu, partNumber++, fromContainer, fromName, sourceETag,
+                  from, from + partSize - 1)));
+            from += partSize;
+         }
+         if (algorithm.getRemaining() != 0) {
+            parts.add(userExecutor.submit(new PartCopier(mpu, partNumber, fromContainer, fromName, sourceETag,
+                  from, from + algorithm.getRemaining() - 1)));
+         }
+         return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+      } catch (RuntimeException re) {
+         for (ListenableFuture<MultipartPart> part : parts) {
+            part.cancel(true);
+         }
+         abortMultipartUpload(mpu);
+         throw re;
+      }
+   }
+
+   /**
+    * Copies the range {@code [begin, end]} of the source into part {@code partNumber} of {@code mpu}. This
+    * implementation streams a ranged GET of the source straight into {@link #uploadMultipartPart}, so each part
+    * holds only the transport buffers in memory. Providers with a server-side part copy should override it.
+    *
+    * @param sourceETag
+    *           if not null, the part must fail with 412 rather than copy from a source overwritten since the copy
+    *           started
+    */
+   @Beta
+   protected MultipartPart copyMultipartPart(MultipartUpload mpu, int partNumber, String fromContainer,
+         String fromName, @Nullable String sourceETag, long begin, long end) {
+      InputStream is = null;
+      try {
+         is = openRange(fromContainer, fromName, sourceETag, begin, end);
+         Payload payload = Payloads.newInputStreamPayload(is);
+         payload.getContentMetadata().setContentLength(end - begin + 1);
+         return uploadMultipartPart(mpu, partNumber, payload);
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } finally {
+         Closeables2.closeQuietly(is);
+      }
+   }
+
+   private final class PartCopier implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final String fromContainer;
+      private final String fromName;
+      private final String sourceETag;
+      private final long begin;
+      private final long end;
+
+      PartCopier(MultipartUpload mpu, int partNumber, String fromContainer, String fromName, String sourceETag,
+            long begin, long end) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.fromContainer = fromContainer;
+         this.fromName = fromName;
+         this.sourceETag = sourceETag;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      @Override
+      public MultipartPart call() {
+         return copyMultipartPart(mpu, partNumber, fromContainer, fromName, sourceETag, begin, end);
+      }
+   }
+
    @com.google.inject.Inject
    @Named(PROPERTY_USER_THREADS)
    @VisibleForTesting
    ListeningExecutorService userExecutor;
 
+   @com.google.inject.Inject(optional = true)
+   @VisibleForTesting
+   MultipartUploadSlicingStrategy slicingStrategy = new FixedMultipartUploadSlicingStrategy();
+
    /**
     * Upload using a user-provided executor, or the jclouds userExecutor
     *
@@ -376,10 +550,17 @@ public abstract class BaseBlobStore implements BlobStore {
 
       try {
          long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
-         // TODO: inject MultipartUploadSlicingAlgorithm to override default part size
-         MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
+         MultipartUploadSlicingAlgorithm algorithm = slicingStrategy.newAlgorithm(container,
                getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
          long partSize = algorithm.calculateChunkSize(contentLength);
+         int bufferedParts = overrides.getMultipartBuffers() > 0 ? overrides.getMultipartBuffers()
+               : algorithm.getBufferedParts();
+         if (!repeatable && bufferedParts > 0 && partSize <= Integer.MAX_VALUE
+               && algorithm.getRemaining() <= Integer.MAX_VALUE) {
+            BufferedMultipartUploader uploader = new BufferedMultipartUploader(this, slicingStrategy, executor,
+                  bufferedParts, (int) partSize, overrides.getDirectMultipartBuffers());
+            return completeMultipartUpload(mpu, uploader.upload(mpu, blob.getPayload().openStream(), algorithm, 1));
+         }
          int partNumber = 1;
          while (partNumber <= algorithm.getParts()) {
             Payload slice = slicer.slice(payload, algorithm.getCopied(), partSize);
@@ -393,6 +574,9 @@ public abstract class BaseBlobStore implements BlobStore {
             parts.add(repeatable ? executor.submit(b) : Futures.immediateFuture(b.call()));
          }
          return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+      } catch (IOException ioe) {
+         abortMultipartUpload(mpu);
+         throw Throwables.propagate(ioe);
       } catch (RuntimeException re) {
          abortMultipartUpload(mpu);
          throw re;
@@ -412,7 +596,13 @@ public abstract class BaseBlobStore implements BlobStore {
 
       @Override
       public MultipartPart call() {
-         return uploadMultipartPart(mpu, partNumber, payload);
+         long start = System.nanoTime();
+         MultipartPart part = uploadMultipartPart(mpu, partNumber, payload);
+         Long partSize = payload.getContentMetadata().getContentLength();
+         if (partSize != null) {
+            slicingStrategy.partUploaded(mpu.containerName(), partSize, System.nanoTime() - start);
+         }
+         return part;
       }
    }
 
@@ -430,23 +620,363 @@ public abstract class BaseBlobStore implements BlobStore {
       return eTag;
    }
 
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_MAX_RETRIES)
+   protected int retryCountLimit = 5;
+
+   @VisibleForTesting
+   static final long DEFAULT_DOWNLOAD_PART_SIZE = 32 * 1024 * 1024;
+
+   @VisibleForTesting
+   static final int DEFAULT_STREAM_READ_AHEAD_PARTS = 4;
+
+   private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_PART_SIZE)
+   @VisibleForTesting
+   long downloadPartSize = DEFAULT_DOWNLOAD_PART_SIZE;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_STREAM_READ_AHEAD_PARTS)
+   @VisibleForTesting
+   int streamReadAheadParts = DEFAULT_STREAM_READ_AHEAD_PARTS;
+
+   @com.google.inject.Inject(optional = true)
+   @VisibleForTesting
+   BackoffLimitedRetryHandler retryHandler = BackoffLimitedRetryHandler.INSTANCE;
+
    @Override
+   @Beta
    public void downloadBlob(String container, String name, File destination) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      downloadBlob(container, name, destination, userExecutor);
    }
 
+   /**
+    * Downloads the blob with parallel ranged GETs of {@code jclouds.blobstore.download.part.size} bytes. Each part
+    * is written directly into its region of a preallocated temporary file, which is renamed to {@code destination}
+    * once all parts complete. Every GET is conditional on the ETag returned by the initial metadata request, so a
+    * blob overwritten during the download fails it instead of mixing two versions.
+    */
    @Override
+   @Beta
    public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      ListeningExecutorService listeningExecutor = MoreExecutors.listeningDecorator(executor);
+      BlobMetadata metadata = getDownloadMetadata(container, name);
+      long contentLength = metadata.getContentMetadata().getContentLength();
+      long partSize = checkDownloadPartSize();
+
+      RandomAccessFile raf = null;
+      File tempFile = new File(destination + "." + UUID.randomUUID());
+      try {
+         raf = new RandomAccessFile(tempFile, "rw");
+         // Reserve space up front so that parts can be written in any order
+         raf.setLength(contentLength);
+         FileChannel channel = raf.getChannel();
+
+         List<ListenableFuture<Void>> results = new ArrayList<ListenableFuture<Void>>();
+         for (long from = 0; from < contentLength; from += partSize) {
+            long to = Math.min(from + partSize, contentLength) - 1;
+            results.add(listeningExecutor.submit(new BlobDownloader(container, name, metadata.getETag(), channel,
+                  from, to)));
+         }
+
+         ListenableFuture<List<Void>> all = Futures.allAsList(results);
+         try {
+            Futures.getUnchecked(all);
+         } catch (RuntimeException re) {
+            all.cancel(true);
+            throw re;
+         }
+
+         channel.force(true);
+         raf.close();
+         raf = null;
+
+         if (destination.exists()) {
+            destination.delete();
+         }
+         if (!tempFile.renameTo(destination)) {
+            throw new RuntimeException("Could not move temporary downloaded file to destination " + destination);
+         }
+         tempFile = null;
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } finally {
+         Closeables2.closeQuietly(raf);
+         if (tempFile != null) {
+            tempFile.delete();
+         }
+      }
+   }
+
+   /**
+    * Writes the range {@code [begin, end]} of a blob into its region of the destination file. A failed attempt
+    * backs off and resumes from the last byte written rather than from the start of the range.
+    */
+   private final class BlobDownloader implements Callable<Void> {
+      private final String container;
+      private final String name;
+      @Nullable
+      private final String eTag;
+      private final FileChannel channel;
+      private final long begin;
+      private final long end;
+
+      BlobDownloader(String container, String name, @Nullable String eTag, FileChannel channel, long begin,
+            long end) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.channel = channel;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      @Override
+      public Void call() {
+         ByteBuffer buffer = ByteBuffer.allocateDirect(DOWNLOAD_BUFFER_SIZE);
+         long position = begin;
+         IOException lastException = null;
+         for (int retry = 0; retry < retryCountLimit; retry++) {
+            if (retry > 0) {
+               backOff(retry, container, name, position, end);
+            }
+            InputStream is = null;
+            try {
+               is = openRange(container, name, eTag, position, end);
+               // advance position write by write, so that a failed read keeps the bytes already written
+               ReadableByteChannel in = Channels.newChannel(ByteStreams.limit(is, end - position + 1));
+               buffer.clear();
+               while (in.read(buffer) != -1) {
+                  buffer.flip();
+                  while (buffer.hasRemaining()) {
+                     position += channel.write(buffer, position);
+                  }
+                  buffer.clear();
+               }
+               if (position > end) {
+                  return null;
+               }
+               lastException = new EOFException("Premature end of range " + begin + "-" + end + " at " + position);
+            } catch (ClosedByInterruptException cbie) {
+               // the download was cancelled and the shared channel is gone
+               throw Throwables.propagate(cbie);
+            } catch (IOException ioe) {
+               lastException = ioe;
+            } finally {
+               Closeables2.closeQuietly(is);
+            }
+         }
+         throw new RuntimeException("After " + retryCountLimit + " retries: " + lastException, lastException);
+      }
    }
 
    @Override
+   @Beta
    public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return streamBlob(container, name, userExecutor);
    }
 
+   /**
+    * Streams the blob through parallel ranged GETs, keeping at most {@code jclouds.blobstore.stream.readahead.parts}
+    * parts in flight or buffered ahead of the reader. As with {@link #downloadBlob(String, String, File)}, every GET
+    * is conditional on the ETag of the initial metadata request. Closing the stream cancels the parts still pending.
+    */
    @Override
+   @Beta
    public InputStream streamBlob(String container, String name, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      BlobMetadata metadata = getDownloadMetadata(container, name);
+      long partSize = Math.min(checkDownloadPartSize(), Integer.MAX_VALUE);
+      checkArgument(streamReadAheadParts > 0, "stream read-ahead parts must be positive");
+      return new ReadAheadInputStream(container, name, metadata.getETag(),
+            metadata.getContentMetadata().getContentLength(), partSize,
+            MoreExecutors.listeningDecorator(executor), streamReadAheadParts);
+   }
+
+   private final class ReadAheadInputStream extends InputStream {
+      private final String container;
+      private final String name;
+      @Nullable
+      private final String eTag;
+      private final long contentLength;
+      private final long partSize;
+      private final ListeningExecutorService executor;
+      private final int window;
+      private final Deque<ListenableFuture<byte[]>> pending = new ArrayDeque<ListenableFuture<byte[]>>();
+      private long nextOffset;
+      private byte[] current = new byte[0];
+      private int currentPosition;
+      private boolean closed;
+
+      ReadAheadInputStream(String container, String name, @Nullable String eTag, long contentLength, long partSize,
+            ListeningExecutorService executor, int window) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.contentLength = contentLength;
+         this.partSize = partSize;
+         this.executor = executor;
+         this.window = window;
+         fill();
+      }
+
+      private void fill() {
+         while (pending.size() < window && nextOffset < contentLength) {
+            long to = Math.min(nextOffset + partSize, contentLength) - 1;
+            pending.add(executor.submit(new BlobStreamDownloader(container, name, eTag, nextOffset, to)));
+            nextOffset = to + 1;
+         }
+      }
+
+      /** @return false at the end of the blob */
+      private boolean advance() throws IOException {
+         if (closed) {
+            throw new IOException("Stream closed");
+         }
+         while (currentPosition == current.length) {
+            ListenableFuture<byte[]> next = pending.poll();
+            if (next == null) {
+               return false;
+            }
+            try {
+               current = Uninterruptibles.getUninterruptibly(next);
+            } catch (ExecutionException ee) {
+               close();
+               Throwables.propagateIfInstanceOf(ee.getCause(), IOException.class);
+               throw new IOException(ee.getCause());
+            }
+            currentPosition = 0;
+            fill();
+         }
+         return true;
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (!advance()) {
+            return -1;
+         }
+         return current[currentPosition++] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         checkPositionIndexes(off, off + len, b.length);
+         if (len == 0) {
+            return 0;
+         }
+         if (!advance()) {
+            return -1;
+         }
+         int count = Math.min(len, current.length - currentPosition);
+         System.arraycopy(current, currentPosition, b, off, count);
+         currentPosition += count;
+         return count;
+      }
+
+      @Override
+      public int available() {
+         return current.length - currentPosition;
+      }
+
+      @Override
+      public void close() {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         for (ListenableFuture<byte[]> future : pending) {
+            future.cancel(true);
+         }
+         pending.clear();
+         current = new byte[0];
+         currentPosition = 0;
+      }
+   }
+
+   private final class BlobStreamDownloader implements Callable<byte[]> {
+      private final String container;
+      private final String name;
+      @Nullable
+      private final String eTag;
+      private final long begin;
+      private final long end;
+
+      BlobStreamDownloader(String container, String name, @Nullable String eTag, long begin, long end) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      @Override
+      public byte[] call() throws IOException {
+         byte[] part = new byte[(int) (end - begin + 1)];
+         int offset = 0;
+         IOException lastException = null;
+         for (int retry = 0; retry < retryCountLimit; retry++) {
+            if (retry > 0) {
+               backOff(retry, container, name, begin + offset, end);
+            }
+            InputStream is = null;
+            try {
+               is = openRange(container, name, eTag, begin + offset, end);
+               int read;
+               while (offset < part.length && (read = is.read(part, offset, part.length - offset)) != -1) {
+                  offset += read;
+               }
+               if (offset == part.length) {
+                  return part;
+               }
+               lastException = new EOFException("Premature end of range " + begin + "-" + end + " at "
+                     + (begin + offset));
+            } catch (IOException ioe) {
+               lastException = ioe;
+            } finally {
+               Closeables2.closeQuietly(is);
+            }
+         }
+         throw new IOException("After " + retryCountLimit + " retries: " + lastException, lastException);
+      }
+   }
+
+   private BlobMetadata getDownloadMetadata(String container, String name) {
+      BlobMetadata metadata = blobMetadata(container, name);
+      if (metadata == null) {
+         throw new KeyNotFoundException(container, name, "while downloading");
+      }
+      checkNotNull(metadata.getContentMetadata().getContentLength(), "content-length of %s/%s", container, name);
+      return metadata;
+   }
+
+   /**
+    * Waits before retrying a part. Cancelling the download interrupts the wait and ends the retries.
+    */
+   private void backOff(int failureCount, String container, String name, long begin, long end) {
+      if (Thread.currentThread().isInterrupted()) {
+         throw new CancellationException("download of " + container + "/" + name + " cancelled");
+      }
+      retryHandler.imposeBackoffExponentialDelay(failureCount, "download of " + container + "/" + name + " bytes "
+            + begin + "-" + end);
+   }
+
+   private long checkDownloadPartSize() {
+      checkArgument(downloadPartSize > 0, "download part size must be positive");
+      return downloadPartSize;
+   }
+
+   private InputStream openRange(String container, String name, @Nullable String eTag, long begin, long end)
+         throws IOException {
+      GetOptions options = new GetOptions().range(begin, end);
+      if (eTag != null) {
+         options.ifETagMatches(eTag);
+      }
+      Blob blob = getBlob(container, name, options);
+      if (blob == null) {
+         throw new KeyNotFoundException(container, name, "while downloading");
+      }
+      return blob.getPayload().openStream();
    }
 }
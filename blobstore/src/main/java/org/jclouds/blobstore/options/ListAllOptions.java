@@ -16,8 +16,14 @@
  */
 package org.jclouds.blobstore.options;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+
 import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
 
 /**
  * Contains options supported by BlobStores.listAll.
@@ -32,12 +38,22 @@ public class ListAllOptions implements Cloneable {
    public static final ImmutableListAllOptions NONE = new ImmutableListAllOptions(new ListAllOptions());
 
    private boolean eager = false;
+   private boolean prefetch = false;
+   private boolean shardByFolder = false;
+   private List<String> shardMarkers = ImmutableList.of();
 
    public ListAllOptions() {
    }
 
    ListAllOptions(boolean eagerness) {
+      this(eagerness, false, false, ImmutableList.<String> of());
+   }
+
+   ListAllOptions(boolean eagerness, boolean prefetch, boolean shardByFolder, List<String> shardMarkers) {
       this.eager = eagerness;
+      this.prefetch = prefetch;
+      this.shardByFolder = shardByFolder;
+      this.shardMarkers = shardMarkers;
    }
 
    public static class ImmutableListAllOptions extends ListAllOptions {
@@ -56,6 +72,36 @@ public class ListAllOptions implements Cloneable {
       public ListAllOptions eager(boolean val) {
          throw new UnsupportedOperationException();
       }
+
+      @Override
+      public boolean isPrefetch() {
+         return delegate.isPrefetch();
+      }
+
+      @Override
+      public ListAllOptions prefetch(boolean val) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean isShardByFolder() {
+         return delegate.isShardByFolder();
+      }
+
+      @Override
+      public ListAllOptions shardByFolder(boolean val) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public List<String> getShardMarkers() {
+         return delegate.getShardMarkers();
+      }
+
+      @Override
+      public ListAllOptions shardAfterMarkers(Iterable<String> markers) {
+         throw new UnsupportedOperationException();
+      }
    }
 
    public boolean isEager() {
@@ -71,6 +117,54 @@ public class ListAllOptions implements Cloneable {
       return this;
    }
 
+   public boolean isPrefetch() {
+      return prefetch;
+   }
+
+   /**
+    * If prefetch, each page is requested from the context's user executor while the previous page is being consumed.
+    * At most one page is fetched ahead of the caller.
+    */
+   public ListAllOptions prefetch(boolean val) {
+      this.prefetch = val;
+      return this;
+   }
+
+   public boolean isShardByFolder() {
+      return shardByFolder;
+   }
+
+   /**
+    * If shardByFolder, the top-level folders of the listing are listed recursively in parallel, and their blobs and
+    * the top-level blobs are returned in name order. Folders themselves are not returned. Only a bounded number of
+    * folders are listed ahead of the caller; the rest are started as those are consumed. Works with any provider,
+    * and pays off when the keys are spread over several folders. Implies {@link #prefetch(boolean)}.
+    */
+   public ListAllOptions shardByFolder(boolean val) {
+      this.shardByFolder = val;
+      return this;
+   }
+
+   public List<String> getShardMarkers() {
+      return shardMarkers;
+   }
+
+   /**
+    * Splits the listing at the given names, and lists the ranges in parallel: names up to and including the first
+    * marker, names after it up to and including the second, and so on. Results are merged in name order.
+    * <p>
+    * Only for providers whose list markers are blob names, such as S3 and Swift; providers with opaque markers, such
+    * as Azure and Google Cloud Storage, should use {@link #shardByFolder(boolean)} instead. Implies
+    * {@link #prefetch(boolean)}.
+    */
+   public ListAllOptions shardAfterMarkers(Iterable<String> markers) {
+      List<String> sorted = Ordering.natural().sortedCopy(markers);
+      for (int i = 1; i < sorted.size(); i++)
+         checkArgument(!sorted.get(i).equals(sorted.get(i - 1)), "duplicate marker %s", sorted.get(i));
+      this.shardMarkers = ImmutableList.copyOf(sorted);
+      return this;
+   }
+
    public static class Builder {
       /**
        * @see ListAllOptions#eager(boolean)
@@ -79,21 +173,46 @@ public class ListAllOptions implements Cloneable {
          ListAllOptions options = new ListAllOptions();
          return options.eager(eager);
       }
+
+      /**
+       * @see ListAllOptions#prefetch(boolean)
+       */
+      public static ListAllOptions prefetch(boolean prefetch) {
+         ListAllOptions options = new ListAllOptions();
+         return options.prefetch(prefetch);
+      }
+
+      /**
+       * @see ListAllOptions#shardByFolder(boolean)
+       */
+      public static ListAllOptions shardByFolder(boolean shardByFolder) {
+         ListAllOptions options = new ListAllOptions();
+         return options.shardByFolder(shardByFolder);
+      }
+
+      /**
+       * @see ListAllOptions#shardAfterMarkers(Iterable)
+       */
+      public static ListAllOptions shardAfterMarkers(Iterable<String> markers) {
+         ListAllOptions options = new ListAllOptions();
+         return options.shardAfterMarkers(markers);
+      }
    }
 
    @Override
    public ListAllOptions clone() {
-      return new ListAllOptions(isEager());
+      return new ListAllOptions(isEager(), isPrefetch(), isShardByFolder(), getShardMarkers());
    }
 
    @Override
    public String toString() {
-      return "[eager=" + eager + "]";
+      return "[eager=" + eager + ", prefetch=" + prefetch + ", shardByFolder=" + shardByFolder + ", shardMarkers="
+            + shardMarkers + "]";
    }
 
    @Override
    public int hashCode() {
-      return Objects.hashCode(eager);
+      return Objects.hashCode(eager, prefetch, shardByFolder, shardMarkers);
    }
 
    @Override
@@ -105,6 +224,7 @@ public class ListAllOptions implements Cloneable {
       if (getClass() != obj.getClass())
          return false;
       ListAllOptions other = (ListAllOptions) obj;
-      return eager == other.eager;
+      return eager == other.eager && prefetch == other.prefetch && shardByFolder == other.shardByFolder
+            && shardMarkers.equals(other.shardMarkers);
    }
 }
@@ -41,6 +41,8 @@ public class PutOptions implements Cloneable {
    private BlobAccess blobAccess = BlobAccess.PRIVATE;
    private boolean multipart = false;
    private boolean useCustomExecutor = false;
+   private int multipartBuffers = 0;
+   private boolean directMultipartBuffers = false;
 
    // TODO: This exposes ListeningExecutorService to the user, instead of a regular ExecutorService
    private ListeningExecutorService customExecutor = MoreExecutors.newDirectExecutorService();
@@ -108,6 +110,26 @@ public class PutOptions implements Cloneable {
          throw new UnsupportedOperationException();
       }
 
+      @Override
+      public int getMultipartBuffers() {
+         return delegate.getMultipartBuffers();
+      }
+
+      @Override
+      public PutOptions multipartBuffers(int count) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean getDirectMultipartBuffers() {
+         return delegate.getDirectMultipartBuffers();
+      }
+
+      @Override
+      public PutOptions directMultipartBuffers(boolean direct) {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public PutOptions clone() {
          return delegate.clone();
@@ -179,6 +201,34 @@ public class PutOptions implements Cloneable {
       return this;
    }
 
+   public int getMultipartBuffers() {
+      return multipartBuffers;
+   }
+
+   /**
+    * Upload non-repeatable payloads, such as an InputStream, through a pool of {@code count} part-sized buffers. The
+    * stream is read into a free buffer while the previous parts upload, so up to {@code count} parts are in flight and
+    * reading blocks until a buffer is released. Zero defers to the multipart slicing algorithm, which by default
+    * uploads such payloads one part at a time without buffering.
+    */
+   public PutOptions multipartBuffers(int count) {
+      Preconditions.checkArgument(count >= 0, "count must be >= 0");
+      this.multipartBuffers = count;
+      return this;
+   }
+
+   public boolean getDirectMultipartBuffers() {
+      return directMultipartBuffers;
+   }
+
+   /**
+    * whether the buffers used by {@link #multipartBuffers(int)} are allocated off-heap
+    */
+   public PutOptions directMultipartBuffers(boolean direct) {
+      this.directMultipartBuffers = direct;
+      return this;
+   }
+
    public static class Builder {
 
       public static PutOptions fromPutOptions(PutOptions putOptions) {
@@ -201,11 +251,22 @@ public class PutOptions implements Cloneable {
          PutOptions options = new PutOptions();
          return options.multipart(customExecutor);
       }
+
+      /**
+       * @see PutOptions#multipartBuffers(int)
+       */
+      public static PutOptions multipartBuffers(int count) {
+         PutOptions options = new PutOptions();
+         return options.multipart().multipartBuffers(count);
+      }
    }
 
    @Override
    public PutOptions clone() {
-      return new PutOptions(multipart, useCustomExecutor, customExecutor);
+      PutOptions options = new PutOptions(multipart, useCustomExecutor, customExecutor);
+      options.multipartBuffers = multipartBuffers;
+      options.directMultipartBuffers = directMultipartBuffers;
+      return options;
    }
 
    @Override
@@ -213,6 +274,8 @@ public class PutOptions implements Cloneable {
       return "[multipart=" + multipart +
             ", blobAccess=" + blobAccess +
             ", useCustomExecutor=" + useCustomExecutor +
-            ", customExecutor=" + customExecutor + "]";
+            ", customExecutor=" + customExecutor +
+            ", multipartBuffers=" + multipartBuffers +
+            ", directMultipartBuffers=" + directMultipartBuffers + "]";
    }
 }
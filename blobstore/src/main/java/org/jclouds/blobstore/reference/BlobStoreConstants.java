@@ -53,6 +53,45 @@ public final class BlobStoreConstants {
     */
    public static final String PROPERTY_USER_METADATA_PREFIX = "jclouds.blobstore.metaprefix";
 
+   /**
+    * Size in bytes of each ranged GET issued by {@link org.jclouds.blobstore.BlobStore#downloadBlob} and
+    * {@link org.jclouds.blobstore.BlobStore#streamBlob}.
+    */
+   public static final String PROPERTY_BLOBSTORE_DOWNLOAD_PART_SIZE = "jclouds.blobstore.download.part.size";
+
+   /**
+    * Maximum number of parts {@link org.jclouds.blobstore.BlobStore#streamBlob} fetches ahead of the reader. Memory
+    * held by a stream is bounded by this value times the download part size.
+    */
+   public static final String PROPERTY_BLOBSTORE_STREAM_READ_AHEAD_PARTS = "jclouds.blobstore.stream.readahead.parts";
+
+   /**
+    * Blobs larger than this many bytes are copied in parallel parts, using a server-side part copy where the provider
+    * has one.
+    */
+   public static final String PROPERTY_BLOBSTORE_MULTIPART_COPY_THRESHOLD = "jclouds.blobstore.copy.multipart.threshold";
+
+   /**
+    * Whether the transient provider keeps blob payloads in direct buffers outside the Java heap.
+    */
+   public static final String PROPERTY_TRANSIENT_OFF_HEAP = "jclouds.transient.offheap";
+
+   /**
+    * Bytes of off-heap memory the transient provider may hold payloads in, or 0 for no limit.
+    */
+   public static final String PROPERTY_TRANSIENT_OFF_HEAP_BUDGET = "jclouds.transient.offheap.budget";
+
+   /**
+    * What the transient provider does once its off-heap budget is used up: "spill" the least recently read payloads
+    * to memory-mapped temporary files, or "reject" new blobs.
+    */
+   public static final String PROPERTY_TRANSIENT_OFF_HEAP_OVERFLOW = "jclouds.transient.offheap.overflow";
+
+   /**
+    * Directory the transient provider spills payloads to, java.io.tmpdir by default.
+    */
+   public static final String PROPERTY_TRANSIENT_SPILL_DIRECTORY = "jclouds.transient.offheap.spill.directory";
+
    public static final String BLOBSTORE_LOGGER = "jclouds.blobstore";
    public static final String DIRECTORY_BLOB_SUFFIX = "/";
 
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import org.jclouds.blobstore.strategy.internal.FixedMultipartUploadSlicingStrategy;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Chooses how multipart uploads are sliced into parts. Bind
+ * {@link org.jclouds.blobstore.strategy.internal.AdaptiveMultipartUploadSlicingStrategy} to size parts from observed
+ * upload throughput instead of fixed defaults.
+ */
+@Beta
+@ImplementedBy(FixedMultipartUploadSlicingStrategy.class)
+public interface MultipartUploadSlicingStrategy {
+
+   /**
+    * @return a new algorithm for a single upload into {@code container}, within the provider limits given
+    */
+   MultipartUploadSlicingAlgorithm newAlgorithm(String container, long minimumPartSize, long maximumPartSize,
+         int maximumNumberOfParts);
+
+   /**
+    * Records that a part of {@code partSize} bytes was uploaded into {@code container} in {@code elapsedNanos}.
+    */
+   void partUploaded(String container, long partSize, long elapsedNanos);
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+
+/**
+ * Sizes parts from the throughput recently observed per container, so that a part takes roughly
+ * {@code jclouds.mpu.adaptive.part.seconds} to upload. Small objects on slow links get small parts and large objects
+ * on fast links get large ones; the provider limits still apply. When {@code jclouds.mpu.adaptive.bandwidth} is set,
+ * non-repeatable payloads are buffered across as many parts as needed to reach that aggregate rate, up to
+ * {@code jclouds.mpu.adaptive.concurrency} and within {@code jclouds.mpu.adaptive.buffer.bytes} of buffers sized to
+ * the chunks of that upload; when not even one chunk fits in that budget, they are uploaded serially without
+ * buffering. Configured per-container part
+ * sizes always win.
+ * <p>
+ * Until a container has completed a part, the fixed defaults are used.
+ */
+@Singleton
+public class AdaptiveMultipartUploadSlicingStrategy extends FixedMultipartUploadSlicingStrategy {
+
+   @VisibleForTesting
+   static final long DEFAULT_TARGET_PART_SECONDS = 10;
+
+   @VisibleForTesting
+   static final int DEFAULT_MAXIMUM_CONCURRENCY = 8;
+
+   /** weight of the newest sample in the moving average */
+   private static final double SMOOTHING = 0.2;
+
+   @VisibleForTesting
+   static final long DEFAULT_BUFFER_BYTES = 256 * 1024 * 1024;
+
+   private static final long MEGABYTE = 1024 * 1024;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.adaptive.part.seconds")
+   @VisibleForTesting
+   long targetPartSeconds = DEFAULT_TARGET_PART_SECONDS;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.adaptive.concurrency")
+   @VisibleForTesting
+   int maximumConcurrency = DEFAULT_MAXIMUM_CONCURRENCY;
+
+   /** aggregate bytes per second to aim for; zero always uses the maximum concurrency */
+   @Inject(optional = true)
+   @Named("jclouds.mpu.adaptive.bandwidth")
+   @VisibleForTesting
+   long targetBandwidth = 0;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.adaptive.buffer.bytes")
+   @VisibleForTesting
+   long bufferBytes = DEFAULT_BUFFER_BYTES;
+
+   private final ConcurrentMap<String, Throughput> throughputs = new ConcurrentHashMap<String, Throughput>();
+
+   @Override
+   public void partUploaded(String container, long partSize, long elapsedNanos) {
+      if (partSize <= 0 || elapsedNanos <= 0) {
+         return;
+      }
+      Throughput throughput = throughputs.get(container);
+      if (throughput == null) {
+         throughputs.putIfAbsent(container, new Throughput());
+         throughput = throughputs.get(container);
+      }
+      throughput.record(partSize, elapsedNanos);
+   }
+
+   @Override
+   protected long partSize(String container) {
+      Throughput throughput = throughputs.get(container);
+      if (throughput == null || hasContainerPartSize(container)) {
+         return super.partSize(container);
+      }
+      long partSize = (long) (throughput.bytesPerSecond() * targetPartSeconds);
+      // round up to whole megabytes to keep part sizes stable between uploads
+      return Math.max(MEGABYTE, (partSize + MEGABYTE - 1) / MEGABYTE * MEGABYTE);
+   }
+
+   @Override
+   protected int bufferedParts(String container) {
+      Throughput throughput = throughputs.get(container);
+      if (throughput == null) {
+         return Math.max(super.bufferedParts(container), 1);
+      }
+      double streams = targetBandwidth <= 0 ? maximumConcurrency
+            : Math.ceil(targetBandwidth / throughput.bytesPerSecond());
+      return (int) Math.min(maximumConcurrency, streams);
+   }
+
+   /**
+    * The algorithm divides this budget by the chunk size it picks for the content length, which grows past the unit
+    * part size for large objects.
+    */
+   @Override
+   protected long bufferBytes(String container) {
+      return bufferBytes;
+   }
+
+   @VisibleForTesting
+   double bytesPerSecond(String container) {
+      Throughput throughput = throughputs.get(container);
+      return throughput == null ? 0 : throughput.bytesPerSecond();
+   }
+
+   /** exponentially weighted moving average of the per-part upload rate */
+   private static final class Throughput {
+      private double bytesPerSecond;
+
+      synchronized void record(long bytes, long elapsedNanos) {
+         double sample = bytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+         bytesPerSecond = bytesPerSecond == 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * bytesPerSecond;
+      }
+
+      synchronized double bytesPerSecond() {
+         return bytesPerSecond;
+      }
+   }
+}
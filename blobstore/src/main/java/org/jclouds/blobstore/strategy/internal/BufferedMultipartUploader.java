@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.strategy.MultipartUploadSlicingStrategy;
+import org.jclouds.io.ByteSources;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Uploads the parts of a non-repeatable payload, such as an InputStream, concurrently. The stream is read into a
+ * bounded pool of part-sized buffers and each part is submitted as soon as its buffer is full. Reading blocks while
+ * every buffer is in flight, so memory is bounded by the pool size times the part size.
+ */
+@Beta
+public final class BufferedMultipartUploader {
+   private final BlobStore blobStore;
+   private final MultipartUploadSlicingStrategy slicingStrategy;
+   private final ListeningExecutorService executor;
+   private final PartBufferPool pool;
+
+   public BufferedMultipartUploader(BlobStore blobStore, MultipartUploadSlicingStrategy slicingStrategy,
+         ListeningExecutorService executor, int bufferCount, int partSize, boolean direct) {
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.slicingStrategy = checkNotNull(slicingStrategy, "slicingStrategy");
+      this.executor = checkNotNull(executor, "executor");
+      checkArgument(bufferCount > 0, "bufferCount must be positive");
+      checkArgument(partSize > 0, "partSize must be positive");
+      this.pool = new PartBufferPool(bufferCount, partSize, direct);
+   }
+
+   /**
+    * @param algorithm
+    *           slicing already calculated for the payload length; its chunk size must equal the buffer size
+    * @param firstPartNumber
+    *           number given to the first part, since providers differ on whether parts start at zero or one
+    * @return the uploaded parts, in order
+    */
+   public List<MultipartPart> upload(MultipartUpload mpu, InputStream is, MultipartUploadSlicingAlgorithm algorithm,
+         int firstPartNumber) throws IOException {
+      List<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      ReadableByteChannel in = Channels.newChannel(is);
+      int partCount = algorithm.getParts() + (algorithm.getRemaining() != 0 ? 1 : 0);
+      try {
+         for (int i = 0; i < partCount; i++) {
+            final ByteBuffer buffer = pool.acquire();
+            if (failure.get() != null) {
+               // stop reading; the failed part is rethrown below
+               pool.release(buffer);
+               break;
+            }
+            buffer.limit(i < algorithm.getParts() ? buffer.capacity() : (int) algorithm.getRemaining());
+            while (buffer.hasRemaining()) {
+               if (in.read(buffer) == -1) {
+                  throw new EOFException("Payload ended before part " + (firstPartNumber + i) + " was filled");
+               }
+            }
+            buffer.flip();
+            Payload slice = Payloads.newByteSourcePayload(ByteSources.wrap(buffer));
+            slice.getContentMetadata().setContentLength((long) buffer.remaining());
+            ListenableFuture<MultipartPart> part = executor.submit(new PartUploader(mpu, firstPartNumber + i, slice));
+            Futures.addCallback(part, new FutureCallback<MultipartPart>() {
+               @Override
+               public void onSuccess(MultipartPart result) {
+                  pool.release(buffer);
+               }
+
+               @Override
+               public void onFailure(Throwable t) {
+                  failure.compareAndSet(null, t);
+                  pool.release(buffer);
+               }
+            }, MoreExecutors.directExecutor());
+            parts.add(part);
+         }
+         return Futures.getUnchecked(Futures.allAsList(parts));
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         cancel(parts);
+         throw Throwables.propagate(ie);
+      } catch (IOException ioe) {
+         cancel(parts);
+         throw ioe;
+      } catch (RuntimeException re) {
+         cancel(parts);
+         throw re;
+      }
+   }
+
+   private static void cancel(List<ListenableFuture<MultipartPart>> parts) {
+      for (ListenableFuture<MultipartPart> part : parts) {
+         part.cancel(true);
+      }
+   }
+
+   private final class PartUploader implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final Payload payload;
+
+      PartUploader(MultipartUpload mpu, int partNumber, Payload payload) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.payload = payload;
+      }
+
+      @Override
+      public MultipartPart call() {
+         long start = System.nanoTime();
+         MultipartPart part = blobStore.uploadMultipartPart(mpu, partNumber, payload);
+         slicingStrategy.partUploaded(mpu.containerName(), payload.getContentMetadata().getContentLength(),
+               System.nanoTime() - start);
+         return part;
+      }
+   }
+
+   /**
+    * Lazily allocated buffers, acquired only by the thread reading the payload and released by upload callbacks.
+    */
+   private static final class PartBufferPool {
+      private final BlockingQueue<ByteBuffer> free = new LinkedBlockingQueue<ByteBuffer>();
+      private final int capacity;
+      private final int bufferSize;
+      private final boolean direct;
+      private int allocated;
+
+      PartBufferPool(int capacity, int bufferSize, boolean direct) {
+         this.capacity = capacity;
+         this.bufferSize = bufferSize;
+         this.direct = direct;
+      }
+
+      ByteBuffer acquire() throws InterruptedException {
+         ByteBuffer buffer = free.poll();
+         if (buffer == null) {
+            if (allocated < capacity) {
+               allocated++;
+               buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+            } else {
+               buffer = free.take();
+            }
+         }
+         buffer.clear();
+         return buffer;
+      }
+
+      void release(ByteBuffer buffer) {
+         free.add(buffer);
+      }
+   }
+}
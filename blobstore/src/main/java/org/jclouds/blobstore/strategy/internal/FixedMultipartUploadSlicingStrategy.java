@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.strategy.MultipartUploadSlicingStrategy;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import com.google.inject.Inject;
+
+/**
+ * Slices every upload with the configured {@code jclouds.mpu.parts.*} values. Per-container part sizes may be given
+ * in {@code jclouds.mpu.parts.size.containers} as a comma-separated list such as {@code logs=134217728,thumbs=5242880}.
+ */
+@Singleton
+public class FixedMultipartUploadSlicingStrategy implements MultipartUploadSlicingStrategy {
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.size")
+   @VisibleForTesting
+   long defaultPartSize = MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.magnitude")
+   @VisibleForTesting
+   int magnitudeBase = MultipartUploadSlicingAlgorithm.DEFAULT_MAGNITUDE_BASE;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.buffers")
+   @VisibleForTesting
+   int bufferedParts = MultipartUploadSlicingAlgorithm.DEFAULT_BUFFERED_PARTS;
+
+   private volatile Map<String, Long> containerPartSizes = ImmutableMap.of();
+
+   @Inject(optional = true)
+   void setContainerPartSizes(@Named("jclouds.mpu.parts.size.containers") String containerPartSizes) {
+      ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+      for (Map.Entry<String, String> entry : Splitter.on(',').omitEmptyStrings().trimResults()
+            .withKeyValueSeparator('=').split(containerPartSizes).entrySet()) {
+         Long partSize = Longs.tryParse(entry.getValue().trim());
+         checkArgument(partSize != null && partSize > 0, "invalid part size for container %s: %s", entry.getKey(),
+               entry.getValue());
+         builder.put(entry.getKey().trim(), partSize);
+      }
+      this.containerPartSizes = builder.build();
+   }
+
+   @Override
+   public MultipartUploadSlicingAlgorithm newAlgorithm(String container, long minimumPartSize, long maximumPartSize,
+         int maximumNumberOfParts) {
+      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(minimumPartSize,
+            maximumPartSize, maximumNumberOfParts);
+      algorithm.defaultPartSize = partSize(container);
+      algorithm.magnitudeBase = magnitudeBase;
+      algorithm.bufferedParts = bufferedParts(container);
+      algorithm.bufferBytes = bufferBytes(container);
+      return algorithm;
+   }
+
+   @Override
+   public void partUploaded(String container, long partSize, long elapsedNanos) {
+   }
+
+   /**
+    * @return the unit part size for uploads into {@code container}
+    */
+   protected long partSize(String container) {
+      Long partSize = containerPartSizes.get(container);
+      return partSize != null ? partSize : defaultPartSize;
+   }
+
+   /**
+    * @return the number of part buffers used for non-repeatable payloads uploaded into {@code container}
+    */
+   protected int bufferedParts(String container) {
+      return bufferedParts;
+   }
+
+   /**
+    * @return the bytes all part buffers of an upload into {@code container} may take together, or zero for no limit
+    */
+   protected long bufferBytes(String container) {
+      return 0;
+   }
+
+   /**
+    * @return whether {@code container} has a configured part size, which adaptive sizing must not override
+    */
+   protected boolean hasContainerPartSize(String container) {
+      return containerPartSizes.containsKey(container);
+   }
+}
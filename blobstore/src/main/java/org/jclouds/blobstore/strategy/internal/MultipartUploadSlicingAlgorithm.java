@@ -53,6 +53,23 @@ public final class MultipartUploadSlicingAlgorithm {
    @VisibleForTesting
    int magnitudeBase = DEFAULT_MAGNITUDE_BASE;
 
+   @VisibleForTesting
+   static final int DEFAULT_BUFFERED_PARTS = 0;
+
+   /**
+    * Number of part-sized buffers used to pipeline uploads of non-repeatable payloads when
+    * {@link org.jclouds.blobstore.options.PutOptions#multipartBuffers(int)} is not set. Zero uploads such payloads
+    * serially without buffering.
+    */
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.buffers")
+   @VisibleForTesting
+   int bufferedParts = DEFAULT_BUFFERED_PARTS;
+
+   /** bytes all part buffers of an upload may take together; zero leaves them unbounded */
+   @VisibleForTesting
+   long bufferBytes = 0;
+
    // calculated only once, but not from the constructor
    private volatile int parts; // required number of parts with chunkSize
    private volatile long chunkSize;
@@ -120,6 +137,17 @@ public final class MultipartUploadSlicingAlgorithm {
       return this.chunkSize;
    }
 
+   /**
+    * @return the number of part buffers to use, which once {@link #calculateChunkSize} has run never take more than
+    *         the buffer budget; zero when not even one chunk fits in it
+    */
+   public int getBufferedParts() {
+      if (bufferBytes > 0 && chunkSize > 0) {
+         return (int) Math.min(bufferedParts, bufferBytes / chunkSize);
+      }
+      return bufferedParts;
+   }
+
    public long getCopied() {
       return copied;
    }
@@ -20,16 +20,28 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 public class BlobStoreUtils {
    public static <T> HttpRequest cleanRequest(HttpRequest returnVal) {
@@ -78,6 +90,56 @@ public class BlobStoreUtils {
       return newMd;
    }
 
+   /**
+    * Removes blobs with a provider batch delete, running at most {@code maxParallelBatches} batches of at most
+    * {@code batchSize} names at a time. The names a batch could not remove are then removed one by one with
+    * {@link BlobStore#removeBlob}, so that they are retried and their errors reported like any single delete.
+    *
+    * @param removeBatch
+    *           removes a batch of names from the container and returns the names it could not remove
+    */
+   public static void removeBlobsInBatches(final BlobStore blobStore, final String container, Iterable<String> names,
+         int batchSize, ListeningExecutorService executor, int maxParallelBatches,
+         final Function<List<String>, ? extends Iterable<String>> removeBatch) {
+      final Semaphore semaphore = new Semaphore(maxParallelBatches);
+      final AtomicBoolean failed = new AtomicBoolean();
+      List<ListenableFuture<Void>> futures = Lists.newArrayList();
+      try {
+         for (final List<String> batch : Iterables.partition(names, batchSize)) {
+            semaphore.acquire();
+            if (failed.get()) {
+               semaphore.release();
+               break;
+            }
+            futures.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() {
+                  try {
+                     for (String name : removeBatch.apply(batch)) {
+                        blobStore.removeBlob(container, name);
+                     }
+                     return null;
+                  } catch (RuntimeException e) {
+                     failed.set(true);
+                     throw e;
+                  } finally {
+                     semaphore.release();
+                  }
+               }
+            }));
+         }
+         Futures.allAsList(futures).get();
+      } catch (InterruptedException e) {
+         for (ListenableFuture<Void> future : futures) {
+            future.cancel(true);
+         }
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
    private static void convertUserMetadataKeysToLowercase(MutableBlobMetadata metadata) {
       Map<String, String> lowerCaseUserMetadata = Maps.newHashMap();
       for (Map.Entry<String, String> entry : metadata.getUserMetadata().entrySet()) {
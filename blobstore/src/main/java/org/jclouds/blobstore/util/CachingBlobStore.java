@@ -0,0 +1,664 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.BlobImpl;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.io.Payloads;
+import org.jclouds.util.Throwables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A read-through cache in front of another {@link BlobStore}. Blob content is kept in files under a dedicated local
+ * directory, bounded by total size with least-recently-used eviction; blob metadata is kept in memory. Concurrent
+ * misses for the same blob share one download, and range reads of cached blobs are served from the local file.
+ * <p>
+ * Cached content is served without contacting the delegate for {@link Builder#expireAfter(long, TimeUnit)}; after
+ * that it is revalidated with a conditional GET on its ETag, or downloaded again when it has none. Writes and deletes
+ * made through this blob store invalidate the affected entries; changes made by other clients are only seen once
+ * entries expire. Requests carrying their own preconditions, and blobs larger than the whole cache, bypass it.
+ * <p>
+ * Example:
+ * 
+ * <pre>
+ * BlobStore cached = CachingBlobStore.builder(context.getBlobStore())
+ *       .cacheDirectory(new File(&quot;/var/cache/blobs&quot;))
+ *       .maximumSize(10L * 1024 * 1024 * 1024)
+ *       .expireAfter(1, TimeUnit.MINUTES)
+ *       .build();
+ * </pre>
+ */
+@Beta
+public final class CachingBlobStore extends ForwardingBlobStore {
+
+   public static Builder builder(BlobStore blobStore) {
+      return new Builder(blobStore);
+   }
+
+   public static final class Builder {
+      private final BlobStore blobStore;
+      private File cacheDirectory;
+      private long maximumSize = 1024L * 1024 * 1024;
+      private long expireAfterNanos;
+      private long maximumMetadataEntries = 10000;
+      private Ticker ticker = Ticker.systemTicker();
+
+      private Builder(BlobStore blobStore) {
+         this.blobStore = checkNotNull(blobStore, "blobStore");
+      }
+
+      /**
+       * Directory holding the cached content. It must not be shared with anything else: cache files left over from
+       * an earlier instance are deleted when the cache is built.
+       */
+      public Builder cacheDirectory(File cacheDirectory) {
+         this.cacheDirectory = checkNotNull(cacheDirectory, "cacheDirectory");
+         return this;
+      }
+
+      /**
+       * Upper bound on the total size of the cached content, in bytes. Defaults to 1 GiB.
+       */
+      public Builder maximumSize(long bytes) {
+         checkArgument(bytes > 0, "maximumSize must be positive");
+         this.maximumSize = bytes;
+         return this;
+      }
+
+      /**
+       * How long cached content and metadata are trusted without asking the delegate. Defaults to zero, which
+       * revalidates content on every read and does not cache metadata.
+       */
+      public Builder expireAfter(long duration, TimeUnit unit) {
+         checkArgument(duration >= 0, "duration must not be negative");
+         this.expireAfterNanos = unit.toNanos(duration);
+         return this;
+      }
+
+      public Builder maximumMetadataEntries(long maximumMetadataEntries) {
+         checkArgument(maximumMetadataEntries >= 0, "maximumMetadataEntries must not be negative");
+         this.maximumMetadataEntries = maximumMetadataEntries;
+         return this;
+      }
+
+      @VisibleForTesting
+      Builder ticker(Ticker ticker) {
+         this.ticker = checkNotNull(ticker, "ticker");
+         return this;
+      }
+
+      public CachingBlobStore build() {
+         checkState(cacheDirectory != null, "cacheDirectory is required");
+         cacheDirectory.mkdirs();
+         checkState(cacheDirectory.isDirectory(), "%s is not a directory", cacheDirectory);
+         File[] leftovers = cacheDirectory.listFiles();
+         if (leftovers != null) {
+            for (File file : leftovers) {
+               if (file.getName().startsWith(FILE_PREFIX)) {
+                  file.delete();
+               }
+            }
+         }
+         return new CachingBlobStore(this);
+      }
+   }
+
+   private static final String FILE_PREFIX = "blob-";
+
+   /** Stands for a blob that exists but is too large to cache. */
+   private static final CachedBlob UNCACHEABLE = new CachedBlob(null, null, 0);
+
+   private final File cacheDirectory;
+   private final long maximumSize;
+   private final long maximumWeight;
+   private final long expireAfterNanos;
+   private final Ticker ticker;
+   private final Cache<String, CachedBlob> content;
+   private final Cache<String, Optional<BlobMetadata>> metadata;
+   private final ConcurrentMap<String, SettableFuture<Optional<CachedBlob>>> downloads = Maps.newConcurrentMap();
+
+   private CachingBlobStore(Builder builder) {
+      super(builder.blobStore);
+      this.cacheDirectory = builder.cacheDirectory;
+      this.maximumSize = builder.maximumSize;
+      // weigh in KiB so that blobs over 2 GiB still fit the int weights
+      this.maximumWeight = Math.max(1, builder.maximumSize / 1024);
+      this.expireAfterNanos = builder.expireAfterNanos;
+      this.ticker = builder.ticker;
+      // a single segment, so the bound and the least-recently-used order apply to the whole cache rather than to
+      // each quarter of it
+      this.content = CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumWeight(maximumWeight)
+            .weigher(new Weigher<String, CachedBlob>() {
+               @Override
+               public int weigh(String key, CachedBlob value) {
+                  return (int) Math.min(Integer.MAX_VALUE, weight(value.size));
+               }
+            })
+            .removalListener(new RemovalListener<String, CachedBlob>() {
+               @Override
+               public void onRemoval(RemovalNotification<String, CachedBlob> notification) {
+                  // readers that already opened the file keep reading the unlinked copy
+                  notification.getValue().file.delete();
+               }
+            })
+            .build();
+      this.metadata = CacheBuilder.newBuilder()
+            .maximumSize(builder.maximumMetadataEntries)
+            .expireAfterWrite(expireAfterNanos, TimeUnit.NANOSECONDS)
+            .ticker(ticker)
+            .build();
+   }
+
+   @Override
+   public boolean blobExists(String container, String name) {
+      return blobMetadata(container, name) != null;
+   }
+
+   @Override
+   public BlobMetadata blobMetadata(final String container, final String name) {
+      if (expireAfterNanos == 0) {
+         return delegate().blobMetadata(container, name);
+      }
+      String key = key(container, name);
+      CachedBlob cached = content.getIfPresent(key);
+      if (cached != null && isFresh(cached)) {
+         return new MutableBlobMetadataImpl(cached.metadata);
+      }
+      Optional<BlobMetadata> md;
+      try {
+         md = metadata.get(key, new Callable<Optional<BlobMetadata>>() {
+            @Override
+            public Optional<BlobMetadata> call() {
+               return Optional.fromNullable(delegate().blobMetadata(container, name));
+            }
+         });
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      } catch (UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+      return md.isPresent() ? new MutableBlobMetadataImpl(md.get()) : null;
+   }
+
+   @Override
+   public Blob getBlob(String containerName, String blobName) {
+      return getBlob(containerName, blobName, GetOptions.NONE);
+   }
+
+   @Override
+   public Blob getBlob(String containerName, String blobName, GetOptions options) {
+      if (options == null) {
+         options = GetOptions.NONE;
+      }
+      if (options.getIfMatch() != null || options.getIfNoneMatch() != null
+            || options.getIfModifiedSince() != null || options.getIfUnmodifiedSince() != null) {
+         return delegate().getBlob(containerName, blobName, options);
+      }
+      String key = key(containerName, blobName);
+      // a second attempt covers the file being evicted between lookup and open
+      for (int attempt = 0; attempt < 2; attempt++) {
+         CachedBlob cached = cachedBlob(containerName, blobName, key);
+         if (cached == null) {
+            return null;
+         }
+         if (cached == UNCACHEABLE) {
+            break;
+         }
+         try {
+            return open(cached, options.getRanges());
+         } catch (NoSuchFileException e) {
+            content.asMap().remove(key, cached);
+         } catch (IOException e) {
+            throw Throwables.propagate(e);
+         }
+      }
+      return delegate().getBlob(containerName, blobName, options);
+   }
+
+   @Override
+   public InputStream streamBlob(String container, String name) {
+      Blob blob = getBlob(container, name);
+      if (blob == null) {
+         throw new KeyNotFoundException(container, name, "while streaming blob");
+      }
+      try {
+         return blob.getPayload().openStream();
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public InputStream streamBlob(String container, String name, ExecutorService executor) {
+      return streamBlob(container, name);
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      InputStream in = streamBlob(container, name);
+      try {
+         Files.asByteSink(destination).writeFrom(in);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      } finally {
+         Closeables.closeQuietly(in);
+      }
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
+      downloadBlob(container, name, destination);
+   }
+
+   @Override
+   public String putBlob(String containerName, Blob blob) {
+      try {
+         return delegate().putBlob(containerName, blob);
+      } finally {
+         invalidate(containerName, blob.getMetadata().getName());
+      }
+   }
+
+   @Override
+   public String putBlob(String containerName, Blob blob, PutOptions options) {
+      try {
+         return delegate().putBlob(containerName, blob, options);
+      } finally {
+         invalidate(containerName, blob.getMetadata().getName());
+      }
+   }
+
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      try {
+         return delegate().copyBlob(fromContainer, fromName, toContainer, toName, options);
+      } finally {
+         invalidate(toContainer, toName);
+      }
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      try {
+         return delegate().completeMultipartUpload(mpu, parts);
+      } finally {
+         invalidate(mpu.containerName(), mpu.blobName());
+      }
+   }
+
+   @Override
+   public void removeBlob(String container, String name) {
+      try {
+         delegate().removeBlob(container, name);
+      } finally {
+         invalidate(container, name);
+      }
+   }
+
+   @Override
+   public void removeBlobs(String container, Iterable<String> names) {
+      try {
+         delegate().removeBlobs(container, names);
+      } finally {
+         for (String name : names) {
+            invalidate(container, name);
+         }
+      }
+   }
+
+   @Override
+   public void clearContainer(String container) {
+      try {
+         delegate().clearContainer(container);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   @Override
+   public void clearContainer(String container, ListContainerOptions options) {
+      try {
+         delegate().clearContainer(container, options);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   @Override
+   public void deleteContainer(String container) {
+      try {
+         delegate().deleteContainer(container);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   @Override
+   public boolean deleteContainerIfEmpty(String container) {
+      try {
+         return delegate().deleteContainerIfEmpty(container);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   @Override
+   public void deleteDirectory(String container, String directory) {
+      try {
+         delegate().deleteDirectory(container, directory);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   /**
+    * Drops every cached entry, deleting the cached files.
+    */
+   public void invalidateAll() {
+      content.invalidateAll();
+      metadata.invalidateAll();
+   }
+
+   private void invalidate(String container, String name) {
+      String key = key(container, name);
+      content.invalidate(key);
+      metadata.invalidate(key);
+   }
+
+   private void invalidateContainer(String container) {
+      String prefix = key(container, "");
+      for (String key : content.asMap().keySet()) {
+         if (key.startsWith(prefix)) {
+            content.invalidate(key);
+         }
+      }
+      for (String key : metadata.asMap().keySet()) {
+         if (key.startsWith(prefix)) {
+            metadata.invalidate(key);
+         }
+      }
+   }
+
+   private boolean fits(long size) {
+      return size <= maximumSize && weight(size) <= maximumWeight;
+   }
+
+   private static long weight(long size) {
+      return size / 1024 + 1;
+   }
+
+   private static String key(String container, String name) {
+      return container + "/" + name;
+   }
+
+   private boolean isFresh(CachedBlob cached) {
+      return ticker.read() - cached.validatedAt < expireAfterNanos;
+   }
+
+   /**
+    * Returns the fresh cached copy of a blob, validating or downloading it if needed, or null if the blob does not
+    * exist. Only one caller per key talks to the delegate; the others wait for its result.
+    */
+   private CachedBlob cachedBlob(String container, String name, String key) {
+      CachedBlob cached = content.getIfPresent(key);
+      if (cached != null && isFresh(cached)) {
+         return cached;
+      }
+      SettableFuture<Optional<CachedBlob>> download = SettableFuture.create();
+      SettableFuture<Optional<CachedBlob>> inProgress = downloads.putIfAbsent(key, download);
+      if (inProgress != null) {
+         try {
+            return inProgress.get().orNull();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+         }
+      }
+      try {
+         CachedBlob result = download(container, name, key, cached);
+         download.set(Optional.fromNullable(result));
+         return result;
+      } catch (RuntimeException e) {
+         download.setException(e);
+         throw e;
+      } catch (Error e) {
+         download.setException(e);
+         throw e;
+      } finally {
+         downloads.remove(key, download);
+      }
+   }
+
+   private CachedBlob download(String container, String name, String key, CachedBlob stale) {
+      String eTag = stale != null ? stale.metadata.getETag() : null;
+      Blob blob;
+      try {
+         blob = delegate().getBlob(container, name,
+               eTag != null ? GetOptions.Builder.ifETagDoesntMatch(eTag) : GetOptions.NONE);
+      } catch (RuntimeException e) {
+         HttpResponseException responseException = Throwables2.getFirstThrowableOfType(e,
+               HttpResponseException.class);
+         if (eTag != null && responseException != null && responseException.getResponse() != null
+               && responseException.getResponse().getStatusCode() == 304) {
+            stale.validatedAt = ticker.read();
+            return stale;
+         }
+         throw e;
+      }
+      if (blob == null) {
+         invalidate(container, name);
+         return null;
+      }
+      Long contentLength = blob.getPayload().getContentMetadata().getContentLength();
+      // a blob heavier than the whole cache would be evicted, and its file deleted, as soon as it is put
+      if (contentLength != null && !fits(contentLength)) {
+         blob.getPayload().release();
+         return UNCACHEABLE;
+      }
+      MutableBlobMetadata md = new MutableBlobMetadataImpl(blob.getMetadata());
+      File file = null;
+      InputStream in = null;
+      try {
+         file = File.createTempFile(FILE_PREFIX, ".cache", cacheDirectory);
+         in = blob.getPayload().openStream();
+         Files.asByteSink(file).writeFrom(in);
+      } catch (IOException e) {
+         if (file != null) {
+            file.delete();
+         }
+         throw Throwables.propagate(e);
+      } finally {
+         Closeables.closeQuietly(in);
+         blob.getPayload().release();
+      }
+      CachedBlob cached = new CachedBlob(file, md, ticker.read());
+      if (!fits(cached.size)) {
+         // the delegate did not report the length up front
+         file.delete();
+         return UNCACHEABLE;
+      }
+      content.put(key, cached);
+      metadata.invalidate(key);
+      return cached;
+   }
+
+   private static Blob open(CachedBlob cached, List<String> ranges) throws IOException {
+      long length = cached.size;
+      long[] offsets;
+      long[] lengths;
+      if (ranges.isEmpty()) {
+         offsets = new long[] { 0 };
+         lengths = new long[] { length };
+      } else {
+         offsets = new long[ranges.size()];
+         lengths = new long[ranges.size()];
+         for (int i = 0; i < ranges.size(); i++) {
+            String range = ranges.get(i);
+            long first;
+            long last = length - 1;
+            if (range.startsWith("-")) {
+               first = Math.max(0, length - Long.parseLong(range.substring(1)));
+            } else if (range.endsWith("-")) {
+               first = Long.parseLong(range.substring(0, range.length() - 1));
+            } else {
+               int dash = range.indexOf('-');
+               checkArgument(dash > 0, "illegal range: %s", range);
+               first = Long.parseLong(range.substring(0, dash));
+               last = Math.min(last, Long.parseLong(range.substring(dash + 1)));
+            }
+            checkArgument(first < length && first <= last, "illegal range: %s for length %s", range, length);
+            offsets[i] = first;
+            lengths[i] = last - first + 1;
+         }
+      }
+
+      FileChannel channel = FileChannel.open(cached.file.toPath(), StandardOpenOption.READ);
+      MutableBlobMetadata md = new MutableBlobMetadataImpl(cached.metadata);
+      Blob blob = new BlobImpl(md);
+      blob.setPayload(Payloads.newInputStreamPayload(new RangeInputStream(channel, offsets, lengths)));
+      HttpUtils.copy(cached.metadata.getContentMetadata(), blob.getPayload().getContentMetadata());
+      long size = 0;
+      for (int i = 0; i < lengths.length; i++) {
+         size += lengths[i];
+         if (!ranges.isEmpty()) {
+            blob.getAllHeaders().put(HttpHeaders.CONTENT_RANGE,
+                  "bytes " + offsets[i] + "-" + (offsets[i] + lengths[i] - 1) + "/" + length);
+         }
+      }
+      blob.getPayload().getContentMetadata().setContentLength(size);
+      md.setSize(size);
+      return blob;
+   }
+
+   private static final class CachedBlob {
+      private final File file;
+      private final BlobMetadata metadata;
+      private final long size;
+      private volatile long validatedAt;
+
+      CachedBlob(File file, BlobMetadata metadata, long validatedAt) {
+         this.file = file;
+         this.metadata = metadata;
+         this.size = file != null ? file.length() : 0;
+         this.validatedAt = validatedAt;
+      }
+   }
+
+   /**
+    * Reads the given regions of a file in order with positional reads, so several readers can share nothing but the
+    * file itself.
+    */
+   private static final class RangeInputStream extends InputStream {
+      private final FileChannel channel;
+      private final long[] offsets;
+      private final long[] lengths;
+      private int range;
+      private long position;
+
+      RangeInputStream(FileChannel channel, long[] offsets, long[] lengths) {
+         this.channel = channel;
+         this.offsets = offsets;
+         this.lengths = lengths;
+      }
+
+      @Override
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         int n = read(b, 0, 1);
+         return n == -1 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0) {
+            return 0;
+         }
+         while (range < offsets.length) {
+            long remaining = lengths[range] - position;
+            if (remaining == 0) {
+               range++;
+               position = 0;
+               continue;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), offsets[range] + position);
+            if (n == -1) {
+               return -1;
+            }
+            position += n;
+            return n;
+         }
+         return -1;
+      }
+
+      @Override
+      public void close() throws IOException {
+         channel.close();
+      }
+   }
+}
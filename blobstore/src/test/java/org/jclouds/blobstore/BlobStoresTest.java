@@ -16,9 +16,11 @@
  */
 package org.jclouds.blobstore;
 
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static org.easymock.EasyMock.createMock;
 import static org.testng.Assert.assertEquals;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import org.easymock.EasyMock;
@@ -28,12 +30,14 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.internal.PageSetImpl;
 import org.jclouds.blobstore.options.ListAllOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 
 @Test(singleThreaded = true, testName = "BlobStoresTest")
@@ -124,6 +128,92 @@ public class BlobStoresTest {
       }
    }
 
+   @Test
+   public void testListAllWithPrefetchFromTransientBlobStore() throws Exception {
+      runOrderedListAllFromTransientBlobStore(ListAllOptions.Builder.prefetch(true));
+   }
+
+   @Test
+   public void testListAllShardedByMarkersFromTransientBlobStore() throws Exception {
+      runOrderedListAllFromTransientBlobStore(ListAllOptions.Builder.shardAfterMarkers(
+               ImmutableList.of("b/myname3", "a/myname15", "c")));
+   }
+
+   @Test
+   public void testListAllShardedByFolderFromTransientBlobStore() throws Exception {
+      runOrderedListAllFromTransientBlobStore(ListAllOptions.Builder.shardByFolder(true));
+   }
+
+   @Test
+   public void testListAllShardedByFolderStartsFoldersLazily() throws Exception {
+      BlobStoreContext context = blobStoreContext();
+      BlobStore blobStore = null;
+      try {
+         blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, containerName);
+         int numFolders = ParallelListing.MAX_FOLDER_SHARDS_AHEAD * 2 + 1;
+         for (int i = 0; i < numFolders; i++) {
+            String blobName = String.format("folder%03d/myname", i);
+            blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload("payload").build());
+         }
+
+         final Set<String> listedFolders = Sets.newHashSet();
+         BlobStore recording = new ForwardingBlobStore(blobStore) {
+            @Override
+            public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+               if (options.isRecursive() && options.getPrefix() != null)
+                  listedFolders.add(options.getPrefix());
+               return super.list(container, options);
+            }
+         };
+         Iterator<StorageMetadata> iterator = new ParallelListing(recording, containerName,
+                  ListContainerOptions.Builder.recursive(), ListAllOptions.Builder.shardByFolder(true),
+                  newDirectExecutorService()).iterator();
+
+         assertEquals(iterator.next().getName(), "folder000/myname");
+         assertEquals(listedFolders.size(), ParallelListing.MAX_FOLDER_SHARDS_AHEAD);
+         assertEquals(Iterators.size(iterator), numFolders - 1);
+         assertEquals(listedFolders.size(), numFolders);
+      } finally {
+         if (blobStore != null)
+            blobStore.deleteContainer(containerName);
+         context.close();
+      }
+   }
+
+   private void runOrderedListAllFromTransientBlobStore(ListAllOptions listAllOptions) throws Exception {
+      ListContainerOptions containerOptions = ListContainerOptions.Builder.maxResults(4).recursive();
+      BlobStoreContext context = blobStoreContext();
+      BlobStore blobStore = null;
+      try {
+         blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, containerName);
+         Set<String> expectedNames = Sets.newTreeSet();
+         for (String folder : ImmutableList.of("", "a/", "b/", "b/c/")) {
+            for (int i = 0; i < 11; i++) {
+               String blobName = folder + "myname" + i;
+               blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload("payload" + i).build());
+               expectedNames.add(blobName);
+            }
+         }
+
+         Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, containerName, containerOptions,
+                  listAllOptions);
+         Iterable<String> iterableNames = Iterables.transform(iterable, new Function<StorageMetadata, String>() {
+            @Override
+            public String apply(StorageMetadata input) {
+               return input.getName();
+            }
+         });
+
+         assertEquals(ImmutableList.copyOf(iterableNames), ImmutableList.copyOf(expectedNames));
+      } finally {
+         if (blobStore != null)
+            blobStore.deleteContainer(containerName);
+         context.close();
+      }
+   }
+
    @Test
    public void testListAllWhenOnePage() throws Exception {
       BlobStore blobStore = createMock(BlobStore.class);
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.jclouds.rest.InsufficientResourcesException;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteSource;
+
+@Test(groups = "unit", testName = "OffHeapPayloadStoreTest")
+public class OffHeapPayloadStoreTest {
+
+   private static ByteSource randomContent(int size) {
+      byte[] bytes = new byte[size];
+      new Random(size).nextBytes(bytes);
+      return ByteSource.wrap(bytes);
+   }
+
+   public void testStoreKnownAndUnknownLength() throws IOException {
+      OffHeapPayloadStore store = new OffHeapPayloadStore(0, true, null);
+      ByteSource expected = randomContent(300 * 1024);
+
+      ByteSource known = store.store(expected.openStream(), expected.size());
+      ByteSource unknown = store.store(expected.openStream(), null);
+
+      assertTrue(known.contentEquals(expected));
+      assertTrue(unknown.contentEquals(expected));
+      assertEquals(unknown.size(), expected.size());
+      assertTrue(unknown.slice(65530, 100000).contentEquals(expected.slice(65530, 100000)));
+      assertEquals(store.offHeapBytes(), 2 * expected.size());
+
+      store.release(known);
+      store.release(unknown);
+      assertEquals(store.offHeapBytes(), 0);
+   }
+
+   public void testStoreEmpty() throws IOException {
+      OffHeapPayloadStore store = new OffHeapPayloadStore(0, true, null);
+      ByteSource empty = store.store(ByteSource.empty().openStream(), 0L);
+      assertEquals(empty.size(), 0);
+      assertTrue(empty.isEmpty());
+   }
+
+   public void testSpillLeastRecentlyRead() throws IOException {
+      OffHeapPayloadStore store = new OffHeapPayloadStore(2048, true, null);
+      ByteSource first = store.store(randomContent(1000).openStream(), 1000L);
+      ByteSource second = store.store(randomContent(1001).openStream(), 1001L);
+      first.read();
+
+      ByteSource third = store.store(randomContent(1002).openStream(), 1002L);
+
+      assertFalse(OffHeapPayloadStore.isSpilled(first));
+      assertTrue(OffHeapPayloadStore.isSpilled(second));
+      assertFalse(OffHeapPayloadStore.isSpilled(third));
+      assertTrue(second.contentEquals(randomContent(1001)));
+      assertTrue(second.slice(10, 20).contentEquals(randomContent(1001).slice(10, 20)));
+      assertEquals(store.offHeapBytes(), 2002);
+   }
+
+   public void testSpillLargerThanBudget() throws IOException {
+      OffHeapPayloadStore store = new OffHeapPayloadStore(100, true, null);
+      ByteSource stored = store.store(randomContent(1000).openStream(), null);
+      assertTrue(OffHeapPayloadStore.isSpilled(stored));
+      assertTrue(stored.contentEquals(randomContent(1000)));
+      assertEquals(store.offHeapBytes(), 0);
+   }
+
+   @Test(expectedExceptions = InsufficientResourcesException.class)
+   public void testReject() throws IOException {
+      OffHeapPayloadStore store = new OffHeapPayloadStore(1500, false, null);
+      store.store(randomContent(1000).openStream(), 1000L);
+      store.store(randomContent(1000).openStream(), 1000L);
+   }
+
+   public void testRejectAfterRelease() throws IOException {
+      OffHeapPayloadStore store = new OffHeapPayloadStore(1500, false, null);
+      ByteSource first = store.store(randomContent(1000).openStream(), 1000L);
+      store.release(first);
+      ByteSource second = store.store(randomContent(1000).openStream(), null);
+      assertTrue(second.contentEquals(randomContent(1000)));
+      // views taken before the release stay readable
+      assertTrue(first.contentEquals(randomContent(1000)));
+   }
+}
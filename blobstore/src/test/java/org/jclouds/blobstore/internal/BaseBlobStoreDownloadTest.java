@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.domain.Location;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadSlicer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Tests the parallel ranged GETs behind {@link BaseBlobStore#downloadBlob} and {@link BaseBlobStore#streamBlob}.
+ */
+@Test(groups = "unit", testName = "BaseBlobStoreDownloadTest", singleThreaded = true)
+public class BaseBlobStoreDownloadTest {
+   private static final String CONTAINER = "container";
+   private static final String NAME = "blob";
+   private static final String ETAG = "\"abcd\"";
+   private static final int PART_SIZE = 100;
+
+   private final byte[] content = new byte[10 * PART_SIZE + PART_SIZE / 2];
+   private ExecutorService executor;
+   private File directory;
+
+   @BeforeMethod
+   public void setUp() {
+      new Random(0).nextBytes(content);
+      executor = Executors.newFixedThreadPool(4);
+      directory = Files.createTempDir();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      executor.shutdownNow();
+      for (File file : directory.listFiles()) {
+         file.delete();
+      }
+      directory.delete();
+   }
+
+   public void testDownloadBlobReassemblesPartsCompletedOutOfOrder() throws Exception {
+      FakeBlobStore blobStore = new FakeBlobStore() {
+         @Override
+         InputStream openRange(long begin, long end) {
+            // later parts complete first
+            sleepUninterruptibly((content.length - begin) / 20);
+            return super.openRange(begin, end);
+         }
+      };
+      File destination = new File(directory, NAME);
+
+      blobStore.downloadBlob(CONTAINER, NAME, destination, executor);
+
+      assertEquals(Files.toByteArray(destination), content);
+      assertEquals(ImmutableSet.copyOf(blobStore.ranges), allRanges());
+      assertEquals(blobStore.ifMatches, ImmutableSet.of(ETAG));
+      assertEquals(directory.list(), new String[] { NAME });
+   }
+
+   public void testStreamBlobReturnsPartsInOrder() throws Exception {
+      FakeBlobStore blobStore = new FakeBlobStore() {
+         @Override
+         InputStream openRange(long begin, long end) {
+            sleepUninterruptibly((content.length - begin) / 20);
+            return super.openRange(begin, end);
+         }
+      };
+
+      InputStream is = blobStore.streamBlob(CONTAINER, NAME, executor);
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+      assertEquals(ImmutableSet.copyOf(blobStore.ranges), allRanges());
+      assertEquals(blobStore.ifMatches, ImmutableSet.of(ETAG));
+   }
+
+   public void testDownloadBlobResumesFailedPartAfterBackOff() throws Exception {
+      FakeBlobStore blobStore = failingOnceAt(3 * PART_SIZE, 40);
+      File destination = new File(directory, NAME);
+
+      blobStore.downloadBlob(CONTAINER, NAME, destination, executor);
+
+      assertEquals(Files.toByteArray(destination), content);
+      assertTrue(blobStore.ranges.contains("340-399"), blobStore.ranges.toString());
+      assertEquals(blobStore.retryHandler.failureCounts, ImmutableList.of(1));
+   }
+
+   public void testStreamBlobResumesFailedPartAfterBackOff() throws Exception {
+      FakeBlobStore blobStore = failingOnceAt(3 * PART_SIZE, 40);
+
+      InputStream is = blobStore.streamBlob(CONTAINER, NAME, executor);
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+      assertTrue(blobStore.ranges.contains("340-399"), blobStore.ranges.toString());
+      assertEquals(blobStore.retryHandler.failureCounts, ImmutableList.of(1));
+   }
+
+   public void testDownloadBlobFailsWhenPartKeepsFailing() throws Exception {
+      FakeBlobStore blobStore = failingAt(2 * PART_SIZE);
+      File destination = new File(directory, NAME);
+
+      try {
+         blobStore.downloadBlob(CONTAINER, NAME, destination, executor);
+         fail("expected the failing part to fail the download");
+      } catch (RuntimeException expected) {
+      }
+      assertFalse(destination.exists());
+      // the temporary file is removed too
+      assertEquals(directory.list().length, 0);
+      assertEquals(blobStore.retryHandler.failureCounts, ImmutableList.of(1, 2));
+   }
+
+   public void testStreamBlobFailsWhenPartKeepsFailing() throws Exception {
+      FakeBlobStore blobStore = failingAt(2 * PART_SIZE);
+
+      InputStream is = blobStore.streamBlob(CONTAINER, NAME, executor);
+      byte[] buffer = new byte[PART_SIZE];
+      try {
+         assertEquals(ByteStreams.read(is, buffer, 0, buffer.length), PART_SIZE);
+         assertEquals(ByteStreams.read(is, buffer, 0, buffer.length), PART_SIZE);
+         is.read();
+         fail("expected the failing part to fail the read");
+      } catch (IOException expected) {
+      } finally {
+         is.close();
+      }
+      assertEquals(blobStore.retryHandler.failureCounts, ImmutableList.of(1, 2));
+   }
+
+   public void testClosingStreamCancelsPendingParts() throws Exception {
+      final CountDownLatch started = new CountDownLatch(3);
+      final CountDownLatch interrupted = new CountDownLatch(3);
+      FakeBlobStore blobStore = new FakeBlobStore() {
+         @Override
+         InputStream openRange(long begin, long end) {
+            if (begin > 0) {
+               started.countDown();
+               try {
+                  new CountDownLatch(1).await();
+               } catch (InterruptedException ie) {
+                  interrupted.countDown();
+                  Thread.currentThread().interrupt();
+                  throw new RuntimeException(ie);
+               }
+            }
+            return super.openRange(begin, end);
+         }
+      };
+
+      InputStream is = blobStore.streamBlob(CONTAINER, NAME, executor);
+      assertEquals(is.read(), content[0] & 0xFF);
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      is.close();
+
+      assertTrue(interrupted.await(10, TimeUnit.SECONDS), "pending parts were not cancelled");
+      try {
+         is.read();
+         fail("expected a closed stream to fail");
+      } catch (IOException expected) {
+      }
+   }
+
+   private Set<String> allRanges() {
+      Set<String> ranges = Sets.newHashSet();
+      for (long begin = 0; begin < content.length; begin += PART_SIZE) {
+         ranges.add(begin + "-" + (Math.min(begin + PART_SIZE, content.length) - 1));
+      }
+      return ranges;
+   }
+
+   /** The first GET of the part at {@code partBegin} breaks off after {@code length} bytes. */
+   private FakeBlobStore failingOnceAt(final long partBegin, final int length) {
+      final AtomicBoolean failed = new AtomicBoolean();
+      return new FakeBlobStore() {
+         @Override
+         InputStream openRange(long begin, long end) {
+            if (begin == partBegin && failed.compareAndSet(false, true)) {
+               return new FailingInputStream(super.openRange(begin, begin + length - 1));
+            }
+            return super.openRange(begin, end);
+         }
+      };
+   }
+
+   /** Every GET of the part at {@code partBegin} breaks off before the first byte. */
+   private FakeBlobStore failingAt(final long partBegin) {
+      return new FakeBlobStore() {
+         @Override
+         InputStream openRange(long begin, long end) {
+            if (begin == partBegin) {
+               return new FailingInputStream(new ByteArrayInputStream(new byte[0]));
+            }
+            return super.openRange(begin, end);
+         }
+      };
+   }
+
+   private static void sleepUninterruptibly(long millis) {
+      com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly(millis, TimeUnit.MILLISECONDS);
+   }
+
+   /** Throws once the delegate is exhausted, as a connection reset mid-body would. */
+   private static final class FailingInputStream extends InputStream {
+      private final InputStream delegate;
+
+      FailingInputStream(InputStream delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public int read() throws IOException {
+         int b = delegate.read();
+         if (b == -1) {
+            throw new IOException("connection reset");
+         }
+         return b;
+      }
+   }
+
+   /** Records the back-offs instead of sleeping. */
+   private static final class RecordingRetryHandler extends BackoffLimitedRetryHandler {
+      final List<Integer> failureCounts = Lists.newCopyOnWriteArrayList();
+
+      @Override
+      public void imposeBackoffExponentialDelay(int failureCount, String commandDescription) {
+         failureCounts.add(failureCount);
+      }
+   }
+
+   /** Serves {@link #content} with the ETag {@link #ETAG}, recording the ranges and preconditions of every GET. */
+   private class FakeBlobStore extends BaseBlobStore {
+      final List<String> ranges = Lists.newCopyOnWriteArrayList();
+      final Set<String> ifMatches = Sets.newConcurrentHashSet();
+      final RecordingRetryHandler retryHandler = new RecordingRetryHandler();
+
+      FakeBlobStore() {
+         super(createMock(BlobStoreContext.class), createMock(BlobUtils.class), Suppliers.<Location> ofInstance(null),
+               Suppliers.<Set<? extends Location>> ofInstance(ImmutableSet.<Location> of()),
+               createMock(PayloadSlicer.class));
+         super.retryHandler = retryHandler;
+         retryCountLimit = 3;
+         downloadPartSize = PART_SIZE;
+      }
+
+      InputStream openRange(long begin, long end) {
+         return new ByteArrayInputStream(content, (int) begin, (int) (end - begin + 1));
+      }
+
+      @Override
+      public BlobMetadata blobMetadata(String container, String name) {
+         MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+         metadata.setName(name);
+         metadata.setETag(ETAG);
+         metadata.getContentMetadata().setContentLength((long) content.length);
+         return metadata;
+      }
+
+      @Override
+      public Blob getBlob(String container, String name, GetOptions options) {
+         String range = options.getRanges().get(0);
+         ranges.add(range);
+         ifMatches.add(String.valueOf(options.getIfMatch()));
+         int dash = range.indexOf('-');
+         InputStream is = openRange(Long.parseLong(range.substring(0, dash)), Long.parseLong(range.substring(dash + 1)));
+         return new BlobBuilderImpl().name(name).payload(is).build();
+      }
+
+      @Override
+      public PageSet<? extends StorageMetadata> list() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean containerExists(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean createContainerInLocation(Location location, String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean createContainerInLocation(Location location, String container,
+            CreateContainerOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      protected boolean deleteAndVerifyContainerGone(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ContainerAccess getContainerAccess(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void setContainerAccess(String container, ContainerAccess access) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean blobExists(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String putBlob(String container, Blob blob) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String putBlob(String container, Blob blob, PutOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void removeBlob(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public BlobAccess getBlobAccess(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void setBlobAccess(String container, String name, BlobAccess access) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blob, PutOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void abortMultipartUpload(MultipartUpload mpu) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public List<MultipartUpload> listMultipartUploads(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getMinimumMultipartPartSize() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getMaximumMultipartPartSize() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int getMaximumNumberOfParts() {
+         throw new UnsupportedOperationException();
+      }
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "AdaptiveMultipartUploadSlicingStrategyTest")
+public class AdaptiveMultipartUploadSlicingStrategyTest {
+   private static final long MEGABYTE = 1024 * 1024;
+   private static final long MIN_PART_SIZE = 5 * MEGABYTE;
+   private static final long MAX_PART_SIZE = 5L * 1024 * MEGABYTE;
+   private static final int MAX_NUMBER_OF_PARTS = 10 * 1000;
+
+   public void testUsesDefaultsBeforeMeasurements() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(100 * MEGABYTE), MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE);
+      assertEquals(algorithm.getBufferedParts(), 1);
+   }
+
+   public void testPartSizeFollowsThroughput() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      // 20 MB/s per part
+      strategy.partUploaded("container", 20 * MEGABYTE, TimeUnit.SECONDS.toNanos(1));
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(10 * 1024 * MEGABYTE),
+            20 * MEGABYTE * AdaptiveMultipartUploadSlicingStrategy.DEFAULT_TARGET_PART_SECONDS);
+
+      // other containers are unaffected
+      algorithm = strategy.newAlgorithm("other", MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(1024 * MEGABYTE),
+            MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE);
+   }
+
+   public void testPartSizeRespectsProviderMinimum() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      // 10 KB/s per part
+      strategy.partUploaded("container", 10 * 1024, TimeUnit.SECONDS.toNanos(1));
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(100 * MEGABYTE), MIN_PART_SIZE);
+   }
+
+   public void testConcurrencyBoundedByBandwidthAndBuffers() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      strategy.partUploaded("container", 10 * MEGABYTE, TimeUnit.SECONDS.toNanos(1));
+
+      // 100 MB parts with a 256 MB budget
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(1024 * MEGABYTE), 100 * MEGABYTE);
+      assertEquals(algorithm.getBufferedParts(), 2);
+
+      strategy.targetPartSeconds = 1;
+      strategy.targetBandwidth = 30 * MEGABYTE;
+      assertEquals(strategy.bufferedParts("container"), 3);
+      algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(100 * MEGABYTE), 10 * MEGABYTE);
+      assertEquals(algorithm.getBufferedParts(), 3);
+   }
+
+   public void testNoBuffersWhenBudgetCannotHoldAPart() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      strategy.bufferBytes = MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE - 1;
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      algorithm.calculateChunkSize(100 * MEGABYTE);
+      assertEquals(algorithm.getBufferedParts(), 0);
+
+      // 100 MB parts with a 64 MB budget
+      strategy.bufferBytes = 64 * MEGABYTE;
+      strategy.partUploaded("container", 10 * MEGABYTE, TimeUnit.SECONDS.toNanos(1));
+      algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS);
+      algorithm.calculateChunkSize(1024 * MEGABYTE);
+      assertEquals(algorithm.getBufferedParts(), 0);
+   }
+
+   public void testBuffersSizedFromChunksOfLargeObjects() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      // 100 GB in chunks of about 1 GB does not fit a single buffer into 256 MB
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      long chunkSize = algorithm.calculateChunkSize(100L * 1024 * MEGABYTE);
+      assertEquals(chunkSize, 32 * 32 * MEGABYTE);
+      assertEquals(algorithm.getBufferedParts(), 0);
+
+      // 8 GB in 64 MB chunks fits four buffers, fewer than the eight a 32 MB unit part would allow
+      strategy.bufferBytes = 256 * MEGABYTE;
+      strategy.partUploaded("container", 32 * MEGABYTE / AdaptiveMultipartUploadSlicingStrategy
+            .DEFAULT_TARGET_PART_SECONDS, TimeUnit.SECONDS.toNanos(1));
+      algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS);
+      chunkSize = algorithm.calculateChunkSize(8L * 1024 * MEGABYTE);
+      assertEquals(chunkSize, 64 * MEGABYTE);
+      assertEquals(algorithm.getBufferedParts(), 4);
+      assertEquals(algorithm.getBufferedParts() * chunkSize <= strategy.bufferBytes, true);
+   }
+
+   public void testContainerPartSizeOverridesMeasurements() {
+      AdaptiveMultipartUploadSlicingStrategy strategy = new AdaptiveMultipartUploadSlicingStrategy();
+      strategy.setContainerPartSizes("container=" + 64 * MEGABYTE);
+      strategy.partUploaded("container", 20 * MEGABYTE, TimeUnit.SECONDS.toNanos(1));
+      MultipartUploadSlicingAlgorithm algorithm = strategy.newAlgorithm("container", MIN_PART_SIZE, MAX_PART_SIZE,
+            MAX_NUMBER_OF_PARTS);
+      assertEquals(algorithm.calculateChunkSize(1024 * MEGABYTE), 64 * MEGABYTE);
+   }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "BufferedMultipartUploaderTest", singleThreaded = true)
+public class BufferedMultipartUploaderTest {
+   private static final String CONTAINER = "container";
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ListeningExecutorService executor;
+
+   @BeforeMethod
+   void setupBlobStore() {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+   }
+
+   @AfterMethod
+   void close() {
+      executor.shutdownNow();
+      Closeables2.closeQuietly(context);
+   }
+
+   public void testUploadsStreamThroughBoundedBuffers() throws Exception {
+      byte[] data = new byte[1000];
+      for (int i = 0; i < data.length; i++) {
+         data[i] = (byte) i;
+      }
+      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(1, 64, Integer.MAX_VALUE);
+      long partSize = algorithm.calculateChunkSize(data.length);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER,
+            blobStore.blobBuilder("blob").build().getMetadata(), new PutOptions());
+
+      List<MultipartPart> parts = new BufferedMultipartUploader(blobStore, new FixedMultipartUploadSlicingStrategy(),
+            executor, 2, (int) partSize, true).upload(mpu, new ByteArrayInputStream(data), algorithm, 1);
+
+      assertEquals(parts.size(), 16);
+      for (int i = 0; i < parts.size(); i++) {
+         assertEquals(parts.get(i).partNumber(), i + 1);
+      }
+      blobStore.completeMultipartUpload(mpu, parts);
+      assertEquals(ByteStreams2.toByteArrayAndClose(blobStore.getBlob(CONTAINER, "blob").getPayload().openStream()),
+            data);
+   }
+
+   @Test(expectedExceptions = EOFException.class)
+   public void testShortStreamFails() throws Exception {
+      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(1, 64, Integer.MAX_VALUE);
+      long partSize = algorithm.calculateChunkSize(1000);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER,
+            blobStore.blobBuilder("blob").build().getMetadata(), new PutOptions());
+
+      new BufferedMultipartUploader(blobStore, new FixedMultipartUploadSlicingStrategy(), executor, 2, (int) partSize,
+            false).upload(mpu, new ByteArrayInputStream(new byte[100]), algorithm, 1);
+   }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.options.GetOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", singleThreaded = true, testName = "CachingBlobStoreTest")
+public class CachingBlobStoreTest {
+
+   private static final String CONTAINER = "container";
+
+   private BlobStoreContext context;
+   private CountingBlobStore delegate;
+   private File cacheDirectory;
+
+   @BeforeMethod
+   public void setUp() {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      delegate = new CountingBlobStore(context.getBlobStore());
+      delegate.createContainerInLocation(null, CONTAINER);
+      cacheDirectory = Files.createTempDir();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      context.close();
+      File[] files = cacheDirectory.listFiles();
+      if (files != null) {
+         for (File file : files) {
+            file.delete();
+         }
+      }
+      cacheDirectory.delete();
+   }
+
+   public void testRepeatedReadsAreServedFromCache() throws IOException {
+      put(delegate, "blob", "0123456789");
+      BlobStore cached = cache(1, TimeUnit.MINUTES);
+
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "0123456789");
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "0123456789");
+      assertEquals(delegate.gets.get(), 1);
+   }
+
+   public void testExpiredEntriesAreRevalidatedWithETag() throws IOException {
+      put(delegate, "blob", "0123456789");
+      BlobStore cached = cache(0, TimeUnit.SECONDS);
+
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "0123456789");
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "0123456789");
+      assertEquals(delegate.gets.get(), 2);
+      assertNull(delegate.options.get(0).getIfNoneMatch());
+      assertNotNull(delegate.options.get(1).getIfNoneMatch());
+
+      put(delegate, "blob", "changed");
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "changed");
+   }
+
+   public void testRangeReadsAreServedFromCachedFile() throws IOException {
+      put(delegate, "blob", "0123456789");
+      BlobStore cached = cache(1, TimeUnit.MINUTES);
+
+      Blob blob = cached.getBlob(CONTAINER, "blob", GetOptions.Builder.range(2, 5));
+      assertEquals(blob.getPayload().getContentMetadata().getContentLength(), Long.valueOf(4));
+      assertEquals(blob.getAllHeaders().get(HttpHeaders.CONTENT_RANGE).iterator().next(), "bytes 2-5/10");
+      assertEquals(read(blob), "2345");
+      assertEquals(read(cached.getBlob(CONTAINER, "blob", new GetOptions().tail(3))), "789");
+      assertEquals(read(cached.getBlob(CONTAINER, "blob", new GetOptions().startAt(8))), "89");
+      assertEquals(delegate.gets.get(), 1);
+   }
+
+   public void testWritesThroughCacheInvalidate() throws IOException {
+      put(delegate, "blob", "0123456789");
+      BlobStore cached = cache(1, TimeUnit.MINUTES);
+
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "0123456789");
+      put(cached, "blob", "changed");
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), "changed");
+      cached.removeBlob(CONTAINER, "blob");
+      assertNull(cached.getBlob(CONTAINER, "blob"));
+      assertFalse(cached.blobExists(CONTAINER, "blob"));
+   }
+
+   public void testMetadataIsCached() {
+      put(delegate, "blob", "0123456789");
+      BlobStore cached = cache(1, TimeUnit.MINUTES);
+
+      BlobMetadata metadata = cached.blobMetadata(CONTAINER, "blob");
+      assertEquals(metadata.getSize(), Long.valueOf(10));
+      assertTrue(cached.blobExists(CONTAINER, "blob"));
+      assertEquals(cached.blobMetadata(CONTAINER, "blob").getETag(), metadata.getETag());
+      assertEquals(delegate.metadataCalls.get(), 1);
+   }
+
+   public void testConcurrentMissesShareOneDownload() throws Exception {
+      put(delegate, "blob", "0123456789");
+      final BlobStore cached = cache(1, TimeUnit.MINUTES);
+      delegate.gate = new CountDownLatch(1);
+
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+      try {
+         List<ListenableFuture<String>> reads = Lists.newArrayList();
+         for (int i = 0; i < 4; i++) {
+            reads.add(executor.submit(new Callable<String>() {
+               @Override
+               public String call() throws IOException {
+                  return read(cached.getBlob(CONTAINER, "blob"));
+               }
+            }));
+         }
+         Uninterruptibles.sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
+         delegate.gate.countDown();
+         for (ListenableFuture<String> read : reads) {
+            assertEquals(read.get(), "0123456789");
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals(delegate.gets.get(), 1);
+   }
+
+   public void testBlobsLargerThanCacheBypassIt() throws IOException {
+      put(delegate, "blob", "0123456789");
+      BlobStore cached = CachingBlobStore.builder(delegate).cacheDirectory(cacheDirectory).maximumSize(4)
+            .expireAfter(1, TimeUnit.MINUTES).build();
+
+      assertEquals(read(cached.getBlob(CONTAINER, "blob", GetOptions.Builder.range(2, 5))), "2345");
+      assertEquals(cacheDirectory.listFiles().length, 0);
+   }
+
+   public void testBlobNearTheLimitIsDownloadedOnce() throws IOException {
+      String content = Strings.repeat("x", 60 * 1024);
+      put(delegate, "blob", content);
+      BlobStore cached = CachingBlobStore.builder(delegate).cacheDirectory(cacheDirectory).maximumSize(80 * 1024)
+            .expireAfter(1, TimeUnit.MINUTES).build();
+
+      assertEquals(read(cached.getBlob(CONTAINER, "blob")), content);
+      assertEquals(read(cached.getBlob(CONTAINER, "blob", GetOptions.Builder.range(0, 9))), "xxxxxxxxxx");
+      assertEquals(delegate.gets.get(), 1);
+      assertEquals(cacheDirectory.listFiles().length, 1);
+   }
+
+   public void testLeastRecentlyUsedBlobsAreEvicted() throws IOException {
+      for (int i = 0; i < 6; i++) {
+         put(delegate, "blob" + i, i + Strings.repeat("x", 20 * 1024 - 2));
+      }
+      // each blob weighs 20 KiB, so four of them fit
+      BlobStore cached = CachingBlobStore.builder(delegate).cacheDirectory(cacheDirectory).maximumSize(80 * 1024)
+            .expireAfter(1, TimeUnit.MINUTES).build();
+
+      for (int i = 0; i < 6; i++) {
+         assertEquals(read(cached.getBlob(CONTAINER, "blob" + i)).charAt(0), (char) ('0' + i));
+      }
+      assertEquals(delegate.gets.get(), 6);
+      assertEquals(cacheDirectory.listFiles().length, 4);
+
+      for (int i = 2; i < 6; i++) {
+         read(cached.getBlob(CONTAINER, "blob" + i));
+      }
+      assertEquals(delegate.gets.get(), 6);
+      assertEquals(read(cached.getBlob(CONTAINER, "blob0")).charAt(0), '0');
+      assertEquals(delegate.gets.get(), 7);
+      assertEquals(cacheDirectory.listFiles().length, 4);
+   }
+
+   public void testMissingBlob() {
+      BlobStore cached = cache(1, TimeUnit.MINUTES);
+      assertNull(cached.getBlob(CONTAINER, "missing"));
+      assertNull(cached.blobMetadata(CONTAINER, "missing"));
+   }
+
+   private BlobStore cache(long duration, TimeUnit unit) {
+      return CachingBlobStore.builder(delegate).cacheDirectory(cacheDirectory).expireAfter(duration, unit).build();
+   }
+
+   private static void put(BlobStore blobStore, String name, String content) {
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder(name).payload(content).build());
+   }
+
+   private static String read(Blob blob) throws IOException {
+      return new String(ByteStreams.toByteArray(blob.getPayload().openStream()), Charsets.UTF_8);
+   }
+
+   private static final class CountingBlobStore extends ForwardingBlobStore {
+      private final AtomicInteger gets = new AtomicInteger();
+      private final AtomicInteger metadataCalls = new AtomicInteger();
+      private final List<GetOptions> options = Lists.newCopyOnWriteArrayList();
+      private volatile CountDownLatch gate;
+
+      CountingBlobStore(BlobStore blobStore) {
+         super(blobStore);
+      }
+
+      @Override
+      public Blob getBlob(String containerName, String blobName, GetOptions getOptions) {
+         gets.incrementAndGet();
+         options.add(getOptions);
+         if (gate != null) {
+            Uninterruptibles.awaitUninterruptibly(gate);
+         }
+         return super.getBlob(containerName, blobName, getOptions);
+      }
+
+      @Override
+      public BlobMetadata blobMetadata(String container, String name) {
+         metadataCalls.incrementAndGet();
+         return super.blobMetadata(container, name);
+      }
+   }
+}
@@ -118,6 +118,12 @@ public final class ComputeServiceProperties {
     */
    public static final String SOCKET_FINDER_ALLOWED_INTERFACES = "jclouds.compute.socket-finder-allowed-interfaces";
 
+   /**
+    * path of a file where the image catalog is saved each time it is loaded. When set, a new context starts with the
+    * saved catalog and loads the live one in the background. Unset by default.
+    */
+   public static final String IMAGE_CACHE_SNAPSHOT_FILE = "jclouds.compute.image-cache-snapshot-file";
+
    private ComputeServiceProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
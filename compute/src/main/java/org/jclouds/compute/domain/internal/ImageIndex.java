@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.domain.internal;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.domain.Location;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+
+/**
+ * Lookups over one image catalog, built once per catalog instance and shared by the template builders that search it.
+ * <p>
+ * Images are numbered in catalog order and matched as bit sets. Location and operating system predicates are
+ * evaluated once per distinct location or operating system rather than once per image, and the images each
+ * {@link org.jclouds.compute.domain.Hardware#supportsImage()} predicate accepts are computed the first time they are
+ * needed and kept for the lifetime of the catalog.
+ */
+final class ImageIndex {
+
+   // weak keys compare by identity, so an index lives exactly as long as its catalog instance
+   private static final LoadingCache<Set<? extends Image>, ImageIndex> INDEXES = CacheBuilder.newBuilder().weakKeys()
+         .build(new CacheLoader<Set<? extends Image>, ImageIndex>() {
+            @Override
+            public ImageIndex load(Set<? extends Image> images) {
+               return new ImageIndex(images);
+            }
+         });
+
+   static ImageIndex of(Set<? extends Image> images) {
+      return INDEXES.getUnchecked(images);
+   }
+
+   private final List<Image> images;
+   private final Map<String, Image> byId;
+   private final Map<Location, int[]> byLocation;
+   private final Map<OperatingSystem, int[]> byOperatingSystem;
+   private final LoadingCache<Predicate<Image>, BitSet> supported = CacheBuilder.newBuilder()
+         .build(new CacheLoader<Predicate<Image>, BitSet>() {
+            @Override
+            public BitSet load(Predicate<Image> predicate) {
+               BitSet matches = new BitSet(images.size());
+               for (int i = 0; i < images.size(); i++) {
+                  if (predicate.apply(images.get(i)))
+                     matches.set(i);
+               }
+               return matches;
+            }
+         });
+
+   private ImageIndex(Set<? extends Image> catalog) {
+      this.images = ImmutableList.copyOf(catalog);
+      this.byId = Maps.newHashMapWithExpectedSize(images.size());
+      Map<Location, List<Integer>> locations = Maps.newHashMap();
+      Map<OperatingSystem, List<Integer>> operatingSystems = Maps.newHashMap();
+      for (int i = 0; i < images.size(); i++) {
+         Image image = images.get(i);
+         if (!byId.containsKey(image.getId()))
+            byId.put(image.getId(), image);
+         positions(locations, image.getLocation()).add(i);
+         positions(operatingSystems, image.getOperatingSystem()).add(i);
+      }
+      this.byLocation = toArrays(locations);
+      this.byOperatingSystem = toArrays(operatingSystems);
+   }
+
+   int size() {
+      return images.size();
+   }
+
+   /**
+    * Returns the first image of the catalog with the given id, or null.
+    */
+   Image get(String id) {
+      return byId.get(id);
+   }
+
+   BitSet all() {
+      BitSet all = new BitSet(images.size());
+      all.set(0, images.size());
+      return all;
+   }
+
+   /**
+    * Returns the images whose location the predicate accepts. As the predicate may only look at the location, it is
+    * applied to one image per distinct location.
+    */
+   BitSet matchingLocation(Predicate<? super ComputeMetadata> predicate) {
+      BitSet matches = new BitSet(images.size());
+      for (int[] positions : byLocation.values()) {
+         if (predicate.apply(images.get(positions[0])))
+            set(matches, positions);
+      }
+      return matches;
+   }
+
+   BitSet matchingOperatingSystem(Predicate<OperatingSystem> predicate) {
+      BitSet matches = new BitSet(images.size());
+      for (Map.Entry<OperatingSystem, int[]> entry : byOperatingSystem.entrySet()) {
+         if (predicate.apply(entry.getKey()))
+            set(matches, entry.getValue());
+      }
+      return matches;
+   }
+
+   /**
+    * Returns the images the predicate accepts. The result must not be modified.
+    */
+   BitSet supportedBy(Predicate<Image> predicate) {
+      if (predicate.equals(Predicates.alwaysTrue()))
+         return all();
+      return supported.getUnchecked(predicate);
+   }
+
+   /**
+    * Removes the images the predicate does not accept from the given set.
+    */
+   void retain(BitSet candidates, Predicate<? super Image> predicate) {
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+         if (!predicate.apply(images.get(i)))
+            candidates.clear(i);
+      }
+   }
+
+   Iterable<Image> images(final BitSet positions) {
+      return new Iterable<Image>() {
+         @Override
+         public Iterator<Image> iterator() {
+            return new AbstractIterator<Image>() {
+               private int next = positions.nextSetBit(0);
+
+               @Override
+               protected Image computeNext() {
+                  if (next < 0)
+                     return endOfData();
+                  Image image = images.get(next);
+                  next = positions.nextSetBit(next + 1);
+                  return image;
+               }
+            };
+         }
+      };
+   }
+
+   private static <K> List<Integer> positions(Map<K, List<Integer>> groups, K key) {
+      List<Integer> positions = groups.get(key);
+      if (positions == null) {
+         positions = Lists.newArrayList();
+         groups.put(key, positions);
+      }
+      return positions;
+   }
+
+   private static <K> Map<K, int[]> toArrays(Map<K, List<Integer>> groups) {
+      Map<K, int[]> arrays = Maps.newHashMapWithExpectedSize(groups.size());
+      for (Map.Entry<K, List<Integer>> group : groups.entrySet()) {
+         arrays.put(group.getKey(), Ints.toArray(group.getValue()));
+      }
+      return arrays;
+   }
+
+   private static void set(BitSet bits, int[] positions) {
+      for (int position : positions) {
+         bits.set(position);
+      }
+   }
+}
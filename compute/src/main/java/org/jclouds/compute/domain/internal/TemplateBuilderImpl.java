@@ -24,12 +24,17 @@ import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Doubles;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.jclouds.collect.Memoized;
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.Hardware;
@@ -40,7 +45,6 @@ import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.domain.TemplateBuilder;
 import org.jclouds.compute.domain.TemplateBuilderSpec;
 import org.jclouds.compute.options.TemplateOptions;
-import org.jclouds.compute.predicates.ImagePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
 import org.jclouds.domain.Location;
@@ -50,6 +54,7 @@ import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -62,7 +67,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.find;
-import static com.google.common.collect.Iterables.size;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
 import static com.google.common.collect.Lists.newArrayList;
@@ -142,6 +146,30 @@ public class TemplateBuilderImpl implements TemplateBuilder {
       this.defaultTemplateProvider = checkNotNull(defaultTemplateProvider, "defaultTemplateProvider");
    }
 
+   /**
+    * Compiled regular expressions of the predicates, so that they are not compiled again for each image.
+    */
+   private static final LoadingCache<String, Pattern> PATTERNS = CacheBuilder.newBuilder().maximumSize(1000)
+         .build(new CacheLoader<String, Pattern>() {
+            @Override
+            public Pattern load(String regex) {
+               return Pattern.compile(regex);
+            }
+         });
+
+   /**
+    * Equivalent to {@link String#matches(String)}.
+    */
+   static boolean matches(String input, String regex) {
+      Pattern pattern;
+      try {
+         pattern = PATTERNS.getUnchecked(regex);
+      } catch (UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+      return pattern.matcher(input).matches();
+   }
+
    static Predicate<Hardware> supportsImagesPredicate(final Iterable<? extends Image> images) {
       return new Predicate<Hardware>() {
          @Override
@@ -198,7 +226,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             if (input.getName() == null)
                returnVal = false;
             else
-               returnVal = input.getName().contains(osName) || input.getName().matches(osName);
+               returnVal = input.getName().contains(osName) || matches(input.getName(), osName);
          }
          return returnVal;
       }
@@ -218,7 +246,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
                returnVal = false;
             else
                returnVal = input.getDescription().contains(osDescription)
-                     || input.getDescription().matches(osDescription);
+                     || matches(input.getDescription(), osDescription);
          }
          return returnVal;
       }
@@ -237,7 +265,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             if (input.getVersion() == null)
                returnVal = false;
             else
-               returnVal = input.getVersion().contains(osVersion) || input.getVersion().matches(osVersion);
+               returnVal = input.getVersion().contains(osVersion) || matches(input.getVersion(), osVersion);
          }
          return returnVal;
       }
@@ -275,7 +303,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             if (input.getArch() == null)
                returnVal = false;
             else
-               returnVal = input.getArch().contains(osArch) || input.getArch().matches(osArch);
+               returnVal = input.getArch().contains(osArch) || matches(input.getArch(), osArch);
          }
          return returnVal;
       }
@@ -294,7 +322,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             if (input.getVersion() == null)
                returnVal = false;
             else
-               returnVal = input.getVersion().contains(imageVersion) || input.getVersion().matches(imageVersion);
+               returnVal = input.getVersion().contains(imageVersion) || matches(input.getVersion(), imageVersion);
          }
          return returnVal;
       }
@@ -314,7 +342,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
                returnVal = false;
             else
                returnVal = input.getName().equals(imageName) || input.getName().contains(imageName)
-                        || input.getName().matches(imageName);
+                        || matches(input.getName(), imageName);
          }
          return returnVal;
       }
@@ -335,7 +363,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             else
                returnVal = input.getDescription().equals(imageDescription)
                      || input.getDescription().contains(imageDescription)
-                     || input.getDescription().matches(imageDescription);
+                     || matches(input.getDescription(), imageDescription);
          }
          return returnVal;
       }
@@ -374,7 +402,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
                returnVal = false;
             else
                returnVal = input.getHypervisor().contains(hypervisor)
-                     || input.getHypervisor().matches(hypervisor);
+                     || matches(input.getHypervisor(), hypervisor);
          }
          return returnVal;
       }
@@ -702,17 +730,25 @@ public class TemplateBuilderImpl implements TemplateBuilder {
    }
 
    private Iterable<? extends Image> findSupportedImages(Set<? extends Image> images) {
-      Predicate<Image> imagePredicate = buildImagePredicate();
-      Iterable<? extends Image> supportedImages = filter(images, imagePredicate);
-      if (size(supportedImages) == 0) {
+      ImageIndex index = ImageIndex.of(images);
+      BitSet supported = index.all();
+      if (location != null)
+         supported.and(index.matchingLocation(locationPredicate));
+      List<Predicate<OperatingSystem>> osPredicates = buildOsPredicates();
+      if (!osPredicates.isEmpty())
+         supported.and(index.matchingOperatingSystem(Predicates.and(osPredicates)));
+      List<Predicate<Image>> imagePredicates = buildImageAttributePredicates();
+      if (!imagePredicates.isEmpty())
+         index.retain(supported, Predicates.and(imagePredicates));
+      if (supported.isEmpty()) {
          throw throwNoSuchElementExceptionAfterLoggingImageIds(
-               format("no image matched predicate: %s", imagePredicate), images);
+               format("no image matched predicate: %s", buildImagePredicate()), images);
       }
-      return supportedImages;
+      return new IndexedImages(index, supported);
    }
 
-   private Image loadImageWithId(Iterable<? extends Image> images) {
-      Optional<? extends Image> image = tryFind(images, ImagePredicates.idEquals(imageId));
+   private Image loadImageWithId(Set<? extends Image> images) {
+      Optional<? extends Image> image = Optional.fromNullable(ImageIndex.of(images).get(imageId));
       if (!image.isPresent()) {
          image = this.images.get(imageId); // Load the image from the cache, and refresh if missing
          if (!image.isPresent()) {
@@ -750,25 +786,27 @@ public class TemplateBuilderImpl implements TemplateBuilder {
    protected Hardware resolveHardware(Set<? extends Hardware> hardwarel, final Iterable<? extends Image> images) {
       Ordering<Hardware> hardwareOrdering = hardwareSorter();
 
-      Iterable<Predicate<Image>> supportsImagePredicates = Iterables.transform(hardwarel,
-               new Function<Hardware, Predicate<Image>>() {
+      Iterable<? extends Hardware> hardwareCompatibleWithOurImages = images instanceof IndexedImages
+            ? IndexedImages.class.cast(images).supportedBy(hardwarel)
+            : filter(hardwarel, supportsImagesPredicate(images));
 
-                  @Override
-                  public Predicate<Image> apply(Hardware input) {
-                     return input.supportsImage();
-                  }
+      if (Iterables.isEmpty(hardwareCompatibleWithOurImages)) {
+         Iterable<Predicate<Image>> supportsImagePredicates = Iterables.transform(hardwarel,
+                  new Function<Hardware, Predicate<Image>>() {
 
-               });
+                     @Override
+                     public Predicate<Image> apply(Hardware input) {
+                        return input.supportsImage();
+                     }
 
-      Predicate<Image> supportsImagePredicate = Iterables.size(supportsImagePredicates) == 1 ? Iterables
-               .getOnlyElement(supportsImagePredicates) : Predicates.<Image>or(supportsImagePredicates);
+                  });
 
-      if (!Iterables.any(images, supportsImagePredicate)) {
+         Predicate<Image> supportsImagePredicate = Iterables.size(supportsImagePredicates) == 1 ? Iterables
+                  .getOnlyElement(supportsImagePredicates) : Predicates.<Image>or(supportsImagePredicates);
          String message = format("no hardware profiles support images matching params: %s", supportsImagePredicate);
          throw throwNoSuchElementExceptionAfterLoggingHardwareIds(message, hardwarel);
       }
 
-      Iterable<? extends Hardware> hardwareCompatibleWithOurImages = filter(hardwarel, supportsImagesPredicate(images));
       Predicate<Hardware> hardwarePredicate = buildHardwarePredicate();
       Hardware hardware;
       try {
@@ -818,7 +856,9 @@ public class TemplateBuilderImpl implements TemplateBuilder {
       };
 
       try {
-         Iterable<? extends Image> matchingImages = filter(supportedImages, imagePredicate);
+         Iterable<? extends Image> matchingImages = supportedImages instanceof IndexedImages
+               ? IndexedImages.class.cast(supportedImages).supportedBy(hardware)
+               : filter(supportedImages, imagePredicate);
          if (logger.isTraceEnabled())
             logger.trace("<<   matched images(%s)", transform(matchingImages, imageToId));
          return imageChooser().apply(matchingImages);
@@ -869,19 +909,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             }
          });
 
-      final List<Predicate<OperatingSystem>> osPredicates = newArrayList();
-      if (osFamily != null)
-         osPredicates.add(osFamilyPredicate);
-      if (osName != null)
-         osPredicates.add(osNamePredicate);
-      if (osDescription != null)
-         osPredicates.add(osDescriptionPredicate);
-      if (osVersion != null)
-         osPredicates.add(osVersionPredicate);
-      if (os64Bit != null)
-         osPredicates.add(os64BitPredicate);
-      if (osArch != null)
-         osPredicates.add(osArchPredicate);
+      final List<Predicate<OperatingSystem>> osPredicates = buildOsPredicates();
       if (!osPredicates.isEmpty())
          predicates.add(new Predicate<Image>() {
 
@@ -896,6 +924,34 @@ public class TemplateBuilderImpl implements TemplateBuilder {
             }
 
          });
+      predicates.addAll(buildImageAttributePredicates());
+
+      // looks verbose, but explicit <Image> type needed for this to compile
+      // properly
+      Predicate<Image> imagePredicate = predicates.size() == 1 ? Iterables.<Predicate<Image>> get(predicates, 0)
+            : Predicates.<Image> and(predicates);
+      return imagePredicate;
+   }
+
+   private List<Predicate<OperatingSystem>> buildOsPredicates() {
+      List<Predicate<OperatingSystem>> osPredicates = newArrayList();
+      if (osFamily != null)
+         osPredicates.add(osFamilyPredicate);
+      if (osName != null)
+         osPredicates.add(osNamePredicate);
+      if (osDescription != null)
+         osPredicates.add(osDescriptionPredicate);
+      if (osVersion != null)
+         osPredicates.add(osVersionPredicate);
+      if (os64Bit != null)
+         osPredicates.add(os64BitPredicate);
+      if (osArch != null)
+         osPredicates.add(osArchPredicate);
+      return osPredicates;
+   }
+
+   private List<Predicate<Image>> buildImageAttributePredicates() {
+      List<Predicate<Image>> predicates = newArrayList();
       if (imageVersion != null)
          predicates.add(imageVersionPredicate);
       if (imageName != null)
@@ -904,12 +960,51 @@ public class TemplateBuilderImpl implements TemplateBuilder {
          predicates.add(imageDescriptionPredicate);
       if (imagePredicate != null)
          predicates.add(imagePredicate);
+      return predicates;
+   }
 
-      // looks verbose, but explicit <Image> type needed for this to compile
-      // properly
-      Predicate<Image> imagePredicate = predicates.size() == 1 ? Iterables.<Predicate<Image>> get(predicates, 0)
-            : Predicates.<Image> and(predicates);
-      return imagePredicate;
+   /**
+    * The images of an {@link ImageIndex} that matched the search so far.
+    */
+   private static final class IndexedImages implements Iterable<Image> {
+      private final ImageIndex index;
+      private final BitSet positions;
+
+      private IndexedImages(ImageIndex index, BitSet positions) {
+         this.index = index;
+         this.positions = positions;
+      }
+
+      /**
+       * Returns the hardware, in the given order, that supports at least one of the images.
+       */
+      List<Hardware> supportedBy(Iterable<? extends Hardware> hardwares) {
+         List<Hardware> supporting = newArrayList();
+         for (Hardware hardware : hardwares) {
+            if (index.supportedBy(hardware.supportsImage()).intersects(positions))
+               supporting.add(hardware);
+         }
+         return supporting;
+      }
+
+      /**
+       * Returns the images the hardware supports.
+       */
+      IndexedImages supportedBy(Hardware hardware) {
+         BitSet supported = (BitSet) positions.clone();
+         supported.and(index.supportedBy(hardware.supportsImage()));
+         return new IndexedImages(index, supported);
+      }
+
+      @Override
+      public Iterator<Image> iterator() {
+         return index.images(positions).iterator();
+      }
+
+      @Override
+      public String toString() {
+         return Iterables.toString(this);
+      }
    }
 
    /**
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.emptyToNull;
+import static com.google.common.base.Strings.nullToEmpty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.config.ComputeServiceProperties;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.domain.Credentials;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.json.Json;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+import org.jclouds.providers.ProviderMetadata;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.inject.Inject;
+
+/**
+ * Keeps a copy of the image catalog in the file named by
+ * {@link ComputeServiceProperties#IMAGE_CACHE_SNAPSHOT_FILE}, so that a new context can resolve templates against the
+ * last known catalog while the live one is loaded in the background.
+ * <p>
+ * Only the login user of the default credentials is written, never a password or key: images read back from the
+ * snapshot have no secrets until the live catalog replaces them. Location metadata is not kept either. A snapshot is
+ * only read back by a context with the same provider, endpoint and identity, so contexts sharing the file do not see
+ * each other's images.
+ */
+@Beta
+@Singleton
+public class ImageCacheSnapshot {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(ComputeServiceProperties.IMAGE_CACHE_SNAPSHOT_FILE)
+   private String file;
+
+   @Inject(optional = true)
+   private ProviderMetadata providerMetadata;
+
+   @Inject(optional = true)
+   @Provider
+   private Supplier<Credentials> credentials;
+
+   private final Json json;
+
+   @Inject
+   ImageCacheSnapshot(Json json) {
+      this.json = checkNotNull(json, "json");
+   }
+
+   /**
+    * Returns whether a snapshot file has been configured.
+    */
+   public boolean isEnabled() {
+      return emptyToNull(file) != null;
+   }
+
+   /**
+    * Reads the images of the snapshot, or returns an empty set if there is none or it can't be read.
+    */
+   public Set<? extends Image> read() {
+      if (!isEnabled() || !new File(file).isFile()) {
+         return ImmutableSet.of();
+      }
+      try {
+         Catalog catalog = json.fromJson(Files.toString(new File(file), Charsets.UTF_8), Catalog.class);
+         if (catalog == null || catalog.images == null) {
+            return ImmutableSet.of();
+         }
+         if (!scope().equals(catalog.scope)) {
+            logger.debug("ignoring the image cache snapshot %s, which was written by another context", file);
+            return ImmutableSet.of();
+         }
+         Map<String, Location> locations = Maps.newHashMap();
+         ImmutableSet.Builder<Image> images = ImmutableSet.builder();
+         for (ImageRecord record : catalog.images) {
+            images.add(record.toImage(locations));
+         }
+         return images.build();
+      } catch (Exception e) {
+         logger.warn(e, "could not read the image cache snapshot %s", file);
+         return ImmutableSet.of();
+      }
+   }
+
+   /**
+    * Replaces the snapshot with the given images. Failures are logged, as the snapshot is only an optimization.
+    */
+   public void write(Set<? extends Image> images) {
+      if (!isEnabled()) {
+         return;
+      }
+      Catalog catalog = new Catalog();
+      catalog.scope = scope();
+      catalog.images = Lists.newArrayListWithCapacity(images.size());
+      for (Image image : images) {
+         catalog.images.add(ImageRecord.fromImage(image));
+      }
+      File target = new File(file);
+      File temp = new File(target.getPath() + ".tmp");
+      try {
+         Files.createParentDirs(target);
+         Files.write(json.toJson(catalog), temp, Charsets.UTF_8);
+         Files.move(temp, target);
+      } catch (IOException e) {
+         logger.warn(e, "could not write the image cache snapshot %s", file);
+         temp.delete();
+      }
+   }
+
+   /**
+    * Identifies the context which wrote a snapshot, hashing the identity so that it isn't stored in the clear.
+    */
+   private String scope() {
+      String provider = providerMetadata != null ? providerMetadata.getId() + "\n" + providerMetadata.getEndpoint()
+            : "";
+      String identity = credentials != null && credentials.get() != null ? credentials.get().identity : null;
+      return Hashing.sha256().hashString(provider + "\n" + nullToEmpty(identity), Charsets.UTF_8).toString();
+   }
+
+   static class Catalog {
+      /** See {@link ImageCacheSnapshot#scope()}. */
+      String scope;
+      List<ImageRecord> images;
+   }
+
+   static class ImageRecord {
+      String id;
+      String providerId;
+      String name;
+      String description;
+      String version;
+      URI uri;
+      String status;
+      String backendStatus;
+      String osFamily;
+      String osName;
+      String osArch;
+      String osVersion;
+      String osDescription;
+      boolean os64Bit;
+      /** The location of the image, followed by its ancestors. */
+      List<LocationRecord> location;
+      Map<String, String> userMetadata;
+      Set<String> tags;
+      /** The login user of the default credentials, without their password or private key. */
+      String loginUser;
+      boolean authenticateSudo;
+
+      static ImageRecord fromImage(Image image) {
+         ImageRecord record = new ImageRecord();
+         record.id = image.getId();
+         record.providerId = image.getProviderId();
+         record.name = image.getName();
+         record.description = image.getDescription();
+         record.version = image.getVersion();
+         record.uri = image.getUri();
+         record.status = image.getStatus().name();
+         record.backendStatus = image.getBackendStatus();
+         OperatingSystem os = image.getOperatingSystem();
+         if (os != null) {
+            record.osFamily = os.getFamily() != null ? os.getFamily().name() : null;
+            record.osName = os.getName();
+            record.osArch = os.getArch();
+            record.osVersion = os.getVersion();
+            record.osDescription = os.getDescription();
+            record.os64Bit = os.is64Bit();
+         }
+         record.location = Lists.newArrayList();
+         for (Location location = image.getLocation(); location != null; location = location.getParent()) {
+            LocationRecord locationRecord = new LocationRecord();
+            locationRecord.scope = location.getScope().name();
+            locationRecord.id = location.getId();
+            locationRecord.description = location.getDescription();
+            locationRecord.iso3166Codes = location.getIso3166Codes();
+            record.location.add(locationRecord);
+         }
+         record.userMetadata = image.getUserMetadata();
+         record.tags = image.getTags();
+         LoginCredentials credentials = image.getDefaultCredentials();
+         if (credentials != null) {
+            record.loginUser = credentials.getUser();
+            record.authenticateSudo = credentials.shouldAuthenticateSudo();
+         }
+         return record;
+      }
+
+      Image toImage(Map<String, Location> locations) {
+         ImageBuilder builder = new ImageBuilder().id(id).providerId(providerId).name(name).description(description)
+               .version(version).uri(uri).status(Image.Status.valueOf(status)).backendStatus(backendStatus)
+               .operatingSystem(OperatingSystem.builder()
+                     .family(osFamily != null ? OsFamily.fromValue(osFamily) : null).name(osName).arch(osArch)
+                     .version(osVersion).description(osDescription).is64Bit(os64Bit).build())
+               .location(toLocation(locations));
+         if (userMetadata != null) {
+            builder.userMetadata(userMetadata);
+         }
+         if (tags != null) {
+            builder.tags(tags);
+         }
+         builder.defaultCredentials(LoginCredentials.builder().user(loginUser).authenticateSudo(authenticateSudo)
+               .build());
+         return builder.build();
+      }
+
+      private Location toLocation(Map<String, Location> locations) {
+         Location parent = null;
+         String key = "";
+         for (LocationRecord record : Lists.reverse(location != null ? location : ImmutableList.<LocationRecord> of())) {
+            key = key + "/" + record.scope + ":" + record.id;
+            Location current = locations.get(key);
+            if (current == null) {
+               current = new LocationBuilder().scope(LocationScope.valueOf(record.scope)).id(record.id)
+                     .description(record.description).parent(parent)
+                     .iso3166Codes(record.iso3166Codes != null ? record.iso3166Codes : ImmutableSet.<String> of())
+                     .metadata(ImmutableMap.<String, Object> of()).build();
+               locations.put(key, current);
+            }
+            parent = current;
+         }
+         return parent;
+      }
+   }
+
+   static class LocationRecord {
+      String scope;
+      String id;
+      String description;
+      Set<String> iso3166Codes;
+   }
+}
@@ -18,8 +18,12 @@ package org.jclouds.compute.suppliers;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
@@ -28,6 +32,7 @@ import javax.inject.Named;
 import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.GetImageStrategy;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
@@ -54,6 +59,11 @@ import com.google.inject.Provider;
  * {@link org.jclouds.compute.extensions.ImageExtension}, or discovered by other
  * means (see https://issues.apache.org/jira/browse/JCLOUDS-570) this supplier
  * will allow the image to be appended to the cached list.
+ * <p>
+ * {@link #get()} returns the same immutable set until the cache changes, so reading the catalog does not copy it.
+ * When created with a refresh executor, only the first load of the catalog blocks: once the session interval has
+ * elapsed the current catalog keeps being served while the next one is loaded in the background. An enabled
+ * {@link ImageCacheSnapshot} seeds the catalog on startup, so that it is available before the first load completes.
  */
 @Beta
 public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, ValueLoadedCallback<Set<? extends Image>> {
@@ -67,13 +77,27 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * The image supplier that loads the images and caches them for the duration
     * of the session. Delegates to the {@link #liveImageSupplier}.
     */
-   private final Supplier<Set<? extends Image>> memoizedImageSupplier;
+   private final MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<Set<? extends Image>> memoizedImageSupplier;
    
    /**
     * The actual image cache. It acts as a view over the memoized image supplier
     * and allows to add and remove images at runtime.
     */
    private final LoadingCache<String, Image> imageCache;
+
+   /**
+    * Incremented after each change to the {@link #imageCache}, to tell whether the {@link #snapshot} is current.
+    */
+   private final AtomicLong version = new AtomicLong();
+
+   private volatile Snapshot snapshot = new Snapshot(-1, ImmutableSet.<Image> of());
+
+   private final ImageCacheSnapshot diskSnapshot;
+
+   /**
+    * Set when the catalog was seeded from the {@link #diskSnapshot}, until the first call reloads it.
+    */
+   private final AtomicBoolean seeded = new AtomicBoolean();
    
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -81,16 +105,41 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
 
    public ImageCacheSupplier(Supplier<Set<? extends Image>> imageSupplier, long sessionIntervalSeconds,
          AtomicReference<AuthorizationException> authException, final Provider<GetImageStrategy> imageLoader) {
+      this(imageSupplier, sessionIntervalSeconds, authException, imageLoader, null, null);
+   }
+
+   /**
+    * @param refreshExecutor
+    *           the executor that reloads the catalog once the session interval has elapsed, or null to reload it in
+    *           the calling thread
+    * @param diskSnapshot
+    *           the on-disk copy of the catalog to start from and to keep up to date, or null
+    */
+   public ImageCacheSupplier(Supplier<Set<? extends Image>> imageSupplier, long sessionIntervalSeconds,
+         AtomicReference<AuthorizationException> authException, final Provider<GetImageStrategy> imageLoader,
+         @Nullable Executor refreshExecutor, @Nullable ImageCacheSnapshot diskSnapshot) {
       liveImageSupplier = imageSupplier;
-      memoizedImageSupplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException,
-            imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this);
-      imageCache = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, TimeUnit.SECONDS)
-            .build(new CacheLoader<String, Image>() {
-               @Override
-               public Image load(String key) throws Exception {
-                  return imageLoader.get().getImage(key);
-               }
-            });
+      memoizedImageSupplier = refreshExecutor == null
+            ? MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, imageSupplier,
+                  sessionIntervalSeconds, TimeUnit.SECONDS, this)
+            : MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.createRefreshingAhead(authException,
+                  imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this, refreshExecutor);
+      // Entries are not expired: each reload of the catalog replaces them all
+      imageCache = CacheBuilder.newBuilder().build(new CacheLoader<String, Image>() {
+         @Override
+         public Image load(String key) throws Exception {
+            return imageLoader.get().getImage(key);
+         }
+      });
+      this.diskSnapshot = diskSnapshot != null && diskSnapshot.isEnabled() ? diskSnapshot : null;
+      if (this.diskSnapshot != null) {
+         Set<? extends Image> images = this.diskSnapshot.read();
+         if (!images.isEmpty()) {
+            reset(images);
+            memoizedImageSupplier.seed(images);
+            seeded.set(true);
+         }
+      }
    }
    
    @Override
@@ -103,8 +152,17 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       // values in the cache will be returned, as the cache properly handles
       // individual image additions and deletions (introduced, for example, by
       // the usage of the ImageExtension).
+      if (seeded.get() && seeded.compareAndSet(true, false)) {
+         memoizedImageSupplier.refresh();
+      }
       memoizedImageSupplier.get();
-      return ImmutableSet.copyOf(imageCache.asMap().values());
+      Snapshot current = snapshot;
+      long currentVersion = version.get();
+      if (current.version != currentVersion) {
+         current = new Snapshot(currentVersion, ImmutableSet.copyOf(imageCache.asMap().values()));
+         snapshot = current;
+      }
+      return current.images;
    }
 
    /**
@@ -119,6 +177,9 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
    public void valueLoaded(Optional<Set<? extends Image>> value) {
       if (value.isPresent()) {
          reset(value.get());
+         if (diskSnapshot != null) {
+            diskSnapshot.write(value.get());
+         }
       }
    }
    
@@ -130,13 +191,16 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * is invoked forcing a fresh image lookup.
     */
    public void reset(Set<? extends Image> images) {
-      imageCache.invalidateAll();
-      imageCache.putAll(Maps.uniqueIndex(images, new Function<Image, String>() {
+      Map<String, ? extends Image> index = Maps.uniqueIndex(images, new Function<Image, String>() {
          @Override
          public String apply(Image input) {
             return input.getId();
          }
-      }));
+      });
+      // Add before removing, so that concurrent readers never see an empty cache
+      imageCache.putAll(index);
+      imageCache.asMap().keySet().retainAll(index.keySet());
+      version.incrementAndGet();
    }
    
    /**
@@ -156,8 +220,14 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * if the image is still not cached.
     */
    public Optional<? extends Image> get(String id) {
+      Image cached = imageCache.getIfPresent(id);
+      if (cached != null) {
+         return Optional.of(cached);
+      }
       try {
-         return Optional.fromNullable(imageCache.getUnchecked(id));
+         Optional<Image> image = Optional.fromNullable(imageCache.getUnchecked(id));
+         version.incrementAndGet();
+         return image;
       } catch (Exception ex) {
          logger.error(ex, "Unexpected error loading image %s", id);
          return Optional.absent();
@@ -180,6 +250,7 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
    public void registerImage(Image image) {
       checkNotNull(image, "image");
       imageCache.put(image.getId(), image);
+      version.incrementAndGet();
    }
 
    /**
@@ -192,6 +263,17 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     */
    public void removeImage(String imageId) {
       imageCache.invalidate(checkNotNull(imageId, "imageId"));
+      version.incrementAndGet();
+   }
+
+   private static final class Snapshot {
+      private final long version;
+      private final Set<? extends Image> images;
+
+      private Snapshot(long version, Set<? extends Image> images) {
+         this.version = version;
+         this.images = images;
+      }
    }
 
 }
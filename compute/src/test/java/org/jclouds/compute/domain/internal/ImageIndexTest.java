@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.domain.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.BitSet;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.Image.Status;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.predicates.OperatingSystemPredicates;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "ImageIndexTest")
+public class ImageIndexTest {
+
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("region").description("region")
+         .build();
+   private final Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("zone").description("zone")
+         .parent(region).build();
+
+   private final OperatingSystem ubuntu = OperatingSystem.builder().family(OsFamily.UBUNTU).version("14.04")
+         .description("ubuntu").is64Bit(true).build();
+   private final OperatingSystem centos = OperatingSystem.builder().family(OsFamily.CENTOS).version("7")
+         .description("centos").is64Bit(true).build();
+
+   private final Image ubuntuInRegion = image("a", "ubuntu-region", region, ubuntu);
+   private final Image centosInZone = image("b", "centos-zone", zone, centos);
+   private final Image ubuntuInZone = image("c", "ubuntu-zone", zone, ubuntu);
+   private final Image duplicateId = image("a", "ubuntu-zone-copy", zone, ubuntu);
+
+   private final ImmutableSet<Image> catalog = ImmutableSet.of(ubuntuInRegion, centosInZone, ubuntuInZone,
+         duplicateId);
+
+   private static Image image(String id, String name, Location location, OperatingSystem os) {
+      return new ImageBuilder().id(id).name(name).location(location).operatingSystem(os).status(Status.AVAILABLE)
+            .build();
+   }
+
+   public void testIndexIsSharedPerCatalogInstance() {
+      assertSame(ImageIndex.of(catalog), ImageIndex.of(catalog));
+      assertEquals(ImageIndex.of(catalog).size(), 4);
+   }
+
+   public void testGetReturnsFirstImageWithId() {
+      ImageIndex index = ImageIndex.of(catalog);
+      assertSame(index.get("a"), ubuntuInRegion);
+      assertSame(index.get("c"), ubuntuInZone);
+      assertNull(index.get("d"));
+   }
+
+   public void testMatchingLocationKeepsCatalogOrder() {
+      ImageIndex index = ImageIndex.of(catalog);
+      BitSet inZone = index.matchingLocation(new Predicate<ComputeMetadata>() {
+         @Override
+         public boolean apply(ComputeMetadata input) {
+            return input.getLocation().equals(zone);
+         }
+      });
+      assertEquals(ImmutableList.copyOf(index.images(inZone)),
+            ImmutableList.of(centosInZone, ubuntuInZone, duplicateId));
+   }
+
+   public void testMatchingOperatingSystem() {
+      ImageIndex index = ImageIndex.of(catalog);
+      BitSet apt = index.matchingOperatingSystem(OperatingSystemPredicates.supportsApt());
+      assertEquals(ImmutableList.copyOf(index.images(apt)),
+            ImmutableList.of(ubuntuInRegion, ubuntuInZone, duplicateId));
+   }
+
+   public void testSupportedByIsComputedOncePerPredicate() {
+      ImageIndex index = ImageIndex.of(catalog);
+      Predicate<Image> centosOnly = new Predicate<Image>() {
+         @Override
+         public boolean apply(Image input) {
+            return input.getOperatingSystem().getFamily() == OsFamily.CENTOS;
+         }
+      };
+      assertSame(index.supportedBy(centosOnly), index.supportedBy(centosOnly));
+      assertEquals(ImmutableList.copyOf(index.images(index.supportedBy(centosOnly))), ImmutableList.of(centosInZone));
+      assertEquals(index.supportedBy(Predicates.<Image> alwaysTrue()), index.all());
+   }
+
+   public void testRetain() {
+      ImageIndex index = ImageIndex.of(catalog);
+      BitSet candidates = index.all();
+      index.retain(candidates, new Predicate<Image>() {
+         @Override
+         public boolean apply(Image input) {
+            return input.getName().endsWith("zone");
+         }
+      });
+      assertEquals(ImmutableList.copyOf(index.images(candidates)), ImmutableList.of(centosInZone, ubuntuInZone));
+   }
+}
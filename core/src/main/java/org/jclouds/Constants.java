@@ -30,6 +30,46 @@ public final class Constants {
     */
    public static final String PROPERTY_USER_THREADS = "jclouds.user-threads";
 
+   /**
+    * String property. default (scaling)
+    * <p/>
+    * Kind of executor servicing the user requests:
+    * <ul>
+    * <li>{@code scaling} grows up to {@link #PROPERTY_USER_THREADS} threads and queues without bound past that, or
+    * creates threads without bound when that is 0.</li>
+    * <li>{@code bounded} runs {@link #PROPERTY_USER_THREADS} threads over a queue of
+    * {@link #PROPERTY_USER_EXECUTOR_QUEUE_SIZE} tasks, and applies {@link #PROPERTY_USER_EXECUTOR_REJECTION} once the
+    * queue is full.</li>
+    * <li>{@code virtual} runs each task on its own virtual thread. Requires Java 21 or later; the number of concurrent
+    * requests is then only limited by {@link #PROPERTY_MAX_CONNECTIONS_PER_CONTEXT}.</li>
+    * </ul>
+    */
+   public static final String PROPERTY_USER_EXECUTOR = "jclouds.user-executor";
+
+   /**
+    * Integer property. default (1000)
+    * <p/>
+    * Amount of tasks the {@code bounded} user executor queues before rejecting new ones.
+    */
+   public static final String PROPERTY_USER_EXECUTOR_QUEUE_SIZE = "jclouds.user-executor.queue-size";
+
+   /**
+    * String property. default (abort)
+    * <p/>
+    * What the {@code bounded} user executor does with tasks that do not fit its queue: {@code abort} throws
+    * {@link java.util.concurrent.RejectedExecutionException}, {@code caller-runs} runs the task on the submitting
+    * thread, which slows submitters down to the pace of the executor.
+    */
+   public static final String PROPERTY_USER_EXECUTOR_REJECTION = "jclouds.user-executor.rejection";
+
+   /**
+    * Integer property. default (1)
+    * <p/>
+    * Records where one in every this many user tasks was submitted, so that failures carry the submitting stack trace.
+    * 1 traces every task and 0 disables tracing, which saves taking a stack trace per task.
+    */
+   public static final String PROPERTY_SUBMISSION_TRACE_SAMPLING = "jclouds.submission-trace-sampling";
+
    /**
     * Integer property. default (20)
     * <p/>
@@ -326,6 +366,32 @@ public final class Constants {
     */
    public static final String PROPERTY_TIMEOUTS_PREFIX = "jclouds.timeouts.";
 
+   /**
+    * Hedges GET and HEAD requests of a method: once a request has been outstanding longer than the given percentile of
+    * that method's recent response times, an identical request is sent, the first response is used and the other is
+    * discarded. Only methods listed in {@link #PROPERTY_IDEMPOTENT_METHODS} are hedged, and only calls without a
+    * timeout that return a value directly, not a future.
+    * <p/>
+    * For example, to hedge the slowest 5% of one method:
+    * <p/>
+    * <code>
+    * jclouds.hedges.GetObject = 95
+    * </code>
+    * <p/>
+    * Or of all methods with {@code jclouds.hedges.default}. Method names follow {@link #PROPERTY_TIMEOUTS_PREFIX}.
+    *
+    * @see #PROPERTY_HEDGE_BUDGET
+    */
+   public static final String PROPERTY_HEDGES_PREFIX = "jclouds.hedges.";
+
+   /**
+    * Integer property. default (10)
+    * <p/>
+    * Caps hedged requests at this percentage of the requests of the hedged methods, so a provider that slows down
+    * across the board does not receive twice the load.
+    */
+   public static final String PROPERTY_HEDGE_BUDGET = "jclouds.hedge-budget";
+
    /**
     * Integer property. Default (32768).
     * <p/>
@@ -376,6 +442,36 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_RATE_LIMIT_WAIT = "jclouds.max-ratelimit-wait";
 
+   /**
+    * Double property. default (0)
+    * <p>
+    * Maximum requests per second sent for each provider, host and api method, before the provider throttles them.
+    * The rate is lowered temporarily when the provider throttles anyway. 0 does not limit the rate.
+    *
+    * @see org.jclouds.http.internal.AdaptiveHttpRequestLimiter
+    */
+   public static final String PROPERTY_REQUEST_RATE_LIMIT = "jclouds.request-rate-limit";
+
+   /**
+    * Boolean property. default (false)
+    * <p>
+    * When true, the number of concurrent requests for each provider, host and api method adapts to throttling and
+    * latency, up to {@link #PROPERTY_MAX_CONNECTIONS_PER_CONTEXT}.
+    *
+    * @see org.jclouds.http.internal.AdaptiveHttpRequestLimiter
+    */
+   public static final String PROPERTY_ADAPTIVE_CONCURRENCY = "jclouds.adaptive-concurrency";
+
+   /**
+    * Boolean property.
+    * <p>
+    * When true, apis and delegate apis are implemented by the classes the jclouds annotation processor generated at
+    * build time, when present, instead of dynamic proxies. Defaults to true.
+    *
+    * @see org.jclouds.reflect.GeneratedApis
+    */
+   public static final String PROPERTY_GENERATED_APIS = "jclouds.generated-apis";
+
    private Constants() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Point-in-time counters of an executor, bound next to the executor they describe. For the user executor, inject
+ * {@code @Named(Constants.PROPERTY_USER_THREADS) ExecutorMetrics}.
+ */
+@Beta
+public interface ExecutorMetrics {
+
+   /**
+    * @return tasks accepted by the executor that have not started yet
+    */
+   int getQueuedTasks();
+
+   /**
+    * @return tasks currently running
+    */
+   int getActiveTasks();
+
+   /**
+    * @return tasks that have finished running, normally or not
+    */
+   long getCompletedTasks();
+
+   /**
+    * @return tasks the executor refused to accept, including those its rejection policy then ran on the submitting
+    *         thread
+    */
+   long getRejectedTasks();
+}
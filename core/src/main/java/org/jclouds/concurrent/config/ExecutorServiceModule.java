@@ -16,7 +16,12 @@
  */
 package org.jclouds.concurrent.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static org.jclouds.Constants.PROPERTY_SUBMISSION_TRACE_SAMPLING;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR_QUEUE_SIZE;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR_REJECTION;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.concurrent.DynamicExecutors.newScalingThreadPool;
 
@@ -26,14 +31,20 @@ import java.lang.reflect.Method;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.concurrent.ExecutorMetrics;
 import org.jclouds.lifecycle.Closer;
 import org.jclouds.logging.Logger;
 
@@ -52,7 +63,12 @@ import com.google.inject.Provides;
  * <p>
  * This extends the underlying Future to expose a description (the task's toString) and the submission context (stack
  * trace). The submission stack trace is appended to relevant stack traces on exceptions that are returned, so the user
- * can see the logical chain of execution (in the executor, and where it was passed to the executor).
+ * can see the logical chain of execution (in the executor, and where it was passed to the executor). As taking a stack
+ * trace per task is costly, {@link org.jclouds.Constants#PROPERTY_SUBMISSION_TRACE_SAMPLING} can limit this to a
+ * sample of the tasks, or turn it off.
+ * <p>
+ * The kind of user executor is chosen with {@link org.jclouds.Constants#PROPERTY_USER_EXECUTOR}, and its counters are
+ * bound as {@code @Named(PROPERTY_USER_THREADS) ExecutorMetrics}.
  */
 @ConfiguresExecutorService
 public class ExecutorServiceModule extends AbstractModule {
@@ -129,6 +145,24 @@ public class ExecutorServiceModule extends AbstractModule {
       }
    }
 
+   static final class UserExecutorSettings {
+      @com.google.inject.Inject(optional = true)
+      @Named(PROPERTY_USER_EXECUTOR)
+      String type = "scaling";
+
+      @com.google.inject.Inject(optional = true)
+      @Named(PROPERTY_USER_EXECUTOR_QUEUE_SIZE)
+      int queueSize = 1000;
+
+      @com.google.inject.Inject(optional = true)
+      @Named(PROPERTY_USER_EXECUTOR_REJECTION)
+      String rejection = "abort";
+
+      @com.google.inject.Inject(optional = true)
+      @Named(PROPERTY_SUBMISSION_TRACE_SAMPLING)
+      int submissionTraceSampling = 1;
+   }
+
    final ListeningExecutorService userExecutorFromConstructor;
 
    public ExecutorServiceModule() {
@@ -160,7 +194,7 @@ public class ExecutorServiceModule extends AbstractModule {
    }
 
    public ExecutorServiceModule(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
-      this.userExecutorFromConstructor = WithSubmissionTrace.wrap(userExecutor);
+      this.userExecutorFromConstructor = userExecutor;
    }
 
    @Override
@@ -176,10 +210,27 @@ public class ExecutorServiceModule extends AbstractModule {
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
-   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
+   final ListeningExecutorService provideListeningUserExecutorService( // NO_UCD
+         @Named(PROPERTY_USER_THREADS) MeteredExecutorService userExecutor, UserExecutorSettings settings) {
+      return WithSubmissionTrace.wrap(userExecutor, settings.submissionTraceSampling);
+   }
+
+   @Provides
+   @Singleton
+   @Named(PROPERTY_USER_THREADS)
+   final MeteredExecutorService provideMeteredUserExecutorService(@Named(PROPERTY_USER_THREADS) int count,
+         UserExecutorSettings settings, Closer closer) {
+      // an executor passed to the constructor belongs to the caller, who shuts it down
       if (userExecutorFromConstructor != null)
-         return userExecutorFromConstructor;
-      return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
+         return new MeteredExecutorService(userExecutorFromConstructor);
+      return shutdownOnClose(new MeteredExecutorService(newUserExecutor("user thread %d", count, settings)), closer);
+   }
+
+   @Provides
+   @Singleton
+   @Named(PROPERTY_USER_THREADS)
+   final ExecutorMetrics provideUserExecutorMetrics(@Named(PROPERTY_USER_THREADS) MeteredExecutorService in) { // NO_UCD
+      return in;
    }
 
    @Provides
@@ -194,6 +245,62 @@ public class ExecutorServiceModule extends AbstractModule {
       return service;
    }
 
+   private ExecutorService newUserExecutor(String name, int count, UserExecutorSettings settings) {
+      String type = settings.type.trim().toLowerCase(Locale.ENGLISH);
+      if ("scaling".equals(type))
+         return newThreadPoolNamed(name, count);
+      if ("bounded".equals(type))
+         return newBoundedThreadPoolNamed(name, count, settings.queueSize, rejectionPolicy(settings.rejection));
+      if ("virtual".equals(type))
+         return newVirtualThreadPerTaskExecutor(name);
+      throw new IllegalArgumentException(String.format("%s must be one of scaling, bounded or virtual, was %s",
+            PROPERTY_USER_EXECUTOR, settings.type));
+   }
+
+   private static RejectedExecutionHandler rejectionPolicy(String rejection) {
+      String policy = rejection.trim().toLowerCase(Locale.ENGLISH);
+      if ("abort".equals(policy))
+         return new ThreadPoolExecutor.AbortPolicy();
+      if ("caller-runs".equals(policy))
+         return new ThreadPoolExecutor.CallerRunsPolicy();
+      throw new IllegalArgumentException(String.format("%s must be one of abort or caller-runs, was %s",
+            PROPERTY_USER_EXECUTOR_REJECTION, rejection));
+   }
+
+   private ExecutorService newBoundedThreadPoolNamed(String name, int count, int queueSize,
+         RejectedExecutionHandler rejectionPolicy) {
+      checkArgument(count > 0, "%s must be positive for a bounded executor, was %s", PROPERTY_USER_THREADS, count);
+      checkArgument(queueSize > 0, "%s must be positive, was %s", PROPERTY_USER_EXECUTOR_QUEUE_SIZE, queueSize);
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(count, count, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize), namedThreadFactory(name), rejectionPolicy);
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+   }
+
+   /**
+    * Creates {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())} reflectively,
+    * as virtual threads only exist from Java 21 on.
+    */
+   private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+      try {
+         Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+         Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+         builder = builderType.getMethod("name", String.class, long.class).invoke(builder,
+               name.replace("%d", ""), 0L);
+         ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+         return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+               .invoke(null, factory);
+      } catch (ClassNotFoundException e) {
+         throw new UnsupportedOperationException("virtual threads require Java 21 or later", e);
+      } catch (NoSuchMethodException e) {
+         throw new UnsupportedOperationException("virtual threads require Java 21 or later", e);
+      } catch (IllegalAccessException e) {
+         throw new UnsupportedOperationException("Can't access virtual thread factory", e);
+      } catch (InvocationTargetException e) {
+         throw new UnsupportedOperationException("Can't create virtual thread executor", e.getCause());
+      }
+   }
+
    private ListeningExecutorService newCachedThreadPoolNamed(String name) {
       return listeningDecorator(Executors.newCachedThreadPool(namedThreadFactory(name)));
    }
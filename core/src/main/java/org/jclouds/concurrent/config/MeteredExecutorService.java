@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.concurrent.ExecutorMetrics;
+
+import com.google.common.util.concurrent.AbstractListeningExecutorService;
+
+/**
+ * Counts the tasks passing through an executor. Tasks are counted as queued from the moment they are handed to the
+ * delegate until a thread picks them up, so the counts do not depend on the kind of executor underneath. The rejection
+ * policy of a {@link ThreadPoolExecutor} delegate is wrapped so that tasks it runs on the caller's thread count as
+ * rejected too.
+ */
+final class MeteredExecutorService extends AbstractListeningExecutorService implements ExecutorMetrics {
+
+   private final ExecutorService delegate;
+   private final AtomicInteger queued = new AtomicInteger();
+   private final AtomicInteger active = new AtomicInteger();
+   private final AtomicLong completed = new AtomicLong();
+   private final AtomicLong rejected = new AtomicLong();
+
+   MeteredExecutorService(ExecutorService delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      if (delegate instanceof ThreadPoolExecutor) {
+         ThreadPoolExecutor pool = (ThreadPoolExecutor) delegate;
+         pool.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(pool.getRejectedExecutionHandler()));
+      }
+   }
+
+   @Override
+   public void execute(final Runnable command) {
+      checkNotNull(command, "command");
+      queued.incrementAndGet();
+      try {
+         delegate.execute(new Runnable() {
+            @Override
+            public void run() {
+               queued.decrementAndGet();
+               active.incrementAndGet();
+               try {
+                  command.run();
+               } finally {
+                  active.decrementAndGet();
+                  completed.incrementAndGet();
+               }
+            }
+
+            @Override
+            public String toString() {
+               return command.toString();
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         queued.decrementAndGet();
+         rejected.incrementAndGet();
+         throw e;
+      }
+   }
+
+   /**
+    * Counts the tasks a rejection policy handles without throwing, such as those it runs on the caller's thread.
+    * Tasks it refuses with an exception are counted by {@link #execute}.
+    */
+   private final class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+      private final RejectedExecutionHandler policy;
+
+      CountingRejectedExecutionHandler(RejectedExecutionHandler policy) {
+         this.policy = checkNotNull(policy, "policy");
+      }
+
+      @Override
+      public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+         policy.rejectedExecution(r, executor);
+         rejected.incrementAndGet();
+      }
+   }
+
+   @Override
+   public int getQueuedTasks() {
+      return queued.get();
+   }
+
+   @Override
+   public int getActiveTasks() {
+      return active.get();
+   }
+
+   @Override
+   public long getCompletedTasks() {
+      return completed.get();
+   }
+
+   @Override
+   public long getRejectedTasks() {
+      return rejected.get();
+   }
+
+   @Override
+   public void shutdown() {
+      delegate.shutdown();
+   }
+
+   @Override
+   public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+   }
+
+   @Override
+   public boolean isShutdown() {
+      return delegate.isShutdown();
+   }
+
+   @Override
+   public boolean isTerminated() {
+      return delegate.isTerminated();
+   }
+
+   @Override
+   public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+   }
+
+   @Override
+   public String toString() {
+      return String.format("%s[queued=%d, active=%d, completed=%d, rejected=%d]", delegate, getQueuedTasks(),
+            getActiveTasks(), getCompletedTasks(), getRejectedTasks());
+   }
+}
@@ -16,6 +16,7 @@
  */
 package org.jclouds.concurrent.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.toArray;
@@ -29,6 +30,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
@@ -42,15 +44,32 @@ public class WithSubmissionTrace {
    }
 
    public static ListeningExecutorService wrap(com.google.common.util.concurrent.ListeningExecutorService delegate) {
-      return new ListeningExecutorService(delegate);
+      return new ListeningExecutorService(delegate, 1);
+   }
+
+   /**
+    * Like {@link #wrap(com.google.common.util.concurrent.ListeningExecutorService)}, but only records where one in
+    * every {@code sampling} tasks was submitted, as taking a stack trace per task is costly on busy executors. A
+    * sampling of 1 traces every task and 0 returns the delegate itself.
+    */
+   public static com.google.common.util.concurrent.ListeningExecutorService wrap(
+         com.google.common.util.concurrent.ListeningExecutorService delegate, int sampling) {
+      checkArgument(sampling >= 0, "sampling must be non-negative, was %s", sampling);
+      if (sampling == 0)
+         return checkNotNull(delegate, "delegate");
+      return new ListeningExecutorService(delegate, sampling);
    }
 
    private static class ListeningExecutorService extends ForwardingListeningExecutorService {
 
       private final com.google.common.util.concurrent.ListeningExecutorService delegate;
+      private final int sampling;
+      private final AtomicLong submissions = new AtomicLong();
 
-      private ListeningExecutorService(com.google.common.util.concurrent.ListeningExecutorService delegate) {
+      private ListeningExecutorService(com.google.common.util.concurrent.ListeningExecutorService delegate,
+            int sampling) {
          this.delegate = checkNotNull(delegate, "delegate");
+         this.sampling = sampling;
       }
 
       @Override
@@ -58,19 +77,29 @@ public class WithSubmissionTrace {
          return delegate;
       }
 
+      private boolean traced() {
+         return sampling == 1 || submissions.getAndIncrement() % sampling == 0;
+      }
+
       @Override
       public <T> com.google.common.util.concurrent.ListenableFuture<T> submit(Callable<T> task) {
+         if (!traced())
+            return delegate().submit(task);
          return new ListenableFuture<T>(delegate().submit(task));
       }
 
       @SuppressWarnings({ "unchecked", "rawtypes" })
       @Override
       public com.google.common.util.concurrent.ListenableFuture<?> submit(Runnable task) {
+         if (!traced())
+            return delegate().submit(task);
          return new ListenableFuture(delegate().submit(task));
       }
 
       @Override
       public <T> com.google.common.util.concurrent.ListenableFuture<T> submit(Runnable task, T result) {
+         if (!traced())
+            return delegate().submit(task, result);
          return new ListenableFuture<T>(delegate().submit(task, result));
       }
    }
@@ -154,7 +183,7 @@ public class WithSubmissionTrace {
 
       private ListeningScheduledExecutorService(
             com.google.common.util.concurrent.ListeningScheduledExecutorService delegate) {
-         super(delegate);
+         super(delegate, 1);
       }
 
       @Override
@@ -0,0 +1,457 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.inject.Singleton;
+
+import org.jclouds.date.DateService;
+
+/**
+ * Formats and parses dates with calendar arithmetic instead of shared {@link java.text.SimpleDateFormat} instances,
+ * so that concurrent callers never contend on a lock.
+ * <p>
+ * Dates between the years 1600 and 9999 are formatted directly, and the fixed-width forms jclouds sees on the wire
+ * are parsed directly. Anything else, for example lenient values such as February 30th, two-digit fractions of a
+ * second or named time zones, is delegated to {@link SimpleDateFormatDateService}, so results are identical to it.
+ * The current time is formatted at most once per second for each of the second-resolution formats.
+ */
+@Singleton
+public class FastDateService implements DateService {
+
+   private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+   private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+         "Nov", "Dec" };
+   private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+   private static final int MIN_YEAR = 1600;
+   private static final int MAX_YEAR = 9999;
+   private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+   // SimpleDateFormatDateService formats rfc1123 dates in the zone that was the default when it was loaded
+   private static final TimeZone RFC1123_ZONE = TimeZone.getDefault();
+
+   private final SimpleDateFormatDateService fallback = new SimpleDateFormatDateService();
+
+   private volatile FormattedSecond cDateNow;
+   private volatile FormattedSecond rfc822Now;
+   private volatile FormattedSecond rfc1123Now;
+   private volatile FormattedSecond iso8601SecondsNow;
+
+   private static final class FormattedSecond {
+      private final long second;
+      private final String value;
+
+      private FormattedSecond(long second, String value) {
+         this.second = second;
+         this.value = value;
+      }
+   }
+
+   /**
+    * The fields of an instant in a given offset, in the proleptic Gregorian calendar.
+    */
+   private static final class Fields {
+      private final int year;
+      private final int month;
+      private final int day;
+      private final int dayOfWeek;
+      private final int hour;
+      private final int minute;
+      private final int second;
+      private final int millis;
+
+      private Fields(long epochMillis) {
+         long days = floorDiv(epochMillis, MILLIS_PER_DAY);
+         int millisOfDay = (int) (epochMillis - days * MILLIS_PER_DAY);
+         // 1970-01-01 was a Thursday
+         this.dayOfWeek = (int) floorMod(days + 4, 7);
+         // see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+         long z = days + 719468;
+         long era = floorDiv(z, 146097);
+         long dayOfEra = z - era * 146097;
+         long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+         long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+         long shiftedMonth = (5 * dayOfYear + 2) / 153;
+         this.day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+         this.month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+         this.year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+         this.hour = millisOfDay / 3600000;
+         this.minute = millisOfDay / 60000 % 60;
+         this.second = millisOfDay / 1000 % 60;
+         this.millis = millisOfDay % 1000;
+      }
+
+      private boolean isFormattable() {
+         return year >= MIN_YEAR && year <= MAX_YEAR;
+      }
+   }
+
+   @Override
+   public final String cDateFormat(Date date) {
+      Fields fields = new Fields(date.getTime());
+      if (!fields.isFormattable())
+         return fallback.cDateFormat(date);
+      // EEE MMM dd HH:mm:ss Z yyyy
+      StringBuilder out = new StringBuilder(30);
+      out.append(DAYS[fields.dayOfWeek]).append(' ').append(MONTHS[fields.month - 1]).append(' ');
+      appendTime(append2(out, fields.day).append(' '), fields).append(" +0000 ");
+      return append4(out, fields.year).toString();
+   }
+
+   @Override
+   public final String cDateFormat() {
+      long now = System.currentTimeMillis();
+      FormattedSecond cached = cDateNow;
+      if (cached != null && cached.second == floorDiv(now, 1000))
+         return cached.value;
+      String value = cDateFormat(new Date(now));
+      cDateNow = new FormattedSecond(floorDiv(now, 1000), value);
+      return value;
+   }
+
+   @Override
+   public final Date cDateParse(String toParse) {
+      // EEE MMM dd HH:mm:ss +hhmm yyyy
+      if (toParse.length() == 30 && toParse.charAt(3) == ' ' && toParse.charAt(7) == ' '
+            && toParse.charAt(10) == ' ' && toParse.charAt(19) == ' ' && toParse.charAt(25) == ' '
+            && dayOfWeek(toParse, 0) >= 0) {
+         int offset = offsetMinutes(toParse, 20, false);
+         Date date = toDate(digits(toParse, 26, 4), month(toParse, 4), digits(toParse, 8, 2), toParse, 11, 0, offset);
+         if (date != null)
+            return date;
+      }
+      return fallback.cDateParse(toParse);
+   }
+
+   @Override
+   public final String rfc822DateFormat(Date date) {
+      Fields fields = new Fields(date.getTime());
+      if (!fields.isFormattable())
+         return fallback.rfc822DateFormat(date);
+      // EEE, dd MMM yyyy HH:mm:ss 'GMT'
+      StringBuilder out = new StringBuilder(29);
+      append2(out.append(DAYS[fields.dayOfWeek]).append(", "), fields.day).append(' ')
+            .append(MONTHS[fields.month - 1]).append(' ');
+      return appendTime(append4(out, fields.year).append(' '), fields).append(" GMT").toString();
+   }
+
+   @Override
+   public final String rfc822DateFormat() {
+      long now = System.currentTimeMillis();
+      FormattedSecond cached = rfc822Now;
+      if (cached != null && cached.second == floorDiv(now, 1000))
+         return cached.value;
+      String value = rfc822DateFormat(new Date(now));
+      rfc822Now = new FormattedSecond(floorDiv(now, 1000), value);
+      return value;
+   }
+
+   @Override
+   public final Date rfc822DateParse(String toParse) {
+      // EEE, dd MMM yyyy HH:mm:ss 'GMT'
+      if (toParse.length() == 29 && isRfc1123Prefix(toParse) && toParse.endsWith(" GMT")) {
+         Date date = toDate(digits(toParse, 12, 4), month(toParse, 8), digits(toParse, 5, 2), toParse, 17, 0, 0);
+         if (date != null)
+            return date;
+      }
+      return fallback.rfc822DateParse(toParse);
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat(Date date) {
+      Fields fields = new Fields(date.getTime());
+      if (!fields.isFormattable())
+         return fallback.iso8601SecondsDateFormat(date);
+      StringBuilder out = new StringBuilder(20);
+      return appendTime(appendIsoDate(out, fields).append('T'), fields).append('Z').toString();
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat() {
+      long now = System.currentTimeMillis();
+      FormattedSecond cached = iso8601SecondsNow;
+      if (cached != null && cached.second == floorDiv(now, 1000))
+         return cached.value;
+      String value = iso8601SecondsDateFormat(new Date(now));
+      iso8601SecondsNow = new FormattedSecond(floorDiv(now, 1000), value);
+      return value;
+   }
+
+   @Override
+   public final String iso8601DateFormat(Date date) {
+      Fields fields = new Fields(date.getTime());
+      if (!fields.isFormattable())
+         return fallback.iso8601DateFormat(date);
+      StringBuilder out = new StringBuilder(24);
+      appendTime(appendIsoDate(out, fields).append('T'), fields).append('.');
+      int millis = fields.millis;
+      return out.append((char) ('0' + millis / 100)).append((char) ('0' + millis / 10 % 10))
+            .append((char) ('0' + millis % 10)).append('Z').toString();
+   }
+
+   @Override
+   public final String iso8601DateFormat() {
+      return iso8601DateFormat(new Date());
+   }
+
+   @Override
+   public final Date iso8601DateParse(String toParse) {
+      // yyyy-MM-dd'T'HH:mm:ss.SSS[SSS...][tz], the fraction is truncated to milliseconds
+      if (toParse.length() >= 23 && isIsoDateTime(toParse) && toParse.charAt(19) == '.') {
+         int end = 20;
+         while (end < toParse.length() && isDigit(toParse.charAt(end)))
+            end++;
+         if (end >= 23) {
+            int offset = isoOffsetMinutes(toParse, end);
+            int millis = digits(toParse, 20, 3);
+            Date date = toIsoDate(toParse, millis, offset);
+            if (date != null)
+               return date;
+         }
+      }
+      return fallback.iso8601DateParse(toParse);
+   }
+
+   @Override
+   public final Date iso8601SecondsDateParse(String toParse) {
+      // yyyy-MM-dd'T'HH:mm:ss[tz]
+      if (toParse.length() >= 19 && isIsoDateTime(toParse)) {
+         Date date = toIsoDate(toParse, 0, isoOffsetMinutes(toParse, 19));
+         if (date != null)
+            return date;
+      }
+      return fallback.iso8601SecondsDateParse(toParse);
+   }
+
+   @Override
+   @SuppressWarnings("UnusedException")
+   public Date iso8601DateOrSecondsDateParse(String toParse) throws IllegalArgumentException {
+      try {
+         return iso8601DateParse(toParse);
+      } catch (IllegalArgumentException orig) {
+         try {
+            return iso8601SecondsDateParse(toParse);
+         } catch (IllegalArgumentException ignored) {
+            throw orig;
+         }
+      }
+   }
+
+   @Override
+   public final String rfc1123DateFormat(Date date) {
+      int offsetMillis = RFC1123_ZONE.getOffset(date.getTime());
+      Fields fields = new Fields(date.getTime() + offsetMillis);
+      if (!fields.isFormattable() || offsetMillis % 60000 != 0)
+         return fallback.rfc1123DateFormat(date);
+      // EEE, dd MMM yyyyy HH:mm:ss Z
+      StringBuilder out = new StringBuilder(32);
+      append2(out.append(DAYS[fields.dayOfWeek]).append(", "), fields.day).append(' ')
+            .append(MONTHS[fields.month - 1]).append(" 0");
+      appendTime(append4(out, fields.year).append(' '), fields).append(' ');
+      int offsetMinutes = offsetMillis / 60000;
+      out.append(offsetMinutes < 0 ? '-' : '+');
+      offsetMinutes = Math.abs(offsetMinutes);
+      return append2(append2(out, offsetMinutes / 60), offsetMinutes % 60).toString();
+   }
+
+   @Override
+   public final String rfc1123DateFormat() {
+      long now = System.currentTimeMillis();
+      FormattedSecond cached = rfc1123Now;
+      if (cached != null && cached.second == floorDiv(now, 1000))
+         return cached.value;
+      String value = rfc1123DateFormat(new Date(now));
+      rfc1123Now = new FormattedSecond(floorDiv(now, 1000), value);
+      return value;
+   }
+
+   @Override
+   public final Date rfc1123DateParse(String toParse) throws IllegalArgumentException {
+      // EEE, dd MMM yyyy HH:mm:ss +hhmm or EEE, dd MMM yyyy HH:mm:ss GMT
+      if (isRfc1123Prefix(toParse)) {
+         int offset = Integer.MIN_VALUE;
+         if (toParse.length() == 29 && toParse.endsWith(" GMT"))
+            offset = 0;
+         else if (toParse.length() == 31 && toParse.charAt(25) == ' ')
+            offset = offsetMinutes(toParse, 26, false);
+         if (offset != Integer.MIN_VALUE) {
+            Date date = toDate(digits(toParse, 12, 4), month(toParse, 8), digits(toParse, 5, 2), toParse, 17, 0,
+                  offset);
+            if (date != null)
+               return date;
+         }
+      }
+      return fallback.rfc1123DateParse(toParse);
+   }
+
+   private static boolean isRfc1123Prefix(String toParse) {
+      // EEE, dd MMM yyyy HH:mm:ss
+      return toParse.length() >= 25 && dayOfWeek(toParse, 0) >= 0 && toParse.charAt(3) == ','
+            && toParse.charAt(4) == ' ' && toParse.charAt(7) == ' ' && toParse.charAt(11) == ' '
+            && toParse.charAt(16) == ' ';
+   }
+
+   private static boolean isIsoDateTime(String toParse) {
+      char separator = toParse.charAt(10);
+      return toParse.charAt(4) == '-' && toParse.charAt(7) == '-' && (separator == 'T' || separator == ' ');
+   }
+
+   private static Date toIsoDate(String toParse, int millis, int offsetMinutes) {
+      if (millis < 0)
+         return null;
+      return toDate(digits(toParse, 0, 4), digits(toParse, 5, 2), digits(toParse, 8, 2), toParse, 11, millis,
+            offsetMinutes);
+   }
+
+   /**
+    * Returns the date for the given fields and the HH:mm:ss time at {@code timeIndex}, or null if any of them is
+    * malformed or out of the range that is parsed directly.
+    */
+   private static Date toDate(int year, int month, int day, String toParse, int timeIndex, int millis,
+         int offsetMinutes) {
+      if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1
+            || day > daysInMonth(year, month) || offsetMinutes == Integer.MIN_VALUE)
+         return null;
+      if (toParse.charAt(timeIndex + 2) != ':' || toParse.charAt(timeIndex + 5) != ':')
+         return null;
+      int hour = digits(toParse, timeIndex, 2);
+      int minute = digits(toParse, timeIndex + 3, 2);
+      int second = digits(toParse, timeIndex + 6, 2);
+      if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+         return null;
+      long epochMillis = daysFromCivil(year, month, day) * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L
+            + second * 1000L + millis - offsetMinutes * 60000L;
+      return new Date(epochMillis);
+   }
+
+   /**
+    * Returns the offset in minutes of the ISO 8601 time zone designator from {@code index} to the end of the input,
+    * 0 when there is none, or {@link Integer#MIN_VALUE} when it is not one of Z, +hhmm or +hh:mm.
+    */
+   private static int isoOffsetMinutes(String toParse, int index) {
+      int length = toParse.length() - index;
+      if (length == 0)
+         return 0;
+      if (length == 1)
+         return toParse.charAt(index) == 'Z' ? 0 : Integer.MIN_VALUE;
+      if (length == 5)
+         return offsetMinutes(toParse, index, false);
+      if (length == 6)
+         return offsetMinutes(toParse, index, true);
+      return Integer.MIN_VALUE;
+   }
+
+   /**
+    * Returns the offset in minutes of the +hhmm or +hh:mm zone at {@code index}, or {@link Integer#MIN_VALUE}.
+    */
+   private static int offsetMinutes(String toParse, int index, boolean colon) {
+      char sign = toParse.charAt(index);
+      if (sign != '+' && sign != '-')
+         return Integer.MIN_VALUE;
+      int hours = digits(toParse, index + 1, 2);
+      int minutesIndex = index + 3;
+      if (colon) {
+         if (toParse.charAt(minutesIndex) != ':')
+            return Integer.MIN_VALUE;
+         minutesIndex++;
+      }
+      int minutes = digits(toParse, minutesIndex, 2);
+      if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59)
+         return Integer.MIN_VALUE;
+      int offset = hours * 60 + minutes;
+      return sign == '-' ? -offset : offset;
+   }
+
+   /**
+    * Returns the non-negative number of {@code count} decimal digits at {@code index}, or -1.
+    */
+   private static int digits(String toParse, int index, int count) {
+      int value = 0;
+      for (int i = index; i < index + count; i++) {
+         char c = toParse.charAt(i);
+         if (!isDigit(c))
+            return -1;
+         value = value * 10 + (c - '0');
+      }
+      return value;
+   }
+
+   private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+   }
+
+   private static int dayOfWeek(String toParse, int index) {
+      for (int i = 0; i < DAYS.length; i++) {
+         if (toParse.startsWith(DAYS[i], index))
+            return i;
+      }
+      return -1;
+   }
+
+   private static int month(String toParse, int index) {
+      for (int i = 0; i < MONTHS.length; i++) {
+         if (toParse.startsWith(MONTHS[i], index))
+            return i + 1;
+      }
+      return -1;
+   }
+
+   private static int daysInMonth(int year, int month) {
+      if (month == 2 && year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))
+         return 29;
+      return DAYS_IN_MONTH[month - 1];
+   }
+
+   // see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+   private static long daysFromCivil(int year, int month, int day) {
+      long y = month <= 2 ? year - 1 : year;
+      long era = floorDiv(y, 400);
+      long yearOfEra = y - era * 400;
+      long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097 + dayOfEra - 719468;
+   }
+
+   private static StringBuilder appendIsoDate(StringBuilder out, Fields fields) {
+      append4(out, fields.year).append('-');
+      return append2(append2(out, fields.month).append('-'), fields.day);
+   }
+
+   private static StringBuilder appendTime(StringBuilder out, Fields fields) {
+      append2(out, fields.hour).append(':');
+      return append2(append2(out, fields.minute).append(':'), fields.second);
+   }
+
+   private static StringBuilder append2(StringBuilder out, int value) {
+      return out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+   }
+
+   private static StringBuilder append4(StringBuilder out, int value) {
+      return append2(append2(out, value / 100), value % 100);
+   }
+
+   private static long floorDiv(long x, long y) {
+      long q = x / y;
+      return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+   }
+
+   private static long floorMod(long x, long y) {
+      return x - floorDiv(x, y) * y;
+   }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import org.jclouds.http.internal.AdaptiveHttpRequestLimiter;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Paces requests before they are sent, instead of backing off after the provider has already throttled them. One
+ * instance is shared by every thread of a context, so all callers see the same limits.
+ * <p>
+ * A permit is acquired before each attempt, including retries, and released as soon as the response status is known,
+ * so that time spent in retry back-off does not hold on to it.
+ */
+@Beta
+@ImplementedBy(AdaptiveHttpRequestLimiter.class)
+public interface HttpRequestLimiter {
+
+   HttpRequestLimiter NO_LIMIT = new HttpRequestLimiter() {
+      @Override
+      public Permit acquire(HttpRequest request) {
+         return Permit.NONE;
+      }
+
+      @Override
+      public String toString() {
+         return "NO_LIMIT";
+      }
+   };
+
+   /**
+    * Blocks until the request may be sent.
+    */
+   Permit acquire(HttpRequest request) throws InterruptedException;
+
+   interface Permit {
+
+      Permit NONE = new Permit() {
+         @Override
+         public void release(@Nullable HttpResponse response) {
+         }
+
+         @Override
+         public String toString() {
+            return "NONE";
+         }
+      };
+
+      /**
+       * Returns the permit, exactly once.
+       *
+       * @param response the response of the attempt, or null if it failed without one
+       */
+      void release(@Nullable HttpResponse response);
+   }
+}
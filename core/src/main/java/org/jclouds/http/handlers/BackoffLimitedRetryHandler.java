@@ -32,6 +32,7 @@ import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.logging.Logger;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Throwables;
 import com.google.inject.Inject;
 
@@ -78,6 +79,8 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
 
    public static final BackoffLimitedRetryHandler INSTANCE = new BackoffLimitedRetryHandler();
 
+   private static final ThreadLocal<long[]> deferredDelay = new ThreadLocal<long[]>();
+
    @Inject(optional = true)
    @Named(Constants.PROPERTY_MAX_RETRIES)
    private int retryCountLimit = 5;
@@ -135,10 +138,46 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
       delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
       delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
       logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, delayMs, commandDescription);
+      if (deferDelay(delayMs)) {
+         return;
+      }
       try {
          Thread.sleep(delayMs);
       } catch (InterruptedException e) {
          Throwables.propagate(e);
       }
    }
+
+   /**
+    * Until {@link #stopDeferringDelays()}, retry handlers running on the calling thread record their back-off delays
+    * instead of sleeping. Asynchronous executors use this to wait for the retry on a scheduler rather than on the
+    * thread that delivered the response.
+    */
+   @Beta
+   public static void startDeferringDelays() {
+      deferredDelay.set(new long[1]);
+   }
+
+   /**
+    * @return the total back-off in milliseconds requested since {@link #startDeferringDelays()}
+    */
+   @Beta
+   public static long stopDeferringDelays() {
+      long[] delay = deferredDelay.get();
+      deferredDelay.remove();
+      return delay == null ? 0 : delay[0];
+   }
+
+   /**
+    * @return true if the delay was recorded for the caller of {@link #startDeferringDelays()}, false if the current
+    *         thread has to wait it out itself
+    */
+   static boolean deferDelay(long delayMs) {
+      long[] delay = deferredDelay.get();
+      if (delay == null) {
+         return false;
+      }
+      delay[0] += delayMs;
+      return true;
+   }
 }
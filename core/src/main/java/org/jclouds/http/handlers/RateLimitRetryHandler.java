@@ -101,6 +101,10 @@ public abstract class RateLimitRetryHandler implements HttpRetryHandler {
                   maxRateLimitWait, waitPeriod);
             return false;
          }
+         if (BackoffLimitedRetryHandler.deferDelay(waitPeriod)) {
+            logger.debug("Deferring a wait of %sms before retrying, as defined by the rate limit", waitPeriod);
+            return true;
+         }
 
          try {
             logger.debug("Waiting %sms before retrying, as defined by the rate limit", waitPeriod);
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.jclouds.Constants.PROPERTY_ADAPTIVE_CONCURRENCY;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_REQUEST_RATE_LIMIT;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestLimiter;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+import org.jclouds.providers.ProviderMetadata;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Inject;
+
+/**
+ * Limits requests per provider, host and api method, with state shared by every thread of the context.
+ * <p>
+ * When {@link org.jclouds.Constants#PROPERTY_REQUEST_RATE_LIMIT} is set, requests draw from a token bucket refilled at
+ * that many requests per second. The rate is halved when the provider throttles a request (429 or 503) and recovers
+ * additively as requests succeed again.
+ * <p>
+ * When {@link org.jclouds.Constants#PROPERTY_ADAPTIVE_CONCURRENCY} is true, the number of requests in flight starts
+ * at {@link org.jclouds.Constants#PROPERTY_MAX_CONNECTIONS_PER_CONTEXT}. It is halved on throttling, grows by one per
+ * round of successful requests, and shrinks gradually while recent latency is well above its long-term average.
+ * <p>
+ * With neither property set, requests are not limited.
+ */
+@Beta
+@Singleton
+public class AdaptiveHttpRequestLimiter implements HttpRequestLimiter {
+
+   /** how much slower than usual recent requests may be before concurrency is reduced */
+   private static final double LATENCY_TOLERANCE = 2.0;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_REQUEST_RATE_LIMIT)
+   private double rateLimit = 0;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_ADAPTIVE_CONCURRENCY)
+   private boolean adaptiveConcurrency = false;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT)
+   private int maxConcurrency = 20;
+
+   @Inject(optional = true)
+   private ProviderMetadata provider;
+
+   private final LoadingCache<String, Limit> limits = CacheBuilder.newBuilder().build(
+         new CacheLoader<String, Limit>() {
+            @Override
+            public Limit load(String key) {
+               logger.debug("limiting %s to %s requests per second and %s concurrent requests", key,
+                     rateLimit > 0 ? rateLimit : "unlimited", adaptiveConcurrency ? maxConcurrency : "unlimited");
+               return new Limit(rateLimit, adaptiveConcurrency ? maxConcurrency : 0);
+            }
+         });
+
+   @Override
+   public Permit acquire(HttpRequest request) throws InterruptedException {
+      if (rateLimit <= 0 && !adaptiveConcurrency)
+         return Permit.NONE;
+      final Limit limit = limits.getUnchecked(key(request));
+      limit.acquire();
+      final long start = System.nanoTime();
+      return new Permit() {
+         @Override
+         public void release(HttpResponse response) {
+            limit.release(response, System.nanoTime() - start);
+         }
+      };
+   }
+
+   private String key(HttpRequest request) {
+      String method = request instanceof GeneratedHttpRequest ? ((GeneratedHttpRequest) request).getInvocation()
+            .getInvokable().getName() : request.getMethod();
+      return (provider != null ? provider.getId() : "") + " " + request.getEndpoint().getHost() + " " + method;
+   }
+
+   @VisibleForTesting
+   Limit limit(HttpRequest request) {
+      return limits.getUnchecked(key(request));
+   }
+
+   @Override
+   public String toString() {
+      return "AdaptiveHttpRequestLimiter" + limits.asMap();
+   }
+
+   @VisibleForTesting
+   static final class Limit {
+      private final RateLimiter rateLimiter;
+      private final double maxRate;
+      private final int maxConcurrency;
+
+      // guarded by this
+      private double concurrency;
+      private int inFlight;
+      private double shortLatency;
+      private double longLatency;
+
+      Limit(double maxRate, int maxConcurrency) {
+         this.rateLimiter = maxRate > 0 ? RateLimiter.create(maxRate) : null;
+         this.maxRate = maxRate;
+         this.maxConcurrency = maxConcurrency;
+         this.concurrency = maxConcurrency;
+      }
+
+      void acquire() throws InterruptedException {
+         if (rateLimiter != null)
+            rateLimiter.acquire();
+         if (maxConcurrency > 0) {
+            synchronized (this) {
+               while (inFlight >= (int) concurrency)
+                  wait();
+               inFlight++;
+            }
+         }
+      }
+
+      void release(HttpResponse response, long latencyNanos) {
+         boolean throttled = response != null
+               && (response.getStatusCode() == 429 || response.getStatusCode() == 503);
+         if (rateLimiter != null)
+            adjustRate(response, throttled);
+         if (maxConcurrency > 0) {
+            synchronized (this) {
+               inFlight--;
+               if (response != null)
+                  adjustConcurrency(throttled, latencyNanos);
+               notifyAll();
+            }
+         }
+      }
+
+      private synchronized void adjustRate(HttpResponse response, boolean throttled) {
+         double rate = rateLimiter.getRate();
+         if (throttled)
+            rateLimiter.setRate(Math.max(maxRate / 100, rate / 2));
+         else if (response != null && rate < maxRate)
+            rateLimiter.setRate(Math.min(maxRate, rate + maxRate / 100));
+      }
+
+      private void adjustConcurrency(boolean throttled, long latencyNanos) {
+         if (throttled) {
+            concurrency = Math.max(1, concurrency / 2);
+            return;
+         }
+         shortLatency = shortLatency == 0 ? latencyNanos : shortLatency * 0.8 + latencyNanos * 0.2;
+         longLatency = longLatency == 0 ? latencyNanos : longLatency * 0.98 + latencyNanos * 0.02;
+         double gradient = Math.max(0.5, Math.min(1.0, LATENCY_TOLERANCE * longLatency / shortLatency));
+         if (gradient < 1.0)
+            concurrency *= 1 - (1 - gradient) / 5;
+         else
+            concurrency += 1 / concurrency;
+         concurrency = Math.max(1, Math.min(maxConcurrency, concurrency));
+      }
+
+      @VisibleForTesting
+      synchronized int getConcurrencyLimit() {
+         return (int) concurrency;
+      }
+
+      @VisibleForTesting
+      double getRate() {
+         return rateLimiter != null ? rateLimiter.getRate() : 0;
+      }
+
+      @Override
+      public synchronized String toString() {
+         return String.format("[rate=%s, concurrency=%d, inFlight=%d]", getRate(), (int) concurrency, inFlight);
+      }
+   }
+}
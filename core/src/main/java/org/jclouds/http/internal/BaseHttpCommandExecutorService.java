@@ -19,6 +19,7 @@ package org.jclouds.http.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
 import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.http.HttpUtils.wirePayloadIfEnabled;
@@ -27,6 +28,10 @@ import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -36,10 +41,12 @@ import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.HttpRequestLimiter;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
 import org.jclouds.io.ContentMetadataCodec;
@@ -47,6 +54,12 @@ import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
    protected final HttpUtils utils;
@@ -64,6 +77,18 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    protected final HttpWire wire;
 
+   @com.google.inject.Inject(optional = true)
+   protected HttpRequestLimiter limiter = HttpRequestLimiter.NO_LIMIT;
+
+   /**
+    * Waits out the back-off before asynchronous retries. Uses the context scheduler when
+    * {@link org.jclouds.concurrent.config.ScheduledExecutorServiceModule} is installed, and otherwise a shared daemon
+    * thread that exits when idle.
+    */
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_SCHEDULER_THREADS)
+   protected ScheduledExecutorService retryScheduler = DefaultRetryScheduler.INSTANCE;
+
    private final Set<String> idempotentMethods;
 
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
@@ -85,22 +110,16 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       for (;;) {
          HttpRequest request = command.getCurrentRequest();
          Q nativeRequest = null;
+         HttpRequestLimiter.Permit permit = null;
          try {
-            for (HttpRequestFilter filter : request.getFilters()) {
-               request = filter.filter(request);
-            }
-            checkRequestHasContentLengthOrChunkedEncoding(request,
-                  "After filtering, the request has neither chunked encoding nor content length: " + request);
-            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
-            utils.logRequest(headerLog, request, ">>");
+            permit = limiter.acquire(request);
+            request = filterAndLog(request);
             nativeRequest = convert(request);
             response = invoke(nativeRequest);
+            permit.release(response);
+            permit = null;
 
-            logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
-            utils.logResponse(headerLog, response, "<<");
-            if (response.getPayload() != null && wire.enabled())
-               wire.input(response);
+            logResponse(request, response);
             nativeRequest = null; // response took ownership of streams
             int statusCode = response.getStatusCode();
             if (statusCode >= 300) {
@@ -112,6 +131,12 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
                break;
             }
          } catch (Exception e) {
+            if (permit != null) {
+               permit.release(null);
+               permit = null;
+            }
+            if (e instanceof InterruptedException)
+               Thread.currentThread().interrupt();
             IOException ioe = getFirstThrowableOfType(e, IOException.class);
             if (ioe != null && shouldContinue(command, ioe)) {
                continue;
@@ -121,6 +146,8 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             break;
 
          } finally {
+            if (permit != null)
+               permit.release(null);
             cleanup(nativeRequest);
          }
       }
@@ -129,6 +156,158 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       return response;
    }
 
+   /**
+    * Runs the same filtering, retries and error handling as {@link #invoke(HttpCommand)}, but sends each attempt
+    * with {@link #invokeAsync(Object)} and continues when its response arrives instead of parking the calling thread.
+    * Drivers with a non-blocking transport implement {@link AsyncHttpCommandExecutorService} by exposing this method.
+    * <p/>
+    * Back-off delays requested by the retry handlers are waited out on the {@link #retryScheduler} rather than on
+    * the thread that delivered the response. Cancelling the returned future cancels the attempt in flight. Waiting
+    * for the {@link HttpRequestLimiter} still blocks the thread sending the attempt.
+    */
+   protected ListenableFuture<HttpResponse> invokeAsync(HttpCommand command) {
+      SettableFuture<HttpResponse> result = SettableFuture.create();
+      sendAsync(command, result);
+      return result;
+   }
+
+   private void sendAsync(final HttpCommand command, final SettableFuture<HttpResponse> result) {
+      if (result.isDone()) {
+         return; // cancelled while waiting for the retry
+      }
+      final HttpRequest request;
+      final Q nativeRequest;
+      final HttpRequestLimiter.Permit permit;
+      final ListenableFuture<HttpResponse> response;
+      try {
+         permit = limiter.acquire(command.getCurrentRequest());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         failOrRetryAsync(command, e, result);
+         return;
+      }
+      try {
+         request = filterAndLog(command.getCurrentRequest());
+         nativeRequest = convert(request);
+      } catch (Exception e) {
+         permit.release(null);
+         failOrRetryAsync(command, e, result);
+         return;
+      }
+      try {
+         response = invokeAsync(nativeRequest);
+      } catch (Exception e) {
+         permit.release(null);
+         cleanup(nativeRequest);
+         failOrRetryAsync(command, e, result);
+         return;
+      }
+      result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (result.isCancelled()) {
+               response.cancel(true);
+            }
+         }
+      }, MoreExecutors.directExecutor());
+      Futures.addCallback(response, new FutureCallback<HttpResponse>() {
+         @Override
+         public void onSuccess(HttpResponse response) {
+            permit.release(response);
+            if (result.isDone()) {
+               releasePayload(response);
+               return;
+            }
+            boolean retry = false;
+            Exception error = null;
+            long delayMs;
+            BackoffLimitedRetryHandler.startDeferringDelays();
+            try {
+               logResponse(request, response);
+               retry = response.getStatusCode() >= 300 && shouldContinue(command, response);
+            } catch (Exception e) {
+               error = e;
+            } finally {
+               delayMs = BackoffLimitedRetryHandler.stopDeferringDelays();
+            }
+            if (error != null) {
+               failOrRetryAsync(command, error, result);
+            } else if (retry) {
+               retryAsync(command, result, delayMs);
+            } else if (command.getException() != null) {
+               result.setException(command.getException());
+            } else {
+               result.set(response);
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            permit.release(null);
+            cleanup(nativeRequest);
+            failOrRetryAsync(command, t, result);
+         }
+      }, MoreExecutors.directExecutor());
+   }
+
+   private void failOrRetryAsync(HttpCommand command, Throwable t, SettableFuture<HttpResponse> result) {
+      if (result.isDone()) {
+         return;
+      }
+      IOException ioe = getFirstThrowableOfType(t, IOException.class);
+      if (ioe != null) {
+         boolean retry;
+         long delayMs;
+         BackoffLimitedRetryHandler.startDeferringDelays();
+         try {
+            retry = shouldContinue(command, ioe);
+         } finally {
+            delayMs = BackoffLimitedRetryHandler.stopDeferringDelays();
+         }
+         if (retry) {
+            retryAsync(command, result, delayMs);
+            return;
+         }
+      }
+      command.setException(new HttpResponseException(t.getMessage() + " connecting to "
+            + command.getCurrentRequest().getRequestLine(), command, null, t));
+      result.setException(command.getException());
+   }
+
+   private void retryAsync(final HttpCommand command, final SettableFuture<HttpResponse> result, long delayMs) {
+      try {
+         retryScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+               sendAsync(command, result);
+            }
+         }, delayMs, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+         command.setException(new HttpResponseException("could not schedule a retry of "
+               + command.getCurrentRequest().getRequestLine(), command, null, e));
+         result.setException(command.getException());
+      }
+   }
+
+   private HttpRequest filterAndLog(HttpRequest request) {
+      for (HttpRequestFilter filter : request.getFilters()) {
+         request = filter.filter(request);
+      }
+      checkRequestHasContentLengthOrChunkedEncoding(request,
+            "After filtering, the request has neither chunked encoding nor content length: " + request);
+      logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+      wirePayloadIfEnabled(wire, request);
+      utils.logRequest(headerLog, request, ">>");
+      return request;
+   }
+
+   private void logResponse(HttpRequest request, HttpResponse response) {
+      logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+      utils.logResponse(headerLog, response, "<<");
+      if (response.getPayload() != null && wire.enabled())
+         wire.input(response);
+   }
+
    @VisibleForTesting
    boolean shouldContinue(HttpCommand command, HttpResponse response) {
       boolean shouldContinue = false;
@@ -171,6 +350,24 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    protected abstract HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException;
 
+   /**
+    * Sends a request without blocking for its response. Only drivers that expose
+    * {@link #invokeAsync(HttpCommand)} need to implement this.
+    */
+   protected ListenableFuture<HttpResponse> invokeAsync(Q nativeRequest) throws IOException, InterruptedException {
+      throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support asynchronous requests");
+   }
+
    protected abstract void cleanup(Q nativeRequest);
 
+   private static final class DefaultRetryScheduler {
+      static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactoryBuilder().setNameFormat("jclouds-retry-%d").setDaemon(true).build());
+
+      static {
+         INSTANCE.setKeepAliveTime(60, TimeUnit.SECONDS);
+         INSTANCE.allowCoreThreadTimeOut(true);
+      }
+   }
+
 }
@@ -16,6 +16,13 @@
  */
 package org.jclouds.io;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
 import com.google.common.annotations.Beta;
 import com.google.common.collect.Iterables;
 import com.google.common.io.ByteSource;
@@ -30,4 +37,98 @@ public class ByteSources {
    public static ByteSource repeatingArrayByteSource(final byte[] input) {
       return ByteSource.concat(Iterables.cycle(ByteSource.wrap(input)));
    }
+
+   /**
+    * Create a ByteSource over the remaining bytes of {@code buffer} without copying them. Each stream reads from its
+    * own view of the buffer, so the position and limit of {@code buffer} are never modified.
+    */
+   public static ByteSource wrap(ByteBuffer buffer) {
+      return new ByteBufferByteSource(checkNotNull(buffer, "buffer").duplicate());
+   }
+
+   private static final class ByteBufferByteSource extends ByteSource {
+      private final ByteBuffer buffer;
+
+      ByteBufferByteSource(ByteBuffer buffer) {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public InputStream openStream() {
+         return new ByteBufferInputStream(buffer.duplicate());
+      }
+
+      @Override
+      public long size() {
+         return buffer.remaining();
+      }
+
+      @Override
+      public ByteSource slice(long offset, long length) {
+         checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+         checkArgument(length >= 0, "length (%s) may not be negative", length);
+         int start = (int) Math.min(offset, buffer.remaining());
+         int count = (int) Math.min(length, buffer.remaining() - start);
+         ByteBuffer slice = buffer.duplicate();
+         slice.position(buffer.position() + start);
+         slice.limit(buffer.position() + start + count);
+         return new ByteBufferByteSource(slice);
+      }
+   }
+
+   private static final class ByteBufferInputStream extends InputStream {
+      private final ByteBuffer buffer;
+      private int mark;
+
+      ByteBufferInputStream(ByteBuffer buffer) {
+         this.buffer = buffer;
+         this.mark = buffer.position();
+      }
+
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+         checkPositionIndexes(off, off + len, b.length);
+         if (len == 0) {
+            return 0;
+         }
+         if (!buffer.hasRemaining()) {
+            return -1;
+         }
+         int count = Math.min(len, buffer.remaining());
+         buffer.get(b, off, count);
+         return count;
+      }
+
+      @Override
+      public long skip(long n) {
+         int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+         buffer.position(buffer.position() + count);
+         return count;
+      }
+
+      @Override
+      public int available() {
+         return buffer.remaining();
+      }
+
+      @Override
+      public boolean markSupported() {
+         return true;
+      }
+
+      @Override
+      public synchronized void mark(int readlimit) {
+         mark = buffer.position();
+      }
+
+      @Override
+      public synchronized void reset() {
+         buffer.position(mark);
+      }
+   }
 }
@@ -24,6 +24,10 @@ import static org.jclouds.util.Closeables2.closeQuietly;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
 import com.google.common.annotations.Beta;
 import com.google.common.hash.HashCode;
@@ -74,4 +78,35 @@ public class ByteStreams2 {
          total += (long)len;
       }
    }
+
+   /**
+    * Copies the stream into {@code to} starting at {@code position} using positional writes, so several callers may
+    * fill disjoint regions of the same channel concurrently. {@code buffer} is reused for every read and may be
+    * direct to avoid an extra copy inside the channel.
+    *
+    * @return the number of bytes written
+    */
+   public static long copy(InputStream from, FileChannel to, long position, ByteBuffer buffer) throws IOException {
+      checkNotNull(from, "from");
+      checkNotNull(to, "to");
+      checkNotNull(buffer, "buffer");
+      checkArgument(position >= 0, "position must be >= 0");
+      checkArgument(buffer.capacity() >= 1, "buffer capacity must be >= 1");
+
+      ReadableByteChannel in = Channels.newChannel(from);
+      long total = 0L;
+
+      while (true) {
+         buffer.clear();
+         int len = in.read(buffer);
+         if (len == INPUT_STREAM_READ_END_OF_STREAM_INDICATOR) {
+            return total;
+         }
+
+         buffer.flip();
+         while (buffer.hasRemaining()) {
+            total += to.write(buffer, position + total);
+         }
+      }
+   }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.reflect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Predicates.notNull;
+import static com.google.common.collect.Iterables.all;
+import static org.jclouds.util.Throwables2.propagateIfPossible;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.Invokable;
+
+/**
+ * Base class of API implementations generated at build time by the jclouds annotation processor.
+ * <p>
+ * A generated class implements the API interface directly and resolves the {@link Invokable} of each of its methods
+ * once, when the class is initialized. Calls are then passed to the same invocation function a
+ * {@link FunctionalReflection#newProxy dynamic proxy} would use, without going through {@link java.lang.reflect.Proxy}
+ * or looking up the invoked method.
+ * 
+ * @see GeneratedApis
+ */
+@Beta
+public abstract class GeneratedApi {
+
+   private final Function<Invocation, Object> invocationFunction;
+
+   protected GeneratedApi(Function<Invocation, Object> invocationFunction) {
+      this.invocationFunction = checkNotNull(invocationFunction, "invocationFunction");
+   }
+
+   protected static Invokable<?, Object> method(Class<?> ownerType, String name, Class<?>... parameterTypes) {
+      return Reflection2.method(ownerType, name, parameterTypes);
+   }
+
+   /**
+    * Invokes the function backing this api, translating exceptions the same way a dynamic proxy does. Generated code
+    * rethrows declared exceptions as is and wraps any other checked exception in an
+    * {@link java.lang.reflect.UndeclaredThrowableException}.
+    */
+   protected final Object invoke(Invokable<?, Object> invokable, Object[] argv) throws Throwable {
+      List<Object> args = Arrays.asList(argv);
+      if (all(args, notNull()))
+         args = ImmutableList.copyOf(args);
+      else
+         args = Collections.unmodifiableList(args);
+      Invocation invocation = Invocation.create(invokable, args);
+      try {
+         return invocationFunction.apply(invocation);
+      } catch (RuntimeException e) {
+         propagateIfPossible(e, invokable.getExceptionTypes());
+         throw e;
+      }
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o)
+         return true;
+      if (o == null || getClass() != o.getClass())
+         return false;
+      return invocationFunction.equals(GeneratedApi.class.cast(o).invocationFunction);
+   }
+
+   @Override
+   public int hashCode() {
+      return invocationFunction.hashCode();
+   }
+
+   @Override
+   public String toString() {
+      return invocationFunction.toString();
+   }
+}
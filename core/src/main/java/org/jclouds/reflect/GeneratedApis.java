@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.reflect;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Locates the implementations the jclouds annotation processor generates for api interfaces.
+ * <p>
+ * The implementation of {@code org.example.FooApi} is named {@code org.example.GeneratedApi_FooApi}, and that of a
+ * nested {@code org.example.Outer.FooApi} is named {@code org.example.GeneratedApi_Outer_FooApi}. Apis compiled
+ * without the processor have no generated implementation, and callers fall back to dynamic proxies.
+ * 
+ * @see org.jclouds.Constants#PROPERTY_GENERATED_APIS
+ */
+@Beta
+public final class GeneratedApis {
+
+   public static final String PREFIX = "GeneratedApi_";
+
+   private static final LoadingCache<Class<?>, Optional<Constructor<?>>> constructors = CacheBuilder.newBuilder()
+         .weakKeys().build(new CacheLoader<Class<?>, Optional<Constructor<?>>>() {
+            @Override
+            public Optional<Constructor<?>> load(Class<?> api) {
+               Class<?> generated;
+               try {
+                  generated = Class.forName(generatedClassName(api), true, api.getClassLoader());
+               } catch (ClassNotFoundException e) {
+                  return Optional.absent();
+               } catch (LinkageError e) {
+                  return Optional.absent();
+               }
+               if (!api.isAssignableFrom(generated) || !GeneratedApi.class.isAssignableFrom(generated))
+                  return Optional.absent();
+               try {
+                  Constructor<?> constructor = generated.getDeclaredConstructor(Function.class);
+                  constructor.setAccessible(true);
+                  return Optional.<Constructor<?>> of(constructor);
+               } catch (NoSuchMethodException e) {
+                  return Optional.absent();
+               }
+            }
+         });
+
+   /**
+    * Returns the binary name of the class generated for {@code api}, whether or not it exists.
+    */
+   public static String generatedClassName(Class<?> api) {
+      return generatedClassName(api.getName());
+   }
+
+   static String generatedClassName(String binaryName) {
+      int lastDot = binaryName.lastIndexOf('.');
+      String packagePrefix = binaryName.substring(0, lastDot + 1);
+      return packagePrefix + PREFIX + binaryName.substring(lastDot + 1).replace('$', '_');
+   }
+
+   /**
+    * Returns a new instance of the generated implementation of {@code api} dispatching to {@code invocationFunction},
+    * or absent if there is none.
+    */
+   public static <T> Optional<T> newInstance(Class<T> api, Function<Invocation, Object> invocationFunction) {
+      checkNotNull(api, "api");
+      checkNotNull(invocationFunction, "invocationFunction");
+      Optional<Constructor<?>> constructor = constructors.getUnchecked(api);
+      if (!constructor.isPresent())
+         return Optional.absent();
+      try {
+         return Optional.of(api.cast(constructor.get().newInstance(invocationFunction)));
+      } catch (InvocationTargetException e) {
+         throw propagate(e.getCause());
+      } catch (InstantiationException e) {
+         throw propagate(e);
+      } catch (IllegalAccessException e) {
+         throw propagate(e);
+      }
+   }
+
+   private GeneratedApis() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
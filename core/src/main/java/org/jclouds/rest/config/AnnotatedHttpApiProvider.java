@@ -19,12 +19,16 @@ package org.jclouds.rest.config;
 import java.lang.reflect.Proxy;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
+import org.jclouds.reflect.GeneratedApis;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.internal.DelegatesToInvocationFunction;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.inject.Provider;
 
 @Singleton
@@ -32,6 +36,10 @@ public class AnnotatedHttpApiProvider<A> implements Provider<A> {
    private final Class<A> annotatedApiType;
    private final DelegatesToInvocationFunction<A, Function<Invocation, Object>> httpInvoker;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_GENERATED_APIS)
+   private boolean generatedApis = false;
+
    @Inject
    private AnnotatedHttpApiProvider(DelegatesToInvocationFunction<A, Function<Invocation, Object>> httpInvoker,
          Class<A> annotatedApiType) {
@@ -42,6 +50,11 @@ public class AnnotatedHttpApiProvider<A> implements Provider<A> {
    @SuppressWarnings("unchecked")
    @Override
    public A get() {
+      if (generatedApis) {
+         Optional<A> generated = GeneratedApis.newInstance(annotatedApiType, httpInvoker);
+         if (generated.isPresent())
+            return generated.get();
+      }
       return (A) Proxy.newProxyInstance(annotatedApiType.getClassLoader(), new Class<?>[] { annotatedApiType }, httpInvoker);
    }
 }
@@ -38,6 +38,14 @@ public interface InvocationConfig {
     */
    Optional<Long> getTimeoutNanos(Invocation in);
 
+   /**
+    * If this is present, idempotent reads made by Sync method calls are sent a
+    * second time once they have been outstanding longer than this percentile
+    * (0-100) of the method's recent response times, and the first response
+    * is used.
+    */
+   Optional<Double> getHedgePercentile(Invocation in);
+
    /**
     * command named used in logging and configuration keys.
     */
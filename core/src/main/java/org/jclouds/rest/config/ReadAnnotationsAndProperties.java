@@ -19,6 +19,7 @@ package org.jclouds.rest.config;
 import static com.google.common.base.Optional.fromNullable;
 import static com.google.common.collect.Maps.transformValues;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_HEDGES_PREFIX;
 import static org.jclouds.Constants.PROPERTY_TIMEOUTS_PREFIX;
 import static org.jclouds.util.Maps2.transformKeys;
 import static org.jclouds.util.Predicates2.startsWith;
@@ -46,6 +47,7 @@ public class ReadAnnotationsAndProperties implements InvocationConfig {
    private final Injector injector;
    private final org.jclouds.Fallback<Object> defaultFallback;
    private final Map<String, Long> timeouts;
+   private final Map<String, Double> hedgePercentiles;
 
    @Inject
    ReadAnnotationsAndProperties(Injector injector,
@@ -54,24 +56,34 @@ public class ReadAnnotationsAndProperties implements InvocationConfig {
       this.injector = injector;
       this.defaultFallback = defaultFallback;
       this.timeouts = timeouts(filterStringsBoundByName);
+      this.hedgePercentiles = hedgePercentiles(filterStringsBoundByName);
    }
 
    @Override
    public Optional<Long> getTimeoutNanos(Invocation in) {
+      Optional<Long> timeoutMillis = lookup(timeouts, in);
+      if (timeoutMillis.isPresent())
+         return Optional.of(MILLISECONDS.toNanos(timeoutMillis.get()));
+      return Optional.absent();
+   }
+
+   @Override
+   public Optional<Double> getHedgePercentile(Invocation in) {
+      return lookup(hedgePercentiles, in);
+   }
+
+   private <T> Optional<T> lookup(Map<String, T> valuesByName, Invocation in) {
       String commandName = getCommandName(in);
-      Optional<Long> defaultMillis = fromNullable(timeouts.get("default"));
-      Optional<Long> timeoutMillis = fromNullable(timeouts.get(commandName));
+      Optional<T> defaultValue = fromNullable(valuesByName.get("default"));
+      Optional<T> value = fromNullable(valuesByName.get(commandName));
       Invokable<?, ?> invoked = in.getInvokable();
       if (invoked.isAnnotationPresent(Named.class)) {
-         timeoutMillis = timeoutMillis.or(defaultMillis);
+         return value.or(defaultValue);
       } else {
          // TODO: remove old logic once Named annotations are on all methods
          String className = invoked.getOwnerType().getRawType().getSimpleName();
-         timeoutMillis = timeoutMillis.or(fromNullable(timeouts.get(className))).or(defaultMillis);
+         return value.or(fromNullable(valuesByName.get(className))).or(defaultValue);
       }
-      if (timeoutMillis.isPresent())
-         return Optional.of(MILLISECONDS.toNanos(timeoutMillis.get()));
-      return Optional.absent();
    }
 
    @Override
@@ -95,6 +107,24 @@ public class ReadAnnotationsAndProperties implements InvocationConfig {
       return defaultFallback;
    }
 
+   /**
+    * hedge percentiles configured in properties
+    */
+   static Map<String, Double> hedgePercentiles(Function<Predicate<String>, Map<String, String>> filterStringsBoundByName) {
+      Map<String, String> stringBoundWithHedgesPrefix = filterStringsBoundByName
+            .apply(startsWith(PROPERTY_HEDGES_PREFIX));
+      Map<String, Double> doublesByName = transformValues(stringBoundWithHedgesPrefix, new Function<String, Double>() {
+         public Double apply(String input) {
+            return Double.valueOf(String.valueOf(input));
+         }
+      });
+      return transformKeys(doublesByName, new Function<String, String>() {
+         public String apply(String input) {
+            return input.replaceFirst(Pattern.quote(PROPERTY_HEDGES_PREFIX), "");
+         }
+      });
+   }
+
    /**
     * override timeout by values configured in properties(in ms)
     */
@@ -39,11 +39,14 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Qualifier;
 
+import org.jclouds.Constants;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.lifecycle.Closer;
 import org.jclouds.reflect.FunctionalReflection;
+import org.jclouds.reflect.GeneratedApis;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.reflect.InvocationSuccess;
 import org.jclouds.rest.AuthorizationException;
@@ -75,7 +78,7 @@ import com.google.inject.util.Types;
  */
 @Beta
 public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Object>> implements
-      InvocationHandler {
+      InvocationHandler, Function<Invocation, Object> {
 
    private static final Object[] NO_ARGS = {};
 
@@ -139,6 +142,15 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
       }
    }
 
+   /**
+    * Entry point for {@link org.jclouds.reflect.GeneratedApi generated} implementations of the api, which resolve the
+    * invoked method themselves.
+    */
+   @Override
+   public Object apply(Invocation invocation) {
+      return handle(invocation);
+   }
+
    protected Object handle(Invocation invocation) {
       Invokable<?, ?> invokable = invocation.getInvokable();
       if (isCloseMethod(invokable)) {
@@ -179,6 +191,10 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
    protected final Function<InvocationSuccess, Optional<Object>> optionalConverter;
    protected final F methodInvoker;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_GENERATED_APIS)
+   private boolean generatedApis = false;
+
    @Inject
    DelegatesToInvocationFunction(Injector injector, SetCaller setCaller, 
          Class<S> ownerType, Function<InvocationSuccess, Optional<Object>> optionalConverter, F methodInvoker) {
@@ -200,7 +216,11 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
       } finally {
          setCaller.exit();
       }
-      Object result = FunctionalReflection.newProxy(returnType, delegate);
+      Object result = null;
+      if (generatedApis)
+         result = GeneratedApis.newInstance(returnType, delegate).orNull();
+      if (result == null)
+         result = FunctionalReflection.newProxy(returnType, delegate);
       if (isReturnTypeOptional(caller.getInvokable())) {
          result = optionalConverter.apply(InvocationSuccess.create(caller, result));
       }
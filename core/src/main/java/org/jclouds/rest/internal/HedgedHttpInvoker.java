@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.Constants.PROPERTY_HEDGE_BUDGET;
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sends a second copy of a slow idempotent read and returns whichever response arrives first.
+ * <p>
+ * Response times are tracked per command. Until a command has {@value #MIN_SAMPLES} samples, or for requests that may
+ * not be hedged, the request is sent once on the calling thread. Otherwise the request is sent from a thread of the
+ * invoker's own pool and, once it has been outstanding longer than the configured percentile of recent response times,
+ * a copy is sent if the budget allows. The response that loses the race is released.
+ * <p>
+ * The pool hands work straight to an idle thread and never queues it, so callers never wait for a slot, even when
+ * they already run on the user executor. When no thread is free the request is sent once on the calling thread, and
+ * a copy that cannot get a thread is not sent.
+ */
+@Singleton
+class HedgedHttpInvoker {
+
+   @VisibleForTesting
+   static final int MIN_SAMPLES = 16;
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   private final ExecutorService attempts;
+   private final Set<String> hedgedMethods;
+   private final double budget;
+   private final LoadingCache<String, Latencies> latencies = CacheBuilder.newBuilder().build(
+         new CacheLoader<String, Latencies>() {
+            @Override
+            public Latencies load(String commandName) {
+               return new Latencies();
+            }
+         });
+
+   // guarded by this
+   private double credits;
+
+   @Inject
+   HedgedHttpInvoker(@Named(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT) int maxConnections,
+         @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods, @Named(PROPERTY_HEDGE_BUDGET) int budgetPercent) {
+      // more attempts than connections would only wait for a connection; idle threads exit after a minute
+      this(new ThreadPoolExecutor(0, maxConnections > 0 ? maxConnections : Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), new ThreadFactoryBuilder().setNameFormat("jclouds-hedge-%d")
+                  .setDaemon(true).build()), idempotentMethods, budgetPercent);
+   }
+
+   /**
+    * @param attempts
+    *           must reject work it cannot start right away, rather than queue it
+    */
+   @VisibleForTesting
+   HedgedHttpInvoker(ExecutorService attempts, String idempotentMethods, int budgetPercent) {
+      this.attempts = attempts;
+      // only safe methods: a hedged DELETE could see the 404 caused by its twin
+      this.hedgedMethods = Sets.intersection(ImmutableSet.of("GET", "HEAD"),
+            ImmutableSet.copyOf(Splitter.on(',').trimResults().split(idempotentMethods))).immutableCopy();
+      this.budget = budgetPercent / 100.0;
+   }
+
+   HttpResponse invoke(HttpCommandExecutorService http, String commandName, HttpCommand command, double percentile) {
+      HttpRequest request = command.getCurrentRequest();
+      if (!hedgedMethods.contains(request.getMethod()) || request.getPayload() != null)
+         return http.invoke(command);
+      Latencies latency = latencies.getUnchecked(commandName);
+      Optional<Long> hedgeAfterNanos = latency.percentile(percentile);
+      long start = System.nanoTime();
+      if (!hedgeAfterNanos.isPresent()) {
+         HttpResponse response = http.invoke(command);
+         latency.record(System.nanoTime() - start);
+         return response;
+      }
+      earnCredit();
+      Race race = new Race();
+      Future<?> primary;
+      try {
+         primary = attempts.submit(race.attempt(http, command, true));
+      } catch (RejectedExecutionException e) {
+         logger.trace(">> no thread free to hedge %s, sending it once", commandName);
+         HttpResponse response = http.invoke(command);
+         latency.record(System.nanoTime() - start);
+         return response;
+      }
+      Future<?> hedge = null;
+      try {
+         try {
+            return race.winner.get(hedgeAfterNanos.get(), NANOSECONDS);
+         } catch (TimeoutException e) {
+            if (spendCredit()) {
+               logger.debug(">> hedging %s after %sms", commandName, NANOSECONDS.toMillis(hedgeAfterNanos.get()));
+               Runnable attempt = race.attempt(http, new HttpCommand(request), false);
+               try {
+                  hedge = attempts.submit(attempt);
+               } catch (RejectedExecutionException rejected) {
+                  race.withdraw();
+               }
+            }
+            return race.winner.get();
+         }
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } finally {
+         latency.record(System.nanoTime() - start);
+         primary.cancel(true);
+         if (hedge != null)
+            hedge.cancel(true);
+      }
+   }
+
+   private synchronized void earnCredit() {
+      credits = Math.min(Math.max(1, budget * 100), credits + budget);
+   }
+
+   private synchronized boolean spendCredit() {
+      if (credits < 1)
+         return false;
+      credits--;
+      return true;
+   }
+
+   /**
+    * The first successful attempt wins. If all attempts fail, the failure of the original request is reported.
+    */
+   private static final class Race {
+      final SettableFuture<HttpResponse> winner = SettableFuture.create();
+      final AtomicInteger pending = new AtomicInteger();
+      final AtomicReference<Throwable> primaryFailure = new AtomicReference<Throwable>();
+
+      Runnable attempt(final HttpCommandExecutorService http, final HttpCommand command, final boolean primary) {
+         pending.incrementAndGet();
+         return new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  HttpResponse response = http.invoke(command);
+                  if (!winner.set(response))
+                     releasePayload(response);
+               } catch (Throwable t) {
+                  if (primary)
+                     primaryFailure.set(t);
+                  finish(t);
+               }
+            }
+         };
+      }
+
+      /**
+       * Gives up an attempt that was never started.
+       */
+      void withdraw() {
+         finish(null);
+      }
+
+      private void finish(Throwable failure) {
+         if (pending.decrementAndGet() == 0)
+            winner.setException(primaryFailure.get() != null ? primaryFailure.get() : failure);
+      }
+   }
+
+   @VisibleForTesting
+   Latencies latencies(String commandName) {
+      return latencies.getUnchecked(commandName);
+   }
+
+   /**
+    * Recent response times of one command.
+    */
+   @VisibleForTesting
+   static final class Latencies {
+      private static final int SIZE = 256;
+      private static final int RESORT_EVERY = 16;
+
+      // guarded by this
+      private final long[] samples = new long[SIZE];
+      private int count;
+      private long[] sorted;
+
+      synchronized void record(long nanos) {
+         samples[count % SIZE] = nanos;
+         count++;
+         if (count >= MIN_SAMPLES && (sorted == null || count % RESORT_EVERY == 0)) {
+            sorted = Arrays.copyOf(samples, Math.min(count, SIZE));
+            Arrays.sort(sorted);
+         }
+      }
+
+      synchronized Optional<Long> percentile(double percentile) {
+         if (sorted == null)
+            return Optional.absent();
+         int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+         return Optional.of(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+      }
+   }
+}
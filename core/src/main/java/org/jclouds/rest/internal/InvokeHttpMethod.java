@@ -20,12 +20,15 @@ import static com.google.common.base.Objects.equal;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Throwables.propagate;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 
 import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
@@ -40,6 +43,12 @@ import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.TimeLimiter;
 
 public class InvokeHttpMethod implements Function<Invocation, Object> {
@@ -52,21 +61,29 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
    private final TimeLimiter timeLimiter;
    private final Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest;
    private final InvocationConfig config;
+   private final ListeningExecutorService userExecutor;
+   private final HedgedHttpInvoker hedger;
 
    @Inject
    @VisibleForTesting
    InvokeHttpMethod(Function<Invocation, HttpRequest> annotationProcessor,
          HttpCommandExecutorService http, Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest,
-         TimeLimiter timeLimiter, InvocationConfig config) {
+         TimeLimiter timeLimiter, InvocationConfig config,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, HedgedHttpInvoker hedger) {
       this.annotationProcessor = annotationProcessor;
       this.http = http;
       this.timeLimiter = timeLimiter;
       this.transformerForRequest = transformerForRequest;
       this.config = config;
+      this.userExecutor = userExecutor;
+      this.hedger = hedger;
    }
 
    @Override
    public Object apply(Invocation in) {
+      if (isAsync(in)) {
+         return invokeAsync(in);
+      }
       Optional<Long> timeoutNanos = config.getTimeoutNanos(in);
       if (timeoutNanos.isPresent()) {
          return invokeWithTimeout(in, timeoutNanos.get());
@@ -78,16 +95,20 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
     * invokes the {@linkplain HttpCommand} associated with {@code invocation},
     * {@link #getTransformer(String, HttpCommand) parses its response}, and
     * applies a {@link #getFallback(String, Invocation, HttpCommand) fallback}
-    * if a {@code Throwable} is encountered.
+    * if a {@code Throwable} is encountered. Idempotent reads are hedged when
+    * the method has a {@link InvocationConfig#getHedgePercentile hedge percentile}.
     */
    public Object invoke(Invocation invocation) {
       String commandName = config.getCommandName(invocation);
       HttpCommand command = toCommand(commandName, invocation);
       Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
+      Optional<Double> hedgePercentile = config.getHedgePercentile(invocation);
 
       logger.debug(">> invoking %s", commandName);
       try {
+         if (hedgePercentile.isPresent())
+            return transformer.apply(hedger.invoke(http, commandName, command, hedgePercentile.get()));
          return transformer.apply(http.invoke(command));
       } catch (Throwable t) {
          try {
@@ -98,6 +119,65 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   /**
+    * invokes the {@linkplain HttpCommand} associated with an {@code invocation}
+    * of a method returning {@link ListenableFuture}, without waiting for the
+    * response. Drivers implementing {@link AsyncHttpCommandExecutorService}
+    * send the request without holding a thread for the round trip; others
+    * send it from the user executor. The response is parsed and the fallback
+    * applied on the user executor. Cancelling the returned future cancels the
+    * request. Timeouts configured for the method are not applied.
+    */
+   public ListenableFuture<Object> invokeAsync(Invocation invocation) {
+      String commandName = config.getCommandName(invocation);
+      final HttpCommand command = toCommand(commandName, invocation);
+      Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
+      final org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
+
+      logger.debug(">> invoking %s asynchronously", commandName);
+      ListenableFuture<HttpResponse> response;
+      if (http instanceof AsyncHttpCommandExecutorService) {
+         response = AsyncHttpCommandExecutorService.class.cast(http).invokeAsync(command);
+      } else {
+         response = userExecutor.submit(new Callable<HttpResponse>() {
+            @Override
+            public HttpResponse call() {
+               return http.invoke(command);
+            }
+         });
+      }
+      final SettableFuture<Object> result = SettableFuture.create();
+      final ListenableFuture<HttpResponse> sent = response;
+      result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (result.isCancelled()) {
+               sent.cancel(true);
+            }
+         }
+      }, MoreExecutors.directExecutor());
+      Futures.addCallback(Futures.transform(response, transformer, userExecutor), new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(Object value) {
+            result.set(value);
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            try {
+               result.set(fallback.createOrPropagate(t));
+            } catch (Throwable e) {
+               result.setException(e);
+            }
+         }
+      }, userExecutor);
+      return result;
+   }
+
+   private static boolean isAsync(Invocation invocation) {
+      return ListenableFuture.class.equals(invocation.getInvokable().getReturnType().getRawType());
+   }
+
    /**
     * calls {@link #invoke(Invocation)}, timing out after the specified time
     * limit. If the target method call finished before the limit is reached, the
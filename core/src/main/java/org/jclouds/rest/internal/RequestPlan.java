@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.collect.Iterables.concat;
+import static org.jclouds.reflect.Reflection2.getInvokableParameters;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import javax.ws.rs.Encoded;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Endpoint;
+import org.jclouds.rest.annotations.EndpointParam;
+import org.jclouds.rest.annotations.FormParams;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.MapBinder;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.PartParam;
+import org.jclouds.rest.annotations.Payload;
+import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.PayloadParams;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.jclouds.rest.annotations.WrapWith;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Chars;
+import com.google.common.reflect.Invokable;
+import com.google.common.reflect.Parameter;
+
+/**
+ * Everything {@link RestAnnotationProcessor} needs to know about an {@link Invokable} that does not depend on the
+ * arguments of a particular invocation. The annotations on the method, its parameters and its declaring type are read
+ * once and the resulting plan is reused by every request built for that method.
+ */
+final class RequestPlan {
+
+   private static final LoadingCache<Invokable<?, ?>, RequestPlan> plans = CacheBuilder.newBuilder().build(
+         new CacheLoader<Invokable<?, ?>, RequestPlan>() {
+            @Override
+            public RequestPlan load(Invokable<?, ?> invokable) {
+               return new RequestPlan(invokable);
+            }
+         });
+
+   static RequestPlan of(Invokable<?, ?> invokable) {
+      return plans.getUnchecked(invokable);
+   }
+
+   final List<String> paths;
+   final List<List<Character>> skipEncoding;
+   final List<FormParams> formParams;
+   final List<QueryParams> queryParams;
+   final List<Headers> headers;
+   @Nullable
+   final List<String> produces;
+   final List<Class<? extends HttpRequestFilter>> typeFilters;
+   final List<Class<? extends HttpRequestFilter>> methodFilters;
+   final boolean overrideFilters;
+   final boolean virtualHost;
+   final boolean encodedUsed;
+   @Nullable
+   final Endpoint endpoint;
+   @Nullable
+   final MapBinder mapBinder;
+   final boolean payloadAnnotation;
+   @Nullable
+   final WrapWith wrapWith;
+   @Nullable
+   final PayloadParams payloadParams;
+   final List<Parameter> endpointParams;
+   final List<Parameter> pathParams;
+   final List<Parameter> formParamParams;
+   final List<Parameter> queryParamParams;
+   final List<Parameter> headerParams;
+   final List<Parameter> partParams;
+   final List<Parameter> payloadParamParams;
+   final List<Parameter> binderOrWrapWithParams;
+
+   private RequestPlan(Invokable<?, ?> invokable) {
+      Class<?> type = invokable.getOwnerType().getRawType();
+      ImmutableList.Builder<String> paths = ImmutableList.builder();
+      if (type.isAnnotationPresent(Path.class))
+         paths.add(type.getAnnotation(Path.class).value());
+      if (invokable.isAnnotationPresent(Path.class))
+         paths.add(invokable.getAnnotation(Path.class).value());
+      this.paths = paths.build();
+
+      ImmutableList.Builder<List<Character>> skipEncoding = ImmutableList.builder();
+      if (type.isAnnotationPresent(SkipEncoding.class))
+         skipEncoding.add(Chars.asList(type.getAnnotation(SkipEncoding.class).value()));
+      if (invokable.isAnnotationPresent(SkipEncoding.class))
+         skipEncoding.add(Chars.asList(invokable.getAnnotation(SkipEncoding.class).value()));
+      this.skipEncoding = skipEncoding.build();
+
+      this.formParams = annotationsOnTypeAndMethod(type.getAnnotation(FormParams.class),
+            invokable.getAnnotation(FormParams.class));
+      this.queryParams = annotationsOnTypeAndMethod(type.getAnnotation(QueryParams.class),
+            invokable.getAnnotation(QueryParams.class));
+      this.headers = annotationsOnTypeAndMethod(type.getAnnotation(Headers.class),
+            invokable.getAnnotation(Headers.class));
+
+      // the method's @Produces replaces that of the type
+      List<Produces> produces = annotationsOnTypeAndMethod(type.getAnnotation(Produces.class),
+            invokable.getAnnotation(Produces.class));
+      this.produces = produces.isEmpty() ? null : ImmutableList.copyOf(produces.get(
+            produces.size() - 1).value());
+
+      this.typeFilters = type.isAnnotationPresent(RequestFilters.class) ? ImmutableList.copyOf(type.getAnnotation(
+            RequestFilters.class).value()) : ImmutableList.<Class<? extends HttpRequestFilter>> of();
+      this.methodFilters = invokable.isAnnotationPresent(RequestFilters.class) ? ImmutableList.copyOf(invokable
+            .getAnnotation(RequestFilters.class).value()) : ImmutableList.<Class<? extends HttpRequestFilter>> of();
+      this.overrideFilters = invokable.isAnnotationPresent(RequestFilters.class)
+            && invokable.isAnnotationPresent(OverrideRequestFilters.class);
+
+      this.virtualHost = type.isAnnotationPresent(VirtualHost.class)
+            || invokable.isAnnotationPresent(VirtualHost.class);
+      this.endpoint = invokable.isAnnotationPresent(Endpoint.class) ? invokable.getAnnotation(Endpoint.class) : type
+            .getAnnotation(Endpoint.class);
+      this.mapBinder = invokable.getAnnotation(MapBinder.class);
+      this.payloadAnnotation = invokable.isAnnotationPresent(Payload.class);
+      this.wrapWith = invokable.getAnnotation(WrapWith.class);
+      this.payloadParams = invokable.getAnnotation(PayloadParams.class);
+
+      this.endpointParams = parametersWithAnnotation(invokable, EndpointParam.class);
+      this.encodedUsed = !parametersWithAnnotation(invokable, Encoded.class).isEmpty();
+      this.pathParams = parametersWithAnnotation(invokable, PathParam.class);
+      this.formParamParams = parametersWithAnnotation(invokable, FormParam.class);
+      this.queryParamParams = parametersWithAnnotation(invokable, QueryParam.class);
+      this.headerParams = parametersWithAnnotation(invokable, HeaderParam.class);
+      this.partParams = parametersWithAnnotation(invokable, PartParam.class);
+      this.payloadParamParams = parametersWithAnnotation(invokable, PayloadParam.class);
+      this.binderOrWrapWithParams = ImmutableSet.copyOf(concat(parametersWithAnnotation(invokable, BinderParam.class),
+            parametersWithAnnotation(invokable, WrapWith.class))).asList();
+   }
+
+   private static <A extends Annotation> List<A> annotationsOnTypeAndMethod(@Nullable A onType, @Nullable A onMethod) {
+      ImmutableList.Builder<A> annotations = ImmutableList.builder();
+      if (onType != null)
+         annotations.add(onType);
+      if (onMethod != null)
+         annotations.add(onMethod);
+      return annotations.build();
+   }
+
+   private static List<Parameter> parametersWithAnnotation(Invokable<?, ?> invokable,
+         Class<? extends Annotation> annotationType) {
+      ImmutableList.Builder<Parameter> parameters = ImmutableList.builder();
+      for (Parameter parameter : getInvokableParameters(invokable)) {
+         if (parameter.isAnnotationPresent(annotationType))
+            parameters.add(parameter);
+      }
+      return parameters.build();
+   }
+}
@@ -25,6 +25,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 import javax.lang.model.type.NullType;
@@ -60,8 +61,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
@@ -70,6 +73,9 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
    private final ParseSax.Factory parserFactory;
    private final Injector injector;
    private final GetAcceptHeaders getAcceptHeaders;
+   // parser keys only depend on the annotations of the invoked method
+   private final ConcurrentMap<Invokable<?, ?>, Key<? extends Function<HttpResponse, ?>>> parserKeys = Maps
+         .newConcurrentMap();
 
    @Inject TransformerForRequest(Injector injector, Factory parserFactory, GetAcceptHeaders getAcceptHeaders) {
       this.injector = injector;
@@ -110,9 +116,9 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       Invokable<?, ?> invoked = invocation.getInvokable();
       Set<String> acceptHeaders = getAcceptHeaders.apply(invocation);
       ResponseParser annotation = invoked.getAnnotation(ResponseParser.class);
-      Class<?> rawReturnType = invoked.getReturnType().getRawType();
+      Class<?> rawReturnType = returnTypeOf(invoked).getRawType();
       if (annotation == null) {
-         if (rawReturnType.equals(void.class)) {
+         if (rawReturnType.equals(void.class) || rawReturnType.equals(Void.class)) {
             return Key.get(ReleasePayloadAndReturn.class);
          } else if (rawReturnType.equals(boolean.class) || rawReturnType.equals(Boolean.class)) {
             return Key.get(ReturnTrueIf2xx.class);
@@ -144,7 +150,7 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
                ? Optional.<Type>absent()
                : Optional.<Type>of(configuredClass);
       }
-      Type returnVal = configuredReturnVal.or(getReturnTypeFor(invoked.getReturnType()));
+      Type returnVal = configuredReturnVal.or(getReturnTypeFor(returnTypeOf(invoked)));
       Type parserType = newParameterizedType(ParseXMLWithJAXB.class, returnVal);
       return (Key<? extends Function<HttpResponse, ?>>) Key.get(parserType);
    }
@@ -153,18 +159,30 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
    private static Key<? extends Function<HttpResponse, ?>> getJsonParserKeyForMethod(Invokable<?, ?> invoked) {
       ParameterizedType parserType;
       if (invoked.isAnnotationPresent(Unwrap.class)) {
-         parserType = newParameterizedType(UnwrapOnlyJsonValue.class, getReturnTypeFor(invoked.getReturnType()));
+         parserType = newParameterizedType(UnwrapOnlyJsonValue.class, getReturnTypeFor(returnTypeOf(invoked)));
       } else if (invoked.isAnnotationPresent(Transform.class)) {
          // At this point, there's no user-configured response parser. Make a default one from Transform's input.
          TypeToken<? extends Function> fn = TypeToken.of(invoked.getAnnotation(Transform.class).value());
          Type fnInput = ((ParameterizedType) fn.getSupertype(Function.class).getType()).getActualTypeArguments()[0];
          parserType = newParameterizedType(ParseJson.class, fnInput);
       } else {
-         parserType = newParameterizedType(ParseJson.class, getReturnTypeFor(invoked.getReturnType()));
+         parserType = newParameterizedType(ParseJson.class, getReturnTypeFor(returnTypeOf(invoked)));
       }
       return (Key<? extends Function<HttpResponse, ?>>) Key.get(parserType);
    }
 
+   /**
+    * The type a response is parsed to: the return type of the method, or {@code T} if it returns
+    * {@code ListenableFuture<T>}.
+    */
+   static TypeToken<?> returnTypeOf(Invokable<?, ?> invoked) {
+      TypeToken<?> returnType = invoked.getReturnType();
+      if (returnType.getRawType().equals(ListenableFuture.class)) {
+         return returnType.resolveType(ListenableFuture.class.getTypeParameters()[0]);
+      }
+      return returnType;
+   }
+
    static Type getReturnTypeFor(TypeToken<?> typeToken) {
       Type returnVal = typeToken.getType();
       if (typeToken.getRawType().getTypeParameters().length == 0) {
@@ -180,7 +198,7 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       Invokable<?, ?> invoked = invocation.getInvokable();
       Function<HttpResponse, ?> transformer;
       if (invoked.isAnnotationPresent(SelectJson.class)) {
-         Type returnVal = getReturnTypeFor(invoked.getReturnType());
+         Type returnVal = getReturnTypeFor(returnTypeOf(invoked));
          if (invoked.isAnnotationPresent(OnlyElement.class))
             returnVal = newParameterizedType(Set.class, returnVal);
          transformer = new ParseFirstJsonValueNamed(injector.getInstance(GsonWrapper.class),
@@ -188,7 +206,12 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
          if (invoked.isAnnotationPresent(OnlyElement.class))
             transformer = Functions.compose(new OnlyElementOrNull(), transformer);
       } else {
-         transformer = injector.getInstance(getParserOrThrowException(invocation));
+         Key<? extends Function<HttpResponse, ?>> parserKey = parserKeys.get(invoked);
+         if (parserKey == null) {
+            parserKey = getParserOrThrowException(invocation);
+            parserKeys.put(invoked, parserKey);
+         }
+         transformer = injector.getInstance(parserKey);
       }
       return transformer;
    }
@@ -21,11 +21,13 @@ import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jclouds.rest.AuthorizationException;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
@@ -109,6 +111,8 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
       }
    }
 
+   private static final String KEY = "FOO";
+
    private final Supplier<T> delegate;
    private final long duration;
    private final TimeUnit unit;
@@ -129,14 +133,39 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
       return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
             unit, valueLoadedCallback);
    }
+
+   /**
+    * Creates a memoized supplier that only blocks on the first load. Once the duration has elapsed, the next call
+    * starts a reload on the given executor and keeps returning the previous value until the reload completes. A
+    * failed reload is retried on the next call after that.
+    */
+   @Beta
+   public static <T> MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> createRefreshingAhead(
+         AtomicReference<AuthorizationException> authException, Supplier<T> delegate, long duration, TimeUnit unit,
+         ValueLoadedCallback<T> valueLoadedCallback, Executor executor) {
+      return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
+            unit, valueLoadedCallback, checkNotNull(executor, "executor"));
+   }
    
    MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier(AtomicReference<AuthorizationException> authException,
          Supplier<T> delegate, long duration, TimeUnit unit, ValueLoadedCallback<T> valueLoadedCallback) {
+      this(authException, delegate, duration, unit, valueLoadedCallback, null);
+   }
+
+   private MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier(
+         AtomicReference<AuthorizationException> authException, Supplier<T> delegate, long duration, TimeUnit unit,
+         ValueLoadedCallback<T> valueLoadedCallback, Executor refreshExecutor) {
       this.delegate = delegate;
       this.duration = duration;
       this.unit = unit;
-      this.cache = CacheBuilder.newBuilder().expireAfterWrite(duration, unit)
-            .build(new SetAndThrowAuthorizationExceptionSupplierBackedLoader<T>(delegate, authException, valueLoadedCallback));
+      CacheLoader<String, Optional<T>> loader = new SetAndThrowAuthorizationExceptionSupplierBackedLoader<T>(delegate,
+            authException, valueLoadedCallback);
+      if (refreshExecutor == null) {
+         this.cache = CacheBuilder.newBuilder().expireAfterWrite(duration, unit).build(loader);
+      } else {
+         this.cache = CacheBuilder.newBuilder().refreshAfterWrite(duration, unit)
+               .build(CacheLoader.asyncReloading(loader, refreshExecutor));
+      }
    }
 
    @Override
@@ -147,7 +176,7 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
    @Override
    public T get() {
       try {
-         return cache.get("FOO").orNull();
+         return cache.get(KEY).orNull();
       } catch (UncheckedExecutionException e) {
          throw propagate(e.getCause());
       } catch (ExecutionException e) {
@@ -155,6 +184,23 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
       }
    }
 
+   /**
+    * Memoizes the given value as if it had just been loaded, without notifying the value loaded callback.
+    */
+   @Beta
+   public void seed(T value) {
+      cache.put(KEY, Optional.fromNullable(value));
+   }
+
+   /**
+    * Reloads the value. When created with {@link #createRefreshingAhead}, the reload runs on its executor and the
+    * current value keeps being returned until it completes.
+    */
+   @Beta
+   public void refresh() {
+      cache.refresh(KEY);
+   }
+
    @Override
    public String toString() {
       return MoreObjects.toStringHelper(this).add("delegate", delegate).add("duration", duration).add("unit", unit)
@@ -27,6 +27,7 @@ import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
@@ -178,7 +179,33 @@ public class Strings2 {
 
    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\{(.+?)\\}");
 
+   /**
+    * Replaces each {@code {token}} in the input with the first value of that token. Most inputs are substituted in a
+    * single pass; inputs whose result would still contain braces, for example because a value itself holds a token,
+    * are resolved one token at a time in the multimap's entry order.
+    */
    public static String replaceTokens(String input, Multimap<String, ?> tokenValues) {
+      if (input.indexOf('{') == -1 || tokenValues.isEmpty())
+         return input;
+      Matcher matcher = TOKEN_PATTERN.matcher(input);
+      StringBuilder builder = new StringBuilder();
+      int i = 0;
+      while (matcher.find()) {
+         Collection<?> values = tokenValues.get(matcher.group(1));
+         builder.append(input, i, matcher.start());
+         if (values.isEmpty())
+            builder.append(matcher.group(0));
+         else
+            builder.append(values.iterator().next().toString());
+         i = matcher.end();
+      }
+      builder.append(input, i, input.length());
+      if (builder.indexOf("{") == -1)
+         return builder.toString();
+      return replaceTokensSequentially(input, tokenValues);
+   }
+
+   private static String replaceTokensSequentially(String input, Multimap<String, ?> tokenValues) {
       for (Entry<String, ?> tokenValue : tokenValues.entries()) {
          Pattern pattern = TOKEN_TO_PATTERN.getUnchecked(tokenValue.getKey());
          input = pattern.matcher(input).replaceAll(tokenValue.getValue().toString().replace("\\", "\\\\").replace("$", "\\$"));
@@ -23,25 +23,42 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.Constants.PROPERTY_SUBMISSION_TRACE_SAMPLING;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR_QUEUE_SIZE;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR_REJECTION;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.jclouds.concurrent.ExecutorMetrics;
 import org.jclouds.lifecycle.Closer;
+import org.testng.SkipException;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.ProvisionException;
+import com.google.inject.name.Names;
 
 @Test
 public class ExecutorServiceModuleTest {
@@ -104,6 +121,136 @@ public class ExecutorServiceModuleTest {
       }
    }
 
+   public void testSubmissionTraceSampling() throws Exception {
+      ListeningExecutorService direct = MoreExecutors.newDirectExecutorService();
+      assertSame(WithSubmissionTrace.wrap(direct, 0), direct);
+
+      ListeningExecutorService sampled = WithSubmissionTrace.wrap(direct, 2);
+      ListenableFuture<?> traced = sampled.submit(runnableThrowsRTE());
+      ListenableFuture<?> untraced = sampled.submit(runnableThrowsRTE());
+      assertNotEquals(traced.getClass(), untraced.getClass());
+   }
+
+   @Test(timeOut = 5000)
+   public void testBoundedExecutorRejectsWhenQueueIsFull() throws Exception {
+      Injector injector = Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), ImmutableMap.of(PROPERTY_USER_THREADS, "1", PROPERTY_USER_EXECUTOR,
+                  "bounded", PROPERTY_USER_EXECUTOR_QUEUE_SIZE, "1", PROPERTY_SUBMISSION_TRACE_SAMPLING, "0"));
+         }
+      });
+      ListeningExecutorService exec = injector.getInstance(Key.get(ListeningExecutorService.class,
+            named(PROPERTY_USER_THREADS)));
+      ExecutorMetrics metrics = injector.getInstance(Key.get(ExecutorMetrics.class, named(PROPERTY_USER_THREADS)));
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      try {
+         ListenableFuture<?> running = exec.submit(blockingRunnable(started, release));
+         started.await();
+         ListenableFuture<?> queued = exec.submit(blockingRunnable(new CountDownLatch(1), release));
+         assertEquals(metrics.getActiveTasks(), 1);
+         assertEquals(metrics.getQueuedTasks(), 1);
+         try {
+            exec.submit(blockingRunnable(new CountDownLatch(1), release));
+            fail("expected the full queue to reject the task");
+         } catch (RejectedExecutionException expected) {
+         }
+         assertEquals(metrics.getRejectedTasks(), 1);
+         release.countDown();
+         running.get();
+         queued.get();
+         // a task completes its future before the executor counts it as completed
+         awaitCompletedTasks(metrics, 2);
+         assertEquals(metrics.getQueuedTasks(), 0);
+         assertEquals(metrics.getRejectedTasks(), 1);
+      } finally {
+         release.countDown();
+         injector.getInstance(Closer.class).close();
+      }
+   }
+
+   @Test(timeOut = 5000)
+   public void testBoundedExecutorCallerRunsWhenQueueIsFull() throws Exception {
+      Injector injector = Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), ImmutableMap.of(PROPERTY_USER_THREADS, "1", PROPERTY_USER_EXECUTOR,
+                  "bounded", PROPERTY_USER_EXECUTOR_QUEUE_SIZE, "1", PROPERTY_USER_EXECUTOR_REJECTION, "caller-runs"));
+         }
+      });
+      ListeningExecutorService exec = injector.getInstance(Key.get(ListeningExecutorService.class,
+            named(PROPERTY_USER_THREADS)));
+      ExecutorMetrics metrics = injector.getInstance(Key.get(ExecutorMetrics.class, named(PROPERTY_USER_THREADS)));
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      try {
+         exec.submit(blockingRunnable(started, release));
+         started.await();
+         exec.submit(blockingRunnable(new CountDownLatch(1), release));
+         final AtomicReference<Thread> ranOn = new AtomicReference<Thread>();
+         exec.submit(new Runnable() {
+            public void run() {
+               ranOn.set(Thread.currentThread());
+            }
+         }).get();
+         assertSame(ranOn.get(), Thread.currentThread());
+         assertEquals(metrics.getRejectedTasks(), 1);
+         assertEquals(metrics.getCompletedTasks(), 1);
+      } finally {
+         release.countDown();
+         injector.getInstance(Closer.class).close();
+      }
+   }
+
+   public void testVirtualThreadExecutor() throws Exception {
+      Injector injector = Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), ImmutableMap.of(PROPERTY_USER_THREADS, "0", PROPERTY_USER_EXECUTOR,
+                  "virtual"));
+         }
+      });
+      ListeningExecutorService exec;
+      try {
+         exec = injector.getInstance(Key.get(ListeningExecutorService.class, named(PROPERTY_USER_THREADS)));
+      } catch (ProvisionException e) {
+         if (e.getCause() instanceof UnsupportedOperationException)
+            throw new SkipException("virtual threads are not available on this JVM");
+         throw e;
+      }
+      try {
+         String threadName = exec.submit(new Callable<String>() {
+            public String call() {
+               return Thread.currentThread().getName();
+            }
+         }).get();
+         assertTrue(threadName.startsWith("user thread "), threadName);
+      } finally {
+         injector.getInstance(Closer.class).close();
+      }
+   }
+
+   static void awaitCompletedTasks(ExecutorMetrics metrics, long expected) throws InterruptedException {
+      while (metrics.getCompletedTasks() < expected) {
+         Thread.sleep(10);
+      }
+      assertEquals(metrics.getCompletedTasks(), expected);
+   }
+
+   static Runnable blockingRunnable(final CountDownLatch started, final CountDownLatch release) {
+      return new Runnable() {
+         public void run() {
+            started.countDown();
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+      };
+   }
+
    static void assertTraceHasSubmission(String trace, String expected) {
       assertEquals(trace.indexOf(WithSubmissionTrace.class.getName()), -1, trace);
       assertNotEquals(trace.indexOf(expected), -1, trace + " " + expected);
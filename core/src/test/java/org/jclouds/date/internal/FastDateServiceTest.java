@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.jclouds.date.DateService;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "FastDateServiceTest")
+public class FastDateServiceTest {
+   private final DateService fast = new FastDateService();
+   private final DateService legacy = new SimpleDateFormatDateService();
+
+   // 1600-01-01 to 9999-12-31, the range that is formatted without delegating
+   private static final long MIN = -11676096000000L;
+   private static final long MAX = 253402300799999L;
+
+   public void testFormatMatchesSimpleDateFormat() {
+      Random random = new Random(42);
+      for (int i = 0; i < 20000; i++) {
+         Date date = new Date(MIN + (long) (random.nextDouble() * (MAX - MIN)));
+         assertEquals(fast.iso8601DateFormat(date), legacy.iso8601DateFormat(date));
+         assertEquals(fast.iso8601SecondsDateFormat(date), legacy.iso8601SecondsDateFormat(date));
+         assertEquals(fast.rfc822DateFormat(date), legacy.rfc822DateFormat(date));
+         assertEquals(fast.rfc1123DateFormat(date), legacy.rfc1123DateFormat(date));
+         assertEquals(fast.cDateFormat(date), legacy.cDateFormat(date));
+      }
+   }
+
+   public void testParseRoundTrips() {
+      Random random = new Random(42);
+      for (int i = 0; i < 20000; i++) {
+         Date date = new Date(MIN + (long) (random.nextDouble() * (MAX - MIN)));
+         Date seconds = new Date(date.getTime() - ((date.getTime() % 1000) + 1000) % 1000);
+         assertEquals(fast.iso8601DateParse(legacy.iso8601DateFormat(date)), date);
+         assertEquals(fast.iso8601SecondsDateParse(legacy.iso8601SecondsDateFormat(date)), seconds);
+         assertEquals(fast.rfc822DateParse(legacy.rfc822DateFormat(date)), seconds);
+         assertEquals(fast.rfc1123DateParse(legacy.rfc1123DateFormat(date)), seconds);
+         assertEquals(fast.cDateParse(legacy.cDateFormat(date)), seconds);
+      }
+   }
+
+   public void testFormatOutOfRangeMatchesSimpleDateFormat() {
+      for (Date date : new Date[] { new Date(Long.MIN_VALUE / 2), new Date(MIN - 1), new Date(MAX + 1),
+            new Date(Long.MAX_VALUE / 2) }) {
+         assertEquals(fast.iso8601DateFormat(date), legacy.iso8601DateFormat(date));
+         assertEquals(fast.rfc822DateFormat(date), legacy.rfc822DateFormat(date));
+         assertEquals(fast.cDateFormat(date), legacy.cDateFormat(date));
+      }
+   }
+
+   public void testIso8601ParseMatchesSimpleDateFormat() {
+      for (String date : new String[] { "2009-03-12T02:00:07.000Z", "2009-03-12T02:00:07.123",
+            "2009-03-12 02:00:07.123Z",
+            "2011-11-07T11:19:13.38225Z", "2009-02-03T05:26:32.612278", "2011-05-25 16:12:21.656+0000",
+            "2011-05-25T16:12:21.656-04:00", "2011-05-25T16:12:21.5Z",
+            "2012-02-30T16:12:21.656Z", "2012-02-29T24:12:21.656Z" }) {
+         assertEquals(fast.iso8601DateParse(date), legacy.iso8601DateParse(date), date);
+      }
+   }
+
+   public void testIso8601SecondsParseMatchesSimpleDateFormat() {
+      for (String date : new String[] { "2009-03-12T02:00:07Z", "2009-03-12T06:00:07+0400", "2011-05-26T02:14:13-04:00",
+            "2011-05-26 02:14:13", "2012-11-26T17:32:31UTC+0000", "2012-13-01T00:00:00Z" }) {
+         assertEquals(fast.iso8601SecondsDateParse(date), legacy.iso8601SecondsDateParse(date), date);
+      }
+   }
+
+   public void testHeaderParseMatchesSimpleDateFormat() {
+      for (String date : new String[] { "Thu, 12 Mar 2009 02:00:07 GMT", "Mon, 12 Mar 2009 02:00:07 GMT",
+            "Thu, 12 Mar 2009 02:00:07 GMT trailing", "Thursday, 12 Mar 2009 02:00:07 GMT" }) {
+         assertEquals(fast.rfc822DateParse(date), legacy.rfc822DateParse(date), date);
+         assertEquals(fast.rfc1123DateParse(date), legacy.rfc1123DateParse(date), date);
+      }
+      for (String date : new String[] { "Thu, 12 Mar 2009 02:00:07 +0000", "Wed, 11 Mar 2009 22:00:07 -0400",
+            "Thu, 12 Mar 02009 02:00:07 +0000" }) {
+         assertEquals(fast.rfc1123DateParse(date), legacy.rfc1123DateParse(date), date);
+      }
+      for (String date : new String[] { "Thu Mar 12 02:00:07 +0000 2009", "Thu Mar 12 06:00:07 +0400 2009" }) {
+         assertEquals(fast.cDateParse(date), legacy.cDateParse(date), date);
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testIllegalIso8601Parse() {
+      fast.iso8601DateParse("-1");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testIllegalRfc822Parse() {
+      fast.rfc822DateParse("Thu, 12 Mar 2009 02:00:07 GM");
+   }
+
+   public void testNowIsCachedPerSecond() {
+      String first = fast.rfc822DateFormat();
+      String second = fast.rfc822DateFormat();
+      if (first.equals(second))
+         assertEquals(fast.rfc822DateParse(second), legacy.rfc822DateParse(first));
+      long now = System.currentTimeMillis() / 1000 * 1000;
+      long parsed = fast.iso8601SecondsDateParse(fast.iso8601SecondsDateFormat()).getTime();
+      assertEquals(parsed >= now - 1000 && parsed <= now + 1000, true);
+   }
+}
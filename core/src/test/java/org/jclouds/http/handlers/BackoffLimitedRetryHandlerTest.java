@@ -76,6 +76,24 @@ public class BackoffLimitedRetryHandlerTest {
 
    }
 
+   @Test
+   void testDeferredDelayIsReturnedInsteadOfSlept() {
+      long period = 500;
+      long deferred;
+
+      long startTime = System.nanoTime();
+      BackoffLimitedRetryHandler.startDeferringDelays();
+      try {
+         handler.imposeBackoffExponentialDelay(period, 2, 2, 5, "TEST FAILURE: 2");
+      } finally {
+         deferred = BackoffLimitedRetryHandler.stopDeferringDelays();
+      }
+      long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+      assertThat(elapsedTime).isLessThan(period);
+      assertThat(deferred).isBetween(period * 4, period * 5);
+      assertEquals(BackoffLimitedRetryHandler.stopDeferringDelays(), 0);
+   }
+
    // TODO: disabled since this often fails due to race conditions
    @Test(enabled = false)
    void testExponentialBackoffDelaySmallInterval5() throws InterruptedException {
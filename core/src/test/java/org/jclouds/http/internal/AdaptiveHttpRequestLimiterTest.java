@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.inject.name.Names.bindProperties;
+import static org.jclouds.Constants.PROPERTY_ADAPTIVE_CONCURRENCY;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_REQUEST_RATE_LIMIT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestLimiter;
+import org.jclouds.http.HttpRequestLimiter.Permit;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.internal.AdaptiveHttpRequestLimiter.Limit;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "AdaptiveHttpRequestLimiterTest")
+public class AdaptiveHttpRequestLimiterTest {
+
+   private static final HttpRequest GET = HttpRequest.builder().method("GET").endpoint("https://host/container").build();
+   private static final HttpRequest PUT = HttpRequest.builder().method("PUT").endpoint("https://host/container").build();
+   private static final HttpResponse OK = HttpResponse.builder().statusCode(200).build();
+   private static final HttpResponse SLOW_DOWN = HttpResponse.builder().statusCode(503).build();
+
+   private static AdaptiveHttpRequestLimiter limiter(final Map<String, String> properties) {
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindProperties(binder(), properties);
+         }
+      }).getInstance(AdaptiveHttpRequestLimiter.class);
+   }
+
+   public void testNoLimitByDefault() throws InterruptedException {
+      AdaptiveHttpRequestLimiter limiter = limiter(ImmutableMap.<String, String> of());
+      assertSame(limiter.acquire(GET), Permit.NONE);
+   }
+
+   public void testLimitsAreKeyedByHostAndMethod() throws InterruptedException {
+      AdaptiveHttpRequestLimiter limiter = limiter(ImmutableMap.of(PROPERTY_ADAPTIVE_CONCURRENCY, "true"));
+      assertSame(limiter.limit(GET), limiter.limit(GET.toBuilder().endpoint("https://host/other").build()));
+      assertNotSame(limiter.limit(GET), limiter.limit(PUT));
+      assertNotSame(limiter.limit(GET), limiter.limit(GET.toBuilder().endpoint("https://other/container").build()));
+   }
+
+   public void testThrottlingHalvesConcurrencyAndSuccessRestoresIt() throws InterruptedException {
+      AdaptiveHttpRequestLimiter limiter = limiter(ImmutableMap.of(PROPERTY_ADAPTIVE_CONCURRENCY, "true",
+            PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "8"));
+      Limit limit = limiter.limit(GET);
+      assertEquals(limit.getConcurrencyLimit(), 8);
+
+      limiter.acquire(GET).release(SLOW_DOWN);
+      assertEquals(limit.getConcurrencyLimit(), 4);
+      limiter.acquire(GET).release(SLOW_DOWN);
+      assertEquals(limit.getConcurrencyLimit(), 2);
+
+      for (int i = 0; i < 100; i++)
+         limiter.acquire(GET).release(OK);
+      assertEquals(limit.getConcurrencyLimit(), 8);
+   }
+
+   public void testHigherLatencyReducesConcurrency() {
+      Limit limit = new Limit(0, 8);
+      for (int i = 0; i < 20; i++)
+         limit.release(OK, TimeUnit.MILLISECONDS.toNanos(10));
+      assertEquals(limit.getConcurrencyLimit(), 8);
+      for (int i = 0; i < 20; i++)
+         limit.release(OK, TimeUnit.MILLISECONDS.toNanos(100));
+      assertTrue(limit.getConcurrencyLimit() < 8, limit.toString());
+   }
+
+   @Test(timeOut = 5000)
+   public void testAcquireWaitsForAPermitToBeReleased() throws Exception {
+      final AdaptiveHttpRequestLimiter limiter = limiter(ImmutableMap.of(PROPERTY_ADAPTIVE_CONCURRENCY, "true",
+            PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "1"));
+      Permit first = limiter.acquire(GET);
+      final CountDownLatch acquired = new CountDownLatch(1);
+      Thread second = new Thread() {
+         @Override
+         public void run() {
+            try {
+               limiter.acquire(GET).release(OK);
+               acquired.countDown();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+      };
+      second.start();
+      assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+      first.release(null);
+      assertTrue(acquired.await(1, TimeUnit.SECONDS));
+   }
+
+   public void testThrottlingLowersRate() throws InterruptedException {
+      AdaptiveHttpRequestLimiter limiter = limiter(ImmutableMap.of(PROPERTY_REQUEST_RATE_LIMIT, "1000"));
+      Limit limit = limiter.limit(GET);
+      limiter.acquire(GET).release(SLOW_DOWN);
+      assertEquals(limit.getRate(), 500.0, 0.001);
+      limiter.acquire(GET).release(OK);
+      assertEquals(limit.getRate(), 510.0, 0.001);
+      limiter.acquire(GET).release(null);
+      assertEquals(limit.getRate(), 510.0, 0.001);
+   }
+
+   public void testNoLimitConstant() throws InterruptedException {
+      assertSame(HttpRequestLimiter.NO_LIMIT.acquire(GET), Permit.NONE);
+   }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "ByteStreams2Test")
+public class ByteStreams2Test {
+
+   public void testCopyToChannelWritesAtPosition() throws IOException {
+      byte[] data = new byte[1000];
+      for (int i = 0; i < data.length; i++) {
+         data[i] = (byte) i;
+      }
+      File file = File.createTempFile("ByteStreams2Test", ".bin");
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+         raf.setLength(data.length);
+         FileChannel channel = raf.getChannel();
+         // a buffer smaller than either region forces several reads per copy
+         ByteBuffer buffer = ByteBuffer.allocateDirect(7);
+         assertEquals(ByteStreams2.copy(new ByteArrayInputStream(data, 600, 400), channel, 600, buffer), 400);
+         assertEquals(ByteStreams2.copy(new ByteArrayInputStream(data, 0, 600), channel, 0, buffer), 600);
+      } finally {
+         raf.close();
+      }
+      try {
+         assertEquals(Files.toByteArray(file), data);
+      } finally {
+         file.delete();
+      }
+   }
+}
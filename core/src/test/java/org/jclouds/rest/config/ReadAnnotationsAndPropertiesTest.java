@@ -93,6 +93,28 @@ public class ReadAnnotationsAndPropertiesTest {
       assertEquals(config.getTimeoutNanos(asyncNamedGet), Optional.of(250000000L));
    }
 
+   public void testHedgePercentileByNameOrDefault() throws Exception {
+      final Properties props = new Properties();
+      props.setProperty("jclouds.hedges.default", "99");
+      props.setProperty("jclouds.hedges.ns:get", "95");
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         protected void configure() {
+            Names.bindProperties(binder(), props);
+         }
+      });
+      ReadAnnotationsAndProperties config = new ReadAnnotationsAndProperties(injector,
+            new FilterStringsBoundToInjectorByName(injector), defaultFallback);
+      assertEquals(config.getHedgePercentile(asyncNamedGet), Optional.of(95.0));
+      assertEquals(config.getHedgePercentile(asyncGet), Optional.of(99.0));
+   }
+
+   public void testNoHedgeByDefault() throws Exception {
+      Injector injector = Guice.createInjector();
+      ReadAnnotationsAndProperties config = new ReadAnnotationsAndProperties(injector,
+            new FilterStringsBoundToInjectorByName(injector), defaultFallback);
+      assertEquals(config.getHedgePercentile(asyncNamedGet), Optional.absent());
+   }
+
    /**
     * this functionality will be removed once Named annotations are on all async
     * classes.
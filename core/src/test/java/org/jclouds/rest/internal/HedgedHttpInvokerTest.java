@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payloads;
+import org.jclouds.rest.internal.HedgedHttpInvoker.Latencies;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", singleThreaded = true, testName = "HedgedHttpInvokerTest")
+public class HedgedHttpInvokerTest {
+
+   private final ExecutorService attempts = Executors.newCachedThreadPool();
+   private final HttpRequest get = HttpRequest.builder().method("GET").endpoint("http://host/object").build();
+
+   @AfterClass
+   void shutdown() {
+      attempts.shutdownNow();
+   }
+
+   /**
+    * Answers the first {@code slowCalls} invocations only once {@code release} is counted down.
+    */
+   private static final class SlowFirstCalls implements HttpCommandExecutorService {
+      final AtomicInteger calls = new AtomicInteger();
+      final CountDownLatch release = new CountDownLatch(1);
+      final int slowCalls;
+      final ClosingStream slowPayload = new ClosingStream();
+
+      SlowFirstCalls(int slowCalls) {
+         this.slowCalls = slowCalls;
+      }
+
+      @Override
+      public HttpResponse invoke(HttpCommand command) {
+         if (calls.incrementAndGet() <= slowCalls) {
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               // hedging cancels the loser; answer anyway so its payload must be released
+            }
+            return HttpResponse.builder().statusCode(200).message("slow")
+                  .payload(Payloads.newInputStreamPayload(slowPayload)).build();
+         }
+         return HttpResponse.builder().statusCode(200).message("fast").build();
+      }
+   }
+
+   private static final class ClosingStream extends InputStream {
+      final CountDownLatch closed = new CountDownLatch(1);
+
+      @Override
+      public int read() {
+         return -1;
+      }
+
+      @Override
+      public void close() throws IOException {
+         closed.countDown();
+      }
+   }
+
+   private static void warmUp(HedgedHttpInvoker hedger, String commandName, long nanos) {
+      Latencies latencies = hedger.latencies(commandName);
+      for (int i = 0; i < HedgedHttpInvoker.MIN_SAMPLES; i++)
+         latencies.record(nanos);
+   }
+
+   public void testNotHedgedWithoutEnoughSamples() {
+      HedgedHttpInvoker hedger = new HedgedHttpInvoker(attempts, "GET,HEAD", 100);
+      SlowFirstCalls http = new SlowFirstCalls(0);
+      assertEquals(hedger.invoke(http, "cold", new HttpCommand(get), 50).getMessage(), "fast");
+      assertEquals(http.calls.get(), 1);
+      assertFalse(hedger.latencies("cold").percentile(50).isPresent());
+   }
+
+   @Test(timeOut = 5000)
+   public void testSlowRequestIsHedgedAndLoserReleased() throws Exception {
+      HedgedHttpInvoker hedger = new HedgedHttpInvoker(attempts, "GET,HEAD", 100);
+      warmUp(hedger, "slow", TimeUnit.MILLISECONDS.toNanos(10));
+      SlowFirstCalls http = new SlowFirstCalls(1);
+
+      HttpResponse response = hedger.invoke(http, "slow", new HttpCommand(get), 50);
+      assertEquals(response.getMessage(), "fast");
+      assertEquals(http.calls.get(), 2);
+      http.release.countDown();
+      assertTrue(http.slowPayload.closed.await(1, TimeUnit.SECONDS));
+   }
+
+   @Test(timeOut = 5000)
+   public void testNoHedgeWithoutBudget() throws Exception {
+      final HedgedHttpInvoker hedger = new HedgedHttpInvoker(attempts, "GET,HEAD", 0);
+      warmUp(hedger, "budget", TimeUnit.MILLISECONDS.toNanos(1));
+      final SlowFirstCalls http = new SlowFirstCalls(1);
+      attempts.submit(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               Thread.sleep(100);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            http.release.countDown();
+         }
+      });
+      assertEquals(hedger.invoke(http, "budget", new HttpCommand(get), 50).getMessage(), "slow");
+      assertEquals(http.calls.get(), 1);
+   }
+
+   @Test(timeOut = 5000)
+   public void testCallersOnSaturatedPoolDoNotWaitForEachOther() throws Exception {
+      final HedgedHttpInvoker hedger = new HedgedHttpInvoker(20, "GET,HEAD", 100);
+      warmUp(hedger, "saturated", TimeUnit.MILLISECONDS.toNanos(10));
+      final SlowFirstCalls http = new SlowFirstCalls(0);
+      final CountDownLatch allRunning = new CountDownLatch(2);
+      // every thread of the caller's pool is busy issuing a hedged read
+      ExecutorService userExecutor = Executors.newFixedThreadPool(2);
+      try {
+         List<Future<String>> reads = Lists.newArrayList();
+         for (int i = 0; i < 2; i++) {
+            reads.add(userExecutor.submit(new Callable<String>() {
+               @Override
+               public String call() throws Exception {
+                  allRunning.countDown();
+                  allRunning.await();
+                  return hedger.invoke(http, "saturated", new HttpCommand(get), 50).getMessage();
+               }
+            }));
+         }
+         for (Future<String> read : reads)
+            assertEquals(read.get(), "fast");
+      } finally {
+         userExecutor.shutdownNow();
+      }
+   }
+
+   @Test(timeOut = 5000)
+   public void testSentOnCallingThreadWhenNoThreadIsFree() throws Exception {
+      final CountDownLatch release = new CountDownLatch(1);
+      ThreadPoolExecutor busy = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+      try {
+         busy.submit(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  release.await();
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         });
+         HedgedHttpInvoker hedger = new HedgedHttpInvoker(busy, "GET,HEAD", 100);
+         warmUp(hedger, "busy", TimeUnit.MILLISECONDS.toNanos(10));
+         final Thread caller = Thread.currentThread();
+         final AtomicInteger callsOnCaller = new AtomicInteger();
+         HttpCommandExecutorService http = new HttpCommandExecutorService() {
+            @Override
+            public HttpResponse invoke(HttpCommand command) {
+               if (Thread.currentThread() == caller)
+                  callsOnCaller.incrementAndGet();
+               return HttpResponse.builder().statusCode(200).message("inline").build();
+            }
+         };
+         assertEquals(hedger.invoke(http, "busy", new HttpCommand(get), 50).getMessage(), "inline");
+         assertEquals(callsOnCaller.get(), 1);
+      } finally {
+         release.countDown();
+         busy.shutdownNow();
+      }
+   }
+
+   public void testOnlySafeIdempotentMethodsAreHedged() {
+      HedgedHttpInvoker hedger = new HedgedHttpInvoker(attempts, "DELETE,HEAD,PUT", 100);
+      warmUp(hedger, "delete", 1);
+      warmUp(hedger, "get", 1);
+      SlowFirstCalls http = new SlowFirstCalls(0);
+      // DELETE is idempotent but not safe, and GET is not listed: both are sent once, without tracking latency
+      hedger.invoke(http, "delete", new HttpCommand(get.toBuilder().method("DELETE").build()), 50);
+      hedger.invoke(http, "get", new HttpCommand(get), 50);
+      assertEquals(http.calls.get(), 2);
+      assertEquals(hedger.latencies("delete").percentile(100).get(), Long.valueOf(1));
+   }
+
+   public void testLatencyPercentiles() {
+      Latencies latencies = new Latencies();
+      for (long i = 1; i <= 160; i++)
+         latencies.record(i);
+      assertEquals(latencies.percentile(50).get(), Long.valueOf(80));
+      assertEquals(latencies.percentile(95).get(), Long.valueOf(152));
+      assertEquals(latencies.percentile(100).get(), Long.valueOf(160));
+      assertFalse(new Latencies().percentile(50).isPresent());
+   }
+}
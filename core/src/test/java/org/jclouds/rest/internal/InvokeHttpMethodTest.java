@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
@@ -44,6 +45,8 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.TimeLimiter;
 
 @Test(groups = "unit", singleThreaded = true)
@@ -76,6 +79,7 @@ public class InvokeHttpMethodTest {
    private org.jclouds.Fallback fallback;
    private InvocationConfig config;
    private InvokeHttpMethod invokeHttpMethod;
+   private HedgedHttpInvoker hedger = new HedgedHttpInvoker(MoreExecutors.newDirectExecutorService(), "GET", 10);
 
 
    @SuppressWarnings("unchecked")
@@ -85,7 +89,8 @@ public class InvokeHttpMethodTest {
       timeLimiter = createMock(TimeLimiter.class);
       fallback = createMock(org.jclouds.Fallback.class);
       config = createMock(InvocationConfig.class);
-      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config);
+      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config,
+            MoreExecutors.newDirectExecutorService(), hedger);
       expect(config.getCommandName(get)).andReturn("ns:get");
       expect(config.getFallback(get)).andReturn(fallback);
    }
@@ -105,6 +110,7 @@ public class InvokeHttpMethodTest {
 
    public void testMethodWithNoTimeoutCallGetDirectly() throws Exception {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent());
+      expect(config.getHedgePercentile(get)).andReturn(Optional.<Double> absent());
       expect(http.invoke(new HttpCommand(getRequest))).andReturn(response);
       replay(http, timeLimiter, fallback, config);
       invokeHttpMethod.apply(get);
@@ -115,6 +121,7 @@ public class InvokeHttpMethodTest {
    public void testDirectCallRunsFallbackCreateOrPropagate() throws Exception {
       IllegalStateException exception = new IllegalStateException();
       expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent());
+      expect(config.getHedgePercentile(get)).andReturn(Optional.<Double> absent());
       expect(http.invoke(new HttpCommand(getRequest))).andThrow(exception);
       expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
       replay(http, timeLimiter, fallback, config);
@@ -130,4 +137,28 @@ public class InvokeHttpMethodTest {
       replay(http, timeLimiter, fallback, config);
       assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
    }
+
+   public void testAsyncCallSubmitsBlockingDriverToUserExecutor() throws Exception {
+      expect(http.invoke(new HttpCommand(getRequest))).andReturn(response);
+      replay(http, timeLimiter, fallback, config);
+      assertEquals(invokeHttpMethod.invokeAsync(get).get(), response);
+   }
+
+   public void testAsyncCallUsesAsyncDriver() throws Exception {
+      AsyncHttpCommandExecutorService asyncHttp = createMock(AsyncHttpCommandExecutorService.class);
+      http = asyncHttp;
+      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config,
+            MoreExecutors.newDirectExecutorService(), hedger);
+      expect(asyncHttp.invokeAsync(new HttpCommand(getRequest))).andReturn(Futures.immediateFuture(response));
+      replay(http, timeLimiter, fallback, config);
+      assertEquals(invokeHttpMethod.invokeAsync(get).get(), response);
+   }
+
+   public void testAsyncCallRunsFallbackCreateOrPropagate() throws Exception {
+      IllegalStateException exception = new IllegalStateException();
+      expect(http.invoke(new HttpCommand(getRequest))).andThrow(exception);
+      expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
+      replay(http, timeLimiter, fallback, config);
+      assertEquals(invokeHttpMethod.invokeAsync(get).get(), fallbackResponse);
+   }
 }
@@ -34,6 +34,14 @@ public class Strings2Test {
       assertEquals(Strings2.replaceTokens("hello {where}", ImmutableMultimap.of("where", "$1,000,000 \\o/!")), "hello $1,000,000 \\o/!");
    }
 
+   public void testReplaceTokensMultimap() {
+      assertEquals(Strings2.replaceTokens("no tokens", ImmutableMultimap.of("where", "world")), "no tokens");
+      assertEquals(Strings2.replaceTokens("{greeting} {where}{missing}", ImmutableMultimap.of("greeting", "hello",
+            "where", "world", "where", "moon")), "hello world{missing}");
+      assertEquals(Strings2.replaceTokens("hello {where}", ImmutableMultimap.of("where", "{planet}", "planet",
+            "earth")), "hello earth");
+   }
+
    public void testUrlEncodeDecodeShouldGiveTheSameString() {
       String actual = "ssh-rsa AAAAB3NzaC1yc2EAAAADAQABAAABAQCc903twxU2zcQnIJdXv61RwZNZW94uId9qz08fgsBJsCOnHNIC4+L9k" +
          "DOA2IHV9cUfEDBm1Be5TbpadWwSbS/05E+FARH2/MCO932UgcKUq5PGymS0249fLCBPci5zoLiG5vIym+1ij1hL/nHvkK99NIwe7io+Lmp" +
@@ -35,6 +35,8 @@ import okio.BufferedSink;
 import okio.Okio;
 import okio.Source;
 
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpUtils;
@@ -50,7 +52,11 @@ import org.jclouds.io.Payload;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Inject;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
@@ -58,7 +64,8 @@ import com.squareup.okhttp.Request;
 import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.Response;
 
-public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorService<Request> {
+public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorService<Request>
+      implements AsyncHttpCommandExecutorService {
    private final Function<URI, Proxy> proxyForURI;
    private final OkHttpClient globalClient;
    private final String userAgent;
@@ -147,11 +154,68 @@ public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorS
 
    @Override
    protected HttpResponse invoke(Request nativeRequest) throws IOException, InterruptedException {
+      return toHttpResponse(newCall(nativeRequest).execute());
+   }
+
+   @Override
+   public ListenableFuture<HttpResponse> invokeAsync(HttpCommand command) {
+      return super.invokeAsync(command);
+   }
+
+   /**
+    * Enqueues the call on OkHttp's dispatcher, so no jclouds thread waits for the response. Cancelling the returned
+    * future cancels the call.
+    */
+   @Override
+   protected ListenableFuture<HttpResponse> invokeAsync(Request nativeRequest) throws IOException {
+      CallFuture future = new CallFuture(newCall(nativeRequest));
+      future.call.enqueue(future);
+      return future;
+   }
+
+   private final class CallFuture extends AbstractFuture<HttpResponse> implements Callback {
+      private final Call call;
+
+      CallFuture(Call call) {
+         this.call = call;
+      }
+
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+         if (!super.cancel(mayInterruptIfRunning)) {
+            return false;
+         }
+         call.cancel();
+         return true;
+      }
+
+      @Override
+      public void onFailure(Request request, IOException e) {
+         setException(e);
+      }
+
+      @Override
+      public void onResponse(Response response) {
+         // OkHttp only logs exceptions thrown from callbacks, which would leave the future pending
+         try {
+            if (!set(toHttpResponse(response))) {
+               response.body().close(); // cancelled meanwhile
+            }
+         } catch (IOException e) {
+            setException(e);
+         } catch (RuntimeException e) {
+            setException(e);
+         }
+      }
+   }
+
+   private Call newCall(Request nativeRequest) throws IOException {
       OkHttpClient requestScopedClient = globalClient.clone();
       requestScopedClient.setProxy(proxyForURI.apply(nativeRequest.uri()));
+      return requestScopedClient.newCall(nativeRequest);
+   }
 
-      Response response = requestScopedClient.newCall(nativeRequest).execute();
-
+   private HttpResponse toHttpResponse(Response response) throws IOException {
       HttpResponse.Builder<?> builder = HttpResponse.builder();
       builder.statusCode(response.code());
       builder.message(response.message());
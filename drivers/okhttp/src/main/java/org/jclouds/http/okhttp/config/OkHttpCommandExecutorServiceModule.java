@@ -34,6 +34,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Scopes;
+import com.squareup.okhttp.Dispatcher;
 import com.squareup.okhttp.OkHttpClient;
 
 /**
@@ -75,6 +76,13 @@ public class OkHttpCommandExecutorServiceModule extends AbstractModule {
          // ex. Caused by: java.io.IOException: HTTPS hostname wrong: should be
          // <adriancole.s3int0.s3-external-3.amazonaws.com>
          client.setFollowRedirects(false);
+         // the dispatcher only runs asynchronous calls; blocking ones are bounded by the user executor
+         Dispatcher dispatcher = client.getDispatcher();
+         if (utils.getMaxConnections() > 0) {
+            dispatcher.setMaxRequests(utils.getMaxConnections());
+         }
+         dispatcher.setMaxRequestsPerHost(utils.getMaxConnectionsPerHost() > 0 ? utils.getMaxConnectionsPerHost()
+               : dispatcher.getMaxRequests());
 
          if (utils.relaxHostname()) {
             client.setHostnameVerifier(verifier);
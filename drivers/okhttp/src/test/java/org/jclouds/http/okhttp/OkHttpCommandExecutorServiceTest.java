@@ -16,17 +16,26 @@
  */
 package org.jclouds.http.okhttp;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
 import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.util.Closeables2.closeQuietly;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.Closeable;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -35,6 +44,7 @@ import org.jclouds.http.BaseHttpCommandExecutorServiceIntegrationTest;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
 import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
+import org.jclouds.rest.ResourceNotFoundException;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.PATCH;
 import org.jclouds.rest.binders.BindToStringPayload;
@@ -42,14 +52,17 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
 import com.squareup.okhttp.ConnectionSpec;
+import com.squareup.okhttp.Dispatcher;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.TlsVersion;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import com.squareup.okhttp.mockwebserver.SocketPolicy;
 
 /**
  * Tests the functionality of the {@link OkHttpCommandExecutorService}
@@ -230,6 +243,124 @@ public class OkHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorSer
       }
    }
 
+   private interface AsyncApi extends Closeable {
+      @GET
+      @Path("/objects/{id}")
+      ListenableFuture<String> get(@PathParam("id") String id);
+   }
+
+   @Test
+   public void testAsyncGetIsEnqueued() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("foo"));
+      AsyncApi api = api(AsyncApi.class, server.getUrl("/").toString());
+      try {
+         assertEquals(api.get("1").get(10, SECONDS), "foo");
+         assertEquals(server.getRequestCount(), 1);
+         assertEquals(server.takeRequest().getPath(), "/objects/1");
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testAsyncGetIsRetriedOnServerError() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(500),
+            new MockResponse().setBody("foo"));
+      AsyncApi api = api(AsyncApi.class, server.getUrl("/").toString());
+      try {
+         assertEquals(api.get("1").get(10, SECONDS), "foo");
+         assertEquals(server.getRequestCount(), 2);
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testAsyncGetIsRetriedOnConnectionFailure() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START),
+            new MockResponse().setBody("foo"));
+      AsyncApi api = api(AsyncApi.class, server.getUrl("/").toString());
+      try {
+         assertEquals(api.get("1").get(10, SECONDS), "foo");
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testAsyncGetFailsOnClientError() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(404));
+      AsyncApi api = api(AsyncApi.class, server.getUrl("/").toString());
+      try {
+         api.get("1").get(10, SECONDS);
+         fail("expected the 404 to fail the future");
+      } catch (ExecutionException expected) {
+         assertTrue(expected.getCause() instanceof ResourceNotFoundException, expected.getCause().toString());
+         assertEquals(server.getRequestCount(), 1);
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testCancellingAsyncGetCancelsTheCall() throws Exception {
+      final CountDownLatch respond = new CountDownLatch(1);
+      MockWebServer server = mockWebServer(new com.squareup.okhttp.mockwebserver.Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            respond.await(30, SECONDS);
+            return new MockResponse().setBody("foo");
+         }
+      });
+      ThreadPoolExecutor calls = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, SECONDS,
+            new SynchronousQueue<Runnable>());
+      AsyncApi api = api(AsyncApi.class, server.getUrl("/").toString(), new DispatcherModule(calls));
+      try {
+         ListenableFuture<String> future = api.get("1");
+         server.takeRequest();
+         assertEquals(calls.getActiveCount(), 1);
+
+         assertTrue(future.cancel(true));
+         // the call would otherwise wait for the response until the read timeout
+         for (int i = 0; i < 100 && calls.getActiveCount() > 0; i++) {
+            Thread.sleep(100);
+         }
+         assertEquals(calls.getActiveCount(), 0);
+         assertEquals(server.getRequestCount(), 1);
+      } finally {
+         respond.countDown();
+         closeQuietly(api);
+         server.shutdown();
+         calls.shutdownNow();
+      }
+   }
+
+   @ConfiguresHttpCommandExecutorService
+   private static final class DispatcherModule extends AbstractModule {
+      private final ExecutorService calls;
+
+      DispatcherModule(ExecutorService calls) {
+         this.calls = calls;
+      }
+
+      @Override
+      protected void configure() {
+         install(new OkHttpCommandExecutorServiceModule());
+         bind(OkHttpClientSupplier.class).toInstance(new OkHttpClientSupplier() {
+            @Override
+            public OkHttpClient get() {
+               OkHttpClient client = new OkHttpClient();
+               client.setDispatcher(new Dispatcher(calls));
+               return client;
+            }
+         });
+      }
+   }
+
    @ConfiguresHttpCommandExecutorService
    private static final class ConnectionSpecModule extends AbstractModule {
       private final List<ConnectionSpec> connectionSpecs;
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+
+import com.google.auto.service.AutoService;
+
+/**
+ * Generates an implementation of each http api interface at build time, so that jclouds can use it in place of a
+ * dynamic proxy.
+ * <p>
+ * An interface is an api when it, or one of its own or inherited methods, carries {@code @Path}, {@code @Delegate} or
+ * an http method annotation. Its implementation extends {@code org.jclouds.reflect.GeneratedApi} and is named as
+ * described in {@code org.jclouds.reflect.GeneratedApis}. Generic interfaces, private interfaces and methods throwing a
+ * type variable are skipped, and keep using dynamic proxies.
+ * <p>
+ * Modules opt in by adding {@code jclouds-processor} as a {@code provided} dependency.
+ */
+@AutoService(Processor.class)
+public final class HttpApiProcessor extends AbstractProcessor {
+
+   static final String PREFIX = "GeneratedApi_";
+   private static final String GENERATED_API = "org.jclouds.reflect.GeneratedApi";
+
+   private static final Set<String> API_ANNOTATIONS = unmodifiableSet(new LinkedHashSet<String>(asList(
+         "org.jclouds.rest.annotations.Delegate", "javax.ws.rs.Path", "javax.ws.rs.GET", "javax.ws.rs.PUT",
+         "javax.ws.rs.POST", "javax.ws.rs.DELETE", "javax.ws.rs.HEAD", "javax.ws.rs.OPTIONS",
+         "org.jclouds.rest.annotations.PATCH")));
+
+   private final Set<String> processed = new LinkedHashSet<String>();
+   private Elements elements;
+   private Types types;
+
+   /**
+    * Apis may only inherit their annotated methods, so every interface compiled is inspected.
+    */
+   @Override
+   public Set<String> getSupportedAnnotationTypes() {
+      return Collections.singleton("*");
+   }
+
+   @Override
+   public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+   }
+
+   @Override
+   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      elements = processingEnv.getElementUtils();
+      types = processingEnv.getTypeUtils();
+      for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+         processTypeAndNestedTypes(type);
+      }
+      // other processors may use the same annotations
+      return false;
+   }
+
+   private void processTypeAndNestedTypes(TypeElement type) {
+      if (type.getKind() == ElementKind.INTERFACE && isApi(type) && processed.add(type.getQualifiedName().toString()))
+         generate(type);
+      for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+         processTypeAndNestedTypes(nested);
+      }
+   }
+
+   private boolean isApi(TypeElement type) {
+      if (hasApiAnnotation(type))
+         return true;
+      for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+         if (hasApiAnnotation(method))
+            return true;
+      }
+      return false;
+   }
+
+   private static boolean hasApiAnnotation(Element element) {
+      for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+         TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+         if (API_ANNOTATIONS.contains(annotationType.getQualifiedName().toString()))
+            return true;
+      }
+      return false;
+   }
+
+   private void generate(TypeElement api) {
+      if (!api.getTypeParameters().isEmpty()) {
+         note(api, "generic apis are implemented by dynamic proxies");
+         return;
+      }
+      for (Element enclosing = api; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+         if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+            note(api, "private apis are implemented by dynamic proxies");
+            return;
+         }
+      }
+      List<ExecutableElement> methods = abstractMethods(api);
+      for (ExecutableElement method : methods) {
+         for (TypeMirror thrown : method.getThrownTypes()) {
+            if (thrown.getKind() == TypeKind.TYPEVAR) {
+               note(method, "apis with methods throwing type variables are implemented by dynamic proxies");
+               return;
+            }
+         }
+      }
+
+      String packageName = elements.getPackageOf(api).getQualifiedName().toString();
+      String binaryName = elements.getBinaryName(api).toString();
+      String simpleName = PREFIX + binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_');
+      String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+      try {
+         Writer writer = processingEnv.getFiler().createSourceFile(className, api).openWriter();
+         try {
+            writer.write(source(api, packageName, simpleName, methods));
+         } finally {
+            writer.close();
+         }
+      } catch (IOException e) {
+         processingEnv.getMessager().printMessage(Kind.ERROR, "could not write " + className + ": " + e, api);
+      }
+   }
+
+   /**
+    * Returns the methods an implementation of the api has to define, most specific first when several interfaces
+    * declare the same signature.
+    */
+   private List<ExecutableElement> abstractMethods(TypeElement api) {
+      DeclaredType apiType = (DeclaredType) api.asType();
+      Map<String, ExecutableElement> bySignature = new LinkedHashMap<String, ExecutableElement>();
+      for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(api))) {
+         if (!method.getModifiers().contains(Modifier.ABSTRACT) || method.getModifiers().contains(Modifier.STATIC)
+               || isObjectMethod(method))
+            continue;
+         ExecutableType type = (ExecutableType) types.asMemberOf(apiType, method);
+         StringBuilder signature = new StringBuilder(method.getSimpleName());
+         for (TypeMirror parameterType : type.getParameterTypes()) {
+            signature.append(',').append(types.erasure(parameterType));
+         }
+         ExecutableElement existing = bySignature.get(signature.toString());
+         if (existing == null || types.isSubtype(returnType(apiType, method), returnType(apiType, existing)))
+            bySignature.put(signature.toString(), method);
+      }
+      return new ArrayList<ExecutableElement>(bySignature.values());
+   }
+
+   private TypeMirror returnType(DeclaredType apiType, ExecutableElement method) {
+      return ((ExecutableType) types.asMemberOf(apiType, method)).getReturnType();
+   }
+
+   /**
+    * {@code equals}, {@code hashCode} and {@code toString} are implemented by the generated api's superclass.
+    */
+   private boolean isObjectMethod(ExecutableElement method) {
+      String name = method.getSimpleName().toString();
+      List<? extends TypeMirror> parameters = ((ExecutableType) method.asType()).getParameterTypes();
+      if (parameters.isEmpty())
+         return name.equals("hashCode") || name.equals("toString");
+      return parameters.size() == 1 && name.equals("equals")
+            && types.erasure(parameters.get(0)).toString().equals("java.lang.Object");
+   }
+
+   private String source(TypeElement api, String packageName, String simpleName, List<ExecutableElement> methods) {
+      DeclaredType apiType = (DeclaredType) api.asType();
+      String apiName = api.getQualifiedName().toString();
+      boolean isPublic = true;
+      for (Element enclosing = api; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+         isPublic &= enclosing.getModifiers().contains(Modifier.PUBLIC);
+      }
+      String visibility = isPublic ? "public " : "";
+
+      StringBuilder out = new StringBuilder();
+      if (!packageName.isEmpty())
+         out.append("package ").append(packageName).append(";\n\n");
+      out.append("/**\n * Implementation of {@link ").append(apiName).append("} generated by ")
+            .append(getClass().getName()).append(".\n */\n");
+      out.append("@SuppressWarnings(\"unchecked\")\n");
+      out.append(visibility).append("final class ").append(simpleName).append(" extends ").append(GENERATED_API)
+            .append(" implements ").append(apiName).append(" {\n\n");
+
+      for (int i = 0; i < methods.size(); i++) {
+         ExecutableElement method = methods.get(i);
+         ExecutableType type = (ExecutableType) types.asMemberOf(apiType, method);
+         out.append("   private static final com.google.common.reflect.Invokable<?, java.lang.Object> m").append(i)
+               .append(" = ").append(GENERATED_API).append(".method(").append(apiName).append(".class, \"")
+               .append(method.getSimpleName()).append('"');
+         for (TypeMirror parameterType : type.getParameterTypes()) {
+            out.append(", ").append(types.erasure(parameterType)).append(".class");
+         }
+         out.append(");\n");
+      }
+
+      out.append("\n   ").append(visibility).append(simpleName)
+            .append("(com.google.common.base.Function<org.jclouds.reflect.Invocation, java.lang.Object>")
+            .append(" invocationFunction) {\n")
+            .append("      super(invocationFunction);\n   }\n");
+
+      for (int i = 0; i < methods.size(); i++) {
+         appendMethod(out, i, methods.get(i), (ExecutableType) types.asMemberOf(apiType, methods.get(i)));
+      }
+      out.append("}\n");
+      return out.toString();
+   }
+
+   private void appendMethod(StringBuilder out, int index, ExecutableElement method, ExecutableType type) {
+      out.append("\n   @Override\n   public ");
+      List<? extends TypeParameterElement> typeParameters = method.getTypeParameters();
+      if (!typeParameters.isEmpty()) {
+         out.append('<');
+         for (int i = 0; i < typeParameters.size(); i++) {
+            TypeParameterElement typeParameter = typeParameters.get(i);
+            out.append(i > 0 ? ", " : "").append(typeParameter.getSimpleName());
+            String separator = " extends ";
+            for (TypeMirror bound : typeParameter.getBounds()) {
+               if (bound.toString().equals("java.lang.Object"))
+                  continue;
+               out.append(separator).append(bound);
+               separator = " & ";
+            }
+         }
+         out.append("> ");
+      }
+      TypeMirror returnType = type.getReturnType();
+      out.append(returnType).append(' ').append(method.getSimpleName()).append('(');
+      List<? extends TypeMirror> parameterTypes = type.getParameterTypes();
+      for (int i = 0; i < parameterTypes.size(); i++) {
+         TypeMirror parameterType = parameterTypes.get(i);
+         out.append(i > 0 ? ", " : "");
+         if (method.isVarArgs() && i == parameterTypes.size() - 1)
+            out.append(((ArrayType) parameterType).getComponentType()).append("...");
+         else
+            out.append(parameterType);
+         out.append(" p").append(i);
+      }
+      out.append(')');
+      List<TypeMirror> declared = declaredCheckedExceptions(type.getThrownTypes());
+      if (!type.getThrownTypes().isEmpty()) {
+         out.append(" throws ");
+         for (int i = 0; i < type.getThrownTypes().size(); i++) {
+            out.append(i > 0 ? ", " : "").append(type.getThrownTypes().get(i));
+         }
+      }
+      out.append(" {\n      try {\n         ");
+
+      StringBuilder call = new StringBuilder("super.invoke(m").append(index).append(", new java.lang.Object[] {");
+      for (int i = 0; i < parameterTypes.size(); i++) {
+         call.append(i > 0 ? ", " : " ").append('p').append(i);
+      }
+      call.append(parameterTypes.isEmpty() ? "})" : " })");
+      if (returnType.getKind() == TypeKind.VOID) {
+         out.append(call).append(";\n");
+      } else if (returnType.getKind().isPrimitive()) {
+         out.append("return (").append(types.boxedClass((PrimitiveType) returnType).getQualifiedName()).append(") ")
+               .append(call).append(";\n");
+      } else {
+         out.append("return (").append(returnType).append(") ").append(call).append(";\n");
+      }
+
+      boolean catchesThrowable = false;
+      out.append("      } catch (java.lang.RuntimeException e) {\n         throw e;\n");
+      out.append("      } catch (java.lang.Error e) {\n         throw e;\n");
+      for (TypeMirror exception : declared) {
+         catchesThrowable |= exception.toString().equals("java.lang.Throwable");
+         out.append("      } catch (").append(exception).append(" e) {\n         throw e;\n");
+      }
+      if (!catchesThrowable)
+         out.append("      } catch (java.lang.Throwable e) {\n")
+               .append("         throw new java.lang.reflect.UndeclaredThrowableException(e);\n");
+      out.append("      }\n   }\n");
+   }
+
+   /**
+    * Returns the checked exceptions that need their own catch clause, leaving out those covered by another declared
+    * exception so that no clause is unreachable.
+    */
+   private List<TypeMirror> declaredCheckedExceptions(List<? extends TypeMirror> thrownTypes) {
+      TypeMirror runtimeException = elements.getTypeElement("java.lang.RuntimeException").asType();
+      TypeMirror error = elements.getTypeElement("java.lang.Error").asType();
+      List<TypeMirror> declared = new ArrayList<TypeMirror>();
+      for (int i = 0; i < thrownTypes.size(); i++) {
+         TypeMirror thrown = thrownTypes.get(i);
+         if (types.isSubtype(thrown, runtimeException) || types.isSubtype(thrown, error))
+            continue;
+         boolean covered = false;
+         for (int j = 0; j < thrownTypes.size() && !covered; j++) {
+            TypeMirror other = thrownTypes.get(j);
+            covered = i != j && types.isSubtype(thrown, other) && (!types.isSameType(thrown, other) || j < i);
+         }
+         if (!covered)
+            declared.add(thrown);
+      }
+      return declared;
+   }
+
+   private void note(Element element, String message) {
+      processingEnv.getMessager().printMessage(Kind.NOTE, message, element);
+   }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.processor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import javax.ws.rs.GET;
+
+import org.jclouds.reflect.GeneratedApi;
+import org.jclouds.reflect.GeneratedApis;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.Delegate;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "HttpApiProcessorTest", singleThreaded = true)
+public class HttpApiProcessorTest {
+
+   private static final String SAMPLE_API = Joiner.on('\n').join(
+         "package sample;",
+         "public interface SampleApi extends java.io.Closeable {",
+         "   @javax.ws.rs.GET @javax.ws.rs.Path(\"/items/{id}\")",
+         "   String get(@javax.ws.rs.PathParam(\"id\") String id);",
+         "   @javax.ws.rs.HEAD int count();",
+         "   @javax.ws.rs.DELETE void delete(String... ids);",
+         "   @javax.ws.rs.GET <T extends Comparable<T>> java.util.List<T> sorted(java.util.List<T> in)",
+         "         throws java.io.IOException, java.io.FileNotFoundException;",
+         "   @org.jclouds.rest.annotations.Delegate ChildApi child(String region);",
+         "   interface ChildApi {",
+         "      @javax.ws.rs.HEAD boolean exists();",
+         "   }",
+         "}");
+
+   private static final String GENERIC_API = Joiner.on('\n').join(
+         "package sample;",
+         "public interface GenericApi<T> {",
+         "   @javax.ws.rs.GET T get();",
+         "}");
+
+   private File outputDirectory;
+   private URLClassLoader loader;
+
+   @BeforeClass
+   public void compileSamples() throws IOException {
+      outputDirectory = Files.createTempDir();
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+      CompilationTask task = compiler.getTask(null, null, diagnostics, ImmutableList.of("-d",
+            outputDirectory.getAbsolutePath(), "-classpath", classPath()), null, ImmutableList.of(
+            source("sample.SampleApi", SAMPLE_API), source("sample.GenericApi", GENERIC_API)));
+      task.setProcessors(ImmutableList.of(new HttpApiProcessor()));
+      assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+      loader = new URLClassLoader(new URL[] { outputDirectory.toURI().toURL() }, getClass().getClassLoader());
+   }
+
+   @AfterClass(alwaysRun = true)
+   public void deleteOutput() throws IOException {
+      if (loader != null)
+         loader.close();
+      deleteRecursively(outputDirectory);
+   }
+
+   public void testGeneratesImplementationsOfApisAndNestedApis() throws Exception {
+      Class<?> api = loader.loadClass("sample.SampleApi");
+      Class<?> generated = loader.loadClass("sample.GeneratedApi_SampleApi");
+      assertTrue(api.isAssignableFrom(generated));
+      assertTrue(GeneratedApi.class.isAssignableFrom(generated));
+      assertEquals(GeneratedApis.generatedClassName(api), generated.getName());
+
+      Class<?> child = loader.loadClass("sample.SampleApi$ChildApi");
+      assertEquals(loader.loadClass(GeneratedApis.generatedClassName(child)).getName(),
+            "sample.GeneratedApi_SampleApi_ChildApi");
+   }
+
+   public void testGenericApisAreNotGenerated() throws Exception {
+      Class<?> api = loader.loadClass("sample.GenericApi");
+      assertFalse(GeneratedApis.newInstance(api, new Recorder(null)).isPresent());
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testDispatchesInvocationsToFunction() throws Exception {
+      Recorder recorder = new Recorder(Integer.valueOf(3));
+      Object instance = GeneratedApis.newInstance(loader.loadClass("sample.SampleApi"), recorder).get();
+
+      assertEquals(instance.getClass().getMethod("count").invoke(instance), 3);
+      assertEquals(recorder.invocations.get(0).getInvokable().getName(), "count");
+      assertEquals(recorder.invocations.get(0).getInvokable().getOwnerType().getRawType().getName(),
+            "sample.SampleApi");
+
+      recorder.result = "value";
+      assertEquals(instance.getClass().getMethod("get", String.class).invoke(instance, "id"), "value");
+      Invocation get = recorder.invocations.get(1);
+      assertTrue(get.getInvokable().isAnnotationPresent(GET.class));
+      assertEquals(get.getArgs(), ImmutableList.of("id"));
+
+      String[] ids = { "a", "b" };
+      instance.getClass().getMethod("delete", String[].class).invoke(instance, new Object[] { ids });
+      assertEquals(recorder.invocations.get(2).getArgs(), Arrays.<Object> asList(new Object[] { ids }));
+
+      recorder.result = null;
+      instance.getClass().getMethod("child", String.class).invoke(instance, (Object) null);
+      Invocation child = recorder.invocations.get(3);
+      assertTrue(child.getInvokable().isAnnotationPresent(Delegate.class));
+      assertEquals(child.getArgs(), Arrays.asList((Object) null));
+
+      instance.getClass().getMethod("close").invoke(instance);
+      assertEquals(recorder.invocations.get(4).getInvokable().getDeclaringClass(), java.io.Closeable.class);
+   }
+
+   public void testPropagatesDeclaredExceptions() throws Exception {
+      Recorder recorder = new Recorder(null);
+      recorder.exception = new RuntimeException(new IOException("io"));
+      Object instance = GeneratedApis.newInstance(loader.loadClass("sample.SampleApi"), recorder).get();
+      try {
+         instance.getClass().getMethod("sorted", List.class).invoke(instance, ImmutableList.of());
+         fail("expected IOException");
+      } catch (java.lang.reflect.InvocationTargetException e) {
+         assertEquals(e.getCause().getClass(), IOException.class);
+         assertEquals(e.getCause().getMessage(), "io");
+      }
+   }
+
+   public void testEqualityFollowsFunction() throws Exception {
+      Class<?> api = loader.loadClass("sample.SampleApi");
+      Recorder recorder = new Recorder(null);
+      Object instance = GeneratedApis.newInstance(api, recorder).get();
+      assertEquals(instance, GeneratedApis.newInstance(api, recorder).get());
+      assertEquals(instance.hashCode(), recorder.hashCode());
+      assertEquals(instance.toString(), recorder.toString());
+      assertNotEquals(instance, GeneratedApis.newInstance(api, new Recorder(null)).get());
+      assertTrue(recorder.invocations.isEmpty());
+   }
+
+   private static final class Recorder implements Function<Invocation, Object> {
+      private final List<Invocation> invocations = new ArrayList<Invocation>();
+      private Object result;
+      private RuntimeException exception;
+
+      private Recorder(Object result) {
+         this.result = result;
+      }
+
+      @Override
+      public Object apply(Invocation input) {
+         invocations.add(input);
+         if (exception != null)
+            throw exception;
+         return result;
+      }
+
+      @Override
+      public String toString() {
+         return "recorder";
+      }
+   }
+
+   private static JavaFileObject source(String className, final String content) {
+      return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+            JavaFileObject.Kind.SOURCE) {
+         @Override
+         public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+         }
+      };
+   }
+
+   /**
+    * The samples need the jclouds annotations, guava and jax-rs. Their locations are used rather than
+    * {@code java.class.path}, which may only name a launcher jar.
+    */
+   private static String classPath() {
+      List<String> entries = new ArrayList<String>();
+      for (Class<?> type : ImmutableList.of(GeneratedApi.class, Delegate.class, Function.class, GET.class)) {
+         entries.add(new File(URI.create(type.getProtectionDomain().getCodeSource().getLocation().toString()))
+               .getAbsolutePath());
+      }
+      return Joiner.on(File.pathSeparator).join(entries);
+   }
+
+   private static void deleteRecursively(File file) {
+      if (file == null)
+         return;
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            deleteRecursively(child);
+         }
+      }
+      file.delete();
+   }
+}
@@ -28,6 +28,7 @@ import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -45,6 +46,7 @@ import org.jclouds.azureblob.binders.BindAzureBlobMetadataToMultipartRequest;
 import org.jclouds.azureblob.binders.BindAzureBlocksToRequest;
 import org.jclouds.azureblob.binders.BindAzureContentMetadataToRequest;
 import org.jclouds.azureblob.binders.BindAzureCopyOptionsToRequest;
+import org.jclouds.azureblob.binders.BindBlobBatchDeleteToRequest;
 import org.jclouds.azureblob.binders.BindPublicAccessToRequest;
 import org.jclouds.azureblob.domain.AccessTier;
 import org.jclouds.azureblob.domain.AzureBlob;
@@ -54,6 +56,7 @@ import org.jclouds.azureblob.domain.ListBlobBlocksResponse;
 import org.jclouds.azureblob.domain.ListBlobsResponse;
 import org.jclouds.azureblob.domain.PublicAccess;
 import org.jclouds.azureblob.functions.BlobName;
+import org.jclouds.azureblob.functions.ParseBlobBatchDeleteResponse;
 import org.jclouds.azureblob.functions.ParseBlobFromHeadersAndHttpContent;
 import org.jclouds.azureblob.functions.ParseBlobPropertiesFromHeaders;
 import org.jclouds.azureblob.functions.ParseContainerPropertiesFromHeaders;
@@ -78,8 +81,10 @@ import org.jclouds.io.Payload;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.MapBinder;
 import org.jclouds.rest.annotations.ParamParser;
 import org.jclouds.rest.annotations.ParamValidators;
+import org.jclouds.rest.annotations.PayloadParam;
 import org.jclouds.rest.annotations.QueryParams;
 import org.jclouds.rest.annotations.RequestFilters;
 import org.jclouds.rest.annotations.ResponseParser;
@@ -455,6 +460,23 @@ public interface AzureBlobClient extends Closeable {
    void deleteBlob(
          @PathParam("container") @ParamValidators(ContainerNameValidator.class) String container,
          @PathParam("name") String name);
+
+   /**
+    * The Blob Batch operation deletes up to 256 blobs of a container with a single request. It requires Shared Key
+    * authentication, as the subrequests are signed one by one.
+    *
+    * @return the names of the blobs that could not be deleted, mapped to the HTTP status of their delete, or to -1
+    *         when the response has no part for them; blobs that did not exist count as deleted
+    */
+   @Named("BlobBatch")
+   @POST
+   @QueryParams(keys = "comp", values = "batch")
+   @MapBinder(BindBlobBatchDeleteToRequest.class)
+   @ResponseParser(ParseBlobBatchDeleteResponse.class)
+   Map<String, Integer> deleteBlobs(
+         @PayloadParam("container") @ParamValidators(ContainerNameValidator.class) String container,
+         @PayloadParam("names") List<String> names);
+
    /**
     * @throws org.jclouds.blobstore.ContainerNotFoundException if the container is not present.
     */
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azureblob.binders;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.azure.storage.filters.SharedKeyLiteAuthentication;
+import org.jclouds.azure.storage.reference.AzureStorageHeaders;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.rest.MapBinder;
+import org.jclouds.util.Strings2;
+
+/**
+ * Binds the deletes of up to 256 blobs of a container as the signed subrequests of a Blob Batch request.
+ *
+ * @see <a href="https://docs.microsoft.com/en-us/rest/api/storageservices/blob-batch" />
+ */
+@Singleton
+public class BindBlobBatchDeleteToRequest implements MapBinder {
+   public static final int MAX_BATCH_SIZE = 256;
+   /** Blob Batch is only available from this version of the service on. */
+   public static final String BATCH_API_VERSION = "2018-11-09";
+
+   private static final String BOUNDARY = "batch_boundary";
+   private static final String CRLF = "\r\n";
+
+   private final SharedKeyLiteAuthentication authentication;
+
+   @Inject
+   BindBlobBatchDeleteToRequest(SharedKeyLiteAuthentication authentication) {
+      this.authentication = authentication;
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public <R extends HttpRequest> R bindToRequest(R request, Map<String, Object> postParams) {
+      String container = (String) postParams.get("container");
+      List<String> names = (List<String>) postParams.get("names");
+      checkArgument(!names.isEmpty() && names.size() <= MAX_BATCH_SIZE,
+            "a batch must delete between 1 and %s blobs", MAX_BATCH_SIZE);
+
+      URI endpoint = request.getEndpoint();
+      String containerUri = endpoint.getScheme() + "://" + endpoint.getRawAuthority() + endpoint.getRawPath()
+            + (endpoint.getRawPath().endsWith("/") ? "" : "/") + container + "/";
+      StringBuilder body = new StringBuilder();
+      for (int i = 0; i < names.size(); i++) {
+         HttpRequest delete = authentication.filter(HttpRequest.builder()
+               .method("DELETE")
+               .endpoint(containerUri + Strings2.urlEncode(names.get(i), '/', '$'))
+               .build());
+         URI deleteUri = delete.getEndpoint();
+         body.append("--").append(BOUNDARY).append(CRLF)
+               .append("Content-Type: application/http").append(CRLF)
+               .append("Content-Transfer-Encoding: binary").append(CRLF)
+               .append("Content-ID: ").append(i).append(CRLF)
+               .append(CRLF)
+               .append("DELETE ").append(deleteUri.getRawPath());
+         if (deleteUri.getRawQuery() != null) {
+            body.append('?').append(deleteUri.getRawQuery());
+         }
+         body.append(" HTTP/1.1").append(CRLF);
+         for (Map.Entry<String, String> header : delete.getHeaders().entries()) {
+            body.append(header.getKey()).append(": ").append(header.getValue()).append(CRLF);
+         }
+         body.append("Content-Length: 0").append(CRLF)
+               .append(CRLF);
+      }
+      body.append("--").append(BOUNDARY).append("--").append(CRLF);
+
+      request = (R) request.toBuilder().replaceHeader(AzureStorageHeaders.VERSION, BATCH_API_VERSION).build();
+      Payload payload = Payloads.newStringPayload(body.toString());
+      payload.getContentMetadata().setContentType("multipart/mixed; boundary=" + BOUNDARY);
+      request.setPayload(payload);
+      return request;
+   }
+
+   @Override
+   public <R extends HttpRequest> R bindToRequest(R request, Object input) {
+      throw new UnsupportedOperationException("use map form");
+   }
+}
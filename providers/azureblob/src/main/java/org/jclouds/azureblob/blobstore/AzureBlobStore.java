@@ -19,7 +19,6 @@ package org.jclouds.azureblob.blobstore;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.azure.storage.options.ListOptions.Builder.includeMetadata;
 
-import java.io.InputStream;
 import java.net.URI;
 import java.util.Date;
 import java.util.EnumSet;
@@ -29,10 +28,13 @@ import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.azure.storage.domain.BoundedSet;
 import org.jclouds.azureblob.AzureBlobClient;
+import org.jclouds.azureblob.binders.BindBlobBatchDeleteToRequest;
 import org.jclouds.azureblob.blobstore.functions.AzureBlobToBlob;
 import org.jclouds.azureblob.blobstore.functions.BlobPropertiesToBlobMetadata;
 import org.jclouds.azureblob.blobstore.functions.BlobToAzureBlob;
@@ -68,6 +70,7 @@ import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -82,6 +85,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.io.BaseEncoding;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import org.jclouds.io.ContentMetadataBuilder;
 import org.jclouds.io.Payload;
 
@@ -95,6 +99,9 @@ public class AzureBlobStore extends BaseBlobStore {
    private final BlobToAzureBlob blob2AzureBlob;
    private final BlobPropertiesToBlobMetadata blob2BlobMd;
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
+   private final ListeningExecutorService userExecutor;
+   private final int maxParallelDeletes;
+   private final boolean sasAuthentication;
 
 
    @Inject
@@ -104,7 +111,10 @@ public class AzureBlobStore extends BaseBlobStore {
             ListOptionsToListBlobsOptions blobStore2AzureContainerListOptions,
             ListBlobsResponseToResourceList azure2BlobStoreResourceList, AzureBlobToBlob azureBlob2Blob,
             BlobToAzureBlob blob2AzureBlob, BlobPropertiesToBlobMetadata blob2BlobMd,
-            BlobToHttpGetOptions blob2ObjectGetOptions) {
+            BlobToHttpGetOptions blob2ObjectGetOptions,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            @Named(Constants.PROPERTY_MAX_PARALLEL_DELETES) int maxParallelDeletes,
+            @Named("sasAuth") boolean sasAuthentication) {
       super(context, blobUtils, defaultLocation, locations, slicer);
       this.sync = checkNotNull(sync, "sync");
       this.container2ResourceMd = checkNotNull(container2ResourceMd, "container2ResourceMd");
@@ -115,6 +125,9 @@ public class AzureBlobStore extends BaseBlobStore {
       this.blob2AzureBlob = checkNotNull(blob2AzureBlob, "blob2AzureBlob");
       this.blob2BlobMd = checkNotNull(blob2BlobMd, "blob2BlobMd");
       this.blob2ObjectGetOptions = checkNotNull(blob2ObjectGetOptions, "blob2ObjectGetOptions");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.maxParallelDeletes = maxParallelDeletes;
+      this.sasAuthentication = sasAuthentication;
    }
 
    /**
@@ -320,6 +333,25 @@ public class AzureBlobStore extends BaseBlobStore {
       sync.deleteBlob(container, key);
    }
 
+   /**
+    * This implementation invokes {@link AzureBlobClient#deleteBlobs}, unless the context authenticates with a shared
+    * access signature, which cannot sign the batch subrequests.
+    */
+   @Override
+   public void removeBlobs(final String container, Iterable<String> names) {
+      if (sasAuthentication) {
+         super.removeBlobs(container, names);
+         return;
+      }
+      BlobStoreUtils.removeBlobsInBatches(this, container, names, BindBlobBatchDeleteToRequest.MAX_BATCH_SIZE,
+            userExecutor, maxParallelDeletes, new Function<List<String>, Iterable<String>>() {
+               @Override
+               public Iterable<String> apply(List<String> batch) {
+                  return sync.deleteBlobs(container, batch).keySet();
+               }
+            });
+   }
+
    /**
     *  The Put Block operation creates a block blob on Azure which can be later assembled into
     *  a single, large blob object with the Put Block List operation.
@@ -509,9 +541,4 @@ public class AzureBlobStore extends BaseBlobStore {
    public int getMaximumNumberOfParts() {
       return 50 * 1000;
    }
-
-   @Override
-   public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException("Azure does not support streaming a blob");
-   }
 }
@@ -20,11 +20,13 @@ import static org.jclouds.azure.storage.options.ListOptions.Builder.maxResults;
 import static org.jclouds.azureblob.options.CreateContainerOptions.Builder.withPublicAccess;
 import static org.jclouds.reflect.Reflection2.method;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 
 import org.jclouds.ContextBuilder;
@@ -37,6 +39,7 @@ import org.jclouds.azureblob.domain.AccessTier;
 import org.jclouds.azureblob.domain.AzureBlob;
 import org.jclouds.azureblob.domain.ListBlobsInclude;
 import org.jclouds.azureblob.domain.PublicAccess;
+import org.jclouds.azureblob.functions.ParseBlobBatchDeleteResponse;
 import org.jclouds.azureblob.functions.ParseBlobFromHeadersAndHttpContent;
 import org.jclouds.azureblob.functions.ParseContainerPropertiesFromHeaders;
 import org.jclouds.azureblob.functions.ParsePublicAccessHeader;
@@ -57,6 +60,7 @@ import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.ContentMetadataBuilder;
 import org.jclouds.rest.internal.BaseRestAnnotationProcessingTest;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
@@ -397,6 +401,27 @@ public class AzureBlobClientTest extends BaseRestAnnotationProcessingTest<AzureB
       assertFallbackClassEquals(method, null);
    }
 
+   public void testDeleteBlobs() throws Exception {
+      Invokable<?, ?> method = method(AzureBlobClient.class, "deleteBlobs", String.class, List.class);
+      GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of("container",
+               ImmutableList.of("blob", "dir/blob 2")));
+
+      assertRequestLineEquals(request, "POST https://identity.blob.core.windows.net/?comp=batch HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "x-ms-version: 2018-11-09\n");
+      assertEquals(request.getPayload().getContentMetadata().getContentType(),
+               "multipart/mixed; boundary=batch_boundary");
+      String body = Strings2.toStringAndClose(request.getPayload().openStream());
+      assertTrue(body.startsWith("--batch_boundary\r\nContent-Type: application/http\r\n"), body);
+      assertTrue(body.contains("Content-ID: 0\r\n\r\nDELETE /container/blob HTTP/1.1\r\n"), body);
+      assertTrue(body.contains("Content-ID: 1\r\n\r\nDELETE /container/dir/blob%202 HTTP/1.1\r\n"), body);
+      assertTrue(body.contains("Authorization: SharedKeyLite identity:"), body);
+      assertTrue(body.endsWith("--batch_boundary--\r\n"), body);
+
+      assertResponseParserClassEquals(method, request, ParseBlobBatchDeleteResponse.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, null);
+   }
+
    public void testCopyBlob() throws Exception {
       Invokable<?, ?> method = method(AzureBlobClient.class, "copyBlob", URI.class, String.class, String.class, CopyBlobOptions.class);
       GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of(
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azureblob.functions;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.azureblob.AzureBlobClient;
+import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "ParseBlobBatchDeleteResponseTest")
+public class ParseBlobBatchDeleteResponseTest {
+   private static final String BOUNDARY = "batchresponse_66925647-d0cb-4109-b6d3-28efe3e1e5ed";
+   private static final List<String> NAMES = ImmutableList.of("deleted", "missing", "forbidden", "unanswered");
+
+   public void testFailuresAreMappedToTheirNames() {
+      String body = part(0, "202 Accepted") + part(1, "404 The specified blob does not exist.")
+            + part(2, "403 This request is not authorized to perform this operation.") + "--" + BOUNDARY + "--\r\n";
+
+      Map<String, Integer> failures = parser().apply(response(body, "multipart/mixed; boundary=" + BOUNDARY));
+
+      assertEquals(failures, ImmutableMap.of("forbidden", 403, "unanswered", -1));
+   }
+
+   public void testEmptyWhenAllDeleted() {
+      String body = part(3, "202 Accepted") + part(0, "202 Accepted") + part(2, "202 Accepted")
+            + part(1, "202 Accepted") + "--" + BOUNDARY + "--\r\n";
+
+      assertEquals(parser().apply(response(body, "multipart/mixed; boundary=" + BOUNDARY)),
+            ImmutableMap.<String, Integer> of());
+   }
+
+   @Test(expectedExceptions = HttpException.class)
+   public void testNoBoundary() {
+      parser().apply(response(part(0, "202 Accepted"), "multipart/mixed"));
+   }
+
+   private static ParseBlobBatchDeleteResponse parser() {
+      Invocation invocation = Invocation.create(
+            method(AzureBlobClient.class, "deleteBlobs", String.class, List.class),
+            ImmutableList.<Object> of("container", NAMES));
+      GeneratedHttpRequest request = GeneratedHttpRequest.builder().method("POST")
+            .endpoint(URI.create("https://identity.blob.core.windows.net/container?restype=container&comp=batch"))
+            .invocation(invocation).build();
+      ParseBlobBatchDeleteResponse parser = new ParseBlobBatchDeleteResponse();
+      parser.setContext(request);
+      return parser;
+   }
+
+   private static HttpResponse response(String body, String contentType) {
+      Payload payload = Payloads.newStringPayload(body);
+      payload.getContentMetadata().setContentType(contentType);
+      return HttpResponse.builder().statusCode(202).message("Accepted").payload(payload).build();
+   }
+
+   private static String part(int contentId, String status) {
+      return "--" + BOUNDARY + "\r\n"
+            + "Content-Type: application/http\r\n"
+            + "Content-ID: " + contentId + "\r\n"
+            + "\r\n"
+            + "HTTP/1.1 " + status + "\r\n"
+            + "x-ms-request-id: 778fdc83-801e-0000-62ff-0334671e284f\r\n"
+            + "x-ms-version: 2018-11-09\r\n"
+            + "\r\n";
+   }
+}
@@ -26,7 +26,9 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.jclouds.Constants;
 import org.jclouds.b2.B2Api;
 import org.jclouds.b2.B2ResponseException;
 import org.jclouds.b2.domain.Action;
@@ -77,6 +79,7 @@ import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
@@ -93,15 +96,31 @@ public final class B2BlobStore extends BaseBlobStore {
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
    private final LoadingCache<String, Bucket> bucketNameToBucket;
    private final Supplier<Authorization> auth;
+   private final UploadUrlPool<UploadUrlResponse> uploadUrls;
+   private final UploadUrlPool<GetUploadPartResponse> uploadPartUrls;
 
    @Inject
    B2BlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, final B2Api api,
-            BlobToHttpGetOptions blob2ObjectGetOptions, @Memoized Supplier<Authorization> auth) {
+            BlobToHttpGetOptions blob2ObjectGetOptions, @Memoized Supplier<Authorization> auth,
+            @Named(Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT) int maxConnections,
+            @Named(Constants.PROPERTY_SESSION_INTERVAL) long sessionIntervalSeconds) {
       super(context, blobUtils, defaultLocation, locations, slicer);
       this.api = api;
       this.blob2ObjectGetOptions = blob2ObjectGetOptions;
       this.auth = auth;
+      this.uploadUrls = new UploadUrlPool<UploadUrlResponse>(new Function<String, UploadUrlResponse>() {
+               @Override
+               public UploadUrlResponse apply(String bucketId) {
+                  return api.getObjectApi().getUploadUrl(bucketId);
+               }
+            }, maxConnections, sessionIntervalSeconds, TimeUnit.SECONDS);
+      this.uploadPartUrls = new UploadUrlPool<GetUploadPartResponse>(new Function<String, GetUploadPartResponse>() {
+               @Override
+               public GetUploadPartResponse apply(String fileId) {
+                  return api.getMultipartApi().getUploadPartUrl(fileId);
+               }
+            }, maxConnections, sessionIntervalSeconds, TimeUnit.SECONDS);
       this.bucketNameToBucket = CacheBuilder.newBuilder()
             .expireAfterWrite(5, TimeUnit.MINUTES)
             .build(new CacheLoader<String, Bucket>() {
@@ -240,8 +259,9 @@ public final class B2BlobStore extends BaseBlobStore {
          String oldFileId = getFileId(container, name);
 
          Bucket bucket = getBucket(container);
-         UploadUrlResponse uploadUrl = api.getObjectApi().getUploadUrl(bucket.bucketId());
-         UploadFileResponse uploadFile = api.getObjectApi().uploadFile(uploadUrl, name, null, blob.getMetadata().getUserMetadata(), blob.getPayload());
+         UploadUrlPool.Lease<UploadUrlResponse> uploadUrl = uploadUrls.checkOut(bucket.bucketId());
+         UploadFileResponse uploadFile = api.getObjectApi().uploadFile(uploadUrl.get(), name, null, blob.getMetadata().getUserMetadata(), blob.getPayload());
+         uploadUrls.checkIn(uploadUrl);
 
          if (oldFileId != null) {
             api.getObjectApi().deleteFileVersion(name, oldFileId);
@@ -346,6 +366,7 @@ public final class B2BlobStore extends BaseBlobStore {
 
    @Override
    public void abortMultipartUpload(MultipartUpload mpu) {
+      uploadPartUrls.invalidate(mpu.id());
       api.getMultipartApi().cancelLargeFile(mpu.id());
    }
 
@@ -355,14 +376,16 @@ public final class B2BlobStore extends BaseBlobStore {
       for (MultipartPart part : parts) {
          sha1.add(part.partETag());
       }
+      uploadPartUrls.invalidate(mpu.id());
       B2Object b2Object = api.getMultipartApi().finishLargeFile(mpu.id(), sha1.build());
       return b2Object.contentSha1();  // this is always "none"
    }
 
    @Override
    public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
-      GetUploadPartResponse getUploadPart = api.getMultipartApi().getUploadPartUrl(mpu.id());
-      UploadPartResponse uploadPart = api.getMultipartApi().uploadPart(getUploadPart, partNumber, null, payload);
+      UploadUrlPool.Lease<GetUploadPartResponse> getUploadPart = uploadPartUrls.checkOut(mpu.id());
+      UploadPartResponse uploadPart = api.getMultipartApi().uploadPart(getUploadPart.get(), partNumber, null, payload);
+      uploadPartUrls.checkIn(getUploadPart);
 
       Date lastModified = null;  // B2 does not return Last-Modified
       String contentSha1 = uploadPart.contentSha1();
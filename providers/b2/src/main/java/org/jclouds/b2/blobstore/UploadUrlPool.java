@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Reuses B2 upload URLs, which each carry their own authorization token, so that uploads do not have to ask for a
+ * new one first. A URL may only be used by one upload at a time: callers {@link #checkOut} a lease, and
+ * {@link #checkIn} it again only after a successful upload, since B2 requires a new URL after a failure such as a
+ * 401 or 503.
+ *
+ * @param <T> the response holding the upload URL and its authorization token
+ */
+final class UploadUrlPool<T> {
+   private final Function<String, T> getUploadUrl;
+   private final long maxAgeNanos;
+   private final LoadingCache<String, BlockingQueue<Lease<T>>> pools;
+
+   static final class Lease<T> {
+      private final String id;
+      private final T uploadUrl;
+      private final long obtainedNanos;
+
+      private Lease(String id, T uploadUrl, long obtainedNanos) {
+         this.id = id;
+         this.uploadUrl = uploadUrl;
+         this.obtainedNanos = obtainedNanos;
+      }
+
+      T get() {
+         return uploadUrl;
+      }
+   }
+
+   /**
+    * @param getUploadUrl asks B2 for a new upload URL for a bucket or large file id
+    * @param size how many idle URLs to keep per id, at most the number of concurrent uploads; zero or less keeps
+    *        every URL checked in, matching an unbounded {@code jclouds.max-connections-per-context}
+    * @param maxAge how long to reuse a URL, and to keep the URLs of an id that is no longer uploaded to
+    */
+   UploadUrlPool(Function<String, T> getUploadUrl, final int size, long maxAge, TimeUnit unit) {
+      this.getUploadUrl = getUploadUrl;
+      this.maxAgeNanos = unit.toNanos(maxAge);
+      this.pools = CacheBuilder.newBuilder()
+            .expireAfterAccess(maxAge, unit)
+            .build(new CacheLoader<String, BlockingQueue<Lease<T>>>() {
+               @Override
+               public BlockingQueue<Lease<T>> load(String id) {
+                  // never holds more URLs than uploads have run at once
+                  return size > 0 ? new LinkedBlockingQueue<Lease<T>>(size) : new LinkedBlockingQueue<Lease<T>>();
+               }
+            });
+   }
+
+   Lease<T> checkOut(String id) {
+      BlockingQueue<Lease<T>> pool = pools.getUnchecked(id);
+      long now = System.nanoTime();
+      for (Lease<T> lease = pool.poll(); lease != null; lease = pool.poll()) {
+         if (now - lease.obtainedNanos < maxAgeNanos) {
+            return lease;
+         }
+      }
+      return new Lease<T>(id, getUploadUrl.apply(id), now);
+   }
+
+   void checkIn(Lease<T> lease) {
+      // drops the lease when the pool is full
+      pools.getUnchecked(lease.id).offer(lease);
+   }
+
+   /** Discards the idle URLs of a large file that has been completed or canceled. */
+   void invalidate(String id) {
+      pools.invalidate(id);
+   }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+
+@Test(groups = "unit", testName = "UploadUrlPoolTest")
+public final class UploadUrlPoolTest {
+   private static UploadUrlPool<String> pool(final AtomicInteger requests, int size, long maxAgeNanos) {
+      return new UploadUrlPool<String>(new Function<String, String>() {
+         @Override
+         public String apply(String id) {
+            return id + "-" + requests.incrementAndGet();
+         }
+      }, size, maxAgeNanos, TimeUnit.NANOSECONDS);
+   }
+
+   public void testReusesCheckedInUrl() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 2, TimeUnit.HOURS.toNanos(1));
+
+      UploadUrlPool.Lease<String> lease = pool.checkOut("bucket");
+      pool.checkIn(lease);
+
+      assertEquals(pool.checkOut("bucket").get(), lease.get());
+      assertEquals(requests.get(), 1);
+   }
+
+   public void testConcurrentUploadsGetDistinctUrls() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 2, TimeUnit.HOURS.toNanos(1));
+
+      UploadUrlPool.Lease<String> first = pool.checkOut("bucket");
+      UploadUrlPool.Lease<String> second = pool.checkOut("bucket");
+
+      assertNotEquals(first.get(), second.get());
+      assertEquals(pool.checkOut("other").get(), "other-3");
+   }
+
+   public void testFailedUploadDiscardsUrl() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 2, TimeUnit.HOURS.toNanos(1));
+
+      UploadUrlPool.Lease<String> failed = pool.checkOut("bucket");
+
+      assertNotEquals(pool.checkOut("bucket").get(), failed.get());
+   }
+
+   public void testKeepsAtMostSizeIdleUrls() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 1, TimeUnit.HOURS.toNanos(1));
+
+      UploadUrlPool.Lease<String> first = pool.checkOut("bucket");
+      UploadUrlPool.Lease<String> second = pool.checkOut("bucket");
+      pool.checkIn(first);
+      pool.checkIn(second);
+
+      assertEquals(pool.checkOut("bucket").get(), first.get());
+      assertEquals(pool.checkOut("bucket").get(), "bucket-3");
+   }
+
+   public void testUnboundedSizeKeepsEveryIdleUrl() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 0, TimeUnit.HOURS.toNanos(1));
+
+      UploadUrlPool.Lease<String> first = pool.checkOut("bucket");
+      UploadUrlPool.Lease<String> second = pool.checkOut("bucket");
+      pool.checkIn(first);
+      pool.checkIn(second);
+
+      assertEquals(pool.checkOut("bucket").get(), first.get());
+      assertEquals(pool.checkOut("bucket").get(), second.get());
+      assertEquals(requests.get(), 2);
+   }
+
+   public void testExpiredUrlIsNotReused() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 2, 1);
+
+      UploadUrlPool.Lease<String> lease = pool.checkOut("bucket");
+      pool.checkIn(lease);
+
+      assertNotEquals(pool.checkOut("bucket").get(), lease.get());
+   }
+
+   public void testInvalidateDiscardsIdleUrls() {
+      AtomicInteger requests = new AtomicInteger();
+      UploadUrlPool<String> pool = pool(requests, 2, TimeUnit.HOURS.toNanos(1));
+
+      UploadUrlPool.Lease<String> lease = pool.checkOut("file");
+      pool.checkIn(lease);
+      pool.invalidate("file");
+
+      assertNotEquals(pool.checkOut("file").get(), lease.get());
+   }
+}
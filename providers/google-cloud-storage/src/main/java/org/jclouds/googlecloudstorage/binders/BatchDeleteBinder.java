@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.googlecloudstorage.binders;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.rest.MapBinder;
+import org.jclouds.util.Strings2;
+
+/**
+ * Binds the deletes of up to 100 objects of a bucket as the parts of a JSON API batch request.
+ *
+ * @see <a href="https://cloud.google.com/storage/docs/batch" />
+ */
+public final class BatchDeleteBinder implements MapBinder {
+   public static final int MAX_BATCH_SIZE = 100;
+
+   private static final String BOUNDARY = "batch_boundary";
+   private static final String CRLF = "\r\n";
+
+   @Override public <R extends HttpRequest> R bindToRequest(R request, Map<String, Object> postParams) {
+      String bucketName = (String) postParams.get("bucket");
+      @SuppressWarnings("unchecked")
+      List<String> objectNames = (List<String>) postParams.get("objects");
+      checkArgument(!objectNames.isEmpty() && objectNames.size() <= MAX_BATCH_SIZE,
+            "a batch must delete between 1 and %s objects", MAX_BATCH_SIZE);
+
+      StringBuilder body = new StringBuilder();
+      String bucketPath = "/storage/v1/b/" + Strings2.urlEncode(bucketName) + "/o/";
+      for (int i = 0; i < objectNames.size(); i++) {
+         body.append("--").append(BOUNDARY).append(CRLF)
+               .append("Content-Type: application/http").append(CRLF)
+               .append("Content-ID: <").append(i).append('>').append(CRLF)
+               .append(CRLF)
+               .append("DELETE ").append(bucketPath).append(Strings2.urlEncode(objectNames.get(i)))
+               .append(" HTTP/1.1").append(CRLF)
+               .append(CRLF);
+      }
+      body.append("--").append(BOUNDARY).append("--").append(CRLF);
+
+      Payload payload = Payloads.newStringPayload(body.toString());
+      payload.getContentMetadata().setContentType("multipart/mixed; boundary=" + BOUNDARY);
+      request.setPayload(payload);
+      return request;
+   }
+
+   @Override public <R extends HttpRequest> R bindToRequest(R request, Object input) {
+      throw new UnsupportedOperationException();
+   }
+}
@@ -25,7 +25,9 @@ import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.jclouds.Constants;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -45,12 +47,14 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
 import org.jclouds.googlecloud.config.CurrentProject;
 import org.jclouds.googlecloud.domain.ListPage;
 import org.jclouds.googlecloudstorage.GoogleCloudStorageApi;
+import org.jclouds.googlecloudstorage.binders.BatchDeleteBinder;
 import org.jclouds.googlecloudstorage.blobstore.functions.BlobMetadataToObjectTemplate;
 import org.jclouds.googlecloudstorage.blobstore.functions.BlobStoreListContainerOptionsToListObjectOptions;
 import org.jclouds.googlecloudstorage.blobstore.functions.BucketToStorageMetadata;
@@ -61,12 +65,14 @@ import org.jclouds.googlecloudstorage.domain.DomainResourceReferences;
 import org.jclouds.googlecloudstorage.domain.GoogleCloudStorageObject;
 import org.jclouds.googlecloudstorage.domain.ListPageWithPrefixes;
 import org.jclouds.googlecloudstorage.domain.ObjectAccessControls;
+import org.jclouds.googlecloudstorage.domain.RewriteResponse;
 import org.jclouds.googlecloudstorage.domain.templates.BucketTemplate;
 import org.jclouds.googlecloudstorage.domain.templates.ComposeObjectTemplate;
 import org.jclouds.googlecloudstorage.domain.templates.ObjectAccessControlsTemplate;
 import org.jclouds.googlecloudstorage.domain.templates.ObjectTemplate;
 import org.jclouds.googlecloudstorage.options.InsertObjectOptions;
 import org.jclouds.googlecloudstorage.options.ListObjectOptions;
+import org.jclouds.googlecloudstorage.options.RewriteObjectOptions;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
@@ -78,6 +84,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
 
@@ -89,6 +96,8 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
    private final BlobStoreListContainerOptionsToListObjectOptions listContainerOptionsToListObjectOptions;
    private final Supplier<String> projectId;
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
+   private final ListeningExecutorService userExecutor;
+   private final int maxParallelDeletes;
 
    @Inject GoogleCloudStorageBlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, GoogleCloudStorageApi api,
@@ -97,7 +106,9 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
             BlobMetadataToObjectTemplate blobMetadataToObjectTemplate,
             BlobStoreListContainerOptionsToListObjectOptions listContainerOptionsToListObjectOptions,
             @CurrentProject Supplier<String> projectId,
-            BlobToHttpGetOptions blob2ObjectGetOptions) {
+            BlobToHttpGetOptions blob2ObjectGetOptions,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            @Named(Constants.PROPERTY_MAX_PARALLEL_DELETES) int maxParallelDeletes) {
       super(context, blobUtils, defaultLocation, locations, slicer);
       this.api = api;
       this.bucketToStorageMetadata = bucketToStorageMetadata;
@@ -107,6 +118,8 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
       this.listContainerOptionsToListObjectOptions = listContainerOptionsToListObjectOptions;
       this.projectId = projectId;
       this.blob2ObjectGetOptions = checkNotNull(blob2ObjectGetOptions, "blob2ObjectGetOptions");
+      this.userExecutor = userExecutor;
+      this.maxParallelDeletes = maxParallelDeletes;
    }
 
    @Override
@@ -262,6 +275,17 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
       api.getObjectApi().deleteObject(container, Strings2.urlEncode(name));
    }
 
+   @Override
+   public void removeBlobs(final String container, Iterable<String> names) {
+      BlobStoreUtils.removeBlobsInBatches(this, container, names, BatchDeleteBinder.MAX_BATCH_SIZE, userExecutor,
+            maxParallelDeletes, new Function<List<String>, Iterable<String>>() {
+               @Override
+               public Iterable<String> apply(List<String> batch) {
+                  return api.getObjectApi().deleteObjects(container, batch).keySet();
+               }
+            });
+   }
+
    @Override
    public BlobAccess getBlobAccess(String container, String name) {
       ObjectAccessControls controls = api.getObjectAccessControlsApi().getObjectAccessControls(container,
@@ -319,8 +343,7 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
       }
 
       if (options.contentMetadata() == null && options.userMetadata() == null) {
-         return api.getObjectApi().copyObject(toContainer, Strings2.urlEncode(toName), fromContainer,
-               Strings2.urlEncode(fromName)).etag();
+         return rewriteObject(fromContainer, fromName, toContainer, toName);
       }
 
       ObjectTemplate template = new ObjectTemplate();
@@ -361,6 +384,24 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
             Strings2.urlEncode(fromName), template).etag();
    }
 
+   /**
+    * Copies an object with the rewrite API, which unlike a plain copy is not
+    * bounded by the size of the source object.  GCS may return before the
+    * copy completes; in that case the rewrite token is passed back until the
+    * service reports the object done.
+    */
+   private String rewriteObject(String fromContainer, String fromName, String toContainer, String toName) {
+      String encodedFromName = Strings2.urlEncode(fromName);
+      String encodedToName = Strings2.urlEncode(toName);
+      RewriteResponse response = api.getObjectApi().rewriteObjects(toContainer, encodedToName, fromContainer,
+            encodedFromName);
+      while (!response.done()) {
+         response = api.getObjectApi().rewriteObjects(toContainer, encodedToName, fromContainer, encodedFromName,
+               new RewriteObjectOptions().rewriteToken(response.rewriteToken()));
+      }
+      return response.resource().etag();
+   }
+
    @Override
    public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
       String uploadId = UUID.randomUUID().toString();
@@ -28,11 +28,11 @@ public abstract class RewriteResponse {
    public abstract long objectSize();
    public abstract boolean done();
    @Nullable public abstract String rewriteToken();
-   public abstract GoogleCloudStorageObject resource();
+   @Nullable public abstract GoogleCloudStorageObject resource();
 
    @SerializedNames({"totalBytesRewritten", "objectSize", "done", "rewriteToken", "resource"})
    public static RewriteResponse create(long totalBytesRewritten, long objectSize,
-         boolean done, String rewriteToken, GoogleCloudStorageObject resource) {
+         boolean done, String rewriteToken, @Nullable GoogleCloudStorageObject resource) {
       return new AutoValue_RewriteResponse(totalBytesRewritten, objectSize, done, rewriteToken, resource);
    }
 
@@ -18,6 +18,9 @@ package org.jclouds.googlecloudstorage.features;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
+import java.util.List;
+import java.util.Map;
+
 import javax.inject.Named;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -32,6 +35,7 @@ import javax.ws.rs.Produces;
 
 import org.jclouds.Fallbacks.FalseOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
+import org.jclouds.googlecloudstorage.binders.BatchDeleteBinder;
 import org.jclouds.googlecloudstorage.binders.MultipartUploadBinder;
 import org.jclouds.googlecloudstorage.domain.GoogleCloudStorageObject;
 import org.jclouds.googlecloudstorage.domain.ListPageWithPrefixes;
@@ -46,6 +50,7 @@ import org.jclouds.googlecloudstorage.options.InsertObjectOptions;
 import org.jclouds.googlecloudstorage.options.ListObjectOptions;
 import org.jclouds.googlecloudstorage.options.RewriteObjectOptions;
 import org.jclouds.googlecloudstorage.options.UpdateObjectOptions;
+import org.jclouds.googlecloudstorage.parser.ParseBatchDeleteResponse;
 import org.jclouds.googlecloudstorage.parser.ParseToPayloadEnclosing;
 import org.jclouds.http.options.HttpRequestOptions;
 import org.jclouds.io.Payload;
@@ -222,6 +227,24 @@ public interface ObjectApi {
    boolean deleteObject(@PathParam("bucket") String bucketName, @PathParam("object") @Encoded String objectName,
             DeleteObjectOptions options);
 
+   /**
+    * Deletes up to 100 objects of a bucket with a single batch request.
+    *
+    * @param bucketName
+    *           Name of the bucket in which the objects to be deleted reside
+    * @param objectNames
+    *           Names of the objects, not URL encoded
+    * @return the names of the objects that could not be deleted, mapped to the HTTP status code of their delete.
+    *         Objects that did not exist are not included.
+    */
+   @Named("Object:batchDelete")
+   @POST
+   @Path("batch/storage/v1")
+   @MapBinder(BatchDeleteBinder.class)
+   @ResponseParser(ParseBatchDeleteResponse.class)
+   Map<String, Integer> deleteObjects(@PayloadParam("bucket") String bucketName,
+            @PayloadParam("objects") List<String> objectNames);
+
    /**
     * Retrieves a list of objects matching the criteria.
     *
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.googlecloudstorage.blobstore;
+
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.googlecloudstorage.internal.BaseGoogleCloudStorageApiMockTest;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "GoogleCloudStorageBlobStoreMockTest", singleThreaded = true)
+public class GoogleCloudStorageBlobStoreMockTest extends BaseGoogleCloudStorageApiMockTest {
+
+   public void copyFollowsRewriteTokenUntilDone() throws Exception {
+      server.enqueue(jsonResponse("/object_rewrite_in_progress.json"));
+      server.enqueue(jsonResponse("/object_rewrite.json"));
+
+      assertEquals(blobStore().copyBlob("sourceBucket", "sourceObject", "destinationBucket", "destinationObject",
+            CopyOptions.NONE), "etag");
+
+      assertSent(server, "POST",
+            "/storage/v1/b/sourceBucket/o/sourceObject/rewriteTo/b/destinationBucket/o/destinationObject");
+      assertSent(server, "POST",
+            "/storage/v1/b/sourceBucket/o/sourceObject/rewriteTo/b/destinationBucket/o/destinationObject"
+                  + "?rewriteToken=nextRewriteToken");
+      assertEquals(server.getRequestCount(), 2);
+   }
+
+   public void copyFinishedInOneRewrite() throws Exception {
+      server.enqueue(jsonResponse("/object_rewrite.json"));
+
+      assertEquals(blobStore().copyBlob("sourceBucket", "sourceObject", "destinationBucket", "destinationObject",
+            CopyOptions.NONE), "etag");
+
+      assertSent(server, "POST",
+            "/storage/v1/b/sourceBucket/o/sourceObject/rewriteTo/b/destinationBucket/o/destinationObject");
+      assertEquals(server.getRequestCount(), 1);
+   }
+
+   private BlobStore blobStore() {
+      return builder().buildView(BlobStoreContext.class).getBlobStore();
+   }
+}
@@ -43,6 +43,8 @@ import org.jclouds.io.PayloadEnclosing;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.net.MediaType;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
@@ -136,6 +138,30 @@ public class ObjectApiMockTest extends BaseGoogleCloudStorageApiMockTest {
       assertSent(server, "DELETE", "/storage/v1/b/test/o/dir%2Fobject%20name", null);
    }
 
+   public void batchDelete() throws Exception {
+      server.enqueue(new MockResponse()
+            .addHeader("Content-Type", "multipart/mixed; boundary=batch_abc")
+            .setBody("--batch_abc\r\n"
+                  + "Content-Type: application/http\r\nContent-ID: <response-0>\r\n\r\n"
+                  + "HTTP/1.1 204 No Content\r\nContent-Length: 0\r\n\r\n"
+                  + "--batch_abc\r\n"
+                  + "Content-Type: application/http\r\nContent-ID: <response-1>\r\n\r\n"
+                  + "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n"
+                  + "--batch_abc\r\n"
+                  + "Content-Type: application/http\r\nContent-ID: <response-2>\r\n\r\n"
+                  + "HTTP/1.1 403 Forbidden\r\nContent-Length: 0\r\n\r\n"
+                  + "--batch_abc--\r\n"));
+
+      assertEquals(objectApi().deleteObjects("test", ImmutableList.of("a", "dir/object name", "c", "d")),
+            ImmutableMap.of("c", 403, "d", -1));
+      RecordedRequest request = assertSent(server, "POST", "/batch/storage/v1", null);
+      assertEquals(request.getHeader("Content-Type"), "multipart/mixed; boundary=batch_boundary");
+      String body = new String(request.getBody(), UTF_8);
+      assertTrue(body.contains("Content-ID: <1>\r\n\r\nDELETE /storage/v1/b/test/o/dir%2Fobject%20name HTTP/1.1\r\n"),
+            body);
+      assertTrue(body.endsWith("--batch_boundary--\r\n"), body);
+   }
+
    public void list() throws Exception {
       server.enqueue(jsonResponse("/object_list.json"));
 